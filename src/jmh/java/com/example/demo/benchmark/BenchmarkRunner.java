@@ -0,0 +1,37 @@
+package com.example.demo.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Entry point used by the "jmh" Maven profile.
+ * Runs every benchmark matching the include pattern (first argument) and writes JSON results
+ * to the file named by the jmh.result system property, so runs can be compared across releases
+ * (e.g. with jmh.morethan.io or any JSON diff).
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        String include = args.length > 0 ? args[0] : "com.example.demo.benchmark.*";
+        Path result = Path.of(System.getProperty("jmh.result", "target/jmh/jmh-result.json"));
+        if (result.getParent() != null) {
+            Files.createDirectories(result.getParent());
+        }
+
+        Options options = new OptionsBuilder()
+                .include(include)
+                .resultFormat(ResultFormatType.JSON)
+                .result(result.toString())
+                // Keep the application's audit logging on the hot paths but discard its output
+                .jvmArgsAppend("-Dlogback.configurationFile=logback-benchmark.xml")
+                .build();
+
+        new Runner(options).run();
+        System.out.println("JMH results written to " + result.toAbsolutePath());
+    }
+}
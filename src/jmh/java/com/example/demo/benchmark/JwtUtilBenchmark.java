@@ -0,0 +1,60 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.config.JwtProperties;
+import com.example.demo.service.AuthenticatedUser;
+import com.example.demo.util.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token generation and verification cost in {@link JwtUtil}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private JwtUtil jwtUtil;
+    private Authentication authentication;
+    private String accessToken;
+
+    @Setup
+    public void setUp() {
+        JwtProperties properties = new JwtProperties();
+        properties.setEnabled(true);
+        properties.setSecret("JWTSecretKeyForToDoApplicationThatNeedsToBeAtLeast256BitsLongForHS256Algorithm");
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "jwtProperties", properties);
+
+        List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+        authentication = new UsernamePasswordAuthenticationToken(
+                new AuthenticatedUser(2L, "john", "password123", true, authorities), null, authorities);
+        accessToken = jwtUtil.generateToken(authentication);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(authentication);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtil.validateToken(accessToken);
+    }
+
+    // validateToken + getAllClaimsFromToken (subject and uid) is what JwtAuthenticationFilter does on every request
+    @Benchmark
+    public Long validateAndExtractClaims() {
+        jwtUtil.validateToken(accessToken);
+        return JwtUtil.getUserId(jwtUtil.getAllClaimsFromToken(accessToken));
+    }
+}
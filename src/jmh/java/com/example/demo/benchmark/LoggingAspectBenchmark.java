@@ -0,0 +1,54 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.aspect.LoggingAspect;
+import com.example.demo.service.TokenBlacklistService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call overhead of {@link LoggingAspect} around service methods: the same trivial call made
+ * directly and through an AspectJ proxy carrying the aspect (logback output is discarded).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingAspectBenchmark {
+
+    private TokenBlacklistService target;
+    private TokenBlacklistService advised;
+
+    @Setup
+    public void setUp() {
+        target = new TokenBlacklistService();
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new LoggingAspect());
+        advised = factory.getProxy();
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("john", null, List.of()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public int direct() {
+        return target.getBlacklistedTokenCount();
+    }
+
+    @Benchmark
+    public int throughLoggingAspect() {
+        return advised.getBlacklistedTokenCount();
+    }
+}
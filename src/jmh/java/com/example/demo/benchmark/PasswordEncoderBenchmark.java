@@ -0,0 +1,39 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.config.CustomPasswordEncoder;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CustomPasswordEncoder#matches} as called on every login and Basic-auth request
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+
+    private CustomPasswordEncoder encoder;
+    private String encoded;
+
+    @Setup
+    public void setUp() {
+        encoder = new CustomPasswordEncoder();
+        ReflectionTestUtils.setField(encoder, "pepper", "mySuperSecretKey123!");
+        encoded = encoder.encode("password123");
+    }
+
+    @Benchmark
+    public boolean matchesCorrectPassword() {
+        return encoder.matches("password123", encoded);
+    }
+
+    @Benchmark
+    public boolean matchesWrongPassword() {
+        return encoder.matches("wrongpassword", encoded);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.constants.Priority;
+import com.example.demo.constants.Status;
+import com.example.demo.entity.Task;
+import com.example.demo.entity.User;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Deterministic in-memory users and tasks for benchmarks that do not need a database
+ */
+final class SyntheticTasks {
+
+    private static final String[] CATEGORIES = {"Work", "Personal", "Health", "Learning", "Finance", "Career"};
+
+    final List<User> users = new ArrayList<>();
+    final List<Task> tasks = new ArrayList<>();
+
+    SyntheticTasks(int userCount, int tasksPerUser, int collaboratorsPerTask, long seed) {
+        Random random = new Random(seed);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (int i = 0; i < userCount; i++) {
+            User user = new User((long) (i + 1), "user" + i, "user" + i + "@example.com",
+                    "password123pepper", "USER", now, now, true);
+            users.add(user);
+        }
+
+        long taskId = 1;
+        LocalDate today = LocalDate.now();
+        for (User owner : users) {
+            for (int t = 0; t < tasksPerUser; t++) {
+                Task task = new Task();
+                task.setId(taskId++);
+                task.setTitle("Task " + taskId + " for " + owner.getUsername());
+                task.setDescription("Synthetic benchmark task with a description of typical length for a todo item");
+                task.setDueDate(today.plusDays(random.nextInt(60) - 10));
+                task.setStatus(Status.values()[random.nextInt(Status.values().length)]);
+                task.setPriority(Priority.values()[random.nextInt(Priority.values().length)]);
+                task.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+                task.setCreateDate(today.minusDays(random.nextInt(30)));
+                task.setUpdateDate(today);
+                task.setDeleted(false);
+                task.setUser(owner);
+
+                Set<User> collaborators = new HashSet<>();
+                collaborators.add(owner);
+                for (int c = 0; c < collaboratorsPerTask; c++) {
+                    collaborators.add(users.get(random.nextInt(users.size())));
+                }
+                task.setCollaborators(collaborators);
+                tasks.add(task);
+            }
+        }
+    }
+
+    List<Task> ownedBy(String username) {
+        List<Task> owned = new ArrayList<>();
+        for (Task task : tasks) {
+            if (task.getUser().getUsername().equals(username)) {
+                owned.add(task);
+            }
+        }
+        return owned;
+    }
+}
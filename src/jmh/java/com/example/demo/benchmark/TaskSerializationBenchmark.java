@@ -0,0 +1,43 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.Task;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of task responses with an ObjectMapper configured like Spring Boot's default.
+ * Tasks embed their owner and collaborators, so payload size grows with sharing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskSerializationBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    public int listSize;
+
+    private ObjectMapper objectMapper;
+    private List<Task> tasks;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        SyntheticTasks data = new SyntheticTasks(Math.max(10, listSize / 10), 10, 2, 7L);
+        tasks = data.tasks.subList(0, listSize);
+    }
+
+    @Benchmark
+    public byte[] serializeTaskList() throws Exception {
+        return objectMapper.writeValueAsBytes(tasks);
+    }
+}
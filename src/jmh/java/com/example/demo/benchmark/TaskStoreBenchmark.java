@@ -0,0 +1,134 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.ToDoApplication;
+import com.example.demo.constants.Priority;
+import com.example.demo.dto.TaskChangesResponse;
+import com.example.demo.dto.TaskPatch;
+import com.example.demo.entity.Task;
+import com.example.demo.entity.User;
+import com.example.demo.repo.UserRepo;
+import com.example.demo.service.impl.TaskServiceImpl;
+import com.example.demo.store.TaskStore;
+import jakarta.validation.Validator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Task service calls on each storage engine over the same synthetic dataset: {@code store=jpa} queries H2
+ * through the tasks tables, {@code store=memory} reads the in-memory indexes and appends writes to its
+ * log (in a temporary directory, synced as in production). The views are taken for a mid-sized user, the
+ * patch alternates a task's priority so every call writes. The logging and profiling aspects are left out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskStoreBenchmark {
+
+    @Param({"jpa", "memory"})
+    public String store;
+
+    @Param({"200"})
+    public int users;
+
+    private ConfigurableApplicationContext context;
+    private Path logDirectory;
+    private TaskServiceImpl taskService;
+    private String username;
+    private Long taskId;
+    private LocalDate today;
+    private long cursor;
+    private TaskPatch[] patches;
+    private int nextPatch;
+
+    @Setup
+    public void setUp() throws IOException {
+        logDirectory = Files.createTempDirectory("task-store-benchmark");
+        context = new SpringApplicationBuilder(ToDoApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("dataset")
+                .initializers(applicationContext -> applicationContext.addBeanFactoryPostProcessor(beanFactory -> {
+                    BeanDefinitionRegistry registry = (BeanDefinitionRegistry) beanFactory;
+                    registry.removeBeanDefinition("loggingAspect");
+                    registry.removeBeanDefinition("taskOperationEventAspect");
+                }))
+                .run("--spring.datasource.url=jdbc:h2:mem:taskstore-" + store,
+                        "--dataset.users=" + users,
+                        "--tasks.store=" + store,
+                        "--tasks.store.wal.path=" + logDirectory.resolve("tasks.wal"),
+                        "--warmup.enabled=false",
+                        "--startup.diagnostics.enabled=false",
+                        "--spring.main.banner-mode=off");
+
+        taskService = context.getBean(TaskServiceImpl.class);
+        List<User> loadUsers = context.getBean(UserRepo.class).findByIsActiveTrue().stream()
+                .filter(user -> user.getUsername().startsWith("load_user_"))
+                .toList();
+        User owner = loadUsers.get(loadUsers.size() / 4);
+        username = owner.getUsername();
+        taskId = context.getBean(TaskStore.class).findOwned(owner.getId()).get(0).getId();
+        today = LocalDate.now();
+        cursor = taskService.getTaskChanges(username, null, 1000).getCursor();
+        Validator validator = context.getBean(Validator.class);
+        patches = new TaskPatch[] {
+                TaskPatch.parse(Map.of("priority", "HIGH"), validator),
+                TaskPatch.parse(Map.of("priority", "LOW"), validator)};
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        try (Stream<Path> files = Files.walk(logDirectory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public List<Task> getTasksByUser() {
+        return taskService.getTasksByUser(username);
+    }
+
+    @Benchmark
+    public List<Task> getTasksByUserAndPriority() {
+        return taskService.getTasksByUserAndPriority(username, Priority.HIGH);
+    }
+
+    @Benchmark
+    public List<Task> getTasksDueThisMonth() {
+        return taskService.getTasksByUserAndDueDateRange(username, today, today.plusDays(30));
+    }
+
+    @Benchmark
+    public Page<Task> searchFirstPage() {
+        return taskService.searchTasksByKeywordWithPagination(username, "report", PageRequest.of(0, 20, Sort.by("dueDate")));
+    }
+
+    @Benchmark
+    public Task patchTask() {
+        return taskService.patchTask(taskId, patches[nextPatch++ & 1], username, null);
+    }
+
+    // Mostly the patches above, from the cursor taken at setup
+    @Benchmark
+    public TaskChangesResponse getTaskChanges() {
+        return taskService.getTaskChanges(username, cursor, 100);
+    }
+}
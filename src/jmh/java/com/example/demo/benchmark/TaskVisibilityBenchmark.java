@@ -0,0 +1,149 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.cache.TaskCache;
+import com.example.demo.cache.UserIdCache;
+import com.example.demo.constants.Priority;
+import com.example.demo.entity.Task;
+import com.example.demo.entity.User;
+import com.example.demo.repo.UserRepo;
+import com.example.demo.service.impl.TaskServiceImpl;
+import com.example.demo.store.TaskStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Visibility filtering in {@link TaskServiceImpl} (owned tasks plus tasks shared through collaborators)
+ * measured in isolation: the task store and user repository are replaced by stubs, so the numbers show the
+ * in-JVM cost of the filtering, which follows the tasks the user owns and collaborates on rather than
+ * the total number of tasks. {@code cache=false}
+ * runs single-task lookups and access checks with the task cache and access decisions switched off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskVisibilityBenchmark {
+
+    @Param({"100", "1000"})
+    public int users;
+
+    @Param({"20"})
+    public int tasksPerUser;
+
+    @Param({"true", "false"})
+    public boolean cache;
+
+    private TaskServiceImpl taskService;
+    private TaskCache taskCache;
+    private String username;
+    private long userId;
+    private Long collaboratorTaskId;
+
+    @Setup
+    public void setUp() {
+        SyntheticTasks data = new SyntheticTasks(users, tasksPerUser, 2, 42L);
+        username = data.users.get(users / 2).getUsername();
+        userId = data.users.get(users / 2).getId();
+
+        Map<Long, List<Task>> ownedByUser = new HashMap<>();
+        Map<Long, List<Task>> sharedWithUser = new HashMap<>();
+        Map<Long, Task> byId = new HashMap<>();
+        for (Task task : data.tasks) {
+            ownedByUser.computeIfAbsent(task.getUser().getId(), k -> new ArrayList<>()).add(task);
+            for (User collaborator : task.getCollaborators()) {
+                if (!collaborator.getId().equals(task.getUser().getId())) {
+                    sharedWithUser.computeIfAbsent(collaborator.getId(), k -> new ArrayList<>()).add(task);
+                }
+            }
+            byId.put(task.getId(), task);
+            if (collaboratorTaskId == null && !task.getUser().getUsername().equals(username)
+                    && task.getCollaborators().stream().anyMatch(u -> u.getUsername().equals(username))) {
+                collaboratorTaskId = task.getId();
+            }
+        }
+
+        Map<String, User> usersByName = new HashMap<>();
+        data.users.forEach(user -> usersByName.put(user.getUsername(), user));
+        TaskStore taskStore = taskStoreStub(ownedByUser, sharedWithUser, byId);
+        UserRepo userRepo = stub(UserRepo.class, (method, args) -> switch (method) {
+            case "findByUsername" -> Optional.ofNullable(usersByName.get((String) args[0]));
+            default -> throw new UnsupportedOperationException(method);
+        });
+        taskCache = new TaskCache(cache, 10_000, cache ? 65_536 : 0, taskStore, new SimpleMeterRegistry());
+
+        taskService = new TaskServiceImpl();
+        ReflectionTestUtils.setField(taskService, "taskStore", taskStore);
+        ReflectionTestUtils.setField(taskService, "taskCache", taskCache);
+        ReflectionTestUtils.setField(taskService, "userIdCache", new UserIdCache(userRepo, 10_000));
+        ReflectionTestUtils.setField(taskService, "userRepo", userRepo);
+    }
+
+    @Benchmark
+    public List<Task> getTasksByUser() {
+        return taskService.getTasksByUser(username);
+    }
+
+    @Benchmark
+    public List<Task> getTasksByUserAndStatus() {
+        return taskService.getTasksByUserAndStatus(username, "IN_PROGRESS");
+    }
+
+    @Benchmark
+    public List<Task> getTasksByUserAndPriority() {
+        return taskService.getTasksByUserAndPriority(username, Priority.HIGH);
+    }
+
+    // Single-task lookup where access is granted through a collaborator
+    @Benchmark
+    public Task getTaskByIdAsCollaborator() {
+        return taskService.getTaskByIdAndUser(collaboratorTaskId, username);
+    }
+
+    // The access check in front of updates, deletes and collaborator changes
+    @Benchmark
+    public boolean canAccessAsCollaborator() {
+        return taskCache.canAccess(collaboratorTaskId, userId);
+    }
+
+    private static TaskStore taskStoreStub(Map<Long, List<Task>> ownedByUser, Map<Long, List<Task>> sharedWithUser,
+                                           Map<Long, Task> byId) {
+        return stub(TaskStore.class, (method, args) -> switch (method) {
+            // The service appends to the returned list, so hand out a fresh copy like a real query would
+            case "findOwned" -> new ArrayList<>(ownedByUser.getOrDefault((Long) args[0], List.of()));
+            case "findOwnedByPriority" -> new ArrayList<>(ownedByUser.getOrDefault((Long) args[0], List.of()).stream()
+                    .filter(task -> task.getPriority() == args[1]).toList());
+            // The collaborator index lookup: only the tasks shared with the user, not all of them
+            case "findSharedWith" -> new ArrayList<>(sharedWithUser.getOrDefault((Long) args[0], List.of()));
+            case "findLive" -> Optional.ofNullable(byId.get((Long) args[0]));
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    private interface StubAnswer {
+        Object answer(String method, Object[] args);
+    }
+
+    private static <T> T stub(Class<T> type, StubAnswer answer) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> type.getSimpleName() + "Stub";
+                };
+            }
+            return answer.answer(method.getName(), args);
+        }));
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.service.TokenBlacklistService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TokenBlacklistService#isBlacklisted} at realistic and extreme blacklist sizes.
+ * Probes are fresh String instances so the hash is computed per lookup, as it is for a token
+ * cut from an Authorization header.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class TokenBlacklistBenchmark {
+
+    private static final int PROBES = 1024;
+
+    @Param({"10000", "1000000"})
+    public int size;
+
+    private TokenBlacklistService service;
+    private char[][] hitProbes;
+    private char[][] missProbes;
+    private int cursor;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        service = new TokenBlacklistService();
+        // Fill the backing set directly: blacklistToken() parses each token, which would dominate setup
+        Set<String> blacklisted = (Set<String>) ReflectionTestUtils.getField(service, "blacklistedTokens");
+        for (int i = 0; i < size; i++) {
+            blacklisted.add(token(i));
+        }
+
+        hitProbes = new char[PROBES][];
+        missProbes = new char[PROBES][];
+        for (int i = 0; i < PROBES; i++) {
+            hitProbes[i] = token((int) ((long) i * size / PROBES)).toCharArray();
+            missProbes[i] = token(size + i).toCharArray();
+        }
+    }
+
+    @Benchmark
+    public boolean lookupMiss() {
+        return service.isBlacklisted(new String(missProbes[next()]));
+    }
+
+    @Benchmark
+    public boolean lookupHit() {
+        return service.isBlacklisted(new String(hitProbes[next()]));
+    }
+
+    private int next() {
+        cursor = (cursor + 1) & (PROBES - 1);
+        return cursor;
+    }
+
+    // JWT-shaped string (header.payload.signature) of typical length
+    private static String token(int n) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String payload = encoder.encodeToString(("{\"sub\":\"user" + n + "\",\"tokenType\":\"ACCESS\",\"iat\":1724400000}").getBytes());
+        String signature = encoder.encodeToString(("signature-" + n + "-0123456789abcdefghijklmnopqrstuvwxyz").getBytes());
+        return "eyJhbGciOiJIUzUxMiJ9." + payload + "." + signature;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.ToDoApplication;
+import com.example.demo.entity.Task;
+import com.example.demo.entity.User;
+import com.example.demo.repo.TaskRepo;
+import com.example.demo.repo.UserRepo;
+import com.example.demo.service.impl.TaskServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Task service calls against the real persistence stack (H2 with a small synthetic dataset).
+ * {@code boundary=service} goes through the service's transactions: one read-only transaction per read and
+ * one transaction per write. {@code boundary=repository} calls the same code without them, the way it ran
+ * before: every repository call in its own transaction, inside an open session like open-in-view's.
+ * Per call, the connection checkouts and how long connections were held, the transactions, the flushes and the
+ * benchmark thread's CPU time are printed when each run ends.
+ * The logging and profiling aspects are left out so only the transaction handling differs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionBoundaryBenchmark {
+
+    @Param({"service", "repository"})
+    public String boundary;
+
+    @Param({"200"})
+    public int users;
+
+    private ConfigurableApplicationContext context;
+    private TaskServiceImpl taskService;
+    private EntityManagerFactory entityManagerFactory;
+    private Timer connectionUsage;
+    private Statistics statistics;
+    private ThreadMXBean threads;
+    private String username;
+    private String collaborator;
+    private Long taskId;
+
+    private long calls;
+    private long checkoutsAtStart;
+    private double connectionMillisAtStart;
+    private long cpuNanosAtStart;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ToDoApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("dataset")
+                .initializers(applicationContext -> applicationContext.addBeanFactoryPostProcessor(beanFactory -> {
+                    BeanDefinitionRegistry registry = (BeanDefinitionRegistry) beanFactory;
+                    registry.removeBeanDefinition("loggingAspect");
+                    registry.removeBeanDefinition("taskOperationEventAspect");
+                }))
+                .run("--spring.datasource.url=jdbc:h2:mem:txboundary",
+                        "--dataset.users=" + users,
+                        "--startup.diagnostics.enabled=false",
+                        "--spring.jpa.properties.hibernate.generate_statistics=true",
+                        "--spring.main.banner-mode=off");
+
+        TaskServiceImpl proxy = context.getBean(TaskServiceImpl.class);
+        taskService = "service".equals(boundary) ? proxy : (TaskServiceImpl) AopProxyUtils.getSingletonTarget(proxy);
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+        connectionUsage = context.getBean(MeterRegistry.class).get("hikaricp.connections.usage").timer();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        threads = ManagementFactory.getThreadMXBean();
+
+        // A mid-sized user, one of their tasks and another user to share it with
+        UserRepo userRepo = context.getBean(UserRepo.class);
+        List<User> loadUsers = userRepo.findByIsActiveTrue().stream()
+                .filter(user -> user.getUsername().startsWith("load_user_"))
+                .toList();
+        User owner = loadUsers.get(loadUsers.size() / 4);
+        username = owner.getUsername();
+        collaborator = loadUsers.get(loadUsers.size() - 1).getUsername();
+        taskId = context.getBean(TaskRepo.class).findByUserIdAndDeletedFalse(owner.getId()).get(0).getId();
+
+        statistics.clear();
+        checkoutsAtStart = connectionUsage.count();
+        connectionMillisAtStart = connectionUsage.totalTime(TimeUnit.MILLISECONDS);
+        cpuNanosAtStart = threads.getCurrentThreadCpuTime();
+    }
+
+    @TearDown
+    public void tearDown(BenchmarkParams params) {
+        long cpuNanos = threads.getCurrentThreadCpuTime() - cpuNanosAtStart;
+        double checkouts = connectionUsage.count() - checkoutsAtStart;
+        double connectionMillis = connectionUsage.totalTime(TimeUnit.MILLISECONDS) - connectionMillisAtStart;
+        System.out.printf("%n%s boundary=%s, per call: %.2f connection checkouts held %.1f us, %.2f transactions, "
+                        + "%.2f flushes, %.1f us CPU (%d calls)%n",
+                params.getBenchmark().substring(params.getBenchmark().lastIndexOf('.') + 1), boundary,
+                checkouts / calls, connectionMillis * 1000 / calls,
+                (double) statistics.getTransactionCount() / calls, (double) statistics.getFlushCount() / calls,
+                cpuNanos / 1000.0 / calls, calls);
+        context.close();
+    }
+
+    @Benchmark
+    public List<Task> getTasksByUser() {
+        return call(() -> taskService.getTasksByUser(username));
+    }
+
+    @Benchmark
+    public List<Task> getTasksByUserAndStatus() {
+        return call(() -> taskService.getTasksByUserAndStatus(username, "IN_PROGRESS"));
+    }
+
+    @Benchmark
+    public Task getTaskById() {
+        return call(() -> taskService.getTaskByIdAndUser(taskId, username));
+    }
+
+    // Two writes of several statements each: share the task, then take it back
+    @Benchmark
+    public Task shareAndUnshare() {
+        call(() -> taskService.addCollaborator(taskId, username, collaborator));
+        return call(() -> taskService.removeCollaborator(taskId, username, collaborator));
+    }
+
+    // Without the service's transactions the session stays open around the call, as open-in-view did per request
+    private <T> T call(Supplier<T> operation) {
+        calls++;
+        if ("service".equals(boundary)) {
+            return operation.get();
+        }
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        try {
+            return operation.get();
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+        }
+    }
+}
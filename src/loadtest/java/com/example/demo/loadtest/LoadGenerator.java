@@ -0,0 +1,126 @@
+package com.example.demo.loadtest;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives scenarios with either a closed model (fixed virtual users, each starting its next scenario when
+ * the previous one finishes) or an open model (scenario starts at a fixed arrival rate regardless of
+ * response times; arrivals beyond maxConcurrency plus a small queue are dropped and counted).
+ */
+public class LoadGenerator {
+
+    private final LoadTestConfig config;
+    private final ScenarioExecutor executor;
+    private final LoadTestMetrics metrics;
+    private final String baseUrl;
+    private final AtomicInteger userSequence = new AtomicInteger();
+    private volatile boolean running = true;
+
+    public LoadGenerator(LoadTestConfig config, ScenarioExecutor executor, LoadTestMetrics metrics, String baseUrl) {
+        this.config = config;
+        this.executor = executor;
+        this.metrics = metrics;
+        this.baseUrl = baseUrl;
+    }
+
+    public void run() throws InterruptedException {
+        Thread driver = config.getArrivalRate() > 0
+                ? new Thread(this::runOpenModel, "loadtest-arrivals")
+                : new Thread(this::runClosedModel, "loadtest-closed");
+        driver.start();
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(config.getWarmupSeconds()));
+        metrics.startMeasuring();
+        Thread.sleep(TimeUnit.SECONDS.toMillis(config.getDurationSeconds()));
+        metrics.stopMeasuring();
+
+        running = false;
+        driver.join();
+    }
+
+    private void runClosedModel() {
+        Thread[] threads = new Thread[config.getVirtualUsers()];
+        for (int i = 0; i < threads.length; i++) {
+            VirtualUser user = newVirtualUser();
+            threads[i] = new Thread(() -> {
+                while (running) {
+                    executor.run(user, executor.pick(user), System.nanoTime());
+                    if (config.getThinkTimeMillis() > 0) {
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(config.getThinkTimeMillis()));
+                    }
+                }
+            }, "loadtest-vu-" + user.getId());
+            threads[i].start();
+        }
+        joinAll(threads);
+    }
+
+    private void runOpenModel() {
+        int concurrency = config.getMaxConcurrency();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(concurrency, concurrency, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(concurrency), runnable -> new Thread(runnable, "loadtest-worker"));
+        // Sessions are reused across arrivals so logins happen at most once per concurrent slot
+        Queue<VirtualUser> idleUsers = new ConcurrentLinkedQueue<>();
+
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / config.getArrivalRate());
+        long nextArrival = System.nanoTime();
+        while (running) {
+            long wait = nextArrival - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+                continue;
+            }
+            long scheduledStart = nextArrival;
+            nextArrival += intervalNanos;
+            try {
+                pool.execute(() -> {
+                    VirtualUser user = idleUsers.poll();
+                    if (user == null) {
+                        user = newVirtualUser();
+                    }
+                    try {
+                        executor.run(user, executor.pick(user), scheduledStart);
+                    } finally {
+                        idleUsers.offer(user);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                metrics.recordDroppedArrival();
+            }
+        }
+
+        pool.shutdown();
+        try {
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private VirtualUser newVirtualUser() {
+        int id = userSequence.getAndIncrement();
+        List<LoadTestConfig.Credentials> users = config.getUsers();
+        LoadTestConfig.Credentials credentials = users.get(id % users.size());
+        LoadTestConfig.Credentials peer = users.get((id + 1) % users.size());
+        return new VirtualUser(id, baseUrl, credentials, peer, config.getSeed());
+    }
+
+    private static void joinAll(Thread[] threads) {
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
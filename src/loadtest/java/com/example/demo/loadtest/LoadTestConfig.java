@@ -0,0 +1,65 @@
+package com.example.demo.loadtest;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Load test definition, read from loadtest.json (or the file given by -Dloadtest.config)
+ */
+@Data
+public class LoadTestConfig {
+
+    // Postman collections to read requests from; on duplicate names the first collection wins
+    private List<String> collections = new ArrayList<>();
+
+    // Extra application arguments for the in-process server (e.g. --spring.profiles.active=dataset)
+    private List<String> applicationArgs = new ArrayList<>();
+
+    private List<Credentials> users = new ArrayList<>();
+
+    // Alternative to users: the accounts created by the synthetic dataset generator
+    private int datasetUsers;
+    private String datasetUsernamePrefix = "load_user_";
+    private String datasetPassword = "password123";
+
+    // Steps each virtual user runs once before its first scenario (e.g. login)
+    private List<Step> setup = new ArrayList<>();
+    private List<Scenario> scenarios = new ArrayList<>();
+
+    // Closed model: a fixed number of virtual users looping over scenarios
+    private int virtualUsers = 10;
+    private long thinkTimeMillis;
+
+    // Open model: scenario starts per second, independent of response times (0 = use the closed model)
+    private double arrivalRate;
+    private int maxConcurrency = 200;
+
+    private int warmupSeconds = 10;
+    private int durationSeconds = 60;
+    private long seed = 42L;
+
+    @Data
+    public static class Credentials {
+        private String username;
+        private String password;
+    }
+
+    @Data
+    public static class Scenario {
+        private String name;
+        private int weight = 1;
+        private List<Step> steps = new ArrayList<>();
+    }
+
+    @Data
+    public static class Step {
+        // Request name in the collection, without its "1. " numbering
+        private String request;
+        // Optional body template replacing the collection's body
+        private String body;
+        // Optional expected status replacing the one asserted in the collection's test script
+        private Integer expectStatus;
+    }
+}
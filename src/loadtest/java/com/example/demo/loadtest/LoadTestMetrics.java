@@ -0,0 +1,100 @@
+package com.example.demo.loadtest;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects per-request-name statistics once the warm-up is over
+ */
+public class LoadTestMetrics {
+
+    public static final String SCENARIO_PREFIX = "scenario:";
+
+    private final Map<String, RequestStats> stats = new ConcurrentHashMap<>();
+    // Every request (not scenario), for the overall latency percentiles in the summary
+    private final RequestStats allRequests = new RequestStats();
+    private final LongAdder droppedArrivals = new LongAdder();
+    private volatile boolean measuring;
+    private volatile long measureStartNanos;
+    private volatile long measureEndNanos;
+
+    public void startMeasuring() {
+        measureStartNanos = System.nanoTime();
+        measuring = true;
+    }
+
+    public void stopMeasuring() {
+        measureEndNanos = System.nanoTime();
+        measuring = false;
+    }
+
+    public void record(String name, long latencyNanos, String errorReason) {
+        if (measuring) {
+            stats.computeIfAbsent(name, k -> new RequestStats()).record(latencyNanos, errorReason);
+            if (!name.startsWith(SCENARIO_PREFIX)) {
+                allRequests.record(latencyNanos, errorReason);
+            }
+        }
+    }
+
+    public void recordDroppedArrival() {
+        if (measuring) {
+            droppedArrivals.increment();
+        }
+    }
+
+    /**
+     * Report rows keyed by request name (requests first, then scenarios) plus a summary
+     */
+    public Map<String, Object> report(LoadTestConfig config) {
+        double seconds = Math.max(1e-9, (measureEndNanos - measureStartNanos) / 1e9);
+
+        Map<String, Object> rows = new LinkedHashMap<>();
+        long totalRequests = 0;
+        long totalErrors = 0;
+        for (Map.Entry<String, RequestStats> entry : stats.entrySet().stream()
+                .sorted(Comparator.comparing((Map.Entry<String, RequestStats> e) -> e.getKey().startsWith(SCENARIO_PREFIX))
+                        .thenComparing(Map.Entry::getKey))
+                .toList()) {
+            RequestStats requestStats = entry.getValue();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("requests", requestStats.getRequests());
+            row.put("errors", requestStats.getErrors());
+            row.put("errorRate", requestStats.getRequests() > 0 ? (double) requestStats.getErrors() / requestStats.getRequests() : 0.0);
+            row.put("throughputPerSecond", requestStats.getRequests() / seconds);
+            row.put("meanMs", requestStats.meanMillis());
+            row.put("p50Ms", requestStats.percentileMillis(50));
+            row.put("p90Ms", requestStats.percentileMillis(90));
+            row.put("p99Ms", requestStats.percentileMillis(99));
+            row.put("p999Ms", requestStats.percentileMillis(99.9));
+            row.put("maxMs", requestStats.maxMillis());
+            row.put("errorsByReason", requestStats.errorsByReason());
+            rows.put(entry.getKey(), row);
+            if (!entry.getKey().startsWith(SCENARIO_PREFIX)) {
+                totalRequests += requestStats.getRequests();
+                totalErrors += requestStats.getErrors();
+            }
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("model", config.getArrivalRate() > 0 ? "open" : "closed");
+        summary.put("virtualUsers", config.getArrivalRate() > 0 ? null : config.getVirtualUsers());
+        summary.put("arrivalRatePerSecond", config.getArrivalRate() > 0 ? config.getArrivalRate() : null);
+        summary.put("measuredSeconds", seconds);
+        summary.put("requests", totalRequests);
+        summary.put("errors", totalErrors);
+        summary.put("throughputPerSecond", totalRequests / seconds);
+        summary.put("p50Ms", allRequests.percentileMillis(50));
+        summary.put("p99Ms", allRequests.percentileMillis(99));
+        summary.put("p999Ms", allRequests.percentileMillis(99.9));
+        summary.put("droppedArrivals", droppedArrivals.sum());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("summary", summary);
+        report.put("requests", rows);
+        return report;
+    }
+}
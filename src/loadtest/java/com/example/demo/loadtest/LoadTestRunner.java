@@ -0,0 +1,257 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.ToDoApplication;
+import com.example.demo.dataset.DatasetGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Boots the application in-process on a random port and drives it with the scenarios from loadtest.json,
+ * built from the requests of the repository's Postman collections. Program arguments are passed on to the
+ * application. Run with: mvn -Ploadtest verify -DskipTests [-Dloadtest.virtualUsers=50 | -Dloadtest.arrivalRate=200]
+ * <p>
+ * With -Dloadtest.storageModes=memory,durable it runs once per storage mode and synthetic dataset size
+ * (-Dloadtest.datasetSizes, users), each in a fresh JVM against a freshly loaded database so no run inherits
+ * another's JIT state or heap, and compares throughput and latency percentiles across the runs.
+ */
+public class LoadTestRunner {
+
+    private static final String DEFAULT_DATASET_SIZES = "100,1000";
+
+    public static void main(String[] args) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        String storageModes = System.getProperty("loadtest.storageModes");
+        if (storageModes != null && !storageModes.isBlank()) {
+            runStorageMatrix(objectMapper, storageModes);
+            System.exit(0);
+        }
+
+        LoadTestConfig config = loadConfig(objectMapper);
+        applyOverrides(config);
+
+        Map<String, RequestTemplate> requests = new LinkedHashMap<>();
+        for (String collection : config.getCollections()) {
+            PostmanCollection.load(Path.of(collection), objectMapper, requests);
+        }
+        List<RequestTemplate> setup = ScenarioExecutor.resolve(config.getSetup(), requests);
+        List<ScenarioExecutor.ResolvedScenario> scenarios = new ArrayList<>();
+        for (LoadTestConfig.Scenario scenario : config.getScenarios()) {
+            scenarios.add(new ScenarioExecutor.ResolvedScenario(scenario.getName(), scenario.getWeight(),
+                    ScenarioExecutor.resolve(scenario.getSteps(), requests)));
+        }
+        if (config.getDatasetUsers() > 0) {
+            config.setUsers(datasetUsers(config));
+        }
+
+        Map<String, Object> report = run(config, objectMapper, setup, scenarios, List.of(args));
+        printReport(report);
+        writeReport(report, objectMapper);
+        System.exit(0);
+    }
+
+    private static Map<String, Object> run(LoadTestConfig config, ObjectMapper objectMapper, List<RequestTemplate> setup,
+                                           List<ScenarioExecutor.ResolvedScenario> scenarios,
+                                           List<String> extraApplicationArgs) throws Exception {
+        List<String> applicationArgs = new ArrayList<>(List.of("--server.port=0",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"));
+        applicationArgs.addAll(config.getApplicationArgs());
+        applicationArgs.addAll(extraApplicationArgs);
+
+        try (ConfigurableApplicationContext context = SpringApplication.run(ToDoApplication.class,
+                applicationArgs.toArray(new String[0]))) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String baseUrl = "http://localhost:" + port;
+            System.out.println("Application started on " + baseUrl + ", running "
+                    + (config.getArrivalRate() > 0 ? config.getArrivalRate() + " scenarios/s (open model)"
+                    : config.getVirtualUsers() + " virtual users (closed model)")
+                    + " for " + config.getWarmupSeconds() + "s warm-up + " + config.getDurationSeconds() + "s");
+
+            LoadTestMetrics metrics = new LoadTestMetrics();
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            ScenarioExecutor executor = new ScenarioExecutor(httpClient, objectMapper, metrics, setup, scenarios);
+            new LoadGenerator(config, executor, metrics, baseUrl).run();
+            return metrics.report(config);
+        }
+    }
+
+    /**
+     * One run per dataset size and storage mode ("memory": jdbc:h2:mem, "durable": the durable profile's
+     * H2 file in a fresh directory under the report directory), each in a child JVM with this JVM's options
+     * and loadtest settings, then a summary table of all runs
+     */
+    @SuppressWarnings("unchecked")
+    private static void runStorageMatrix(ObjectMapper objectMapper, String storageModes) throws Exception {
+        Path directory = reportDirectory();
+        Files.createDirectories(directory);
+        Path storageRoot = directory.resolve("storage");
+        List<Map<String, Object>> runs = new ArrayList<>();
+        for (String size : System.getProperty("loadtest.datasetSizes", DEFAULT_DATASET_SIZES).split(",")) {
+            int datasetUsers = Integer.parseInt(size.trim());
+            for (String mode : storageModes.split(",")) {
+                mode = mode.trim();
+                List<String> applicationArgs = new ArrayList<>(List.of("--dataset.users=" + datasetUsers));
+                switch (mode) {
+                    case "memory" -> applicationArgs.add("--spring.profiles.active=dataset");
+                    case "durable" -> {
+                        Path storage = storageRoot.resolve("users-" + datasetUsers);
+                        deleteRecursively(storage);
+                        applicationArgs.add("--spring.profiles.active=durable,dataset");
+                        applicationArgs.add("--storage.path=" + storage.toAbsolutePath());
+                    }
+                    default -> throw new IllegalArgumentException("Unknown storage mode '" + mode
+                            + "', expected memory or durable");
+                }
+                System.out.println("=== storage " + mode + ", " + datasetUsers + " dataset users ===");
+                Path reportFile = directory.resolve("storage-" + mode + "-" + datasetUsers + ".json");
+                Files.deleteIfExists(reportFile);
+                runChild(datasetUsers, reportFile, applicationArgs);
+
+                Map<String, Object> report = objectMapper.readValue(reportFile.toFile(), Map.class);
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("storage", mode);
+                row.put("datasetUsers", datasetUsers);
+                row.putAll(report);
+                runs.add(row);
+            }
+        }
+
+        System.out.println();
+        System.out.printf("%-8s %12s %10s %9s %9s %9s %9s%n",
+                "Storage", "Dataset", "Req/s", "p50 ms", "p99 ms", "p99.9 ms", "Errors");
+        for (Map<String, Object> run : runs) {
+            Map<String, Object> summary = (Map<String, Object>) run.get("summary");
+            System.out.printf("%-8s %12d %10.1f %9.2f %9.2f %9.2f %9d%n", run.get("storage"), run.get("datasetUsers"),
+                    ((Number) summary.get("throughputPerSecond")).doubleValue(), ((Number) summary.get("p50Ms")).doubleValue(),
+                    ((Number) summary.get("p99Ms")).doubleValue(), ((Number) summary.get("p999Ms")).doubleValue(),
+                    ((Number) summary.get("errors")).longValue());
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("runs", runs);
+        Path file = directory.resolve("storage-comparison-" + System.currentTimeMillis() + ".json");
+        objectMapper.writer().with(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+        System.out.println("Report written to " + file.toAbsolutePath());
+    }
+
+    private static void runChild(int datasetUsers, Path reportFile, List<String> applicationArgs) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .filter(argument -> !argument.startsWith("-Dloadtest."))
+                .toList());
+        System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith("loadtest.") && !name.equals("loadtest.storageModes")
+                        && !name.equals("loadtest.datasetSizes") && !name.equals("loadtest.datasetUsers"))
+                .forEach(name -> command.add("-D" + name + "=" + System.getProperty(name)));
+        command.add("-Dloadtest.datasetUsers=" + datasetUsers);
+        command.add("-Dloadtest.reportFile=" + reportFile.toAbsolutePath());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(LoadTestRunner.class.getName());
+        command.addAll(applicationArgs);
+
+        int exitCode = new ProcessBuilder(command).inheritIO().start().waitFor();
+        if (exitCode != 0 || !Files.exists(reportFile)) {
+            throw new IllegalStateException("Load test run failed (exit code " + exitCode + "): " + applicationArgs);
+        }
+    }
+
+    private static LoadTestConfig loadConfig(ObjectMapper objectMapper) throws Exception {
+        String location = System.getProperty("loadtest.config");
+        if (location != null && !location.isBlank()) {
+            return objectMapper.readValue(Path.of(location).toFile(), LoadTestConfig.class);
+        }
+        try (InputStream input = LoadTestRunner.class.getResourceAsStream("/loadtest.json")) {
+            if (input == null) {
+                throw new IllegalStateException("loadtest.json not found on the classpath");
+            }
+            return objectMapper.readValue(input, LoadTestConfig.class);
+        }
+    }
+
+    // The common knobs can be changed from the command line without editing the config file
+    private static void applyOverrides(LoadTestConfig config) {
+        config.setVirtualUsers(Integer.getInteger("loadtest.virtualUsers", config.getVirtualUsers()));
+        config.setMaxConcurrency(Integer.getInteger("loadtest.maxConcurrency", config.getMaxConcurrency()));
+        config.setWarmupSeconds(Integer.getInteger("loadtest.warmupSeconds", config.getWarmupSeconds()));
+        config.setDurationSeconds(Integer.getInteger("loadtest.durationSeconds", config.getDurationSeconds()));
+        config.setDatasetUsers(Integer.getInteger("loadtest.datasetUsers", config.getDatasetUsers()));
+        String arrivalRate = System.getProperty("loadtest.arrivalRate");
+        if (arrivalRate != null && !arrivalRate.isBlank()) {
+            config.setArrivalRate(Double.parseDouble(arrivalRate));
+        }
+    }
+
+    private static List<LoadTestConfig.Credentials> datasetUsers(LoadTestConfig config) {
+        List<LoadTestConfig.Credentials> users = new ArrayList<>();
+        for (int i = 0; i < config.getDatasetUsers(); i++) {
+            LoadTestConfig.Credentials credentials = new LoadTestConfig.Credentials();
+            credentials.setUsername(DatasetGenerator.username(config.getDatasetUsernamePrefix(), i));
+            credentials.setPassword(config.getDatasetPassword());
+            users.add(credentials);
+        }
+        return users;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void printReport(Map<String, Object> report) {
+        System.out.println();
+        System.out.printf("%-32s %9s %8s %9s %9s %9s %9s %9s%n",
+                "Request", "Count", "Errors", "Req/s", "p50 ms", "p90 ms", "p99 ms", "Max ms");
+        Map<String, Map<String, Object>> rows = (Map<String, Map<String, Object>>) report.get("requests");
+        rows.forEach((name, row) -> System.out.printf("%-32s %9d %8d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                name.length() > 32 ? name.substring(0, 32) : name, row.get("requests"), row.get("errors"),
+                row.get("throughputPerSecond"), row.get("p50Ms"), row.get("p90Ms"), row.get("p99Ms"), row.get("maxMs")));
+        System.out.println();
+        System.out.println("Summary: " + report.get("summary"));
+    }
+
+    private static void writeReport(Map<String, Object> report, ObjectMapper objectMapper) throws Exception {
+        String reportFile = System.getProperty("loadtest.reportFile");
+        Path file;
+        if (reportFile != null && !reportFile.isBlank()) {
+            file = Path.of(reportFile);
+        } else {
+            Path directory = reportDirectory();
+            Files.createDirectories(directory);
+            file = directory.resolve("loadtest-report-" + System.currentTimeMillis() + ".json");
+        }
+        objectMapper.writer().with(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+        System.out.println("Report written to " + file.toAbsolutePath());
+    }
+
+    private static Path reportDirectory() {
+        return Path.of(System.getProperty("loadtest.reportDir", "target/loadtest"));
+    }
+
+    private static void deleteRecursively(Path directory) throws Exception {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the requests of Postman v2.1 collections. Test scripts are not executed; the two things the
+ * load test needs from them are extracted: the asserted status code and the variables captured from
+ * the JSON response (pm.collectionVariables.set('taskId', jsonData.id)).
+ */
+public final class PostmanCollection {
+
+    private static final Pattern NUMBERING = Pattern.compile("^\\d+\\.\\s*");
+    private static final Pattern EXPECTED_STATUS = Pattern.compile("to\\.have\\.status\\((\\d{3})\\)");
+    private static final Pattern CAPTURE = Pattern.compile(
+            "pm\\.(?:collectionVariables|environment|globals)\\.set\\(\\s*['\"](\\w+)['\"]\\s*,\\s*jsonData\\.(\\w+)\\s*\\)");
+
+    private PostmanCollection() {
+    }
+
+    /**
+     * Add every request of the collection to the map, keyed by name without its "1. " numbering.
+     * Names already present are kept.
+     */
+    public static void load(Path file, ObjectMapper objectMapper, Map<String, RequestTemplate> requests) throws IOException {
+        // Collection variables (baseUrl, tokens) are ignored: the runner supplies them per virtual user
+        JsonNode collection = objectMapper.readTree(file.toFile());
+        collect(collection.path("item"), requests);
+    }
+
+    private static void collect(JsonNode items, Map<String, RequestTemplate> requests) {
+        for (JsonNode item : items) {
+            if (item.has("item")) {
+                collect(item.path("item"), requests);
+                continue;
+            }
+            JsonNode request = item.path("request");
+            String name = NUMBERING.matcher(item.path("name").asText()).replaceFirst("").trim();
+
+            JsonNode urlNode = request.path("url");
+            String url = urlNode.isTextual() ? urlNode.asText() : urlNode.path("raw").asText();
+
+            Map<String, String> headers = new LinkedHashMap<>();
+            for (JsonNode header : request.path("header")) {
+                if (!header.path("disabled").asBoolean(false)) {
+                    headers.put(header.path("key").asText(), header.path("value").asText());
+                }
+            }
+            String body = "raw".equals(request.path("body").path("mode").asText()) ? request.path("body").path("raw").asText() : null;
+            boolean inheritsAuth = !headers.containsKey("Authorization") && !request.has("auth");
+
+            Integer expectedStatus = null;
+            Map<String, String> captures = new LinkedHashMap<>();
+            for (JsonNode event : item.path("event")) {
+                if (!"test".equals(event.path("listen").asText())) {
+                    continue;
+                }
+                StringBuilder script = new StringBuilder();
+                for (JsonNode line : event.path("script").path("exec")) {
+                    script.append(line.asText()).append('\n');
+                }
+                Matcher status = EXPECTED_STATUS.matcher(script);
+                if (status.find()) {
+                    expectedStatus = Integer.valueOf(status.group(1));
+                }
+                Matcher capture = CAPTURE.matcher(script);
+                while (capture.find()) {
+                    captures.put(capture.group(1), capture.group(2));
+                }
+            }
+
+            requests.putIfAbsent(name, new RequestTemplate(name, request.path("method").asText("GET"), url, headers,
+                    body, inheritsAuth, expectedStatus, captures));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.demo.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and error counts for one request name (or scenario)
+ */
+public class RequestStats {
+
+    private static final long MAX_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final Histogram latencyMicros = new ConcurrentHistogram(MAX_TRACKABLE_MICROS, 3);
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final Map<String, LongAdder> errorsByReason = new ConcurrentHashMap<>();
+
+    public void record(long latencyNanos, String errorReason) {
+        requests.increment();
+        latencyMicros.recordValue(Math.min(MAX_TRACKABLE_MICROS, Math.max(0, latencyNanos / 1000)));
+        if (errorReason != null) {
+            errors.increment();
+            errorsByReason.computeIfAbsent(errorReason, k -> new LongAdder()).increment();
+        }
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public double percentileMillis(double percentile) {
+        return latencyMicros.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    public double maxMillis() {
+        return latencyMicros.getMaxValue() / 1000.0;
+    }
+
+    public double meanMillis() {
+        return latencyMicros.getMean() / 1000.0;
+    }
+
+    public Map<String, Long> errorsByReason() {
+        Map<String, Long> result = new TreeMap<>();
+        errorsByReason.forEach((reason, count) -> result.put(reason, count.sum()));
+        return result;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.demo.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One request from a Postman collection with its {{variable}} placeholders unresolved
+ */
+public class RequestTemplate {
+
+    private static final Pattern VARIABLE = Pattern.compile("\\{\\{\\s*([$\\w]+)\\s*}}");
+
+    private final String name;
+    private final String method;
+    private final String url;
+    private final Map<String, String> headers;
+    private final String body;
+    private final boolean inheritsAuth;
+    private final Integer expectedStatus;
+    // Collection variable -> response JSON field, from pm.collectionVariables.set(...) in the test script
+    private final Map<String, String> captures;
+
+    public RequestTemplate(String name, String method, String url, Map<String, String> headers, String body,
+                           boolean inheritsAuth, Integer expectedStatus, Map<String, String> captures) {
+        this.name = name;
+        this.method = method;
+        this.url = url;
+        this.headers = headers;
+        this.body = body;
+        this.inheritsAuth = inheritsAuth;
+        this.expectedStatus = expectedStatus;
+        this.captures = captures;
+    }
+
+    /**
+     * Copy of this request with the step's overrides applied
+     */
+    public RequestTemplate withOverrides(LoadTestConfig.Step step) {
+        Map<String, String> stepHeaders = new LinkedHashMap<>(headers);
+        if (step.getBody() != null) {
+            stepHeaders.putIfAbsent("Content-Type", "application/json");
+        }
+        return new RequestTemplate(name, method, url, stepHeaders,
+                step.getBody() != null ? step.getBody() : body, inheritsAuth,
+                step.getExpectStatus() != null ? step.getExpectStatus() : expectedStatus, captures);
+    }
+
+    /**
+     * Replace {{name}} with the virtual user's variables and Postman's dynamic variables
+     * ($timestamp, $randomInt, $guid). Unknown variables are left in place so the caller can detect them.
+     */
+    public static String render(String template, Map<String, String> variables) {
+        if (template == null || template.indexOf("{{") < 0) {
+            return template;
+        }
+        Matcher matcher = VARIABLE.matcher(template);
+        StringBuilder result = new StringBuilder();
+        while (matcher.find()) {
+            String variable = matcher.group(1);
+            String value = switch (variable) {
+                case "$timestamp" -> Long.toString(System.currentTimeMillis() / 1000);
+                case "$randomInt" -> Integer.toString(ThreadLocalRandom.current().nextInt(1000));
+                case "$guid" -> UUID.randomUUID().toString();
+                default -> variables.get(variable);
+            };
+            matcher.appendReplacement(result, Matcher.quoteReplacement(value != null ? value : matcher.group()));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    public static boolean isUnresolved(String rendered) {
+        return rendered != null && VARIABLE.matcher(rendered).find();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public boolean isInheritsAuth() {
+        return inheritsAuth;
+    }
+
+    public Integer getExpectedStatus() {
+        return expectedStatus;
+    }
+
+    public Map<String, String> getCaptures() {
+        return captures;
+    }
+}
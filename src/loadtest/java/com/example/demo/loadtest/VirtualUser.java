@@ -0,0 +1,47 @@
+package com.example.demo.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Per-user variable scope, like a Postman collection run: captured tokens and ids stay with the user
+ * and are reused by its later requests. Only touched by one thread at a time.
+ */
+public class VirtualUser {
+
+    private final int id;
+    private final Map<String, String> variables = new HashMap<>();
+    private final SplittableRandom random;
+    private boolean initialized;
+
+    public VirtualUser(int id, String baseUrl, LoadTestConfig.Credentials credentials,
+                       LoadTestConfig.Credentials peer, long seed) {
+        this.id = id;
+        this.random = new SplittableRandom(seed + id);
+        variables.put("baseUrl", baseUrl);
+        variables.put("vuUsername", credentials.getUsername());
+        variables.put("vuPassword", credentials.getPassword());
+        variables.put("peerUsername", peer.getUsername());
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Map<String, String> getVariables() {
+        return variables;
+    }
+
+    public SplittableRandom getRandom() {
+        return random;
+    }
+
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    public void setInitialized(boolean initialized) {
+        this.initialized = initialized;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.demo;
 
+import com.example.demo.config.FastStartConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
@@ -7,7 +8,9 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 public class ToDoApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(ToDoApplication.class, args);
+		SpringApplication application = new SpringApplication(ToDoApplication.class);
+		application.setApplicationStartup(FastStartConfig.applicationStartup(args));
+		application.run(args);
 	}
 
 }
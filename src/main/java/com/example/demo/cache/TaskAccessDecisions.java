@@ -0,0 +1,64 @@
+package com.example.demo.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Direct-mapped table of (taskId, userId) access decisions. A decision is valid while the generation of
+ * its task's stripe is unchanged; any write to the task bumps the stripe. Lookups allocate nothing;
+ * a colliding pair simply overwrites the slot. Shared stripes only cost an occasional extra recheck.
+ */
+final class TaskAccessDecisions {
+
+    static final int UNKNOWN = -1;
+    static final int DENIED = 0;
+    static final int ALLOWED = 1;
+
+    private record Decision(long taskId, long userId, long generation, boolean allowed) {
+    }
+
+    private final AtomicReferenceArray<Decision> slots;
+    private final AtomicLongArray generations;
+    private final int mask;
+
+    TaskAccessDecisions(int size) {
+        int capacity = Math.max(Integer.highestOneBit(Math.max(size, 1) - 1) << 1, 1);
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.generations = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Must be read before the membership it guards, so a concurrent write can only make a decision stale-marked
+     */
+    long generation(long taskId) {
+        return generations.get(stripe(taskId));
+    }
+
+    int lookup(long taskId, long userId, long generation) {
+        Decision decision = slots.get(slot(taskId, userId));
+        if (decision == null || decision.taskId != taskId || decision.userId != userId
+                || decision.generation != generation) {
+            return UNKNOWN;
+        }
+        return decision.allowed ? ALLOWED : DENIED;
+    }
+
+    void store(long taskId, long userId, long generation, boolean allowed) {
+        slots.set(slot(taskId, userId), new Decision(taskId, userId, generation, allowed));
+    }
+
+    void invalidate(long taskId) {
+        generations.incrementAndGet(stripe(taskId));
+    }
+
+    private int stripe(long taskId) {
+        long hash = taskId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private int slot(long taskId, long userId) {
+        long hash = taskId * 0x9E3779B97F4A7C15L ^ userId * 0xC2B2AE3D27D4EB4FL;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
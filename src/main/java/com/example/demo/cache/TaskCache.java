@@ -0,0 +1,140 @@
+package com.example.demo.cache;
+
+import com.example.demo.entity.Task;
+import com.example.demo.store.TaskStore;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of non-deleted tasks by id (Caffeine, size-bounded W-TinyLFU), behind the access
+ * check of every single-task read and write. TaskServiceImpl writes each saved task through and drops
+ * deleted ones; user profile edits clear everything because entries embed owner and collaborator details.
+ * <p>
+ * Loads go through {@code Cache.get}, so an invalidation for a key waits for an in-flight load of that
+ * key and a load can never put back a row older than the write that invalidated it. Inside a transaction
+ * the write-through is held back until commit. Hit, miss, load and eviction counts are published as the
+ * {@code cache.*} meters tagged {@code cache=tasks.by-id}; {@code tasks.cache.enabled=false} bypasses the
+ * cache for A/B runs.
+ * <p>
+ * In front of it sits a table of (taskId, userId) access decisions ({@code tasks.access.cache-size},
+ * 0 to disable), invalidated by every write-through after the entry itself is replaced.
+ */
+@Component
+public class TaskCache {
+
+    public static final String NAME = "tasks.by-id";
+
+    private final Cache<Long, TaskCacheEntry> cache;
+    private final TaskAccessDecisions decisions;
+    private final Function<Long, TaskCacheEntry> loader;
+
+    public TaskCache(@Value("${tasks.cache.enabled:true}") boolean enabled,
+                     @Value("${tasks.cache.max-size:10000}") long maxSize,
+                     @Value("${tasks.access.cache-size:65536}") int accessCacheSize,
+                     TaskStore taskStore,
+                     MeterRegistry meterRegistry) {
+        this.cache = enabled ? Caffeine.newBuilder().maximumSize(maxSize).recordStats().build() : null;
+        this.decisions = accessCacheSize > 0 ? new TaskAccessDecisions(accessCacheSize) : null;
+        this.loader = id -> taskStore.findLive(id).map(TaskCacheEntry::of).orElse(null);
+        if (cache != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, NAME);
+        }
+    }
+
+    /**
+     * The cached task, loading it on a miss. Absent and deleted tasks are not cached.
+     */
+    public Optional<TaskCacheEntry> get(Long id) {
+        return Optional.ofNullable(cache != null ? cache.get(id, loader) : loader.apply(id));
+    }
+
+    /**
+     * Whether the user owns or collaborates on the (non-deleted) task
+     */
+    public boolean canAccess(Long taskId, long userId) {
+        if (decisions == null) {
+            return isMember(taskId, userId);
+        }
+        long generation = decisions.generation(taskId);
+        int decision = decisions.lookup(taskId, userId, generation);
+        if (decision != TaskAccessDecisions.UNKNOWN) {
+            return decision == TaskAccessDecisions.ALLOWED;
+        }
+        boolean allowed = isMember(taskId, userId);
+        decisions.store(taskId, userId, generation, allowed);
+        return allowed;
+    }
+
+    /**
+     * Write a saved task through; a deleted task is dropped instead. Entries only move forward in version.
+     */
+    public void put(Task task) {
+        if (Boolean.TRUE.equals(task.getDeleted())) {
+            invalidate(task.getId());
+            return;
+        }
+        TaskCacheEntry entry = TaskCacheEntry.of(task);
+        afterCommit(() -> {
+            if (cache != null) {
+                cache.asMap().merge(entry.id(), entry, (cached, saved) -> newer(saved, cached) ? saved : cached);
+            }
+            invalidateDecisions(entry.id());
+        });
+    }
+
+    public void invalidate(Long id) {
+        afterCommit(() -> {
+            if (cache != null) {
+                cache.invalidate(id);
+            }
+            invalidateDecisions(id);
+        });
+    }
+
+    /**
+     * Drop every entry, for changes that can surface in any task representation. Access decisions are
+     * by id and stay valid.
+     */
+    public void invalidateAll() {
+        if (cache != null) {
+            afterCommit(cache::invalidateAll);
+        }
+    }
+
+    private boolean isMember(Long taskId, long userId) {
+        TaskCacheEntry entry = cache != null ? cache.get(taskId, loader) : loader.apply(taskId);
+        return entry != null && entry.isMember(userId);
+    }
+
+    private void invalidateDecisions(Long id) {
+        if (decisions != null) {
+            decisions.invalidate(id);
+        }
+    }
+
+    private static boolean newer(TaskCacheEntry saved, TaskCacheEntry cached) {
+        return saved.version() == null || cached.version() == null || saved.version() >= cached.version();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.demo.cache;
+
+import com.example.demo.entity.Task;
+import com.example.demo.entity.User;
+import com.example.demo.event.TaskSnapshot;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable cached copy of a task with the owner and collaborator details its JSON embeds.
+ * Collaborator ids are also kept as a sorted array for allocation-free membership checks;
+ * {@link #toTask()} hands out a detached copy.
+ */
+public record TaskCacheEntry(TaskSnapshot task, Long changeSeq, long[] collaboratorIds, UserView owner,
+                             List<UserView> collaborators) {
+
+    public record UserView(Long id, String username, String email, String password, String role,
+                           Timestamp createdAt, Timestamp updatedAt, boolean active) {
+
+        static UserView of(User user) {
+            return new UserView(user.getId(), user.getUsername(), user.getEmail(), user.getPassword(), user.getRole(),
+                    copy(user.getCreatedAt()), copy(user.getUpdatedAt()), user.isActive());
+        }
+
+        User toUser() {
+            return new User(id, username, email, password, role, copy(createdAt), copy(updatedAt), active);
+        }
+    }
+
+    public static TaskCacheEntry of(Task task) {
+        List<UserView> collaborators = new ArrayList<>();
+        if (task.getCollaborators() != null) {
+            for (User collaborator : task.getCollaborators()) {
+                collaborators.add(UserView.of(collaborator));
+            }
+        }
+        TaskSnapshot snapshot = TaskSnapshot.of(task);
+        long[] collaboratorIds = snapshot.collaboratorIds().stream().mapToLong(Long::longValue).sorted().toArray();
+        return new TaskCacheEntry(snapshot, task.getChangeSeq(), collaboratorIds, task.getUser() != null ? UserView.of(task.getUser()) : null,
+                List.copyOf(collaborators));
+    }
+
+    public Long id() {
+        return task.id();
+    }
+
+    public Long version() {
+        return task.version();
+    }
+
+    public boolean isVisibleTo(String username) {
+        return task.isVisibleTo(username);
+    }
+
+    /**
+     * Owner or collaborator, by user id
+     */
+    public boolean isMember(long userId) {
+        Long ownerId = task.ownerId();
+        return (ownerId != null && ownerId == userId) || hasCollaborator(userId);
+    }
+
+    public boolean hasCollaborator(long userId) {
+        return Arrays.binarySearch(collaboratorIds, userId) >= 0;
+    }
+
+    /**
+     * A new detached Task equal to the cached state; callers may modify it freely
+     */
+    public Task toTask() {
+        Set<User> users = new HashSet<>();
+        for (UserView collaborator : collaborators) {
+            users.add(collaborator.toUser());
+        }
+        Task copy = new Task();
+        copy.setId(task.id());
+        copy.setTitle(task.title());
+        copy.setDescription(task.description());
+        copy.setDueDate(task.dueDate());
+        copy.setStatus(task.status());
+        copy.setCreateDate(task.createDate());
+        copy.setUpdateDate(task.updateDate());
+        copy.setDeleted(task.deleted());
+        copy.setCompletionDate(task.completionDate());
+        copy.setCategory(task.category());
+        copy.setPriority(task.priority());
+        copy.setChangeSeq(changeSeq);
+        copy.setVersion(task.version());
+        copy.setCollaborators(users);
+        copy.setUser(owner != null ? owner.toUser() : null);
+        return copy;
+    }
+
+    private static Timestamp copy(Timestamp timestamp) {
+        return timestamp != null ? new Timestamp(timestamp.getTime()) : null;
+    }
+}
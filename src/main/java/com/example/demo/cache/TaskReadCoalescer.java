@@ -0,0 +1,129 @@
+package com.example.demo.cache;
+
+import com.example.demo.event.TaskVersionTracker;
+import com.example.demo.metrics.ResultItemsAdvice;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for task list reads: concurrent identical requests (same user, same query) share one
+ * read and one serialized JSON body, handed out with its item count for request accounting. A finished result is also handed to identical requests arriving
+ * within the coalescing window ({@code tasks.coalesce.window}).
+ * <p>
+ * The key includes the user's {@link TaskVersionTracker#userTag} read before the flight starts, so a
+ * request made after a committed change the user can see never joins a read from before it.
+ * Outcomes are counted as {@code tasks.read.requests{outcome=executed|coalesced}}.
+ */
+@Component
+public class TaskReadCoalescer {
+
+    private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+    private final AtomicLong lastEviction = new AtomicLong(System.nanoTime());
+    private final TaskVersionTracker taskVersionTracker;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final Counter executed;
+    private final Counter coalesced;
+
+    /**
+     * A serialized list or page and the number of items in it (-1 for any other value)
+     */
+    public record SharedRead(byte[] body, int items) {
+    }
+
+    private static final class Flight {
+        final CompletableFuture<SharedRead> result = new CompletableFuture<>();
+        volatile long completedAt;
+
+        boolean joinable(long now, long windowNanos) {
+            return !result.isDone() || (!result.isCompletedExceptionally() && now - completedAt < windowNanos);
+        }
+    }
+
+    public TaskReadCoalescer(TaskVersionTracker taskVersionTracker,
+                             ObjectMapper objectMapper,
+                             @Value("${tasks.coalesce.enabled:true}") boolean enabled,
+                             @Value("${tasks.coalesce.window:PT0.05S}") Duration window,
+                             MeterRegistry meterRegistry) {
+        this.taskVersionTracker = taskVersionTracker;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.executed = Counter.builder("tasks.read.requests").tag("outcome", "executed")
+                .description("Task list reads executed against the database").register(meterRegistry);
+        this.coalesced = Counter.builder("tasks.read.requests").tag("outcome", "coalesced")
+                .description("Task list reads answered by an identical read in flight or just finished")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The JSON body of the read for this user and query, running the read only if no identical one is
+     * in flight or finished within the window
+     */
+    public SharedRead read(String username, String query, Supplier<?> read) {
+        if (!enabled) {
+            executed.increment();
+            return serialize(read.get());
+        }
+        String key = username + '\n' + query + '\n' + taskVersionTracker.userTag(username);
+        long now = System.nanoTime();
+        Flight candidate = new Flight();
+        Flight flight = flights.compute(key, (k, existing) ->
+                existing != null && existing.joinable(now, windowNanos) ? existing : candidate);
+        if (flight != candidate) {
+            coalesced.increment();
+            try {
+                return flight.result.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        executed.increment();
+        try {
+            SharedRead body = serialize(read.get());
+            flight.completedAt = System.nanoTime();
+            flight.result.complete(body);
+            return body;
+        } catch (RuntimeException | Error e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            // Finished flights only linger for the window; the next request for a stale key replaces it
+            if (windowNanos <= 0 || flight.result.isCompletedExceptionally()) {
+                flights.remove(key, flight);
+            } else {
+                evictExpired(System.nanoTime());
+            }
+        }
+    }
+
+    // At most one sweep per window, by whichever request finishes first
+    private void evictExpired(long now) {
+        long last = lastEviction.get();
+        if (now - last >= windowNanos && lastEviction.compareAndSet(last, now)) {
+            flights.values().removeIf(flight -> !flight.joinable(now, windowNanos));
+        }
+    }
+
+    private SharedRead serialize(Object value) {
+        try {
+            return new SharedRead(objectMapper.writeValueAsBytes(value), ResultItemsAdvice.itemsOf(value));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize task list", e);
+        }
+    }
+}
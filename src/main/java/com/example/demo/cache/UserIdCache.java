@@ -0,0 +1,46 @@
+package com.example.demo.cache;
+
+import com.example.demo.entity.User;
+import com.example.demo.repo.UserRepo;
+import com.example.demo.service.AuthenticatedUser;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+/**
+ * Username to user id, so task queries and access checks use ids instead of usernames. The id of the
+ * authenticated user comes straight from the {@link AuthenticatedUser} principal; other usernames are
+ * looked up and cached. Unknown usernames are not cached; user edits clear it because usernames can change.
+ */
+@Component
+public class UserIdCache {
+
+    public static final long UNKNOWN = -1L;
+
+    private final Cache<String, Long> cache;
+    private final Function<String, Long> loader;
+
+    public UserIdCache(UserRepo userRepo, @Value("${users.id-cache.max-size:10000}") long maxSize) {
+        this.cache = Caffeine.newBuilder().maximumSize(maxSize).build();
+        this.loader = username -> userRepo.findByUsername(username).map(User::getId).orElse(null);
+    }
+
+    public long idOf(String username) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user
+                && user.getId() != null && user.getUsername().equals(username)) {
+            return user.getId();
+        }
+        Long id = cache.get(username, loader);
+        return id != null ? id : UNKNOWN;
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
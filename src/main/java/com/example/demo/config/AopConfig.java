@@ -1,6 +1,7 @@
 package com.example.demo.config;
 
 import com.example.demo.filter.RequestLoggingFilter;
+import com.example.demo.filter.ResourceAccountingFilter;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -18,4 +19,12 @@ public class AopConfig {
         registrationBean.setOrder(1); // Set high priority
         return registrationBean;
     }
+
+    @Bean
+    public FilterRegistrationBean<ResourceAccountingFilter> resourceAccountingFilterRegistration(ResourceAccountingFilter filter) {
+        FilterRegistrationBean<ResourceAccountingFilter> registrationBean = new FilterRegistrationBean<>(filter);
+        registrationBean.addUrlPatterns("/*");
+        registrationBean.setOrder(2); // Inside the logging filter so REQUEST_END can report the sample
+        return registrationBean;
+    }
 }
@@ -9,6 +9,14 @@ public class CustomPasswordEncoder implements PasswordEncoder {
 	@Value("${security.password.pepper}")
 	private String pepper;
 
+	public CustomPasswordEncoder() {
+	}
+
+	// For use outside the Spring context (e.g. the dataset generator CLI)
+	public CustomPasswordEncoder(String pepper) {
+		this.pepper = pepper;
+	}
+
 	@Override
 	public String encode(CharSequence rawPassword) {
 		// Add pepper to password before encoding
@@ -0,0 +1,98 @@
+package com.example.demo.config;
+
+import com.example.demo.replica.ReplicationFeed;
+import com.example.demo.replica.ReplicationTriggers;
+import com.example.demo.shard.ShardRebalancer;
+import com.example.demo.snapshot.SnapshotService;
+import com.example.demo.store.InMemoryTaskStore;
+import com.example.demo.util.CustomLogger;
+import com.example.demo.warmup.WarmupRunner;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Collectors;
+
+/**
+ * The fast-start profile (application-fast-start.properties): beans are created lazily except the ones that
+ * have to run at startup, and the startup steps are recorded and served at /actuator/startup.
+ */
+@Configuration
+@Profile(FastStartConfig.PROFILE)
+public class FastStartConfig {
+
+    public static final String PROFILE = "fast-start";
+
+    private static final CustomLogger logger = CustomLogger.getLogger(FastStartConfig.class);
+
+    // Startup steps kept for /actuator/startup; a start records a few thousand
+    private static final int TIMELINE_CAPACITY = 8192;
+
+    private final int slowestBeans;
+
+    public FastStartConfig(@Value("${startup.timeline.slowest-beans:10}") int slowestBeans) {
+        this.slowestBeans = slowestBeans;
+    }
+
+    /**
+     * The ApplicationStartup for main(): it has to be set before the environment exists, so the profile is
+     * looked up where Spring Boot reads it from (arguments, system property, environment variable).
+     */
+    public static ApplicationStartup applicationStartup(String[] args) {
+        String profiles = Arrays.stream(args)
+                .filter(arg -> arg.startsWith("--spring.profiles.active="))
+                .map(arg -> arg.substring("--spring.profiles.active=".length()))
+                .reduce((first, last) -> last)
+                .orElseGet(() -> System.getProperty("spring.profiles.active", System.getenv("SPRING_PROFILES_ACTIVE")));
+        boolean active = profiles != null && Arrays.stream(profiles.split(","))
+                .anyMatch(profile -> profile.trim().equals(PROFILE));
+        return active ? new BufferingApplicationStartup(TIMELINE_CAPACITY) : ApplicationStartup.DEFAULT;
+    }
+
+    /**
+     * Beans that do their work at startup rather than when first used, so they must stay eager: sample data
+     * and snapshot restore, the replication feeds (replica, and shard setup with the users feed) and their
+     * triggers, the shard index rebuild, the in-memory task store's log replay and the warm-up. A bean no
+     * profile defines is simply not matched.
+     */
+    @Bean
+    static LazyInitializationExcludeFilter startupWorkExcludeFilter() {
+        return LazyInitializationExcludeFilter.forBeanTypes(SampleDataInitializer.class, SnapshotService.class,
+                ReplicationFeed.class, ReplicationTriggers.class, ShardRebalancer.class, InMemoryTaskStore.class,
+                WarmupRunner.class);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void logSlowestBeans(ApplicationReadyEvent event) {
+        if (!(event.getApplicationContext().getApplicationStartup() instanceof BufferingApplicationStartup startup)) {
+            return;
+        }
+        StartupTimeline timeline = startup.getBufferedTimeline();
+        String slowest = timeline.getEvents().stream()
+                .filter(step -> step.getStartupStep().getName().equals("spring.beans.instantiate"))
+                .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                .limit(slowestBeans)
+                .map(step -> beanName(step) + " " + step.getDuration().toMillis() + " ms")
+                .collect(Collectors.joining(", "));
+        logger.info("Ready in {} ms; slowest beans (including their dependencies): {}",
+                event.getTimeTaken().toMillis(), slowest);
+    }
+
+    private static String beanName(StartupTimeline.TimelineEvent step) {
+        for (var tag : step.getStartupStep().getTags()) {
+            if (tag.getKey().equals("beanName")) {
+                return tag.getValue();
+            }
+        }
+        return "?";
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.demo.config;
+
+import com.example.demo.util.CustomLogger;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Loads the sample data (data.sql) only into a database without users, after the Flyway migrations.
+ * Used by the durable profile, where Spring's script initialization would insert it again on every restart,
+ * and the snapshot profile, where a database restored from a valid snapshot already has its users.
+ */
+@Component
+@DependsOnDatabaseInitialization
+@ConditionalOnProperty(name = "storage.seed-sample-data", havingValue = "true")
+public class SampleDataInitializer implements InitializingBean {
+
+    private static final CustomLogger logger = CustomLogger.getLogger(SampleDataInitializer.class);
+
+    private final DataSource dataSource;
+    private final Resource data;
+
+    public SampleDataInitializer(DataSource dataSource,
+                                 @Value("${spring.sql.init.data-locations:classpath:data.sql}") Resource data) {
+        this.dataSource = dataSource;
+        this.data = data;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Long users = new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM users", Long.class);
+        if (users != null && users > 0) {
+            logger.info("Database already has {} users, sample data not loaded", users);
+            return;
+        }
+        new ResourceDatabasePopulator(data).execute(dataSource);
+        logger.info("Sample data loaded from {}", data.getDescription());
+    }
+}
@@ -2,6 +2,7 @@ package com.example.demo.config;
 
 import com.example.demo.filter.JwtAuthenticationFilter;
 import com.example.demo.util.CustomLogger;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -70,9 +71,14 @@ public class SpringSecurityConfiguration {
 					.csrf(csrf -> csrf.disable())
 					.sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
 					.authorizeHttpRequests(auth -> auth
+							// Async re-dispatches (streamed downloads, SSE) were authorized on the initial request
+							.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
 							.requestMatchers("/auth/login", "/auth/refresh", "/auth/validate", "/auth/status", "/auth/config").permitAll() 
 							.requestMatchers("/h2-console/**").permitAll()
 							.requestMatchers("/swagger-ui/**", "/v3/api-docs/**", "/swagger-ui.html", "/swagger-resources/**", "/webjars/**").permitAll()
+							// Liveness/readiness probes from the load balancer
+							.requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+							.requestMatchers("/actuator/requestresources/**", "/actuator/metrics/**", "/actuator/shards/**", "/actuator/startup/**").hasRole("ADMIN")
 							.anyRequest().authenticated())
 					.userDetailsService(customUserDetailsService)
 					.addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
@@ -86,9 +92,14 @@ public class SpringSecurityConfiguration {
 					.csrf(csrf -> csrf.disable())
 					.sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED))
 					.authorizeHttpRequests(auth -> auth
+							// Async re-dispatches (streamed downloads, SSE) were authorized on the initial request
+							.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
 							.requestMatchers("/auth/config", "/auth/register").permitAll()
 							.requestMatchers("/h2-console/**").permitAll()
 							.requestMatchers("/swagger-ui/**", "/v3/api-docs/**", "/swagger-ui.html", "/swagger-resources/**", "/webjars/**").permitAll()
+							// Liveness/readiness probes from the load balancer
+							.requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+							.requestMatchers("/actuator/requestresources/**", "/actuator/metrics/**", "/actuator/shards/**", "/actuator/startup/**").hasRole("ADMIN")
 							.anyRequest().authenticated())
 					.httpBasic(basic -> basic.realmName("ToDo Application"))
 					.userDetailsService(customUserDetailsService)
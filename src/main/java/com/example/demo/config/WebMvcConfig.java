@@ -0,0 +1,20 @@
+package com.example.demo.config;
+
+import com.example.demo.filter.TaskETagInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private TaskETagInterceptor taskETagInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Conditional GET on @TaskETag endpoints (GET /tasks, /tasks/paginated, /tasks/{id})
+        registry.addInterceptor(taskETagInterceptor).addPathPatterns("/tasks", "/tasks/**");
+    }
+}
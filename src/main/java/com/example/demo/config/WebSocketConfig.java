@@ -0,0 +1,28 @@
+package com.example.demo.config;
+
+import com.example.demo.event.TaskChannelHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    @Autowired
+    private TaskChannelHandler taskChannelHandler;
+
+    @Value("${tasks.ws.allowed-origins:*}")
+    private String[] allowedOrigins;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        // Per-task live collaboration channel: ws://host/ws/tasks/{id}?token=<jwt>
+        registry.addHandler(taskChannelHandler, "/ws/tasks/*")
+                .addInterceptors(taskChannelHandler)
+                .setAllowedOriginPatterns(allowedOrigins);
+    }
+}
@@ -1,10 +1,30 @@
 package com.example.demo.constants;
 
 /**
- * Enum representing task priority levels
+ * Enum representing task priority levels. Stored as {@link #code()} (tasks.priority); codes rise with
+ * rank, so ordering by the column sorts LOW, MEDIUM, HIGH. Never renumber a code.
  */
 public enum Priority {
-    LOW,
-    MEDIUM,
-    HIGH
+    LOW(1),
+    MEDIUM(2),
+    HIGH(3);
+
+    private final int code;
+
+    Priority(int code) {
+        this.code = code;
+    }
+
+    public int code() {
+        return code;
+    }
+
+    public static Priority fromCode(int code) {
+        for (Priority priority : values()) {
+            if (priority.code == code) {
+                return priority;
+            }
+        }
+        throw new IllegalArgumentException("Unknown priority code " + code);
+    }
 }
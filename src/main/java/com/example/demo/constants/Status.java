@@ -1,7 +1,29 @@
 package com.example.demo.constants;
 
+/**
+ * Stored as {@link #code()} (tasks.status), in workflow order. Never renumber a code.
+ */
 public enum Status {
-    PENDING,
-    IN_PROGRESS,
-    COMPLETED
+    PENDING(1),
+    IN_PROGRESS(2),
+    COMPLETED(3);
+
+    private final int code;
+
+    Status(int code) {
+        this.code = code;
+    }
+
+    public int code() {
+        return code;
+    }
+
+    public static Status fromCode(int code) {
+        for (Status status : values()) {
+            if (status.code == code) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown status code " + code);
+    }
 }
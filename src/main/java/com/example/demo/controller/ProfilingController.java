@@ -0,0 +1,100 @@
+package com.example.demo.controller;
+
+import com.example.demo.profiling.FlightRecordingService;
+import com.example.demo.util.CustomLogger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Admin-only control of an on-demand, bounded JFR recording
+ */
+@RestController
+@RequestMapping("/admin/profiling/recording")
+@PreAuthorize("hasRole('ADMIN')")
+public class ProfilingController {
+
+    private static final CustomLogger logger = CustomLogger.getLogger(ProfilingController.class);
+
+    @Autowired
+    private FlightRecordingService flightRecordingService;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> status() {
+        return ResponseEntity.ok(flightRecordingService.status());
+    }
+
+    // Start a recording, e.g. POST /admin/profiling/recording/start?settings=profile&maxAgeSeconds=300&maxSizeMb=32
+    @PostMapping("/start")
+    public ResponseEntity<Map<String, Object>> start(
+            @RequestParam(defaultValue = "default") String settings,
+            @RequestParam(required = false) Long maxAgeSeconds,
+            @RequestParam(required = false) Long maxSizeMb,
+            Authentication authentication) throws Exception {
+
+        logger.logUserActivity(authentication.getName(), "JFR_START", "/admin/profiling/recording/start",
+                "Starting JFR recording with settings: " + settings);
+        try {
+            Duration maxAge = maxAgeSeconds != null ? Duration.ofSeconds(maxAgeSeconds) : null;
+            return ResponseEntity.ok(flightRecordingService.start(settings, maxAge, maxSizeMb, authentication.getName()));
+        } catch (IllegalStateException e) {
+            return conflict(e.getMessage());
+        }
+    }
+
+    @PostMapping("/stop")
+    public ResponseEntity<Map<String, Object>> stop(Authentication authentication) {
+        logger.logUserActivity(authentication.getName(), "JFR_STOP", "/admin/profiling/recording/stop",
+                "Stopping JFR recording");
+        try {
+            return ResponseEntity.ok(flightRecordingService.stop(authentication.getName()));
+        } catch (IllegalStateException e) {
+            return conflict(e.getMessage());
+        }
+    }
+
+    // Download the current recording contents as a .jfr file (works while running or after stop)
+    @GetMapping("/dump")
+    public ResponseEntity<StreamingResponseBody> dump(Authentication authentication) throws Exception {
+        logger.logUserActivity(authentication.getName(), "JFR_DUMP", "/admin/profiling/recording/dump",
+                "Dumping JFR recording");
+        Path file;
+        try {
+            file = flightRecordingService.dump();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            try {
+                Files.copy(file, outputStream);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"todo-recording.jfr\"")
+                .contentLength(Files.size(file))
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(body);
+    }
+
+    private ResponseEntity<Map<String, Object>> conflict(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+    }
+}
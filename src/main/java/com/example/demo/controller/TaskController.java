@@ -1,18 +1,37 @@
 package com.example.demo.controller;
 
+import com.example.demo.cache.TaskReadCoalescer;
+import com.example.demo.dto.TaskChangesResponse;
+import com.example.demo.dto.TaskPatch;
 import com.example.demo.entity.Task;
+import com.example.demo.event.TaskStreamHub;
+import com.example.demo.exception.PreconditionFailedException;
+import com.example.demo.filter.ResourceAccountingFilter;
+import com.example.demo.filter.TaskETag;
 import com.example.demo.service.TaskService;
 import com.example.demo.util.CustomLogger;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -22,9 +41,20 @@ public class TaskController {
 
     private static final CustomLogger logger = CustomLogger.getLogger(TaskController.class);
 
+    private static final String MERGE_PATCH_JSON = "application/merge-patch+json";
+
     @Autowired
     private TaskService taskService;
 
+    @Autowired
+    private TaskStreamHub taskStreamHub;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private TaskReadCoalescer taskReadCoalescer;
+
     // Create a new task
     @PostMapping
     public ResponseEntity<Task> createTask(@RequestBody Task task, Authentication authentication) {
@@ -43,16 +73,47 @@ public class TaskController {
 
     // Get all tasks for the logged-in user (including collaborative tasks)
     @GetMapping
-    public ResponseEntity<List<Task>> getAllTasks(Authentication authentication) {
+    @TaskETag(TaskETag.Scope.USER)
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+            array = @ArraySchema(schema = @Schema(implementation = Task.class))))
+    public ResponseEntity<byte[]> getAllTasks(Authentication authentication, HttpServletRequest request) {
         String username = authentication.getName();
         
         logger.logUserActivity(username, "GET_ALL_TASKS", "/tasks", "Retrieving all tasks for user");
         
-        List<Task> tasks = taskService.getTasksByUser(username);
-        
-        logger.info("Retrieved {} tasks for user: {}", tasks.size(), username);
+        // Identical concurrent requests (tabs, retries, collaborators refreshing) share one read
+        TaskReadCoalescer.SharedRead read = taskReadCoalescer.read(username, "all", () -> {
+            List<Task> tasks = taskService.getTasksByUser(username);
+            logger.info("Retrieved {} tasks for user: {}", tasks.size(), username);
+            return tasks;
+        });
         
-        return ResponseEntity.ok(tasks);
+        return sharedBody(read, request);
+    }
+
+    // Server-sent events for changes to tasks the user can see, replacing polling of GET /tasks.
+    // EventSource cannot set headers, so browsers pass the JWT as ?token=
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTasks(Authentication authentication) {
+        return taskStreamHub.subscribe(authentication.getName());
+    }
+
+    // Delta sync for offline clients: tasks changed after the since cursor (omit since for a full snapshot)
+    @GetMapping("/changes")
+    public ResponseEntity<TaskChangesResponse> getTaskChanges(
+            @RequestParam(required = false) Long since,
+            @RequestParam(defaultValue = "500") int limit,
+            Authentication authentication) {
+        String username = authentication.getName();
+
+        logger.logUserActivity(username, "GET_TASK_CHANGES", "/tasks/changes", "Retrieving task changes since: " + since);
+
+        TaskChangesResponse changes = taskService.getTaskChanges(username, since, limit);
+
+        logger.info("Task changes for user {}: {} changed, {} removed, cursor {}", username,
+                changes.getChanged().size(), changes.getRemoved().size(), changes.getCursor());
+
+        return ResponseEntity.ok(changes);
     }
 
     // Get a specific task by ID using JSON body
@@ -189,6 +250,7 @@ public class TaskController {
 
     // RESTful: Get a specific task by ID using path variable
     @GetMapping("/{id}")
+    @TaskETag(TaskETag.Scope.TASK)
     public ResponseEntity<Task> getTaskByIdPath(@PathVariable Long id, Authentication authentication) {
         String username = authentication.getName();
         
@@ -203,7 +265,9 @@ public class TaskController {
 
     // Update a task using JSON body (includes task ID)
     @PostMapping("/update")
-    public ResponseEntity<Task> updateTask(@RequestBody Map<String, Object> request, Authentication authentication) {
+    public ResponseEntity<Task> updateTask(@RequestBody Map<String, Object> request,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                           Authentication authentication) {
         String username = authentication.getName();
         Long id = Long.valueOf(request.get("id").toString());
         
@@ -228,25 +292,66 @@ public class TaskController {
             task.setPriority(com.example.demo.constants.Priority.valueOf(request.get("priority").toString()));
         }
         
-        Task updatedTask = taskService.updateTask(id, task, username);
+        Task updatedTask = taskService.updateTask(id, task, username, expectedVersion(ifMatch));
         return ResponseEntity.ok(updatedTask);
     }
 
     // RESTful: Update a task using path variable
     @PutMapping("/{id}")
-    public ResponseEntity<Task> updateTaskPath(@PathVariable Long id, @RequestBody Task task, Authentication authentication) {
+    public ResponseEntity<Task> updateTaskPath(@PathVariable Long id, @RequestBody Task task,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                               Authentication authentication) {
         String username = authentication.getName();
         
         logger.logUserActivity(username, "UPDATE_TASK", "/tasks/" + id, "Updating task with ID: " + id);
         logger.logBusinessOperation("UPDATE_TASK", "Task", id.toString(), "UPDATE", "INITIATED");
         
-        Task updatedTask = taskService.updateTask(id, task, username);
+        Task updatedTask = taskService.updateTask(id, task, username, expectedVersion(ifMatch));
         
         logger.logBusinessOperation("UPDATE_TASK", "Task", id.toString(), "UPDATE", "SUCCESS");
         logger.logDataChange("Task", id.toString(), "UPDATE", task.toString(), updatedTask.toString());
         
         return ResponseEntity.ok(updatedTask);
     }
+    // JSON Merge Patch: only the members sent are changed, null clears a field; If-Match as for PUT
+    @PatchMapping(value = "/{id}", consumes = MERGE_PATCH_JSON)
+    public ResponseEntity<Task> patchTask(@PathVariable Long id, @RequestBody Map<String, Object> patch,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                          Authentication authentication) {
+        String username = authentication.getName();
+        
+        logger.logUserActivity(username, "PATCH_TASK", "/tasks/" + id, "Patching task with ID: " + id + " fields: " + patch.keySet());
+        
+        Task patchedTask = taskService.patchTask(id, TaskPatch.parse(patch, validator), username, expectedVersion(ifMatch));
+        
+        logger.logBusinessOperation("PATCH_TASK", "Task", id.toString(), "UPDATE", "SUCCESS");
+        
+        return ResponseEntity.ok(patchedTask);
+    }
+
+    // Merge patches for several tasks keyed by id, e.g. {"12": {"status": "COMPLETED"}, "15": {"status": "COMPLETED"}}
+    @PatchMapping(consumes = MERGE_PATCH_JSON)
+    public ResponseEntity<List<Task>> patchTasks(@RequestBody Map<String, Map<String, Object>> patches,
+                                                 Authentication authentication) {
+        String username = authentication.getName();
+        
+        logger.logUserActivity(username, "PATCH_TASKS", "/tasks", "Patching tasks with IDs: " + patches.keySet());
+        
+        Map<Long, TaskPatch> parsed = new LinkedHashMap<>();
+        patches.forEach((id, patch) -> {
+            try {
+                parsed.put(Long.valueOf(id), TaskPatch.parse(patch != null ? patch : Map.of(), validator));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid task id: " + id);
+            }
+        });
+        List<Task> patchedTasks = taskService.patchTasks(parsed, username);
+        
+        logger.logBusinessOperation("PATCH_TASKS", "Task", parsed.keySet().toString(), "UPDATE", "SUCCESS");
+        
+        return ResponseEntity.ok(patchedTasks);
+    }
+
     //     String username = authentication.getName();
     //     Task updatedTask = taskService.updateTask(id, task, username);
     //     return ResponseEntity.ok(updatedTask);
@@ -346,20 +451,26 @@ public class TaskController {
 
     // **NEW: Pagination and Sorting**
     @GetMapping("/paginated")
-    public ResponseEntity<Page<Task>> getTasksWithPagination(
+    @TaskETag(TaskETag.Scope.USER)
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+            schema = @Schema(implementation = TaskPage.class)))
+    public ResponseEntity<byte[]> getTasksWithPagination(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
             @RequestParam(defaultValue = "asc") String sortDir,
-            Authentication authentication) {
+            Authentication authentication,
+            HttpServletRequest request) {
         
         String username = authentication.getName();
         Sort sort = sortDir.equalsIgnoreCase("desc") ? 
             Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
         
-        Page<Task> tasks = taskService.getTasksByUserWithPagination(username, pageable);
-        return ResponseEntity.ok(tasks);
+        TaskReadCoalescer.SharedRead read = taskReadCoalescer.read(username,
+                "paginated:" + page + ":" + size + ":" + sort,
+                () -> taskService.getTasksByUserWithPagination(username, pageable));
+        return sharedBody(read, request);
     }
 
     // **NEW: Search by keyword**
@@ -459,4 +570,35 @@ public class TaskController {
         Page<Task> tasks = taskService.getTasksWithFilters(username, status, category, dueDateParsed, pageable);
         return ResponseEntity.ok(tasks);
     }
+
+    // If-Match carries the task's version field, e.g. If-Match: "3"; "*" or no header means any version
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return null;
+        }
+        for (ETag etag : ETag.parse(ifMatch)) {
+            if (etag.isWildcard()) {
+                return null;
+            }
+            if (!etag.weak() && etag.tag().matches("\\d{1,18}")) {
+                return Long.valueOf(etag.tag());
+            }
+        }
+        throw new PreconditionFailedException("If-Match must carry the task version, e.g. If-Match: \"3\"");
+    }
+
+    // A coalesced body is written as is, so the items it carries are recorded here instead of by ResultItemsAdvice
+    private static ResponseEntity<byte[]> sharedBody(TaskReadCoalescer.SharedRead read, HttpServletRequest request) {
+        if (read.items() >= 0) {
+            request.setAttribute(ResourceAccountingFilter.RESULT_ITEMS_ATTRIBUTE, read.items());
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(read.body());
+    }
+
+    // The page JSON of /tasks/paginated, for the API documentation only
+    private abstract static class TaskPage extends PageImpl<Task> {
+        private TaskPage() {
+            super(List.of());
+        }
+    }
 }
@@ -0,0 +1,360 @@
+package com.example.demo.dataset;
+
+import com.example.demo.constants.Priority;
+import com.example.demo.constants.Status;
+import com.example.demo.util.CustomLogger;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Bulk-loads synthetic users, tasks and collaborators with batched JDBC inserts.
+ * All values come from a single seeded random sequence, so the same properties (and base date)
+ * always produce the same rows. Ids are assigned explicitly after the highest existing id and the
+ * identity columns are moved past them afterwards, so the application can keep inserting normally.
+ * Each batch is committed to keep transactions small; a load that fails deletes the rows it wrote, so a
+ * partial dataset is never taken for a loaded one.
+ */
+public class DatasetGenerator {
+
+    private static final CustomLogger logger = CustomLogger.getLogger(DatasetGenerator.class);
+
+    private static final String[] CATEGORY_NAMES = {"Work", "Personal", "Health", "Learning", "Finance", "Home",
+            "Shopping", "Travel", "Career", "Family", "Fitness", "Errands"};
+    private static final String[] VERBS = {"Review", "Prepare", "Finish", "Plan", "Call", "Update", "Organize",
+            "Book", "Write", "Fix", "Research", "Schedule"};
+    private static final String[] SUBJECTS = {"quarterly report", "team meeting", "grocery list", "dentist appointment",
+            "project proposal", "budget", "presentation slides", "travel itinerary", "code review", "tax documents",
+            "workout plan", "insurance renewal"};
+
+    private static final String INSERT_USER = "INSERT INTO users (id, username, email, password, role, is_active, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, 'USER', TRUE, ?, ?)";
+    private static final String INSERT_TASK = "INSERT INTO tasks (id, title, description, due_date, status, create_date, update_date, "
+            + "deleted, completion_date, category_id, priority, user_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_CATEGORY = "INSERT INTO task_categories (user_id, id, name) VALUES (?, ?, ?)";
+    private static final String INSERT_COLLABORATOR = "INSERT INTO task_collaborators (task_id, user_id) VALUES (?, ?)";
+
+    private final DataSource dataSource;
+    private final DatasetProperties properties;
+    private final String encodedPassword;
+
+    public DatasetGenerator(DataSource dataSource, DatasetProperties properties, String encodedPassword) {
+        this.dataSource = dataSource;
+        this.properties = properties;
+        this.encodedPassword = encodedPassword;
+    }
+
+    /**
+     * Generate the dataset and return row counts and timings
+     */
+    public Map<String, Object> generate() throws SQLException {
+        long start = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(properties.getSeed());
+        LocalDate baseDate = properties.getBaseDate() != null ? properties.getBaseDate() : LocalDate.now();
+        String[] categories = categories(properties.getCategories());
+        int[] tasksPerUser = skewedTaskCounts(properties.getUsers(), properties.getTasksPerUser(), properties.getSkew());
+
+        long tasks = 0;
+        long collaborators = 0;
+        try (Connection connection = dataSource.getConnection()) {
+            boolean h2 = connection.getMetaData().getDatabaseProductName().toLowerCase().contains("h2");
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            if (h2) {
+                // Rows are generated consistently, skip per-row foreign key checks while loading
+                execute(connection, "SET REFERENTIAL_INTEGRITY FALSE");
+            }
+            long firstUserId = 0;
+            try {
+                ensureNotLoaded(connection);
+                firstUserId = maxId(connection, "users") + 1;
+                long firstTaskId = maxId(connection, "tasks") + 1;
+
+                insertUsers(connection, firstUserId, baseDate);
+                long[] counts = insertTasks(connection, random, firstUserId, firstTaskId, tasksPerUser, categories, baseDate);
+                tasks = counts[0];
+                collaborators = counts[1];
+
+                execute(connection, "ALTER TABLE users ALTER COLUMN id RESTART WITH " + (firstUserId + properties.getUsers()));
+                execute(connection, "ALTER TABLE tasks ALTER COLUMN id RESTART WITH " + (firstTaskId + tasks));
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                if (firstUserId > 0) {
+                    removeGenerated(connection, firstUserId, e);
+                }
+                throw e;
+            } finally {
+                if (h2) {
+                    execute(connection, "SET REFERENTIAL_INTEGRITY TRUE");
+                }
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        long rows = properties.getUsers() + tasks + collaborators;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("seed", properties.getSeed());
+        result.put("users", properties.getUsers());
+        result.put("tasks", tasks);
+        result.put("collaborators", collaborators);
+        result.put("maxTasksPerUser", tasksPerUser.length > 0 ? tasksPerUser[0] : 0);
+        result.put("elapsedMs", elapsedMs);
+        result.put("rowsPerSecond", elapsedMs > 0 ? rows * 1000 / elapsedMs : rows);
+        logger.logPerformance("DATASET_GENERATE", elapsedMs, "SUCCESS");
+        return result;
+    }
+
+    private void insertUsers(Connection connection, long firstUserId, LocalDate baseDate) throws SQLException {
+        Timestamp createdAt = Timestamp.valueOf(baseDate.minusDays(365).atStartOfDay());
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_USER)) {
+            int pending = 0;
+            for (int i = 0; i < properties.getUsers(); i++) {
+                String username = username(i);
+                statement.setLong(1, firstUserId + i);
+                statement.setString(2, username);
+                statement.setString(3, username + "@example.com");
+                statement.setString(4, encodedPassword);
+                statement.setTimestamp(5, createdAt);
+                statement.setTimestamp(6, createdAt);
+                statement.addBatch();
+                if (++pending == properties.getBatchSize()) {
+                    flush(connection, statement);
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                flush(connection, statement);
+            }
+        }
+    }
+
+    private long[] insertTasks(Connection connection, SplittableRandom random, long firstUserId, long firstTaskId,
+                               int[] tasksPerUser, String[] categories, LocalDate baseDate) throws SQLException {
+        int users = tasksPerUser.length;
+        int spread = Math.max(1, properties.getDueDateSpreadDays());
+        long taskId = firstTaskId;
+        long collaboratorRows = 0;
+        long[] collaboratorIds = new long[Math.max(0, properties.getMaxCollaboratorsPerTask())];
+        // An owner's dictionary entry for categories[i] is numbered i + 1, added the first time they use it
+        boolean[] categoryAdded = new boolean[categories.length];
+
+        try (PreparedStatement categoryStatement = connection.prepareStatement(INSERT_CATEGORY);
+             PreparedStatement taskStatement = connection.prepareStatement(INSERT_TASK);
+             PreparedStatement collaboratorStatement = connection.prepareStatement(INSERT_COLLABORATOR)) {
+            int pendingTasks = 0;
+            int pendingCollaborators = 0;
+            for (int owner = 0; owner < users; owner++) {
+                long ownerId = firstUserId + owner;
+                Arrays.fill(categoryAdded, false);
+                for (int t = 0; t < tasksPerUser[owner]; t++) {
+                    LocalDate createDate = baseDate.minusDays(random.nextInt(spread));
+                    Status status = pickStatus(random);
+                    String verb = VERBS[random.nextInt(VERBS.length)];
+                    String subject = SUBJECTS[random.nextInt(SUBJECTS.length)];
+
+                    taskStatement.setLong(1, taskId);
+                    taskStatement.setString(2, verb + " " + subject + " #" + taskId);
+                    taskStatement.setString(3, verb + " the " + subject + " and share the outcome with everyone involved");
+                    taskStatement.setDate(4, Date.valueOf(baseDate.plusDays(random.nextInt(spread) - spread / 2)));
+                    taskStatement.setInt(5, status.code());
+                    taskStatement.setDate(6, Date.valueOf(createDate));
+                    taskStatement.setDate(7, Date.valueOf(createDate.plusDays(random.nextInt(7))));
+                    taskStatement.setBoolean(8, random.nextDouble() < properties.getDeletedRatio());
+                    if (status == Status.COMPLETED) {
+                        taskStatement.setDate(9, Date.valueOf(createDate.plusDays(random.nextInt(14))));
+                    } else {
+                        taskStatement.setNull(9, Types.DATE);
+                    }
+                    int category = random.nextInt(categories.length);
+                    if (!categoryAdded[category]) {
+                        categoryAdded[category] = true;
+                        categoryStatement.setLong(1, ownerId);
+                        categoryStatement.setInt(2, category + 1);
+                        categoryStatement.setString(3, categories[category]);
+                        categoryStatement.addBatch();
+                    }
+                    taskStatement.setInt(10, category + 1);
+                    taskStatement.setInt(11, pickPriority(random).code());
+                    taskStatement.setLong(12, ownerId);
+                    taskStatement.addBatch();
+
+                    int collaboratorCount = users > 1 ? random.nextInt(collaboratorIds.length + 1) : 0;
+                    for (int c = 0; c < collaboratorCount; c++) {
+                        long collaboratorId = firstUserId + random.nextInt(users);
+                        if (collaboratorId == ownerId || contains(collaboratorIds, c, collaboratorId)) {
+                            collaboratorIds[c] = -1;
+                            continue;
+                        }
+                        collaboratorIds[c] = collaboratorId;
+                        collaboratorStatement.setLong(1, taskId);
+                        collaboratorStatement.setLong(2, collaboratorId);
+                        collaboratorStatement.addBatch();
+                        pendingCollaborators++;
+                        collaboratorRows++;
+                    }
+                    taskId++;
+
+                    if (++pendingTasks == properties.getBatchSize()) {
+                        flush(connection, categoryStatement, taskStatement, collaboratorStatement);
+                        pendingTasks = 0;
+                        pendingCollaborators = 0;
+                    }
+                }
+            }
+            if (pendingTasks > 0 || pendingCollaborators > 0) {
+                flush(connection, categoryStatement, taskStatement, collaboratorStatement);
+            }
+        }
+        return new long[]{taskId - firstTaskId, collaboratorRows};
+    }
+
+    // The rows of the generated users, whose ids start at firstUserId; collaborators are generated users too
+    private void removeGenerated(Connection connection, long firstUserId, Exception failure) {
+        long lastUserId = firstUserId + properties.getUsers() - 1;
+        String tasks = "SELECT id FROM tasks WHERE user_id BETWEEN ? AND ?";
+        try {
+            for (String delete : new String[]{
+                    "DELETE FROM task_collaborators WHERE task_id IN (" + tasks + ")",
+                    "DELETE FROM tasks WHERE user_id BETWEEN ? AND ?",
+                    "DELETE FROM task_categories WHERE user_id BETWEEN ? AND ?",
+                    "DELETE FROM users WHERE id BETWEEN ? AND ?"}) {
+                try (PreparedStatement statement = connection.prepareStatement(delete)) {
+                    statement.setLong(1, firstUserId);
+                    statement.setLong(2, lastUserId);
+                    statement.executeUpdate();
+                }
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Tasks per user following a Zipf distribution with the given exponent, largest first,
+     * scaled so the total is users * averagePerUser
+     */
+    static int[] skewedTaskCounts(int users, int averagePerUser, double skew) {
+        int[] counts = new int[users];
+        if (users == 0) {
+            return counts;
+        }
+        double[] weights = new double[users];
+        double sum = 0;
+        for (int i = 0; i < users; i++) {
+            weights[i] = 1.0 / Math.pow(i + 1, skew);
+            sum += weights[i];
+        }
+        long total = (long) users * averagePerUser;
+        long assigned = 0;
+        for (int i = 0; i < users; i++) {
+            counts[i] = (int) Math.min(Integer.MAX_VALUE, (long) Math.floor(total * weights[i] / sum));
+            assigned += counts[i];
+        }
+        // Hand the rounding remainder out one task at a time, heaviest users first
+        for (int i = 0; assigned < total; i = (i + 1) % users) {
+            counts[i]++;
+            assigned++;
+        }
+        return counts;
+    }
+
+    private String username(int index) {
+        return username(properties.getUsernamePrefix(), index);
+    }
+
+    /**
+     * Username of the index-th generated user (0-based, heaviest first)
+     */
+    public static String username(String prefix, int index) {
+        return prefix + String.format("%07d", index + 1);
+    }
+
+    /**
+     * Whether a dataset with this username prefix is already in the database (e.g. durable storage after a restart)
+     */
+    public boolean isLoaded() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return isLoaded(connection);
+        }
+    }
+
+    private void ensureNotLoaded(Connection connection) throws SQLException {
+        if (isLoaded(connection)) {
+            throw new IllegalStateException("Dataset with username prefix '" + properties.getUsernamePrefix()
+                    + "' is already loaded");
+        }
+    }
+
+    private boolean isLoaded(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT COUNT(*) FROM users WHERE username = ?")) {
+            statement.setString(1, username(0));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getLong(1) > 0;
+            }
+        }
+    }
+
+    private static long maxId(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private static void flush(Connection connection, PreparedStatement... statements) throws SQLException {
+        for (PreparedStatement statement : statements) {
+            statement.executeBatch();
+        }
+        connection.commit();
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static boolean contains(long[] values, int length, long value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Status pickStatus(SplittableRandom random) {
+        int roll = random.nextInt(100);
+        return roll < 45 ? Status.PENDING : roll < 75 ? Status.IN_PROGRESS : Status.COMPLETED;
+    }
+
+    private static Priority pickPriority(SplittableRandom random) {
+        int roll = random.nextInt(100);
+        return roll < 30 ? Priority.LOW : roll < 75 ? Priority.MEDIUM : Priority.HIGH;
+    }
+
+    private static String[] categories(int count) {
+        String[] categories = Arrays.copyOf(CATEGORY_NAMES, Math.max(1, count));
+        for (int i = CATEGORY_NAMES.length; i < categories.length; i++) {
+            categories[i] = CATEGORY_NAMES[i % CATEGORY_NAMES.length] + " " + (i / CATEGORY_NAMES.length + 1);
+        }
+        return categories;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo.dataset;
+
+import com.example.demo.config.CustomPasswordEncoder;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.support.ResourcePropertySource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.Map;
+
+/**
+ * Standalone generator for an existing database (e.g. an H2 file or TCP server the application has already
+ * created the schema in). Options use the same names as the application properties:
+ * <pre>
+ * java -cp target/ToDo-0.0.1-SNAPSHOT.jar -Dloader.main=com.example.demo.dataset.DatasetGeneratorCli \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher \
+ *      --spring.datasource.url=jdbc:h2:file:./data/todo --dataset.users=100000 --dataset.seed=7
+ * </pre>
+ * Anything not given on the command line is resolved as the application resolves it: system properties and
+ * environment variables, then application.properties. The password pepper must be the application's, so
+ * the generated users can log in (SECURITY_PASSWORD_PEPPER or --security.password.pepper).
+ */
+public class DatasetGeneratorCli {
+
+    public static void main(String[] args) throws Exception {
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+        }
+        SimpleCommandLinePropertySource commandLine = new SimpleCommandLinePropertySource(args);
+        if (!commandLine.containsProperty("spring.datasource.url")) {
+            throw new IllegalArgumentException("--spring.datasource.url is required");
+        }
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(commandLine);
+        environment.getPropertySources().addLast(new ResourcePropertySource("classpath:application.properties"));
+
+        DatasetProperties properties = Binder.get(environment).bind("dataset", DatasetProperties.class)
+                .orElseGet(DatasetProperties::new);
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                environment.getRequiredProperty("spring.datasource.url"),
+                environment.getProperty("spring.datasource.username", "sa"),
+                environment.getProperty("spring.datasource.password", ""));
+        String encodedPassword = new CustomPasswordEncoder(environment.getRequiredProperty("security.password.pepper"))
+                .encode(properties.getPassword());
+
+        Map<String, Object> result = new DatasetGenerator(dataSource, properties, encodedPassword).generate();
+        System.out.println("Synthetic dataset loaded: " + result);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.demo.dataset;
+
+import com.example.demo.util.CustomLogger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Loads the synthetic dataset into the application database on startup when the "dataset" profile is active,
+ * e.g. java -jar ToDo.jar --spring.profiles.active=dataset --dataset.users=100000 --dataset.tasks-per-user=100
+ */
+@Component
+@Profile("dataset")
+@EnableConfigurationProperties(DatasetProperties.class)
+public class DatasetLoader implements CommandLineRunner {
+
+    private static final CustomLogger logger = CustomLogger.getLogger(DatasetLoader.class);
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private DatasetProperties datasetProperties;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Override
+    public void run(String... args) throws Exception {
+        String encodedPassword = passwordEncoder.encode(datasetProperties.getPassword());
+        DatasetGenerator generator = new DatasetGenerator(dataSource, datasetProperties, encodedPassword);
+        if (generator.isLoaded()) {
+            logger.info("Synthetic dataset with username prefix '{}' already loaded, skipping generation",
+                    datasetProperties.getUsernamePrefix());
+            return;
+        }
+        logger.info("Generating synthetic dataset: {} users, {} tasks per user on average, seed {}",
+                datasetProperties.getUsers(), datasetProperties.getTasksPerUser(), datasetProperties.getSeed());
+        Map<String, Object> result = generator.generate();
+        logger.info("Synthetic dataset loaded: {}", result);
+    }
+}
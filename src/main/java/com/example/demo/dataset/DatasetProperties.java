@@ -0,0 +1,123 @@
+package com.example.demo.dataset;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.LocalDate;
+
+/**
+ * Synthetic dataset configuration (prefix "dataset").
+ * Used by the "dataset" Spring profile and by {@link DatasetGeneratorCli}.
+ */
+@ConfigurationProperties(prefix = "dataset")
+public class DatasetProperties {
+
+    private int users = 1000;
+    private int tasksPerUser = 20; // Average; the actual count per user follows a Zipf distribution
+    private double skew = 1.0; // Zipf exponent, 0 = every user gets the same number of tasks
+    private int maxCollaboratorsPerTask = 2; // Uniform between 0 and this value
+    private double deletedRatio = 0.05;
+    private int categories = 12;
+    private int dueDateSpreadDays = 180; // Due dates fall within +/- half of this around the base date
+    private long seed = 42L;
+    private int batchSize = 5000;
+    private String usernamePrefix = "load_user_";
+    private String password = "password123";
+    private LocalDate baseDate; // Defaults to today; fix it for byte-identical datasets across days
+
+    // Getters and Setters
+    public int getUsers() {
+        return users;
+    }
+
+    public void setUsers(int users) {
+        this.users = users;
+    }
+
+    public int getTasksPerUser() {
+        return tasksPerUser;
+    }
+
+    public void setTasksPerUser(int tasksPerUser) {
+        this.tasksPerUser = tasksPerUser;
+    }
+
+    public double getSkew() {
+        return skew;
+    }
+
+    public void setSkew(double skew) {
+        this.skew = skew;
+    }
+
+    public int getMaxCollaboratorsPerTask() {
+        return maxCollaboratorsPerTask;
+    }
+
+    public void setMaxCollaboratorsPerTask(int maxCollaboratorsPerTask) {
+        this.maxCollaboratorsPerTask = maxCollaboratorsPerTask;
+    }
+
+    public double getDeletedRatio() {
+        return deletedRatio;
+    }
+
+    public void setDeletedRatio(double deletedRatio) {
+        this.deletedRatio = deletedRatio;
+    }
+
+    public int getCategories() {
+        return categories;
+    }
+
+    public void setCategories(int categories) {
+        this.categories = categories;
+    }
+
+    public int getDueDateSpreadDays() {
+        return dueDateSpreadDays;
+    }
+
+    public void setDueDateSpreadDays(int dueDateSpreadDays) {
+        this.dueDateSpreadDays = dueDateSpreadDays;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public String getUsernamePrefix() {
+        return usernamePrefix;
+    }
+
+    public void setUsernamePrefix(String usernamePrefix) {
+        this.usernamePrefix = usernamePrefix;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public LocalDate getBaseDate() {
+        return baseDate;
+    }
+
+    public void setBaseDate(LocalDate baseDate) {
+        this.baseDate = baseDate;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.demo.dto;
+
+import com.example.demo.entity.Task;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response of GET /tasks/changes. Apply changed (upsert) and removed (delete by id), then pass cursor
+ * as the next since. When hasMore is set, call again straight away; when reset is set, changed is a
+ * full snapshot and the client should drop anything it has that is not in it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskChangesResponse {
+
+    private long cursor;
+    private boolean hasMore;
+    private boolean reset;
+    private List<Task> changed;
+    private List<Long> removed;
+}
@@ -21,7 +21,7 @@ public class TaskDTO {
     @Future(message = "Due date must be in the future")
     private LocalDate dueDate;
     
-    @Pattern(regexp = "^(TODO|IN_PROGRESS|COMPLETED)$", message = "Status must be TODO, IN_PROGRESS, or COMPLETED")
+    @Pattern(regexp = "^(PENDING|IN_PROGRESS|COMPLETED)$", message = "Status must be PENDING, IN_PROGRESS, or COMPLETED")
     private String status;
     
     @Size(max = 100, message = "Category must not exceed 100 characters")
@@ -0,0 +1,109 @@
+package com.example.demo.dto;
+
+import com.example.demo.constants.Priority;
+import com.example.demo.constants.Status;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A validated JSON Merge Patch (RFC 7396) for one task: only the members present are changed, and an
+ * explicit null clears the field. Each value is checked against the matching {@link TaskDTO} constraint
+ * and converted to the entity type. Two patches with the same values are equal, so they can be applied
+ * to several tasks with one UPDATE.
+ */
+public final class TaskPatch {
+
+    // Patchable Task properties, in the order they appear in the UPDATE
+    public static final List<String> FIELDS = List.of("title", "description", "dueDate", "status", "category", "priority");
+
+    private final Map<String, Object> values;
+
+    private TaskPatch(Map<String, Object> values) {
+        this.values = Collections.unmodifiableMap(values);
+    }
+
+    public static TaskPatch parse(Map<String, Object> body, Validator validator) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        Set<ConstraintViolation<?>> violations = new HashSet<>();
+        for (String field : FIELDS) {
+            if (!body.containsKey(field)) {
+                continue;
+            }
+            Object raw = body.get(field);
+            if (raw != null && !(raw instanceof String)) {
+                throw new IllegalArgumentException("Field '" + field + "' must be a string or null");
+            }
+            Object dtoValue = "dueDate".equals(field) && raw != null ? parseDate((String) raw) : raw;
+            Set<ConstraintViolation<TaskDTO>> fieldViolations = validator.validateValue(TaskDTO.class, field, dtoValue);
+            if (fieldViolations.isEmpty()) {
+                values.put(field, toEntityValue(field, dtoValue));
+            } else {
+                violations.addAll(fieldViolations);
+            }
+        }
+        for (String field : body.keySet()) {
+            if (!FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Field '" + field + "' cannot be patched; patchable fields are " + FIELDS);
+            }
+        }
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        return new TaskPatch(values);
+    }
+
+    /**
+     * Field name to new value (entity types: String, LocalDate, Status, Priority; null clears)
+     */
+    public Map<String, Object> values() {
+        return values;
+    }
+
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+
+    private static LocalDate parseDate(String value) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Field 'dueDate' must be an ISO date (yyyy-MM-dd)");
+        }
+    }
+
+    private static Object toEntityValue(String field, Object value) {
+        if (value == null) {
+            return null;
+        }
+        return switch (field) {
+            case "status" -> Status.valueOf((String) value);
+            case "priority" -> Priority.valueOf((String) value);
+            default -> value;
+        };
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof TaskPatch patch && values.equals(patch.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return values.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "TaskPatch" + values;
+    }
+}
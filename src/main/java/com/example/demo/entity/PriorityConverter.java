@@ -0,0 +1,23 @@
+package com.example.demo.entity;
+
+import com.example.demo.constants.Priority;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Task priority as its SMALLINT code
+ */
+@Converter
+public class PriorityConverter implements AttributeConverter<Priority, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(Priority priority) {
+        return priority != null ? (short) priority.code() : null;
+    }
+
+    @Override
+    public Priority convertToEntityAttribute(Short code) {
+        return code != null ? Priority.fromCode(code) : null;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.demo.entity;
+
+import com.example.demo.constants.Status;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Task status as its SMALLINT code
+ */
+@Converter
+public class StatusConverter implements AttributeConverter<Status, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(Status status) {
+        return status != null ? (short) status.code() : null;
+    }
+
+    @Override
+    public Status convertToEntityAttribute(Short code) {
+        return code != null ? Status.fromCode(code) : null;
+    }
+}
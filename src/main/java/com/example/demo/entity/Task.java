@@ -5,9 +5,11 @@ import java.time.LocalDate;
 import com.example.demo.constants.Priority;
 import com.example.demo.constants.Status;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
-import jakarta.persistence.EnumType;
-import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -16,12 +18,17 @@ import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.Formula;
 
 @Entity
-@Table(name = "tasks")
+@Table(name = "tasks") // columns and indexes: db/migration
+@DynamicUpdate // only changed columns are written on save
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -37,7 +44,8 @@ public class Task {
 
     private LocalDate dueDate;
 
-    @Enumerated(EnumType.STRING)
+    // Columns hold small codes (Status.code(), Priority.code()); the API still sees the names
+    @Convert(converter = StatusConverter.class)
     private Status status;
 
     private LocalDate createDate;
@@ -50,11 +58,29 @@ public class Task {
     private LocalDate completionDate;
 
     // New attributes
+    // Read from the owner's category dictionary; the task store writes it as categoryId
+    @Formula("(SELECT c.name FROM task_categories c WHERE c.user_id = user_id AND c.id = category_id)")
     private String category;
 
-    @Enumerated(EnumType.STRING)
+    // The category's number in the owner's dictionary (TaskCategory), set from category on every save
+    @JsonIgnore
+    @Column(name = "category_id")
+    private Integer categoryId;
+
+    @Convert(converter = PriorityConverter.class)
     private Priority priority;
 
+    // Monotonic change marker for delta sync (GET /tasks/changes); rows loaded outside the app start at 0
+    @Column(name = "change_seq", nullable = false)
+    @ColumnDefault("0")
+    private Long changeSeq = 0L;
+
+    // Optimistic concurrency: compared by If-Match on PUT /tasks/{id} and /tasks/update
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long version;
+
     // Collaboration: collection of users
     @ManyToMany
     @JoinTable(
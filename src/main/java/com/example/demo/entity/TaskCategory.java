@@ -0,0 +1,44 @@
+package com.example.demo.entity;
+
+import java.io.Serializable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One entry of a user's category dictionary: tasks store the number (tasks.category_id) and read the
+ * name through it. Numbers are per user and handed out in order; entries are never changed or removed,
+ * and move with the user's tasks when those move to another shard.
+ */
+@Entity
+@Table(name = "task_categories") // columns and indexes: db/migration
+@IdClass(TaskCategory.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskCategory {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long userId;
+        private Integer id;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Records that a user lost access to a task (removed as collaborator) at a given change sequence.
+ * The task row no longer matches the user's visibility filter, so delta sync needs this to tell them.
+ */
+@Entity
+@Table(name = "task_revocations") // columns and indexes: db/migration
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskRevocation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "task_id", nullable = false)
+    private Long taskId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "change_seq", nullable = false)
+    private Long changeSeq;
+}
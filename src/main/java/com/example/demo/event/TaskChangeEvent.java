@@ -0,0 +1,44 @@
+package com.example.demo.event;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A committed change to one task. previous is null for CREATED; current carries the task as saved
+ * (for DELETED it has deleted=true). The audience is everyone who could see the task before or after,
+ * so a user who just lost access is told as well.
+ */
+public record TaskChangeEvent(
+        long sequence,
+        TaskChangeType type,
+        Long taskId,
+        TaskSnapshot previous,
+        TaskSnapshot current,
+        String actor,
+        Instant timestamp) {
+
+    public Set<String> audience() {
+        Set<String> audience = new TreeSet<>();
+        addVisibleUsers(previous, audience);
+        addVisibleUsers(current, audience);
+        return audience;
+    }
+
+    /**
+     * Whether the user could see the task before this change but not after it
+     */
+    public boolean revokes(String username) {
+        return previous != null && previous.isVisibleTo(username)
+                && (current == null || current.deleted() || !current.isVisibleTo(username));
+    }
+
+    private static void addVisibleUsers(TaskSnapshot snapshot, Set<String> audience) {
+        if (snapshot != null) {
+            if (snapshot.ownerUsername() != null) {
+                audience.add(snapshot.ownerUsername());
+            }
+            audience.addAll(snapshot.collaborators());
+        }
+    }
+}
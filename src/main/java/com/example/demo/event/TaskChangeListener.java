@@ -0,0 +1,10 @@
+package com.example.demo.event;
+
+/**
+ * Receives every committed task change from {@link TaskEventDispatcher}.
+ * Called on the writing thread, so implementations must not block (hand off any I/O).
+ */
+public interface TaskChangeListener {
+
+    void onTaskChange(TaskChangeEvent event);
+}
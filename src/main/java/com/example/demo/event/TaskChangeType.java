@@ -0,0 +1,12 @@
+package com.example.demo.event;
+
+/**
+ * Kinds of task changes published by TaskServiceImpl
+ */
+public enum TaskChangeType {
+    CREATED,
+    UPDATED,
+    DELETED,
+    COLLABORATOR_ADDED,
+    COLLABORATOR_REMOVED
+}
@@ -0,0 +1,98 @@
+package com.example.demo.event;
+
+import com.example.demo.service.TaskService;
+import com.example.demo.util.CustomLogger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.security.Principal;
+import java.util.Map;
+
+/**
+ * WebSocket endpoint /ws/tasks/{id}: one channel per task, open to the owner and collaborators.
+ * The handshake is authenticated by JwtAuthenticationFilter (browsers pass ?token=), and access to the
+ * task is checked before upgrading. The channel is server-to-client only; client messages are ignored.
+ */
+@Component
+public class TaskChannelHandler extends TextWebSocketHandler implements HandshakeInterceptor {
+
+    private static final CustomLogger logger = CustomLogger.getLogger(TaskChannelHandler.class);
+
+    private static final String TASK_ID_ATTRIBUTE = "taskId";
+    private static final String USERNAME_ATTRIBUTE = "username";
+    private static final String SNAPSHOT_ATTRIBUTE = "snapshot";
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskChannelHub taskChannelHub;
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        Principal principal = request.getPrincipal();
+        String path = request.getURI().getPath();
+        Long taskId;
+        try {
+            taskId = Long.valueOf(path.substring(path.lastIndexOf('/') + 1));
+        } catch (NumberFormatException e) {
+            response.setStatusCode(HttpStatus.BAD_REQUEST);
+            return false;
+        }
+        if (principal == null) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+
+        try {
+            // A detached copy from the task cache; outside a read-only transaction a miss loads from the primary
+            TaskSnapshot snapshot = TaskSnapshot.of(taskService.getTaskByIdAndUser(taskId, principal.getName()));
+            attributes.put(TASK_ID_ATTRIBUTE, taskId);
+            attributes.put(USERNAME_ATTRIBUTE, principal.getName());
+            attributes.put(SNAPSHOT_ATTRIBUTE, snapshot);
+            return true;
+        } catch (RuntimeException e) {
+            logger.logSecurityEvent("TASK_CHANNEL_DENIED", principal.getName(),
+                    "Task channel refused for task " + taskId + ": " + e.getMessage(), "MEDIUM");
+            response.setStatusCode(HttpStatus.FORBIDDEN);
+            return false;
+        }
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        Map<String, Object> attributes = session.getAttributes();
+        taskChannelHub.join((Long) attributes.get(TASK_ID_ATTRIBUTE), (String) attributes.get(USERNAME_ATTRIBUTE),
+                (TaskSnapshot) attributes.remove(SNAPSHOT_ATTRIBUTE), session);
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        // Edits go through the REST API; the channel only pushes diffs
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        taskChannelHub.leave((Long) session.getAttributes().get(TASK_ID_ATTRIBUTE), session);
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        taskChannelHub.leave((Long) session.getAttributes().get(TASK_ID_ATTRIBUTE), session);
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.demo.event;
+
+import com.example.demo.util.CustomLogger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Per-task WebSocket channels for live collaboration. Changes published by the dispatcher only
+ * replace the channel's pending snapshot and, if no flush is scheduled yet, schedule one after the
+ * coalescing window; the flush diffs the latest snapshot against the last one broadcast and sends the
+ * same serialized message to every session. No locks are held on the publishing path, and sessions
+ * are wrapped in {@link ConcurrentWebSocketSessionDecorator} so a slow client only buffers (and is
+ * closed past its limits) instead of stalling the flush for its channel or others.
+ */
+@Component
+public class TaskChannelHub implements TaskChangeListener {
+
+    private static final CustomLogger logger = CustomLogger.getLogger(TaskChannelHub.class);
+
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+    private final AtomicInteger sessions = new AtomicInteger();
+    private final AtomicInteger threadCounter = new AtomicInteger();
+    private final ScheduledExecutorService flushers;
+    private final ObjectMapper objectMapper;
+    private final long coalesceWindowMillis;
+    private final int sendTimeLimitMillis;
+    private final int sendBufferSizeLimit;
+    private final Counter broadcasts;
+    private final Counter coalescedChanges;
+
+    public TaskChannelHub(ObjectMapper objectMapper,
+                          @Value("${tasks.ws.coalesce-window:PT0.1S}") Duration coalesceWindow,
+                          @Value("${tasks.ws.send-time-limit:PT5S}") Duration sendTimeLimit,
+                          @Value("${tasks.ws.send-buffer-size-limit:65536}") int sendBufferSizeLimit,
+                          @Value("${tasks.ws.flush-threads:2}") int flushThreads,
+                          MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.coalesceWindowMillis = coalesceWindow.toMillis();
+        this.sendTimeLimitMillis = (int) sendTimeLimit.toMillis();
+        this.sendBufferSizeLimit = sendBufferSizeLimit;
+        this.flushers = Executors.newScheduledThreadPool(flushThreads, runnable -> {
+            Thread thread = new Thread(runnable, "task-channel-flush-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("tasks.ws.sessions", sessions, AtomicInteger::get)
+                .description("Open task channel sessions").register(meterRegistry);
+        Gauge.builder("tasks.ws.channels", channels, Map::size)
+                .description("Tasks with at least one channel session").register(meterRegistry);
+        this.broadcasts = Counter.builder("tasks.ws.broadcasts")
+                .description("Diff messages broadcast to task channels").register(meterRegistry);
+        this.coalescedChanges = Counter.builder("tasks.ws.coalesced.changes")
+                .description("Task changes folded into a later broadcast").register(meterRegistry);
+    }
+
+    /**
+     * Add a session to the task's channel and send it the current state of the watched fields
+     */
+    public void join(Long taskId, String username, TaskSnapshot current, WebSocketSession session) throws IOException {
+        WebSocketSession concurrentSession = new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMillis,
+                sendBufferSizeLimit, ConcurrentWebSocketSessionDecorator.OverflowStrategy.TERMINATE);
+        Channel channel = channels.compute(taskId, (id, existing) -> {
+            Channel joined = existing != null ? existing : new Channel(id, current);
+            joined.members.put(session.getId(), new Member(username, concurrentSession));
+            return joined;
+        });
+        sessions.incrementAndGet();
+
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("type", "snapshot");
+        message.put("taskId", taskId);
+        message.put("fields", TaskFieldDiff.fields(current));
+        concurrentSession.sendMessage(new TextMessage(objectMapper.writeValueAsString(message)));
+        logger.logUserActivity(username, "TASK_CHANNEL_JOIN", "/ws/tasks/" + taskId,
+                "Joined task channel (" + channel.members.size() + " members)");
+    }
+
+    public void leave(Long taskId, WebSocketSession session) {
+        channels.computeIfPresent(taskId, (id, channel) -> {
+            if (channel.members.remove(session.getId()) != null) {
+                sessions.decrementAndGet();
+            }
+            return channel.members.isEmpty() ? null : channel;
+        });
+    }
+
+    @Override
+    public void onTaskChange(TaskChangeEvent event) {
+        Channel channel = channels.get(event.taskId());
+        if (channel == null || event.current() == null) {
+            return;
+        }
+        if (channel.pending.getAndSet(new Pending(event.current(), event.sequence())) != null) {
+            coalescedChanges.increment();
+        }
+        if (channel.flushScheduled.compareAndSet(false, true)) {
+            flushers.schedule(() -> flush(channel), coalesceWindowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public int getSessionCount() {
+        return sessions.get();
+    }
+
+    // At most one flush per channel is scheduled or running, so its messages go out in order
+    private void flush(Channel channel) {
+        try {
+            broadcast(channel);
+        } finally {
+            channel.flushScheduled.set(false);
+            // A change that arrived while flushing could not schedule itself; pick it up now
+            if (channel.pending.get() != null && channel.flushScheduled.compareAndSet(false, true)) {
+                flushers.schedule(() -> flush(channel), coalesceWindowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void broadcast(Channel channel) {
+        Pending pending = channel.pending.getAndSet(null);
+        if (pending == null) {
+            return;
+        }
+        TaskSnapshot latest = pending.snapshot();
+        TaskSnapshot previous = channel.lastBroadcast.getAndSet(latest);
+        Map<String, Object> changes = TaskFieldDiff.between(previous, latest);
+        if (!changes.isEmpty()) {
+            Map<String, Object> message = new LinkedHashMap<>();
+            message.put("type", "diff");
+            message.put("taskId", channel.taskId);
+            message.put("sequence", pending.sequence());
+            message.put("changes", changes);
+            TextMessage textMessage;
+            try {
+                textMessage = new TextMessage(objectMapper.writeValueAsString(message));
+            } catch (IOException e) {
+                logger.logException("TASK_CHANNEL_SERIALIZE_ERROR", e, "Task " + channel.taskId);
+                return;
+            }
+            broadcasts.increment();
+            for (Member member : channel.members.values()) {
+                send(member, textMessage);
+            }
+        }
+
+        // Sessions of users who can no longer see the task are closed
+        for (Map.Entry<String, Member> entry : channel.members.entrySet()) {
+            Member member = entry.getValue();
+            if (latest.deleted() || !latest.isVisibleTo(member.username())) {
+                close(member, new CloseStatus(4403, latest.deleted() ? "Task deleted" : "Access revoked"));
+            }
+        }
+    }
+
+    private void send(Member member, TextMessage message) {
+        try {
+            member.session().sendMessage(message);
+        } catch (IOException | IllegalStateException e) {
+            // Buffer or time limit exceeded, or the connection is gone: the decorator closes the session
+            close(member, CloseStatus.SESSION_NOT_RELIABLE);
+        }
+    }
+
+    private static void close(Member member, CloseStatus status) {
+        try {
+            member.session().close(status);
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushers.shutdownNow();
+        for (Channel channel : channels.values()) {
+            for (Member member : channel.members.values()) {
+                close(member, CloseStatus.GOING_AWAY);
+            }
+        }
+    }
+
+    private record Pending(TaskSnapshot snapshot, long sequence) {
+    }
+
+    private record Member(String username, WebSocketSession session) {
+    }
+
+    private static final class Channel {
+
+        private final Long taskId;
+        private final Map<String, Member> members = new ConcurrentHashMap<>();
+        private final AtomicReference<TaskSnapshot> lastBroadcast;
+        private final AtomicReference<Pending> pending = new AtomicReference<>();
+        private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+        private Channel(Long taskId, TaskSnapshot initial) {
+            this.taskId = taskId;
+            this.lastBroadcast = new AtomicReference<>(initial);
+        }
+    }
+}
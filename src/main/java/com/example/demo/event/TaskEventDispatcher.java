@@ -0,0 +1,67 @@
+package com.example.demo.event;
+
+import com.example.demo.util.CustomLogger;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single in-process fan-out point for task changes. TaskServiceImpl publishes after each write;
+ * inside a transaction the event is held back until commit so listeners never see rolled-back changes.
+ */
+@Component
+public class TaskEventDispatcher {
+
+    private static final CustomLogger logger = CustomLogger.getLogger(TaskEventDispatcher.class);
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final ObjectProvider<TaskChangeListener> listeners;
+    private volatile List<TaskChangeListener> resolvedListeners;
+
+    public TaskEventDispatcher(ObjectProvider<TaskChangeListener> listeners) {
+        this.listeners = listeners;
+    }
+
+    public void publish(TaskChangeType type, TaskSnapshot previous, TaskSnapshot current, String actor) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(type, previous, current, actor);
+                }
+            });
+        } else {
+            dispatch(type, previous, current, actor);
+        }
+    }
+
+    private void dispatch(TaskChangeType type, TaskSnapshot previous, TaskSnapshot current, String actor) {
+        Long taskId = current != null ? current.id() : previous.id();
+        TaskChangeEvent event = new TaskChangeEvent(sequence.incrementAndGet(), type, taskId, previous, current,
+                actor, Instant.now());
+        for (TaskChangeListener listener : listeners()) {
+            try {
+                listener.onTaskChange(event);
+            } catch (RuntimeException e) {
+                // A failing listener must not fail the write that already committed
+                logger.logException("TASK_EVENT_LISTENER_ERROR", e,
+                        "Listener " + listener.getClass().getSimpleName() + " failed for task " + taskId);
+            }
+        }
+    }
+
+    // Resolved lazily: listeners may depend on services that depend on this dispatcher
+    private List<TaskChangeListener> listeners() {
+        List<TaskChangeListener> resolved = resolvedListeners;
+        if (resolved == null) {
+            resolved = listeners.orderedStream().toList();
+            resolvedListeners = resolved;
+        }
+        return resolved;
+    }
+}
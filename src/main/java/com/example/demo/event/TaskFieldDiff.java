@@ -0,0 +1,67 @@
+package com.example.demo.event;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Field-level difference between two snapshots of a task, limited to the fields collaborators
+ * watch live: title, status, priority, dueDate and collaborators (as added/removed usernames)
+ */
+public final class TaskFieldDiff {
+
+    private TaskFieldDiff() {
+    }
+
+    /**
+     * Changed fields with their new values; empty when nothing watched changed
+     */
+    public static Map<String, Object> between(TaskSnapshot before, TaskSnapshot after) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        if (!Objects.equals(before.title(), after.title())) {
+            changes.put("title", after.title());
+        }
+        if (before.status() != after.status()) {
+            changes.put("status", after.status());
+        }
+        if (before.priority() != after.priority()) {
+            changes.put("priority", after.priority());
+        }
+        if (!Objects.equals(before.dueDate(), after.dueDate())) {
+            changes.put("dueDate", after.dueDate());
+        }
+        if (!before.collaborators().equals(after.collaborators())) {
+            Set<String> added = new TreeSet<>(after.collaborators());
+            added.removeAll(before.collaborators());
+            Set<String> removed = new TreeSet<>(before.collaborators());
+            removed.removeAll(after.collaborators());
+            Map<String, Object> collaborators = new LinkedHashMap<>();
+            if (!added.isEmpty()) {
+                collaborators.put("added", added);
+            }
+            if (!removed.isEmpty()) {
+                collaborators.put("removed", removed);
+            }
+            changes.put("collaborators", collaborators);
+        }
+        if (before.deleted() != after.deleted()) {
+            changes.put("deleted", after.deleted());
+        }
+        return changes;
+    }
+
+    /**
+     * The watched fields of a snapshot, sent once when a client joins a channel
+     */
+    public static Map<String, Object> fields(TaskSnapshot snapshot) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("title", snapshot.title());
+        fields.put("status", snapshot.status());
+        fields.put("priority", snapshot.priority());
+        fields.put("dueDate", snapshot.dueDate());
+        fields.put("collaborators", snapshot.collaborators());
+        return fields;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.demo.event;
+
+import com.example.demo.constants.Priority;
+import com.example.demo.constants.Status;
+import com.example.demo.entity.Task;
+import com.example.demo.entity.User;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Immutable copy of a task taken at publish time, safe to hand to other threads
+ * after the entity has been modified or detached
+ */
+public record TaskSnapshot(
+        Long id,
+        String title,
+        String description,
+        LocalDate dueDate,
+        Status status,
+        Priority priority,
+        String category,
+        LocalDate createDate,
+        LocalDate updateDate,
+        LocalDate completionDate,
+        boolean deleted,
+        Long ownerId,
+        String ownerUsername,
+        Set<String> collaborators,
+        Set<Long> collaboratorIds,
+        Long version) {
+
+    public static TaskSnapshot of(Task task) {
+        Set<String> collaborators = new TreeSet<>();
+        Set<Long> collaboratorIds = new TreeSet<>();
+        if (task.getCollaborators() != null) {
+            for (User collaborator : task.getCollaborators()) {
+                collaborators.add(collaborator.getUsername());
+                collaboratorIds.add(collaborator.getId());
+            }
+        }
+        User owner = task.getUser();
+        return new TaskSnapshot(task.getId(), task.getTitle(), task.getDescription(), task.getDueDate(),
+                task.getStatus(), task.getPriority(), task.getCategory(), task.getCreateDate(), task.getUpdateDate(),
+                task.getCompletionDate(), Boolean.TRUE.equals(task.getDeleted()),
+                owner != null ? owner.getId() : null, owner != null ? owner.getUsername() : null,
+                Collections.unmodifiableSet(collaborators), Collections.unmodifiableSet(collaboratorIds),
+                task.getVersion());
+    }
+
+    /**
+     * Whether the user can see this task (owner or collaborator), ignoring the deleted flag
+     */
+    public boolean isVisibleTo(String username) {
+        return username.equals(ownerUsername) || collaborators.contains(username);
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.demo.event;
+
+import com.example.demo.util.CustomLogger;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-sent-events fan-out for GET /tasks/stream. Each connection gets its own bounded buffer;
+ * the dispatcher only enqueues, and a small writer pool drains buffers to the sockets. When a client
+ * falls behind, the oldest buffered events are dropped and a "dropped" event tells it to refetch
+ * (drop-policy=drop-oldest), or the connection is closed so it reconnects (drop-policy=disconnect).
+ */
+@Component
+public class TaskStreamHub implements TaskChangeListener {
+
+    private static final CustomLogger logger = CustomLogger.getLogger(TaskStreamHub.class);
+
+    public enum DropPolicy {
+        DROP_OLDEST,
+        DISCONNECT
+    }
+
+    private static final Object HEARTBEAT = new Object();
+
+    private final Map<String, Set<Subscription>> subscriptionsByUser = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger threadCounter = new AtomicInteger();
+    private final ExecutorService writers;
+    private final ScheduledExecutorService heartbeats;
+    private final int bufferSize;
+    private final DropPolicy dropPolicy;
+    private final Duration timeout;
+    private final Counter droppedEvents;
+    private final Counter slowConsumerDisconnects;
+
+    public TaskStreamHub(@Value("${tasks.stream.buffer-size:256}") int bufferSize,
+                         @Value("${tasks.stream.drop-policy:drop-oldest}") DropPolicy dropPolicy,
+                         @Value("${tasks.stream.timeout:PT30M}") Duration timeout,
+                         @Value("${tasks.stream.heartbeat:PT15S}") Duration heartbeat,
+                         @Value("${tasks.stream.writer-threads:4}") int writerThreads,
+                         MeterRegistry meterRegistry) {
+        this.bufferSize = bufferSize;
+        this.dropPolicy = dropPolicy;
+        this.timeout = timeout;
+        this.writers = Executors.newFixedThreadPool(writerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "task-stream-writer-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-stream-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeats.scheduleAtFixedRate(this::sendHeartbeats, heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+
+        Gauge.builder("tasks.stream.connections", connections, AtomicInteger::get)
+                .description("Open task change streams").register(meterRegistry);
+        this.droppedEvents = Counter.builder("tasks.stream.dropped.events")
+                .description("Events dropped for slow stream consumers").register(meterRegistry);
+        this.slowConsumerDisconnects = Counter.builder("tasks.stream.slow.disconnects")
+                .description("Streams closed because the consumer fell behind").register(meterRegistry);
+    }
+
+    /**
+     * Open a stream of changes to tasks the user owns or collaborates on
+     */
+    public SseEmitter subscribe(String username) {
+        SseEmitter emitter = new SseEmitter(timeout.isZero() ? -1L : timeout.toMillis());
+        Subscription subscription = new Subscription(username, emitter);
+        emitter.onCompletion(() -> remove(subscription));
+        emitter.onTimeout(() -> remove(subscription));
+        emitter.onError(error -> remove(subscription));
+
+        subscriptionsByUser.computeIfAbsent(username, k -> ConcurrentHashMap.newKeySet()).add(subscription);
+        connections.incrementAndGet();
+        Map<String, Object> connected = new LinkedHashMap<>();
+        connected.put("username", username);
+        connected.put("bufferSize", bufferSize);
+        connected.put("dropPolicy", dropPolicy);
+        subscription.offer(SseEmitter.event().name("connected").data(connected, MediaType.APPLICATION_JSON));
+        logger.logUserActivity(username, "TASK_STREAM_OPEN", "/tasks/stream", "Task change stream opened");
+        return emitter;
+    }
+
+    @Override
+    public void onTaskChange(TaskChangeEvent event) {
+        for (String username : event.audience()) {
+            Set<Subscription> subscriptions = subscriptionsByUser.get(username);
+            if (subscriptions != null) {
+                for (Subscription subscription : subscriptions) {
+                    subscription.offer(event);
+                }
+            }
+        }
+    }
+
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    private void sendHeartbeats() {
+        for (Set<Subscription> subscriptions : subscriptionsByUser.values()) {
+            for (Subscription subscription : subscriptions) {
+                subscription.offer(HEARTBEAT);
+            }
+        }
+    }
+
+    private void remove(Subscription subscription) {
+        if (subscription.closed.compareAndSet(false, true)) {
+            subscriptionsByUser.computeIfPresent(subscription.username, (user, subscriptions) -> {
+                subscriptions.remove(subscription);
+                return subscriptions.isEmpty() ? null : subscriptions;
+            });
+            connections.decrementAndGet();
+        }
+    }
+
+    private static Map<String, Object> payload(TaskChangeEvent event, String username) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("sequence", event.sequence());
+        payload.put("type", event.type());
+        payload.put("taskId", event.taskId());
+        // Users who just lost access only learn which task to remove, not its new contents
+        boolean revoked = event.revokes(username);
+        payload.put("revoked", revoked);
+        payload.put("task", revoked ? null : event.current());
+        payload.put("actor", event.actor());
+        payload.put("timestamp", event.timestamp());
+        return payload;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+        for (Set<Subscription> subscriptions : subscriptionsByUser.values()) {
+            for (Subscription subscription : subscriptions) {
+                subscription.emitter.complete();
+            }
+        }
+        writers.shutdown();
+    }
+
+    private final class Subscription {
+
+        private final String username;
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<Object> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final AtomicLong droppedSinceLastSend = new AtomicLong();
+
+        private Subscription(String username, SseEmitter emitter) {
+            this.username = username;
+            this.emitter = emitter;
+        }
+
+        private void offer(Object item) {
+            if (closed.get()) {
+                return;
+            }
+            while (!buffer.offer(item)) {
+                if (item == HEARTBEAT) {
+                    return; // A full buffer already keeps the connection busy
+                }
+                if (dropPolicy == DropPolicy.DISCONNECT) {
+                    slowConsumerDisconnects.increment();
+                    logger.logPerformance("TASK_STREAM_SLOW_CONSUMER", 0, "DISCONNECTED user=" + username);
+                    remove(this);
+                    emitter.complete();
+                    return;
+                }
+                if (buffer.poll() != null) {
+                    droppedSinceLastSend.incrementAndGet();
+                    droppedEvents.increment();
+                }
+            }
+            if (draining.compareAndSet(false, true)) {
+                writers.execute(this::drain);
+            }
+        }
+
+        // Only one writer thread drains a subscription at a time, so events stay in order
+        private void drain() {
+            do {
+                try {
+                    Object item;
+                    while (!closed.get() && (item = buffer.poll()) != null) {
+                        long dropped = droppedSinceLastSend.getAndSet(0);
+                        if (dropped > 0) {
+                            emitter.send(SseEmitter.event().name("dropped")
+                                    .data(Map.of("dropped", dropped), MediaType.APPLICATION_JSON));
+                        }
+                        send(item);
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // Client went away; the emitter callbacks may not fire for a broken connection
+                    remove(this);
+                    buffer.clear();
+                }
+                draining.set(false);
+            } while (!closed.get() && !buffer.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        private void send(Object item) throws IOException {
+            if (item == HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } else if (item instanceof TaskChangeEvent event) {
+                emitter.send(SseEmitter.event()
+                        .id(Long.toString(event.sequence()))
+                        .name(event.type().name())
+                        .data(payload(event, username), MediaType.APPLICATION_JSON));
+            } else if (item instanceof SseEmitter.SseEventBuilder builder) {
+                emitter.send(builder);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.demo.event;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Keeps the last few versions of recently changed tasks, so an update made against an older version
+ * (If-Match) can be three-way merged with what changed since. Bounded both in tasks (least recently
+ * changed evicted first) and in versions per task; a miss means the edit cannot be merged safely.
+ */
+@Component
+public class TaskVersionHistory implements TaskChangeListener {
+
+    private final int depth;
+    private final Map<Long, Deque<TaskSnapshot>> versions;
+
+    public TaskVersionHistory(@Value("${tasks.history.max-tasks:10000}") int maxTasks,
+                              @Value("${tasks.history.depth:8}") int depth) {
+        this.depth = depth;
+        this.versions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Deque<TaskSnapshot>> eldest) {
+                return size() > maxTasks;
+            }
+        };
+    }
+
+    @Override
+    public void onTaskChange(TaskChangeEvent event) {
+        synchronized (versions) {
+            Deque<TaskSnapshot> history = versions.computeIfAbsent(event.taskId(), id -> new ArrayDeque<>(depth));
+            record(history, event.previous());
+            record(history, event.current());
+        }
+    }
+
+    public Optional<TaskSnapshot> find(Long taskId, long version) {
+        synchronized (versions) {
+            Deque<TaskSnapshot> history = versions.get(taskId);
+            if (history != null) {
+                for (TaskSnapshot snapshot : history) {
+                    if (snapshot.version() != null && snapshot.version() == version) {
+                        return Optional.of(snapshot);
+                    }
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
+    private void record(Deque<TaskSnapshot> history, TaskSnapshot snapshot) {
+        if (snapshot == null || snapshot.version() == null) {
+            return;
+        }
+        TaskSnapshot last = history.peekLast();
+        if (last != null && snapshot.version().equals(last.version())) {
+            return;
+        }
+        if (history.size() == depth) {
+            history.pollFirst();
+        }
+        history.addLast(snapshot);
+    }
+}
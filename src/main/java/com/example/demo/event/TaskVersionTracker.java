@@ -0,0 +1,72 @@
+package com.example.demo.event;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Version counters behind the ETags of GET /tasks, /tasks/paginated and /tasks/{id}.
+ * Every committed task change bumps the version of each user in its audience (including a
+ * collaborator who just lost access) and of the task itself; user profile edits bump a global
+ * generation because task JSON embeds owner and collaborator details.
+ * <p>
+ * Counters are striped by hash rather than kept per key, so memory stays fixed however many
+ * users and tasks exist. A stripe shared by two keys only costs an occasional needless 200,
+ * never a stale 304. The random epoch invalidates every tag issued before a restart.
+ */
+@Component
+public class TaskVersionTracker implements TaskChangeListener {
+
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLongArray userVersions;
+    private final AtomicLongArray taskVersions;
+    private final int mask;
+
+    public TaskVersionTracker(@Value("${tasks.etag.stripes:65536}") int stripes) {
+        int size = Integer.highestOneBit(Math.max(stripes, 1) - 1) << 1;
+        size = Math.max(size, 1);
+        this.userVersions = new AtomicLongArray(size);
+        this.taskVersions = new AtomicLongArray(size);
+        this.mask = size - 1;
+    }
+
+    @Override
+    public void onTaskChange(TaskChangeEvent event) {
+        taskVersions.incrementAndGet(stripe(event.taskId()));
+        for (String username : event.audience()) {
+            userVersions.incrementAndGet(stripe(username));
+        }
+    }
+
+    /**
+     * Invalidate every issued tag, for changes that can surface in any task representation
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Entity tag (without quotes) for the task lists visible to the user. Must be read before
+     * the lists are loaded so a concurrent write can only make the tag older, not newer.
+     */
+    public String userTag(String username) {
+        return epoch + "-" + generation.get() + "-u" + userVersions.get(stripe(username))
+                + "-" + Integer.toHexString(username.hashCode());
+    }
+
+    /**
+     * Entity tag (without quotes) for a single task, with the same ordering rule as {@link #userTag}
+     */
+    public String taskTag(Long taskId) {
+        return epoch + "-" + generation.get() + "-t" + taskVersions.get(stripe(taskId)) + "-" + taskId;
+    }
+
+    private int stripe(Object key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.demo.exception;
+
+/**
+ * A conditional request header (e.g. If-Match) could not be satisfied (HTTP 412)
+ */
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.demo.exception;
+
+import com.example.demo.entity.Task;
+
+import java.util.List;
+
+/**
+ * An update collided with a concurrent change to the same fields (HTTP 409).
+ * Carries the conflicting field names and the task as currently stored so the client can rebase, or for a
+ * bulk patch the ids of the tasks that changed after they were read.
+ */
+public class TaskConflictException extends RuntimeException {
+
+    private final List<String> fields;
+    private final Task current;
+    private final List<Long> taskIds;
+
+    public TaskConflictException(String message, List<String> fields, Task current) {
+        super(message);
+        this.fields = fields;
+        this.current = current;
+        this.taskIds = List.of();
+    }
+
+    public TaskConflictException(String message, List<Long> taskIds) {
+        super(message);
+        this.fields = List.of();
+        this.current = null;
+        this.taskIds = taskIds;
+    }
+
+    public List<String> getFields() {
+        return fields;
+    }
+
+    public Task getCurrent() {
+        return current;
+    }
+
+    public List<Long> getTaskIds() {
+        return taskIds;
+    }
+}
@@ -1,9 +1,11 @@
 package com.example.demo.filter;
 
+import com.example.demo.service.AuthenticatedUser;
 import com.example.demo.service.CustomUserDetailsService;
 import com.example.demo.service.TokenBlacklistService;
 import com.example.demo.util.CustomLogger;
 import com.example.demo.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -68,7 +70,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     return;
                 }
                 
-                String username = jwtUtil.getUsernameFromToken(jwt);
+                Claims claims = jwtUtil.getAllClaimsFromToken(jwt);
+                String username = claims.getSubject();
                 System.out.println("DEBUG: Username from JWT: " + username);
                 
                 logger.debug("JWT token found for user: {}", username);
@@ -76,6 +79,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 // Load user details
                 UserDetails userDetails = userDetailsService.loadUserByUsername(username);
                 
+                // A token naming a different user id was issued to a since renamed or replaced account
+                Long tokenUserId = JwtUtil.getUserId(claims);
+                if (tokenUserId != null && userDetails instanceof AuthenticatedUser user
+                        && !tokenUserId.equals(user.getId())) {
+                    logger.logSecurityEvent("JWT_USER_ID_MISMATCH", username,
+                            "Token user id " + tokenUserId + " does not match account " + user.getId(), "HIGH");
+                    SecurityContextHolder.clearContext();
+                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                    response.getWriter().write("{\"error\":\"Invalid or expired token\"}");
+                    return;
+                }
+                
                 // Debug: Log the authorities being set
                 logger.debug("Setting authorities for user {}: {}", username, userDetails.getAuthorities());
                 
@@ -178,7 +193,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                path.equals("/auth/config") ||
                path.equals("/debug/auth") ||  // Temporarily allow debug endpoint
                path.startsWith("/h2-console") ||
-               path.startsWith("/actuator") ||
+               path.equals("/actuator/health") ||
+               path.equals("/actuator/info") ||
                path.startsWith("/swagger-ui") ||
                path.startsWith("/v3/api-docs") ||
                path.equals("/swagger-ui.html") ||
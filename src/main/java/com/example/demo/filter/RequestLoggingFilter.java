@@ -31,7 +31,7 @@ public class RequestLoggingFilter implements Filter {
         // Extract request details
         String method = httpRequest.getMethod();
         String uri = httpRequest.getRequestURI();
-        String queryString = httpRequest.getQueryString();
+        String queryString = maskToken(httpRequest.getQueryString());
         String clientIp = getClientIpAddress(httpRequest);
         String userAgent = httpRequest.getHeader("User-Agent");
         String contentType = httpRequest.getContentType();
@@ -58,8 +58,15 @@ public class RequestLoggingFilter implements Filter {
             long executionTime = System.currentTimeMillis() - startTime;
             int statusCode = httpResponse.getStatus();
             
-            logger.auditInfo("REQUEST_END - RequestID: {}, Method: {}, URI: {}, Username: {}, StatusCode: {}, ExecutionTime: {}ms, ClientIP: {}", 
-                    requestId, method, uri, username, statusCode, executionTime, clientIp);
+            Object allocatedBytes = httpRequest.getAttribute(ResourceAccountingFilter.ALLOCATED_BYTES_ATTRIBUTE);
+            Object cpuTimeNanos = httpRequest.getAttribute(ResourceAccountingFilter.CPU_TIME_ATTRIBUTE);
+            if (allocatedBytes != null && cpuTimeNanos != null) {
+                logger.auditInfo("REQUEST_END - RequestID: {}, Method: {}, URI: {}, Username: {}, StatusCode: {}, ExecutionTime: {}ms, ClientIP: {}, AllocatedBytes: {}, CpuTime: {}us", 
+                        requestId, method, uri, username, statusCode, executionTime, clientIp, allocatedBytes, ((Long) cpuTimeNanos) / 1000);
+            } else {
+                logger.auditInfo("REQUEST_END - RequestID: {}, Method: {}, URI: {}, Username: {}, StatusCode: {}, ExecutionTime: {}ms, ClientIP: {}", 
+                        requestId, method, uri, username, statusCode, executionTime, clientIp);
+            }
             
             // Log performance warning for slow requests
             if (executionTime > 5000) {
@@ -108,6 +115,11 @@ public class RequestLoggingFilter implements Filter {
         return "anonymous";
     }
 
+    // JWTs passed as ?token= (event streams, WebSockets) must not end up in the audit log
+    private String maskToken(String queryString) {
+        return queryString != null ? queryString.replaceAll("(^|&)token=[^&]*", "$1token=***") : null;
+    }
+
     private String getClientIpAddress(HttpServletRequest request) {
         String xForwardedFor = request.getHeader("X-Forwarded-For");
         if (xForwardedFor != null && !xForwardedFor.isEmpty() && !"unknown".equalsIgnoreCase(xForwardedFor)) {
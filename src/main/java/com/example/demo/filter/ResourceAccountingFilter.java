@@ -0,0 +1,110 @@
+package com.example.demo.filter;
+
+import com.example.demo.metrics.RequestResourceMetrics;
+import com.example.demo.util.CustomLogger;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Samples per-thread allocated bytes and CPU time around each request and aggregates them per route.
+ * Registered just inside {@link RequestLoggingFilter} so the figures can be added to its REQUEST_END line.
+ */
+@Component
+public class ResourceAccountingFilter extends OncePerRequestFilter {
+
+    private static final CustomLogger logger = CustomLogger.getLogger(ResourceAccountingFilter.class);
+
+    public static final String ALLOCATED_BYTES_ATTRIBUTE = ResourceAccountingFilter.class.getName() + ".allocatedBytes";
+    public static final String CPU_TIME_ATTRIBUTE = ResourceAccountingFilter.class.getName() + ".cpuTimeNanos";
+    public static final String RESULT_ITEMS_ATTRIBUTE = ResourceAccountingFilter.class.getName() + ".resultItems";
+
+    private static final String UNMAPPED_ROUTE = "UNMAPPED";
+
+    @Autowired
+    private RequestResourceMetrics requestResourceMetrics;
+
+    @Value("${request.accounting.enabled:true}")
+    private boolean enabled;
+
+    @Value("${request.accounting.audit-log:false}")
+    private boolean auditLog;
+
+    private com.sun.management.ThreadMXBean threadMXBean;
+    private boolean allocationSupported;
+    private boolean cpuTimeSupported;
+
+    @Override
+    protected void initFilterBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean sunBean) {
+            threadMXBean = sunBean;
+            if (sunBean.isThreadAllocatedMemorySupported()) {
+                sunBean.setThreadAllocatedMemoryEnabled(true);
+                allocationSupported = true;
+            }
+        }
+        if (bean.isCurrentThreadCpuTimeSupported()) {
+            if (!bean.isThreadCpuTimeEnabled()) {
+                bean.setThreadCpuTimeEnabled(true);
+            }
+            cpuTimeSupported = true;
+        }
+        logger.info("ResourceAccountingFilter initialized - enabled: {}, allocation sampling: {}, CPU time sampling: {}",
+                enabled, allocationSupported, cpuTimeSupported);
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        if (!enabled) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long startAllocated = currentThreadAllocatedBytes();
+        long startCpu = currentThreadCpuTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long allocated = startAllocated >= 0 ? currentThreadAllocatedBytes() - startAllocated : -1;
+            long cpu = startCpu >= 0 ? currentThreadCpuTime() - startCpu : -1;
+
+            Object items = request.getAttribute(RESULT_ITEMS_ATTRIBUTE);
+            int resultItems = items instanceof Integer count ? count : 0;
+            requestResourceMetrics.record(routeOf(request), allocated, cpu, resultItems);
+
+            if (auditLog) {
+                request.setAttribute(ALLOCATED_BYTES_ATTRIBUTE, allocated);
+                request.setAttribute(CPU_TIME_ATTRIBUTE, cpu);
+            }
+        }
+    }
+
+    private long currentThreadAllocatedBytes() {
+        return allocationSupported ? threadMXBean.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    private long currentThreadCpuTime() {
+        return cpuTimeSupported ? ManagementFactory.getThreadMXBean().getCurrentThreadCpuTime() : -1;
+    }
+
+    /**
+     * Route key built from the matched handler pattern (e.g. "GET /tasks/{id}") so path variables do not
+     * fan out into separate entries
+     */
+    private String routeOf(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern.toString() : UNMAPPED_ROUTE);
+    }
+}
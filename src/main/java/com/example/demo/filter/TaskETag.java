@@ -0,0 +1,24 @@
+package com.example.demo.filter;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a task read endpoint as conditional: {@link TaskETagInterceptor} answers a matching
+ * If-None-Match with 304 before the handler runs, otherwise the 200 response carries an ETag.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface TaskETag {
+
+    enum Scope {
+        // Everything the authenticated user can see; the tag follows the user's version
+        USER,
+        // The task named by the {id} path variable; the tag follows the task's version
+        TASK
+    }
+
+    Scope value();
+}
@@ -0,0 +1,121 @@
+package com.example.demo.filter;
+
+import com.example.demo.cache.TaskCache;
+import com.example.demo.cache.UserIdCache;
+import com.example.demo.event.TaskVersionTracker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Enumeration;
+import java.util.Map;
+
+/**
+ * Conditional GET for handlers annotated with {@link TaskETag}. The tag is derived from
+ * {@link TaskVersionTracker} counters only, so a revalidation that still matches is answered with
+ * 304 without touching the database or the JSON serializer. A fresh tag is left in a request
+ * attribute for {@link TaskETagAdvice} to put on the response once the handler returned 200.
+ * <p>
+ * A single task is only tagged for a caller who may read it ({@link TaskCache#canAccess}); anyone else
+ * gets no 304 and reaches the handler's 404, so a tag never tells them whether a task exists or changed.
+ */
+@Component
+public class TaskETagInterceptor implements HandlerInterceptor {
+
+    public static final String ETAG_ATTRIBUTE = TaskETagInterceptor.class.getName() + ".etag";
+
+    // Responses may be stored by the client but must be revalidated; overrides Spring Security's no-store
+    private static final String CACHE_CONTROL = "private, no-cache";
+
+    private final TaskVersionTracker taskVersionTracker;
+    private final TaskCache taskCache;
+    private final UserIdCache userIdCache;
+    private final Counter notModified;
+    private final Counter modified;
+
+    public TaskETagInterceptor(TaskVersionTracker taskVersionTracker, TaskCache taskCache, UserIdCache userIdCache,
+                               MeterRegistry meterRegistry) {
+        this.taskVersionTracker = taskVersionTracker;
+        this.taskCache = taskCache;
+        this.userIdCache = userIdCache;
+        this.notModified = Counter.builder("tasks.etag.requests").tag("outcome", "not_modified")
+                .description("Conditional task reads answered with 304").register(meterRegistry);
+        this.modified = Counter.builder("tasks.etag.requests").tag("outcome", "modified")
+                .description("Conditional task reads answered with a full response").register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                             @NonNull Object handler) {
+        if (!HttpMethod.GET.matches(request.getMethod()) || !(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        TaskETag annotation = handlerMethod.getMethodAnnotation(TaskETag.class);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (annotation == null || authentication == null) {
+            return true;
+        }
+
+        String tag = switch (annotation.value()) {
+            case USER -> taskVersionTracker.userTag(authentication.getName());
+            case TASK -> taskTag(request, authentication.getName());
+        };
+        if (tag == null) {
+            return true;
+        }
+
+        ETag etag = ETag.create(tag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        if (matches(request, etag)) {
+            notModified.increment();
+            response.setHeader(HttpHeaders.ETAG, etag.formattedTag());
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return false;
+        }
+        modified.increment();
+        request.setAttribute(ETAG_ATTRIBUTE, etag.formattedTag());
+        return true;
+    }
+
+    // Read before the access check, which may load the task, so the tag can only be older than what is served
+    private String taskTag(HttpServletRequest request, String username) {
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (variables == null || variables.get("id") == null) {
+            return null;
+        }
+        Long id;
+        try {
+            id = Long.valueOf(variables.get("id"));
+        } catch (NumberFormatException e) {
+            // Let the handler report the bad id
+            return null;
+        }
+        String tag = taskVersionTracker.taskTag(id);
+        return taskCache.canAccess(id, userIdCache.idOf(username)) ? tag : null;
+    }
+
+    // If-None-Match uses weak comparison (RFC 9110 13.1.2)
+    private static boolean matches(HttpServletRequest request, ETag etag) {
+        Enumeration<String> headers = request.getHeaders(HttpHeaders.IF_NONE_MATCH);
+        while (headers.hasMoreElements()) {
+            for (ETag candidate : ETag.parse(headers.nextElement())) {
+                if (candidate.isWildcard() || candidate.compare(etag, false)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
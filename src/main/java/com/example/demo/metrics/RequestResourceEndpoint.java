@@ -0,0 +1,38 @@
+package com.example.demo.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint exposing per-route allocated bytes and CPU time.
+ * GET /actuator/requestresources lists every route; the route key is URL-encoded
+ * when selecting a single one (e.g. /actuator/requestresources/GET%20%2Ftasks).
+ */
+@Component
+@Endpoint(id = "requestresources")
+public class RequestResourceEndpoint {
+
+    @Autowired
+    private RequestResourceMetrics requestResourceMetrics;
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> routes() {
+        return requestResourceMetrics.snapshot();
+    }
+
+    @ReadOperation
+    public Map<String, Object> route(@Selector String route) {
+        return requestResourceMetrics.snapshot(route);
+    }
+
+    @DeleteOperation
+    public void reset() {
+        requestResourceMetrics.reset();
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.demo.metrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregates per-route allocated bytes and CPU time sampled by
+ * {@link com.example.demo.filter.ResourceAccountingFilter}.
+ * Totals are exact; percentiles are computed over a bounded reservoir of the most recent samples.
+ */
+@Component
+public class RequestResourceMetrics {
+
+    // Upper bound on distinct routes so a scan of unmapped URIs cannot grow the map without limit
+    private static final int MAX_ROUTES = 512;
+    private static final String OVERFLOW_ROUTE = "OTHER";
+
+    private final ConcurrentHashMap<String, RouteStats> routes = new ConcurrentHashMap<>();
+
+    @Value("${request.accounting.sample-size:1024}")
+    private int sampleSize = 1024;
+
+    /**
+     * Record one completed request for the given route
+     */
+    public void record(String route, long allocatedBytes, long cpuTimeNanos, int resultItems) {
+        RouteStats stats = routes.get(route);
+        if (stats == null) {
+            String key = routes.size() < MAX_ROUTES ? route : OVERFLOW_ROUTE;
+            stats = routes.computeIfAbsent(key, k -> new RouteStats(sampleSize));
+        }
+        stats.record(allocatedBytes, cpuTimeNanos, resultItems);
+    }
+
+    /**
+     * Snapshot of all routes, sorted by route name
+     */
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> result = new TreeMap<>();
+        routes.forEach((route, stats) -> result.put(route, stats.toMap()));
+        return result;
+    }
+
+    /**
+     * Snapshot of a single route, or null if it has not been seen
+     */
+    public Map<String, Object> snapshot(String route) {
+        RouteStats stats = routes.get(route);
+        return stats != null ? stats.toMap() : null;
+    }
+
+    public void reset() {
+        routes.clear();
+    }
+
+    static final class RouteStats {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalAllocatedBytes = new LongAdder();
+        private final LongAdder totalCpuTimeNanos = new LongAdder();
+        private final LongAdder totalResultItems = new LongAdder();
+        private final LongAdder requestsWithItems = new LongAdder();
+        private final LongAdder allocatedBytesWithItems = new LongAdder();
+        private final AtomicLong maxAllocatedBytes = new AtomicLong();
+        private final AtomicLong maxCpuTimeNanos = new AtomicLong();
+        private final Reservoir allocatedSamples;
+        private final Reservoir cpuSamples;
+
+        RouteStats(int sampleSize) {
+            this.allocatedSamples = new Reservoir(sampleSize);
+            this.cpuSamples = new Reservoir(sampleSize);
+        }
+
+        void record(long allocatedBytes, long cpuTimeNanos, int resultItems) {
+            count.increment();
+            if (allocatedBytes >= 0) {
+                totalAllocatedBytes.add(allocatedBytes);
+                maxAllocatedBytes.accumulateAndGet(allocatedBytes, Math::max);
+                allocatedSamples.add(allocatedBytes);
+            }
+            if (cpuTimeNanos >= 0) {
+                totalCpuTimeNanos.add(cpuTimeNanos);
+                maxCpuTimeNanos.accumulateAndGet(cpuTimeNanos, Math::max);
+                cpuSamples.add(cpuTimeNanos);
+            }
+            if (resultItems > 0 && allocatedBytes >= 0) {
+                totalResultItems.add(resultItems);
+                requestsWithItems.increment();
+                allocatedBytesWithItems.add(allocatedBytes);
+            }
+        }
+
+        Map<String, Object> toMap() {
+            long requests = count.sum();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("count", requests);
+
+            Map<String, Object> allocated = new LinkedHashMap<>();
+            long allocatedTotal = totalAllocatedBytes.sum();
+            allocated.put("total", allocatedTotal);
+            allocated.put("mean", requests > 0 ? allocatedTotal / requests : 0);
+            allocated.putAll(allocatedSamples.percentiles(1));
+            allocated.put("max", maxAllocatedBytes.get());
+            map.put("allocatedBytes", allocated);
+
+            Map<String, Object> cpu = new LinkedHashMap<>();
+            long cpuTotal = totalCpuTimeNanos.sum();
+            cpu.put("total", cpuTotal / 1000);
+            cpu.put("mean", requests > 0 ? cpuTotal / requests / 1000 : 0);
+            cpu.putAll(cpuSamples.percentiles(1000));
+            cpu.put("max", maxCpuTimeNanos.get() / 1000);
+            map.put("cpuTimeMicros", cpu);
+
+            long items = totalResultItems.sum();
+            map.put("resultItems", items);
+            map.put("allocatedBytesPerItem", items > 0 ? allocatedBytesWithItems.sum() / items : null);
+            return map;
+        }
+    }
+
+    /**
+     * Fixed-size ring of the most recent samples. Writers never block each other;
+     * a reader may observe a slot being overwritten, which is acceptable for percentiles.
+     */
+    static final class Reservoir {
+
+        private final AtomicLongArray samples;
+        private final AtomicLong cursor = new AtomicLong();
+
+        Reservoir(int size) {
+            this.samples = new AtomicLongArray(Math.max(1, size));
+        }
+
+        void add(long value) {
+            int slot = (int) (cursor.getAndIncrement() % samples.length());
+            samples.set(slot, value);
+        }
+
+        Map<String, Object> percentiles(long divisor) {
+            int filled = (int) Math.min(cursor.get(), samples.length());
+            long[] copy = new long[filled];
+            for (int i = 0; i < filled; i++) {
+                copy[i] = samples.get(i);
+            }
+            Arrays.sort(copy);
+
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("p50", percentile(copy, 0.50) / divisor);
+            map.put("p90", percentile(copy, 0.90) / divisor);
+            map.put("p99", percentile(copy, 0.99) / divisor);
+            return map;
+        }
+
+        private static long percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+}
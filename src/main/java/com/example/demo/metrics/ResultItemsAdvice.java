@@ -0,0 +1,52 @@
+package com.example.demo.metrics;
+
+import com.example.demo.filter.ResourceAccountingFilter;
+import org.springframework.core.MethodParameter;
+import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.Collection;
+
+/**
+ * Records how many items a list or page response carries so per-route allocation can be
+ * reported per item returned (e.g. bytes allocated by GET /tasks per task). Handlers returning an already
+ * serialized body set {@link ResourceAccountingFilter#RESULT_ITEMS_ATTRIBUTE} themselves.
+ */
+@RestControllerAdvice
+public class ResultItemsAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        int items = itemsOf(body);
+        if (items >= 0 && request instanceof ServletServerHttpRequest servletRequest) {
+            servletRequest.getServletRequest().setAttribute(ResourceAccountingFilter.RESULT_ITEMS_ATTRIBUTE, items);
+        }
+        return body;
+    }
+
+    /**
+     * Items in a list or page body, -1 for any other body
+     */
+    public static int itemsOf(Object body) {
+        if (body instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (body instanceof Page<?> page) {
+            return page.getNumberOfElements();
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.demo.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one {@code isBlacklisted} lookup in {@link com.example.demo.service.TokenBlacklistService}
+ */
+@Name("com.example.demo.BlacklistLookup")
+@Label("Token Blacklist Lookup")
+@Category({"ToDo Application", "Security"})
+@Description("Lookup of a JWT in the logout blacklist")
+@StackTrace(false)
+public class BlacklistLookupEvent extends jdk.jfr.Event {
+
+    @Label("Blacklisted")
+    public boolean blacklisted;
+
+    @Label("Blacklist Size")
+    public int blacklistSize;
+}
@@ -0,0 +1,120 @@
+package com.example.demo.profiling;
+
+import com.example.demo.util.CustomLogger;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Manages a single on-demand JFR recording. Every recording is bounded by a maximum age and size
+ * (capped by configuration) so it can be left running in production without filling the disk.
+ */
+@Component
+public class FlightRecordingService {
+
+    private static final CustomLogger logger = CustomLogger.getLogger(FlightRecordingService.class);
+
+    private static final List<Class<? extends jdk.jfr.Event>> APPLICATION_EVENTS = List.of(
+            JwtVerificationEvent.class, UserLoadEvent.class, BlacklistLookupEvent.class, TaskOperationEvent.class);
+
+    @Value("${profiling.jfr.max-age:PT10M}")
+    private Duration maxAgeLimit;
+
+    @Value("${profiling.jfr.max-size-mb:64}")
+    private long maxSizeMbLimit;
+
+    private Recording recording;
+    private Instant startedAt;
+
+    /**
+     * Start a new recording with the given JFR settings ("default" or "profile") on behalf of username.
+     * Requested age and size are clamped to the configured limits.
+     */
+    public synchronized Map<String, Object> start(String settings, Duration maxAge, Long maxSizeMb, String username)
+            throws IOException, ParseException {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new IllegalStateException("A recording is already running");
+        }
+        closeCurrent();
+
+        Duration age = maxAge == null || maxAge.compareTo(maxAgeLimit) > 0 ? maxAgeLimit : maxAge;
+        long sizeMb = maxSizeMb == null || maxSizeMb > maxSizeMbLimit ? maxSizeMbLimit : maxSizeMb;
+
+        Recording newRecording = new Recording(Configuration.getConfiguration(settings != null ? settings : "default"));
+        newRecording.setName("todo-on-demand");
+        newRecording.setToDisk(true);
+        newRecording.setMaxAge(age);
+        newRecording.setMaxSize(sizeMb * 1024 * 1024);
+        for (Class<? extends jdk.jfr.Event> eventClass : APPLICATION_EVENTS) {
+            newRecording.enable(eventClass).withoutStackTrace();
+        }
+        newRecording.start();
+
+        recording = newRecording;
+        startedAt = Instant.now();
+        logger.logSecurityEvent("JFR_RECORDING_STARTED", username,
+                "JFR recording started with settings " + settings + ", maxAge " + age + ", maxSize " + sizeMb + "MB", "LOW");
+        return status();
+    }
+
+    /**
+     * Stop the running recording; its data stays available for dump until the next start
+     */
+    public synchronized Map<String, Object> stop(String username) {
+        if (recording == null || recording.getState() != RecordingState.RUNNING) {
+            throw new IllegalStateException("No recording is running");
+        }
+        recording.stop();
+        logger.logSecurityEvent("JFR_RECORDING_STOPPED", username, "JFR recording stopped", "LOW");
+        return status();
+    }
+
+    /**
+     * Write the current recording contents (running or stopped) to a temporary file.
+     * The caller is responsible for deleting the file.
+     */
+    public synchronized Path dump() throws IOException {
+        if (recording == null) {
+            throw new IllegalStateException("No recording has been started");
+        }
+        Path file = Files.createTempFile("todo-recording-", ".jfr");
+        recording.dump(file);
+        return file;
+    }
+
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        if (recording == null) {
+            status.put("state", "NONE");
+            return status;
+        }
+        status.put("state", recording.getState().name());
+        status.put("startedAt", startedAt);
+        status.put("maxAge", recording.getMaxAge());
+        status.put("maxSizeBytes", recording.getMaxSize());
+        status.put("sizeBytes", recording.getSize());
+        return status;
+    }
+
+    @PreDestroy
+    public synchronized void closeCurrent() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+            startedAt = null;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.demo.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one signature/claims verification in {@link com.example.demo.util.JwtUtil}
+ */
+@Name("com.example.demo.JwtVerification")
+@Label("JWT Verification")
+@Category({"ToDo Application", "Security"})
+@Description("Parsing and signature verification of a JWT")
+@StackTrace(false)
+public class JwtVerificationEvent extends jdk.jfr.Event {
+
+    @Label("Token Type")
+    public String tokenType;
+
+    @Label("Valid")
+    public boolean valid;
+
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,39 @@
+package com.example.demo.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for one {@link com.example.demo.service.impl.TaskServiceImpl} operation,
+ * emitted by {@link TaskOperationEventAspect}
+ */
+@Name("com.example.demo.TaskOperation")
+@Label("Task Operation")
+@Category({"ToDo Application", "Tasks"})
+@Description("A task service operation with the number of tasks returned and time spent in repository queries")
+@StackTrace(false)
+public class TaskOperationEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Username")
+    public String username;
+
+    @Label("Task Count")
+    public int taskCount;
+
+    @Label("Query Count")
+    public int queryCount;
+
+    @Label("Query Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long queryTime;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
@@ -0,0 +1,88 @@
+package com.example.demo.profiling;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Emits a {@link TaskOperationEvent} for every TaskServiceImpl operation and attributes the time spent
+ * in repository calls made on the same thread to it. Does nothing unless a JFR recording has the event enabled.
+ */
+@Aspect
+@Component
+public class TaskOperationEventAspect {
+
+    private static final ThreadLocal<TaskOperationEvent> currentOperation = new ThreadLocal<>();
+
+    @Pointcut("execution(public * com.example.demo.service.impl.TaskServiceImpl.*(..))")
+    public void taskServiceOperations() {}
+
+    // The sharded task repository is left out: the shard repository calls it makes are counted instead.
+    // The in-memory task store takes the place of TaskRepo, so its calls count as queries
+    @Pointcut("(execution(* com.example.demo.repo.TaskRepo+.*(..)) || execution(* com.example.demo.repo.UserRepo+.*(..))"
+            + " || execution(public * com.example.demo.store.InMemoryTaskStore.*(..)))"
+            + " && !within(com.example.demo.shard..*)")
+    public void repositoryCalls() {}
+
+    @Around("taskServiceOperations()")
+    public Object recordOperation(ProceedingJoinPoint joinPoint) throws Throwable {
+        TaskOperationEvent event = new TaskOperationEvent();
+        if (!event.isEnabled() || currentOperation.get() != null) {
+            return joinPoint.proceed();
+        }
+
+        event.operation = joinPoint.getSignature().getName();
+        event.username = firstStringArgument(joinPoint.getArgs());
+        event.begin();
+        currentOperation.set(event);
+        try {
+            Object result = joinPoint.proceed();
+            event.taskCount = countTasks(result);
+            event.succeeded = true;
+            return result;
+        } finally {
+            currentOperation.remove();
+            event.commit();
+        }
+    }
+
+    @Around("repositoryCalls()")
+    public Object recordQuery(ProceedingJoinPoint joinPoint) throws Throwable {
+        TaskOperationEvent event = currentOperation.get();
+        if (event == null) {
+            return joinPoint.proceed();
+        }
+
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            event.queryTime += System.nanoTime() - start;
+            event.queryCount++;
+        }
+    }
+
+    private static String firstStringArgument(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof String value) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private static int countTasks(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Page<?> page) {
+            return page.getNumberOfElements();
+        }
+        return result != null ? 1 : 0;
+    }
+}
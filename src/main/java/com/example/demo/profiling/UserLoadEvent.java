@@ -0,0 +1,27 @@
+package com.example.demo.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one {@code loadUserByUsername} call in {@link com.example.demo.service.CustomUserDetailsService}
+ */
+@Name("com.example.demo.UserLoad")
+@Label("User Load")
+@Category({"ToDo Application", "Security"})
+@Description("Loading user details for authentication")
+@StackTrace(false)
+public class UserLoadEvent extends jdk.jfr.Event {
+
+    @Label("Username")
+    public String username;
+
+    @Label("Found")
+    public boolean found;
+
+    @Label("Active")
+    public boolean active;
+}
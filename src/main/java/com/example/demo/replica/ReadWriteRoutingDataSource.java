@@ -0,0 +1,79 @@
+package com.example.demo.replica;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Hands out replica connections to read-only transactions and primary connections to everything else:
+ * writes, work outside a transaction, and reads the replica cannot serve yet (see {@link ReplicaState}).
+ * Must sit behind a LazyConnectionDataSourceProxy so the connection is chosen at the first statement, once
+ * the transaction's read-only flag is known. Connections handed out are counted as
+ * {@code datasource.routing{target=primary|replica}}.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica";
+
+    private final ReplicaState state;
+    private final Counter primaryConnections;
+    private final Counter replicaConnections;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReplicaState state,
+                                      MeterRegistry meterRegistry) {
+        this.state = state;
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        // Anything unknown is a bug, not a reason to fall back to the primary silently
+        setLenientFallback(false);
+        afterPropertiesSet();
+        this.primaryConnections = routed(meterRegistry, PRIMARY);
+        this.replicaConnections = routed(meterRegistry, REPLICA);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String caller = caller();
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (state.awaitReplica(caller)) {
+                replicaConnections.increment();
+                return REPLICA;
+            }
+        } else if (TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isSynchronizationActive()) {
+            // A write transaction: once committed, the caller keeps reading from the primary until it is replicated
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    state.recordWrite(caller);
+                }
+            });
+        }
+        primaryConnections.increment();
+        return PRIMARY;
+    }
+
+    private static String caller() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    private static Counter routed(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("datasource.routing")
+                .description("Connections handed out by the read/write routing")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.demo.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Read/write splitting ({@code datasource.replica.enabled=true}, see application-replica.properties):
+ * two connection pools, {@code primary} from the usual spring.datasource settings and {@code replica} from
+ * datasource.replica.*, each with its own hikaricp.* metrics, behind the application's DataSource, which
+ * routes read-only transactions to the replica. The replica is a second H2 database fed by
+ * {@link ReplicationFeed}; with a real replica the feed is the database's own replication.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replica.enabled", havingValue = "true")
+public class ReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(@Value("${datasource.replica.url}") String url,
+                                              @Value("${datasource.replica.username:sa}") String username,
+                                              @Value("${datasource.replica.password:}") String password) {
+        return DataSourceBuilder.create().type(HikariDataSource.class)
+                .url(url).username(username).password(password).build();
+    }
+
+    @Bean
+    public ReplicaState replicaState(@Value("${datasource.replica.max-wait:PT0.05S}") Duration maxWait,
+                                     @Value("${datasource.replica.max-staleness:PT5S}") Duration maxStaleness) {
+        return new ReplicaState(maxWait, maxStaleness);
+    }
+
+    // Connections are taken at the first statement, when the transaction's read-only flag is already set
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReplicaState replicaState, MeterRegistry meterRegistry) {
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replica, replicaState, meterRegistry));
+    }
+
+    // Reads stay on the primary until the first full copy is done
+    @Bean
+    @DependsOnDatabaseInitialization
+    public ReplicationFeed replicationFeed(@Qualifier("primaryDataSource") DataSource primary,
+                                           @Qualifier("replicaDataSource") DataSource replica,
+                                           ReplicaState replicaState,
+                                           @Value("${spring.flyway.locations:classpath:db/migration}") String[] migrationLocations,
+                                           @Value("${datasource.replica.poll-interval:PT0.5S}") Duration pollInterval,
+                                           @Value("${datasource.replica.batch-size:1000}") int batchSize,
+                                           MeterRegistry meterRegistry) {
+        return new ReplicationFeed(primary, List.of(replica), ReplicationFeed.ALL_TABLES, replicaState, migrationLocations,
+                pollInterval, batchSize, "replica", meterRegistry);
+    }
+}
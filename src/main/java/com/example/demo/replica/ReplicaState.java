@@ -0,0 +1,120 @@
+package com.example.demo.replica;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How far the replica has caught up, in write generations: every committed write on the primary advances
+ * the generation, and the replication feed reports the generation it has fully applied.
+ * <p>
+ * A read-only transaction may use the replica once it has applied everything committed before the
+ * transaction started, so a read never goes back behind the ETag versions, change cursors or earlier reads
+ * of the same request. It waits up to {@code datasource.replica.max-wait} for that, then uses the primary.
+ * A caller whose own write is not applied yet goes to the primary straight away (read-your-writes), and
+ * so does everyone while the feed has not synced within {@code datasource.replica.max-staleness}.
+ */
+public class ReplicaState {
+
+    private final long maxWaitNanos;
+    private final long maxStalenessNanos;
+    private final Map<String, Long> pinnedUntil = new ConcurrentHashMap<>();
+
+    private volatile long writeGeneration;
+    private volatile long appliedGeneration;
+    private volatile long lastSyncNanos;
+    private volatile boolean synced;
+
+    public ReplicaState(Duration maxWait, Duration maxStaleness) {
+        this.maxWaitNanos = maxWait.toNanos();
+        this.maxStalenessNanos = maxStaleness.toNanos();
+    }
+
+    /**
+     * Record a committed write and wake the feed; the caller (null when anonymous) reads from the primary
+     * until it is applied
+     */
+    public synchronized void recordWrite(String caller) {
+        long generation = ++writeGeneration;
+        if (caller != null) {
+            pinnedUntil.merge(caller, generation, Math::max);
+        }
+        notifyAll();
+    }
+
+    /**
+     * The generation to report once everything committed so far has been applied
+     */
+    public long currentGeneration() {
+        return writeGeneration;
+    }
+
+    /**
+     * The feed has applied every write up to the generation
+     */
+    public synchronized void synced(long generation) {
+        appliedGeneration = Math.max(appliedGeneration, generation);
+        lastSyncNanos = System.nanoTime();
+        synced = true;
+        pinnedUntil.values().removeIf(pinned -> pinned <= appliedGeneration);
+        notifyAll();
+    }
+
+    /**
+     * Block the feed until a write commits or the poll interval has passed
+     */
+    public synchronized void awaitWrites(Duration pollInterval) throws InterruptedException {
+        if (writeGeneration == appliedGeneration) {
+            TimeUnit.NANOSECONDS.timedWait(this, pollInterval.toNanos());
+        }
+    }
+
+    /**
+     * Whether a read-only transaction starting now may use the replica, waiting briefly for it to catch up
+     */
+    public boolean awaitReplica(String caller) {
+        if (!synced || System.nanoTime() - lastSyncNanos > maxStalenessNanos) {
+            return false;
+        }
+        if (caller != null && pinnedUntil.getOrDefault(caller, 0L) > appliedGeneration) {
+            return false;
+        }
+        return awaitCaughtUp();
+    }
+
+    /**
+     * Whether the replica has applied everything committed so far, waiting up to max-wait for it
+     */
+    public boolean awaitCaughtUp() {
+        long required = writeGeneration;
+        if (appliedGeneration >= required) {
+            return true;
+        }
+        long deadline = System.nanoTime() + maxWaitNanos;
+        synchronized (this) {
+            while (appliedGeneration < required) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Committed writes the replica has not applied yet
+    public long pendingWrites() {
+        return writeGeneration - appliedGeneration;
+    }
+
+    public double secondsSinceSync() {
+        return synced ? (System.nanoTime() - lastSyncNanos) / 1e9 : Double.NaN;
+    }
+}
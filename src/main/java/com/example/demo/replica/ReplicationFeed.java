@@ -0,0 +1,296 @@
+package com.example.demo.replica;
+
+import com.example.demo.util.CustomLogger;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.flywaydb.core.Flyway;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local stand-in for database replication, keeping one or more H2 replicas in step with the primary.
+ * On startup each replica gets the same migrations and a full copy of the tables; triggers on the primary
+ * (installed by {@link ReplicationTriggers}) then log the key of every changed row, and whenever a write commits (at the latest every
+ * {@code poll-interval}, for writes made outside a transaction) the logged rows are replaced on every
+ * replica by their current state on the primary, or removed when gone there.
+ * Each pass reports the write generation it has caught up to in {@link ReplicaState}.
+ * <p>
+ * Passes are timed as {@code <prefix>.apply}, copied rows counted as {@code <prefix>.rows}; the lag is
+ * {@code <prefix>.pending.writes} and {@code <prefix>.staleness} (seconds since the last complete pass).
+ */
+public class ReplicationFeed {
+
+    private static final CustomLogger logger = CustomLogger.getLogger(ReplicationFeed.class);
+
+    static final String LOG_TABLE = "replication_log";
+
+    /**
+     * Every table, in foreign key order, with the column its rows are logged and replaced by
+     */
+    public static final Map<String, String> ALL_TABLES = tables();
+
+    private static final int IN_LIST_SIZE = 500;
+
+    private final DataSource primary;
+    private final List<DataSource> replicas = new CopyOnWriteArrayList<>();
+    private final Map<String, String> tables;
+    private final ReplicaState state;
+    private final String[] migrationLocations;
+    private final int batchSize;
+    private final Timer applies;
+    private final Counter rows;
+    private final Duration pollInterval;
+    private final ExecutorService poller;
+
+    public ReplicationFeed(DataSource primary, List<DataSource> replicas, Map<String, String> tables, ReplicaState state,
+                           String[] migrationLocations, Duration pollInterval, int batchSize,
+                           String metricPrefix, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.tables = tables;
+        this.state = state;
+        this.migrationLocations = migrationLocations;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.applies = Timer.builder(metricPrefix + ".apply").description("Replication feed passes").register(meterRegistry);
+        this.rows = Counter.builder(metricPrefix + ".rows").description("Rows copied to the replicas").register(meterRegistry);
+        Gauge.builder(metricPrefix + ".pending.writes", state, ReplicaState::pendingWrites)
+                .description("Committed writes not yet applied to the replicas").register(meterRegistry);
+        Gauge.builder(metricPrefix + ".staleness", state, ReplicaState::secondsSinceSync)
+                .description("Seconds since the replicas last caught up").baseUnit("seconds").register(meterRegistry);
+
+        long generation = state.currentGeneration();
+        long start = System.nanoTime();
+        try {
+            for (DataSource replica : replicas) {
+                prepare(replica);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not set up the replicas", e);
+        }
+        this.replicas.addAll(replicas);
+        state.synced(generation);
+        logger.info("{} replica(s) in sync after a full copy in {} ms", replicas.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        this.poller = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replication-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.execute(this::run);
+    }
+
+    /**
+     * Migrate and copy another replica while the application runs; from the next pass on it receives every
+     * change. Rows changed during the copy are still in the log, so that pass brings it up to date.
+     */
+    public synchronized void addReplica(DataSource replica) {
+        try {
+            prepare(replica);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not set up the replica", e);
+        }
+        replicas.add(replica);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdownNow();
+    }
+
+    private void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                state.awaitWrites(pollInterval);
+                if (!poll()) {
+                    // Back off instead of spinning on a failing replica while writes are pending
+                    Thread.sleep(pollInterval.toMillis());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Apply everything logged so far; the generation read first is covered once the log is drained, since
+     * writes only count towards it after they have committed
+     */
+    synchronized boolean poll() {
+        try {
+            long generation = state.currentGeneration();
+            int applied;
+            do {
+                applied = applyBatch();
+            } while (applied == batchSize);
+            state.synced(generation);
+            return true;
+        } catch (SQLException | RuntimeException e) {
+            logger.warn("Replication pass failed, retrying: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private int applyBatch() throws SQLException {
+        long start = System.nanoTime();
+        try (Connection source = primary.getConnection()) {
+            List<Long> sequences = new ArrayList<>();
+            Map<String, Set<Long>> keysByTable = new LinkedHashMap<>();
+            tables.keySet().forEach(table -> keysByTable.put(table, new LinkedHashSet<>()));
+            try (PreparedStatement statement = source.prepareStatement(
+                    "SELECT seq, table_name, row_key FROM " + LOG_TABLE + " ORDER BY seq FETCH FIRST ? ROWS ONLY")) {
+                statement.setInt(1, batchSize);
+                try (ResultSet result = statement.executeQuery()) {
+                    while (result.next()) {
+                        sequences.add(result.getLong(1));
+                        keysByTable.get(result.getString(2)).add(result.getLong(3));
+                    }
+                }
+            }
+            if (sequences.isEmpty()) {
+                return 0;
+            }
+
+            for (DataSource replica : replicas) {
+                try (Connection target = replica.getConnection()) {
+                    target.setAutoCommit(false);
+                    try {
+                        for (Map.Entry<String, Set<Long>> entry : keysByTable.entrySet()) {
+                            for (List<Long> keys : chunks(entry.getValue())) {
+                                replaceRows(source, target, entry.getKey(), keys);
+                            }
+                        }
+                        target.commit();
+                    } catch (SQLException | RuntimeException e) {
+                        target.rollback();
+                        throw e;
+                    }
+                }
+            }
+            for (List<Long> chunk : chunks(sequences)) {
+                try (PreparedStatement statement = source.prepareStatement(
+                        "DELETE FROM " + LOG_TABLE + " WHERE seq IN (" + placeholders(chunk.size()) + ")")) {
+                    bind(statement, chunk);
+                    statement.executeUpdate();
+                }
+            }
+            return sequences.size();
+        } finally {
+            applies.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void replaceRows(Connection source, Connection target, String table, List<Long> keys) throws SQLException {
+        String where = " WHERE " + tables.get(table) + " IN (" + placeholders(keys.size()) + ")";
+        try (PreparedStatement delete = target.prepareStatement("DELETE FROM " + table + where)) {
+            bind(delete, keys);
+            delete.executeUpdate();
+        }
+        try (PreparedStatement select = source.prepareStatement("SELECT * FROM " + table + where)) {
+            bind(select, keys);
+            try (ResultSet result = select.executeQuery()) {
+                copyRows(result, target, table);
+            }
+        }
+    }
+
+    private void prepare(DataSource replica) throws SQLException {
+        Flyway.configure().dataSource(replica).locations(migrationLocations).load().migrate();
+        copyAll(replica);
+    }
+
+    // Whatever the primary holds now; rows changed meanwhile are in the log and applied by the next pass
+    private void copyAll(DataSource replica) throws SQLException {
+        try (Connection source = primary.getConnection(); Connection target = replica.getConnection();
+             Statement statement = target.createStatement()) {
+            // The replica only ever receives rows that were consistent on the primary, in any order
+            statement.execute("SET REFERENTIAL_INTEGRITY FALSE");
+            target.setAutoCommit(false);
+            for (String table : tables.keySet()) {
+                statement.executeUpdate("DELETE FROM " + table);
+                try (Statement select = source.createStatement();
+                     ResultSet result = select.executeQuery("SELECT * FROM " + table)) {
+                    copyRows(result, target, table);
+                }
+            }
+            target.commit();
+        }
+    }
+
+    private void copyRows(ResultSet result, Connection target, String table) throws SQLException {
+        ResultSetMetaData metaData = result.getMetaData();
+        int columns = metaData.getColumnCount();
+        List<String> names = new ArrayList<>();
+        for (int i = 1; i <= columns; i++) {
+            names.add(metaData.getColumnName(i));
+        }
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", names) + ") VALUES (" + placeholders(columns) + ")";
+        try (PreparedStatement insert = target.prepareStatement(sql)) {
+            int pending = 0;
+            while (result.next()) {
+                for (int i = 1; i <= columns; i++) {
+                    insert.setObject(i, result.getObject(i));
+                }
+                insert.addBatch();
+                if (++pending == batchSize) {
+                    rows.increment(insert.executeBatch().length);
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                rows.increment(insert.executeBatch().length);
+            }
+        }
+    }
+
+    private static Map<String, String> tables() {
+        Map<String, String> tables = new LinkedHashMap<>();
+        tables.put("users", "id");
+        tables.put("task_categories", "user_id");
+        tables.put("tasks", "id");
+        tables.put("task_collaborators", "task_id");
+        tables.put("task_revocations", "id");
+        return Collections.unmodifiableMap(tables);
+    }
+
+    private static List<List<Long>> chunks(Collection<Long> values) {
+        List<Long> list = new ArrayList<>(values);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += IN_LIST_SIZE) {
+            chunks.add(list.subList(from, Math.min(list.size(), from + IN_LIST_SIZE)));
+        }
+        return chunks;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static void bind(PreparedStatement statement, List<Long> values) throws SQLException {
+        for (int i = 0; i < values.size(); i++) {
+            statement.setLong(i + 1, values.get(i));
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.demo.replica;
+
+import org.h2.api.Trigger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Row trigger installed on the primary's replicated tables: logs the table and key (the first column, the
+ * id or, for task_collaborators, the task id and for task_categories, the user id) of every inserted, updated
+ * or deleted row into
+ * replication_log, in the writing transaction, so a rolled back write never reaches the feed.
+ */
+public class ReplicationLogTrigger implements Trigger {
+
+    private String table;
+
+    @Override
+    public void init(Connection conn, String schemaName, String triggerName, String tableName, boolean before, int type) {
+        this.table = tableName.toLowerCase();
+    }
+
+    @Override
+    public void fire(Connection conn, Object[] oldRow, Object[] newRow) throws SQLException {
+        Object[] row = newRow != null ? newRow : oldRow;
+        try (PreparedStatement statement = conn.prepareStatement(
+                "INSERT INTO " + ReplicationFeed.LOG_TABLE + " (table_name, row_key) VALUES (?, ?)")) {
+            statement.setString(1, table);
+            statement.setLong(2, ((Number) row[0]).longValue());
+            statement.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.demo.replica;
+
+import com.example.demo.util.CustomLogger;
+import org.flywaydb.core.api.callback.Callback;
+import org.flywaydb.core.api.callback.Context;
+import org.flywaydb.core.api.callback.Event;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Flyway callback bringing the replicate_* triggers of the application database in line with the
+ * configured feeds after every migrate: every table for the read replica, the users for the shards, none
+ * otherwise. Triggers of a feed no longer configured are dropped, and without any feed the replication log
+ * is emptied, so a durable database stops logging once replication is turned off.
+ */
+@Component
+public class ReplicationTriggers implements Callback {
+
+    private static final CustomLogger logger = CustomLogger.getLogger(ReplicationTriggers.class);
+
+    static final String TRIGGER_PREFIX = "replicate_";
+
+    private final Set<String> tables;
+
+    @Autowired
+    public ReplicationTriggers(@Value("${datasource.replica.enabled:false}") boolean replicaEnabled,
+                               @Value("${datasource.shards.enabled:false}") boolean shardsEnabled) {
+        this(replicaEnabled ? ReplicationFeed.ALL_TABLES.keySet() : shardsEnabled ? Set.of("users") : Set.of());
+    }
+
+    public ReplicationTriggers(Set<String> tables) {
+        this.tables = tables;
+    }
+
+    @Override
+    public boolean supports(Event event, Context context) {
+        return event == Event.AFTER_MIGRATE;
+    }
+
+    @Override
+    public boolean canHandleInTransaction(Event event, Context context) {
+        return true;
+    }
+
+    @Override
+    public void handle(Event event, Context context) {
+        try {
+            reconcile(context.getConnection());
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not set up the replication triggers", e);
+        }
+    }
+
+    @Override
+    public String getCallbackName() {
+        return "replicationTriggers";
+    }
+
+    private void reconcile(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            Set<String> installed = new HashSet<>();
+            try (ResultSet result = statement.executeQuery("SELECT LOWER(EVENT_OBJECT_TABLE) FROM INFORMATION_SCHEMA.TRIGGERS "
+                    + "WHERE LOWER(TRIGGER_NAME) LIKE '" + TRIGGER_PREFIX + "%'")) {
+                while (result.next()) {
+                    installed.add(result.getString(1));
+                }
+            }
+            for (String table : installed) {
+                if (!tables.contains(table)) {
+                    statement.execute("DROP TRIGGER " + TRIGGER_PREFIX + table);
+                    logger.info("Dropped replication trigger on {}", table);
+                }
+            }
+            for (String table : tables) {
+                statement.execute("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_PREFIX + table
+                        + " AFTER INSERT, UPDATE, DELETE ON " + table
+                        + " FOR EACH ROW CALL '" + ReplicationLogTrigger.class.getName() + "'");
+            }
+            if (tables.isEmpty()) {
+                statement.executeUpdate("DELETE FROM " + ReplicationFeed.LOG_TABLE);
+            }
+        }
+    }
+}
@@ -6,6 +6,7 @@ import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -14,58 +15,91 @@ import org.springframework.stereotype.Repository;
 import com.example.demo.entity.Task;
 
 @Repository
-public interface TaskRepo extends JpaRepository<Task, Long> {
+public interface TaskRepo extends JpaRepository<Task, Long>, TaskRepoCustom {
     
     // Basic methods (existing and working)
-    List<Task> findByUserUsername(String username);
+    // By username: explicit inner joins, so the plan can start from the user found by username; the
+    // left join of the derived queries would make it read the tasks table first
+    @Query("SELECT t FROM Task t JOIN t.user u WHERE u.username = :username")
+    List<Task> findByUserUsername(@Param("username") String username);
     Optional<Task> findByIdAndUserUsername(Long id, String username);
     
     // Enhanced methods with proper soft delete support
-    List<Task> findByUserUsernameAndDeletedFalse(String username);
+    @Query("SELECT t FROM Task t JOIN t.user u WHERE u.username = :username AND t.deleted = false")
+    List<Task> findByUserUsernameAndDeletedFalse(@Param("username") String username);
     Optional<Task> findByIdAndUserUsernameAndDeletedFalse(Long id, String username);
     
+    // By owner id: explicit queries on t.user.id read tasks.user_id without the join to users
+    // that derived findByUserId... methods would add
+    @Query("SELECT t FROM Task t WHERE t.user.id = :userId AND t.deleted = false")
+    List<Task> findByUserIdAndDeletedFalse(@Param("userId") Long userId);
+    
     // Methods for filtering
-    List<Task> findByUserUsernameAndStatusAndDeletedFalse(String username, com.example.demo.constants.Status status);
-    List<Task> findByUserUsernameAndCategoryAndDeletedFalse(String username, String category);
+    @Query("SELECT t FROM Task t JOIN t.user u WHERE u.username = :username AND t.status = :status AND t.deleted = false")
+    List<Task> findByUserUsernameAndStatusAndDeletedFalse(@Param("username") String username,
+                                                          @Param("status") com.example.demo.constants.Status status);
+    // By category: the name is looked up in the user's dictionary, then the tasks by number (idx_tasks_user_category)
+    @Query("SELECT t FROM Task t JOIN t.user u JOIN TaskCategory c ON c.userId = u.id AND c.id = t.categoryId " +
+           "WHERE u.username = :username AND c.name = :category AND t.deleted = false")
+    List<Task> findByUserUsernameAndCategoryAndDeletedFalse(@Param("username") String username, @Param("category") String category);
     
     // Additional filtering methods for collaborator support
     List<Task> findByStatusAndDeletedFalse(com.example.demo.constants.Status status);
-    List<Task> findByCategoryAndDeletedFalse(String category);
+    // Every user's category of that name (idx_task_categories_name), then their tasks by number
+    @Query("SELECT t FROM TaskCategory c JOIN Task t ON t.user.id = c.userId AND t.categoryId = c.id " +
+           "WHERE c.name = :category AND t.deleted = false")
+    List<Task> findByCategoryAndDeletedFalse(@Param("category") String category);
     
-    // Methods to get all tasks (we'll filter collaborators in service layer)
+    // Methods to get all tasks (admin views)
     List<Task> findAllByDeletedFalse();
+    // Shared with the user by other owners: starts from the user's rows in idx_task_collaborators_user
+    @Query("SELECT t FROM Task t JOIN t.collaborators c WHERE c.id = :userId AND t.user.id <> :userId AND t.deleted = false")
+    List<Task> findSharedWithUser(@Param("userId") Long userId);
+    // Collaborators in the same query (the owner stays eager): the task cache loads entries outside any transaction
+    @EntityGraph(attributePaths = "collaborators", type = EntityGraph.EntityGraphType.LOAD)
     Optional<Task> findByIdAndDeletedFalse(Long id);
     
     // Get all deleted tasks for recovery purposes
-    List<Task> findByUserUsernameAndDeletedTrue(String username);
+    @Query("SELECT t FROM Task t JOIN t.user u WHERE u.username = :username AND t.deleted = true")
+    List<Task> findByUserUsernameAndDeletedTrue(@Param("username") String username);
     
     // **NEW: Pagination and Sorting methods**
-    Page<Task> findByUserUsernameAndDeletedFalse(String username, Pageable pageable);
+    @Query("SELECT t FROM Task t WHERE t.user.id = :userId AND t.deleted = false")
+    Page<Task> findByUserIdAndDeletedFalse(@Param("userId") Long userId, Pageable pageable);
     
     // **NEW: Due date filtering**
-    List<Task> findByUserUsernameAndDueDateAndDeletedFalse(String username, LocalDate dueDate);
-    List<Task> findByUserUsernameAndDueDateBetweenAndDeletedFalse(String username, LocalDate startDate, LocalDate endDate);
-    List<Task> findByUserUsernameAndDueDateBeforeAndDeletedFalse(String username, LocalDate date);
-    List<Task> findByUserUsernameAndDueDateAfterAndDeletedFalse(String username, LocalDate date);
+    @Query("SELECT t FROM Task t WHERE t.user.id = :userId AND t.dueDate = :dueDate AND t.deleted = false")
+    List<Task> findByUserIdAndDueDateAndDeletedFalse(@Param("userId") Long userId, @Param("dueDate") LocalDate dueDate);
+    @Query("SELECT t FROM Task t WHERE t.user.id = :userId AND t.dueDate BETWEEN :startDate AND :endDate AND t.deleted = false")
+    List<Task> findByUserIdAndDueDateBetweenAndDeletedFalse(@Param("userId") Long userId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    @Query("SELECT t FROM Task t WHERE t.user.id = :userId AND t.dueDate < :date AND t.deleted = false")
+    List<Task> findByUserIdAndDueDateBeforeAndDeletedFalse(@Param("userId") Long userId, @Param("date") LocalDate date);
+    @Query("SELECT t FROM Task t WHERE t.user.id = :userId AND t.dueDate > :date AND t.deleted = false")
+    List<Task> findByUserIdAndDueDateAfterAndDeletedFalse(@Param("userId") Long userId, @Param("date") LocalDate date);
+    
+    // Priority view: a range of idx_tasks_user_deleted_priority
+    @Query("SELECT t FROM Task t WHERE t.user.id = :userId AND t.priority = :priority AND t.deleted = false")
+    List<Task> findByUserIdAndPriorityAndDeletedFalse(@Param("userId") Long userId,
+                                                     @Param("priority") com.example.demo.constants.Priority priority);
     
     // **NEW: Search by keyword in title or description**
-    @Query("SELECT t FROM Task t WHERE t.user.username = :username AND t.deleted = false AND " +
+    @Query("SELECT t FROM Task t WHERE t.user.id = :userId AND t.deleted = false AND " +
            "(LOWER(t.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
            "LOWER(t.description) LIKE LOWER(CONCAT('%', :keyword, '%')))")
-    List<Task> findByUserUsernameAndKeywordInTitleOrDescription(@Param("username") String username, @Param("keyword") String keyword);
+    List<Task> findByUserIdAndKeywordInTitleOrDescription(@Param("userId") Long userId, @Param("keyword") String keyword);
     
     // **NEW: Search with pagination**
-    @Query("SELECT t FROM Task t WHERE t.user.username = :username AND t.deleted = false AND " +
+    @Query("SELECT t FROM Task t WHERE t.user.id = :userId AND t.deleted = false AND " +
            "(LOWER(t.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
            "LOWER(t.description) LIKE LOWER(CONCAT('%', :keyword, '%')))")
-    Page<Task> findByUserUsernameAndKeywordInTitleOrDescription(@Param("username") String username, @Param("keyword") String keyword, Pageable pageable);
+    Page<Task> findByUserIdAndKeywordInTitleOrDescription(@Param("userId") Long userId, @Param("keyword") String keyword, Pageable pageable);
     
     // **NEW: Advanced filtering with pagination**
-    @Query("SELECT t FROM Task t WHERE t.user.username = :username AND t.deleted = false AND " +
+    @Query("SELECT t FROM Task t WHERE t.user.id = :userId AND t.deleted = false AND " +
            "(:status IS NULL OR t.status = :status) AND " +
-           "(:category IS NULL OR t.category = :category) AND " +
+           "(:category IS NULL OR t.categoryId = (SELECT c.id FROM TaskCategory c WHERE c.userId = :userId AND c.name = :category)) AND " +
            "(:dueDate IS NULL OR t.dueDate = :dueDate)")
-    Page<Task> findTasksWithFilters(@Param("username") String username, 
+    Page<Task> findTasksWithFilters(@Param("userId") Long userId, 
                                    @Param("status") com.example.demo.constants.Status status,
                                    @Param("category") String category,
                                    @Param("dueDate") LocalDate dueDate,
@@ -74,4 +108,13 @@ public interface TaskRepo extends JpaRepository<Task, Long> {
     // **NEW: Check if a user is already a collaborator on a task**
     @Query("SELECT COUNT(t) > 0 FROM Task t JOIN t.collaborators c WHERE t.id = :taskId AND c.id = :userId")
     boolean existsCollaboratorByTaskIdAndUserId(@Param("taskId") Long taskId, @Param("userId") Long userId);
-}
\ No newline at end of file
+
+    // **NEW: Delta sync** - range scan on idx_tasks_change_seq, then the visibility filter
+    @Query("SELECT DISTINCT t FROM Task t LEFT JOIN t.collaborators c WHERE t.changeSeq > :since AND t.changeSeq <= :until " +
+           "AND (t.user.id = :userId OR c.id = :userId) ORDER BY t.changeSeq")
+    List<Task> findChangedForUser(@Param("userId") Long userId, @Param("since") long since,
+                                  @Param("until") long until, Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(t.changeSeq), 0) FROM Task t")
+    long findMaxChangeSeq();
+}
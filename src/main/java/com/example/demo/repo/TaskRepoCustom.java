@@ -0,0 +1,25 @@
+package com.example.demo.repo;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Hand-written TaskRepo operations that Spring Data cannot derive
+ */
+public interface TaskRepoCustom {
+
+    /**
+     * Apply the same field values to all given tasks with a single UPDATE that touches only those columns
+     * (plus update_date, completion_date when completing, change_seq and version). With expectedVersion the
+     * row is only updated if its version still matches. Clears the persistence context afterwards, since
+     * loaded tasks no longer reflect the row. Returns the number of rows updated.
+     */
+    int patch(Collection<Long> ids, Map<String, Object> values, long changeSeq, Long expectedVersion);
+
+    /**
+     * The number of the category name in the user's dictionary (TaskCategory), adding it when the user has
+     * no category of that name yet; null for no category. The entry is committed on its own, whatever
+     * becomes of the caller's transaction.
+     */
+    Integer categoryId(Long userId, String name);
+}
@@ -0,0 +1,120 @@
+package com.example.demo.repo;
+
+import com.example.demo.constants.Status;
+import com.example.demo.dto.TaskPatch;
+import com.example.demo.entity.TaskCategory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+import jakarta.persistence.Query;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public class TaskRepoCustomImpl implements TaskRepoCustom {
+
+    private static final int CATEGORY_ATTEMPTS = 3;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate newTransaction;
+
+    public TaskRepoCustomImpl(PlatformTransactionManager transactionManager) {
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    @Transactional
+    public int patch(Collection<Long> ids, Map<String, Object> values, long changeSeq, Long expectedVersion) {
+        LocalDate today = LocalDate.now();
+        StringBuilder jpql = new StringBuilder("UPDATE Task t SET ");
+        for (String field : values.keySet()) {
+            if (!TaskPatch.FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Field '" + field + "' cannot be patched");
+            }
+            if ("category".equals(field)) {
+                // Each task takes the number of the name in its own owner's dictionary (none for null)
+                jpql.append("t.categoryId = (SELECT c.id FROM TaskCategory c WHERE c.userId = t.user.id AND c.name = :category), ");
+            } else {
+                jpql.append("t.").append(field).append(" = :").append(field).append(", ");
+            }
+        }
+        boolean completing = values.get("status") == Status.COMPLETED;
+        if (completing) {
+            jpql.append("t.completionDate = :today, ");
+        }
+        jpql.append("t.updateDate = :today, t.changeSeq = :changeSeq, t.version = t.version + 1 WHERE t.id IN :ids");
+        if (expectedVersion != null) {
+            jpql.append(" AND t.version = :version");
+        }
+
+        if (values.get("category") instanceof String category) {
+            List<Long> owners = entityManager.createQuery("SELECT DISTINCT t.user.id FROM Task t WHERE t.id IN :ids", Long.class)
+                    .setParameter("ids", ids)
+                    .getResultList();
+            owners.forEach(owner -> categoryId(owner, category));
+        }
+
+        // Loaded copies of these rows are stale after a bulk UPDATE; write out anything pending first
+        entityManager.flush();
+        Query query = entityManager.createQuery(jpql.toString());
+        values.forEach(query::setParameter);
+        query.setParameter("today", today);
+        query.setParameter("changeSeq", changeSeq);
+        query.setParameter("ids", ids);
+        if (expectedVersion != null) {
+            query.setParameter("version", expectedVersion);
+        }
+        int updated = query.executeUpdate();
+        entityManager.clear();
+        return updated;
+    }
+
+    @Override
+    public Integer categoryId(Long userId, String name) {
+        if (name == null) {
+            return null;
+        }
+        Integer id = findCategoryId(userId, name);
+        for (int attempt = 1; id == null; attempt++) {
+            try {
+                id = newTransaction.execute(status -> addCategory(userId, name));
+            } catch (PersistenceException e) {
+                // Another writer gave the user this name or the next number first: read again, then retry
+                if (attempt == CATEGORY_ATTEMPTS) {
+                    throw e;
+                }
+                id = findCategoryId(userId, name);
+            }
+        }
+        return id;
+    }
+
+    private Integer findCategoryId(Long userId, String name) {
+        List<Integer> ids = entityManager.createQuery(
+                        "SELECT c.id FROM TaskCategory c WHERE c.userId = :userId AND c.name = :name", Integer.class)
+                .setParameter("userId", userId)
+                .setParameter("name", name)
+                .getResultList();
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    private Integer addCategory(Long userId, String name) {
+        Number highest = entityManager.createQuery(
+                        "SELECT COALESCE(MAX(c.id), 0) FROM TaskCategory c WHERE c.userId = :userId", Number.class)
+                .setParameter("userId", userId)
+                .getSingleResult();
+        int id = highest.intValue() + 1;
+        entityManager.persist(new TaskCategory(userId, id, name));
+        entityManager.flush();
+        return id;
+    }
+}
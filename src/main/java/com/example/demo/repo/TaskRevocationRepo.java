@@ -0,0 +1,21 @@
+package com.example.demo.repo;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.demo.entity.TaskRevocation;
+
+@Repository
+public interface TaskRevocationRepo extends JpaRepository<TaskRevocation, Long> {
+
+    // Served by idx_task_revocations_user_seq_task, which covers the whole row
+    @Query("SELECT r FROM TaskRevocation r WHERE r.userId = :userId AND r.changeSeq > :since AND r.changeSeq <= :until " +
+           "ORDER BY r.changeSeq")
+    List<TaskRevocation> findChanges(@Param("userId") Long userId, @Param("since") long since,
+                                     @Param("until") long until, Pageable pageable);
+}
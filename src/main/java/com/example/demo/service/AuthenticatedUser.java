@@ -0,0 +1,25 @@
+package com.example.demo.service;
+
+import java.util.Collection;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * Principal built by {@link CustomUserDetailsService}: Spring's User plus the numeric user id, so
+ * services can query tasks.user_id without looking the username up again.
+ */
+public class AuthenticatedUser extends User {
+
+	private final Long id;
+
+	public AuthenticatedUser(Long id, String username, String password, boolean enabled,
+			Collection<? extends GrantedAuthority> authorities) {
+		super(username, password, enabled, true, true, true, authorities);
+		this.id = id;
+	}
+
+	public Long getId() {
+		return id;
+	}
+}
@@ -17,6 +17,7 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import com.example.demo.entity.User;
+import com.example.demo.profiling.UserLoadEvent;
 import com.example.demo.repo.UserRepo;
 
 @Service
@@ -33,6 +34,17 @@ public class CustomUserDetailsService implements UserDetailsService {
 
 	@Override
 	public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+		UserLoadEvent event = new UserLoadEvent();
+		event.username = username;
+		event.begin();
+		try {
+			return loadUser(username, event);
+		} finally {
+			event.commit();
+		}
+	}
+
+	private UserDetails loadUser(String username, UserLoadEvent event) {
 		System.out.println("Loading user from database (no cache): " + username);
 		
 		// Commented out cache check
@@ -46,6 +58,8 @@ public class CustomUserDetailsService implements UserDetailsService {
 		System.out.println("Querying database for user: " + username);
 		User user = userRepo.findByUsername(username)
 				.orElseThrow(() -> new UsernameNotFoundException("User not found"));
+		event.found = true;
+		event.active = user.isActive();
 		
 		// Check if user is active
 		if (!user.isActive()) {
@@ -61,13 +75,11 @@ public class CustomUserDetailsService implements UserDetailsService {
 				.singletonList(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()));
 		System.out.println("Created authorities: " + authorities);
 		
-		UserDetails userDetails = new org.springframework.security.core.userdetails.User(
+		UserDetails userDetails = new AuthenticatedUser(
+				user.getId(),
 				user.getUsername(),
 				user.getPassword(), 
 				user.isActive(), // enabled
-				true, // accountNonExpired
-				true, // credentialsNonExpired
-				true, // accountNonLocked
 				authorities);
 		
 		// Commented out cache storage
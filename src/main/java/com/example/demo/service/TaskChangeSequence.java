@@ -0,0 +1,68 @@
+package com.example.demo.service;
+
+import com.example.demo.store.TaskStore;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.TreeSet;
+
+/**
+ * Hands out the change sequence numbers stamped on task rows and tracks which of them are still
+ * being written. Delta sync only reads up to {@link #stableCursor()}, the highest number below every
+ * write in flight, so a slow write can never commit underneath a cursor a client already holds.
+ * Numbers continue from the highest one stored, so cursors survive a restart on durable task storage.
+ */
+@Component
+public class TaskChangeSequence {
+
+    private final TaskStore taskStore;
+    private final TreeSet<Long> inFlight = new TreeSet<>();
+    private long last = -1;
+
+    public TaskChangeSequence(TaskStore taskStore) {
+        this.taskStore = taskStore;
+    }
+
+    public synchronized long begin() {
+        long next = last() + 1;
+        last = next;
+        inFlight.add(next);
+        return next;
+    }
+
+    /**
+     * Mark a number as written (committed or failed); either way readers may move past it
+     */
+    public synchronized void end(long changeSeq) {
+        inFlight.remove(changeSeq);
+    }
+
+    /**
+     * End the number once the current transaction has committed or rolled back, so readers cannot move
+     * past rows stamped with it before they are visible; without a transaction it ends right away
+     */
+    public void endAfterCompletion(long changeSeq) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    end(changeSeq);
+                }
+            });
+        } else {
+            end(changeSeq);
+        }
+    }
+
+    public synchronized long stableCursor() {
+        return inFlight.isEmpty() ? last() : inFlight.first() - 1;
+    }
+
+    private long last() {
+        if (last < 0) {
+            last = taskStore.maxChangeSeq();
+        }
+        return last;
+    }
+}
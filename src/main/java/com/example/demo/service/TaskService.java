@@ -1,6 +1,8 @@
 package com.example.demo.service;
 
 import com.example.demo.constants.Priority;
+import com.example.demo.dto.TaskChangesResponse;
+import com.example.demo.dto.TaskPatch;
 import com.example.demo.entity.Task;
 
 import org.springframework.data.domain.Page;
@@ -8,6 +10,7 @@ import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 public interface TaskService {
 
@@ -19,6 +22,17 @@ public interface TaskService {
 
     Task updateTask(Long id, Task task, String username);
 
+    // expectedVersion comes from If-Match; edits to fields changed since then are merged, same-field edits conflict
+    Task updateTask(Long id, Task task, String username, Long expectedVersion);
+
+    // JSON Merge Patch: writes only the patched columns; If-Match handling as for updateTask
+    Task patchTask(Long id, TaskPatch patch, String username, Long expectedVersion);
+
+    // Several merge patches keyed by task id; tasks with identical patches share one UPDATE. Each is guarded by
+    // the version read for the access check: if any task changed meanwhile, TaskConflictException names them
+    // and the transaction rolls back (the in-memory store keeps the patches applied before the conflict)
+    List<Task> patchTasks(Map<Long, TaskPatch> patches, String username);
+
     void deleteTask(Long id, String username);
     
     // Existing enhanced functionality
@@ -49,4 +63,7 @@ public interface TaskService {
     
     // **NEW: Advanced filtering with pagination**
     Page<Task> getTasksWithFilters(String username, String status, String category, LocalDate dueDate, Pageable pageable);
+
+    // **NEW: Delta sync** - tasks created, changed, deleted or revoked after the since cursor (null = full snapshot)
+    TaskChangesResponse getTaskChanges(String username, Long since, int limit);
 }
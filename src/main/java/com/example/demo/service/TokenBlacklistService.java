@@ -1,5 +1,6 @@
 package com.example.demo.service;
 
+import com.example.demo.profiling.BlacklistLookupEvent;
 import com.example.demo.util.CustomLogger;
 import com.example.demo.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,6 +8,8 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -60,7 +63,15 @@ public class TokenBlacklistService {
             return false;
         }
         
+        BlacklistLookupEvent event = new BlacklistLookupEvent();
+        event.begin();
         boolean isBlacklisted = blacklistedTokens.contains(token);
+        event.end();
+        if (event.shouldCommit()) {
+            event.blacklisted = isBlacklisted;
+            event.blacklistSize = blacklistedTokens.size();
+            event.commit();
+        }
         
         if (isBlacklisted) {
             logger.logSecurityEvent("BLACKLISTED_TOKEN_ACCESS", "unknown", 
@@ -70,6 +81,34 @@ public class TokenBlacklistService {
         return isBlacklisted;
     }
 
+    /**
+     * Blacklisted tokens with their expiration time (epoch millis), for snapshots
+     */
+    public Map<String, Long> getBlacklistedTokens() {
+        Map<String, Long> tokens = new HashMap<>();
+        for (String token : blacklistedTokens) {
+            Long expiration = tokenExpirations.get(token);
+            if (expiration != null) {
+                tokens.put(token, expiration);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Add tokens restored from a snapshot; those that have expired since are left out
+     */
+    public void restoreBlacklistedTokens(Map<String, Long> tokens) {
+        long currentTime = System.currentTimeMillis();
+        tokens.forEach((token, expiration) -> {
+            if (expiration >= currentTime) {
+                tokenExpirations.put(token, expiration);
+                blacklistedTokens.add(token);
+            }
+        });
+        logger.info("Restored {} blacklisted tokens from snapshot", blacklistedTokens.size());
+    }
+
     /**
      * Get the count of blacklisted tokens
      */
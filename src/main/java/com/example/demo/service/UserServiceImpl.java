@@ -7,16 +7,23 @@ import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.example.demo.cache.TaskCache;
+import com.example.demo.cache.UserIdCache;
 import com.example.demo.config.CustomPasswordEncoder;
 import com.example.demo.dto.UserDTO;
 import com.example.demo.dto.UserResponseDTO;
 import com.example.demo.dto.UserUpdateDTO;
 import com.example.demo.dto.UserNameDTO;
 import com.example.demo.entity.User;
+import com.example.demo.event.TaskVersionTracker;
 import com.example.demo.repo.UserRepo;
+import com.example.demo.store.TaskStore;
 
 @Service
+@Transactional(readOnly = true)
 public class UserServiceImpl implements UserService {
 
 	@Autowired
@@ -25,7 +32,22 @@ public class UserServiceImpl implements UserService {
 	@Autowired
 	CustomPasswordEncoder customPasswordEncoder;
 
+	@Autowired
+	TaskVersionTracker taskVersionTracker;
+
+	@Autowired
+	TaskCache taskCache;
+
+	@Autowired
+	UserIdCache userIdCache;
+
+	@Autowired
+	TaskStore taskStore;
+
+	// Outside any transaction: a duplicate is reported as false, which a joined transaction would
+	// turn into a rollback once the constraint violation had marked it rollback-only
 	@Override
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
 	public boolean registerUser(UserDTO userDTO) {
 		try {
 			User user = new User();
@@ -74,6 +96,7 @@ public class UserServiceImpl implements UserService {
 	}
 
 	@Override
+	@Transactional
 	public UserResponseDTO updateUser(UserUpdateDTO userUpdateDTO) {
 		try {
 			if (userUpdateDTO.getId() == null) {
@@ -126,6 +149,13 @@ public class UserServiceImpl implements UserService {
 			// Save the updated user
 			User savedUser = repo.saveAndFlush(existingUser);
 
+			// Owner and collaborator details are embedded in task responses, so stored copies of the user,
+			// cached tasks and task ETags are stale; the cache goes first so a new ETag never labels an old body
+			taskStore.userChanged(savedUser);
+			userIdCache.invalidateAll();
+			taskCache.invalidateAll();
+			taskVersionTracker.invalidateAll();
+
 			// Return the updated user as DTO
 			return convertToUserResponseDTO(savedUser);
 
@@ -1,35 +1,99 @@
 package com.example.demo.service.impl;
 
+import com.example.demo.cache.TaskCache;
+import com.example.demo.cache.TaskCacheEntry;
+import com.example.demo.cache.UserIdCache;
+import com.example.demo.constants.Status;
+import com.example.demo.dto.TaskChangesResponse;
+import com.example.demo.dto.TaskPatch;
 import com.example.demo.entity.Task;
+import com.example.demo.entity.TaskRevocation;
 import com.example.demo.entity.User;
-import com.example.demo.repo.TaskRepo;
+import com.example.demo.event.TaskChangeType;
+import com.example.demo.event.TaskEventDispatcher;
+import com.example.demo.event.TaskSnapshot;
+import com.example.demo.event.TaskVersionHistory;
+import com.example.demo.exception.PreconditionFailedException;
+import com.example.demo.exception.TaskConflictException;
+import com.example.demo.repo.TaskRevocationRepo;
 import com.example.demo.repo.UserRepo;
+import com.example.demo.service.TaskChangeSequence;
 import com.example.demo.service.TaskService;
+import com.example.demo.store.TaskStore;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * Reads run in one read-only transaction each: a consistent view, no flush and no dirty-checking snapshots
+ * of the loaded entities. Writes run in one transaction each, optimistic retries in one per attempt.
+ */
 @Service
+@Transactional(readOnly = true)
 public class TaskServiceImpl implements TaskService {
 
     @Autowired
-    private TaskRepo taskRepo;
+    private TaskStore taskStore;
 
     @Autowired
     private UserRepo userRepo;
 
+    @Autowired
+    private TaskEventDispatcher taskEventDispatcher;
+
+    @Autowired
+    private TaskChangeSequence taskChangeSequence;
+
+    @Autowired
+    private TaskRevocationRepo taskRevocationRepo;
+
+    @Autowired
+    private TaskVersionHistory taskVersionHistory;
+
+    @Autowired
+    private TaskCache taskCache;
+
+    @Autowired
+    private UserIdCache userIdCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${tasks.changes.max-limit:1000}")
+    private int maxChangesLimit = 1000;
+
+    @Value("${tasks.update.max-attempts:5}")
+    private int maxUpdateAttempts = 5;
+
     @Override
+    @Transactional
     public Task createTask(Task task, String username) {
-        User user = userRepo.findByUsername(username).orElseThrow(() -> new RuntimeException("User not found"));
+        // Primary key lookup of the authenticated user's row; the principal already carries the id
+        User user = userRepo.findById(userId(username)).orElseThrow(() -> new RuntimeException("User not found"));
         
         // Set owner and timestamps
         task.setUser(user);
+        task.setVersion(null);
         task.setCreateDate(LocalDate.now());
         task.setUpdateDate(LocalDate.now());
         task.setDeleted(false);
@@ -42,126 +106,225 @@ public class TaskServiceImpl implements TaskService {
         // Add the creator as a collaborator by default
         task.getCollaborators().add(user);
         
-        return taskRepo.save(task);
+        Task savedTask = saveChange(task, null);
+        taskEventDispatcher.publish(TaskChangeType.CREATED, null, TaskSnapshot.of(savedTask), username);
+        return savedTask;
     }
 
     @Override
     public List<Task> getTasksByUser(String username) {
+        Long userId = userId(username);
         // Get tasks where user is owner and not deleted
-        List<Task> ownedTasks = taskRepo.findByUserUsernameAndDeletedFalse(username);
-        
-        // Get all non-deleted tasks to check for collaborations
-        List<Task> allTasks = taskRepo.findAllByDeletedFalse();
+        List<Task> ownedTasks = taskStore.findOwned(userId);
         
-        // Find tasks where user is a collaborator
-        List<Task> collaborativeTasks = allTasks.stream()
-            .filter(task -> !task.getUser().getUsername().equals(username)) // Not owned by user
-            .filter(task -> task.getCollaborators() != null && 
-                          task.getCollaborators().stream()
-                              .anyMatch(collaborator -> collaborator.getUsername().equals(username)))
-            .collect(java.util.stream.Collectors.toList());
+        // Tasks shared with the user by their owners, found through the collaborator index
+        List<Task> collaborativeTasks = taskStore.findSharedWith(userId);
         
         // Combine owned and collaborative tasks
         ownedTasks.addAll(collaborativeTasks);
-        return ownedTasks;
+        return withCollaborators(ownedTasks);
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Task getTaskByIdAndUser(Long id, String username) {
-        // Check if user is owner
-        Optional<Task> ownedTask = taskRepo.findByIdAndUserUsernameAndDeletedFalse(id, username);
-        if (ownedTask.isPresent()) {
-            return ownedTask.get();
-        }
-        
-        // If not owner, check if user is collaborator
-        Optional<Task> taskById = taskRepo.findByIdAndDeletedFalse(id);
-        if (taskById.isPresent()) {
-            Task foundTask = taskById.get();
-            if (foundTask.getCollaborators() != null) {
-                boolean isCollaborator = foundTask.getCollaborators().stream()
-                    .anyMatch(user -> user.getUsername().equals(username));
-                if (isCollaborator) {
-                    return foundTask;
+        // Owner or collaborator, answered from the task cache; the caller gets its own detached copy
+        return visibleEntry(id, username).toTask();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Task updateTask(Long id, Task task, String username) {
+        return updateTask(id, task, username, null);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Task updateTask(Long id, Task task, String username, Long expectedVersion) {
+        Set<Long> requestedCollaborators = collaboratorIds(task);
+        
+        for (int attempt = 1; ; attempt++) {
+            try {
+                // Read, merge and write in one transaction; a lost race rolls it back and the next attempt rereads
+                return transactionTemplate.execute(status -> applyUpdate(id, task, username, expectedVersion, requestedCollaborators));
+            } catch (OptimisticLockingFailureException e) {
+                // Another write committed between our read and our write: merge onto it and try again
+                if (attempt >= maxUpdateAttempts) {
+                    throw e;
                 }
+                backOff(attempt);
             }
         }
+    }
+
+    private Task applyUpdate(Long id, Task task, String username, Long expectedVersion, Set<Long> requestedCollaborators) {
+        Task existingTask = loadTask(id, username);
+        // Without If-Match the base is the row just read, so the request simply sets fields: last writer wins
+        TaskSnapshot base = baseSnapshot(existingTask, expectedVersion);
+        
+        // Fields changed since the base are kept unless the client changed the same field differently
+        TaskSnapshot previous = TaskSnapshot.of(existingTask);
+        List<String> conflicts = conflictingFields(base, previous, task, requestedCollaborators);
+        if (!conflicts.isEmpty()) {
+            throw new TaskConflictException("Task " + id + " was changed concurrently", conflicts, existingTask);
+        }
+        Set<Long> previousMembers = memberIds(existingTask);
+        applyEdits(existingTask, base, task, requestedCollaborators);
+        
+        // Always update the timestamp
+        existingTask.setUpdateDate(LocalDate.now());
         
-        throw new RuntimeException("Task not found or access denied");
+        Task savedTask = saveChange(existingTask, previousMembers);
+        taskEventDispatcher.publish(TaskChangeType.UPDATED, previous, TaskSnapshot.of(savedTask), username);
+        return savedTask;
     }
 
     @Override
-    public Task updateTask(Long id, Task task, String username) {
-        Task existingTask = getTaskByIdAndUser(id, username);
-        
-        // Update basic fields
-        if (task.getTitle() != null) {
-            existingTask.setTitle(task.getTitle());
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Task patchTask(Long id, TaskPatch patch, String username, Long expectedVersion) {
+        for (int attempt = 1; ; attempt++) {
+            Task patched = transactionTemplate.execute(status -> applyPatch(id, patch, username, expectedVersion));
+            if (patched != null) {
+                return patched;
+            }
+            if (attempt >= maxUpdateAttempts) {
+                throw new ObjectOptimisticLockingFailureException(Task.class, id);
+            }
+            backOff(attempt);
         }
-        if (task.getDescription() != null) {
-            existingTask.setDescription(task.getDescription());
+    }
+
+    // The patched task, or null when another write moved the row on after it was read
+    private Task applyPatch(Long id, TaskPatch patch, String username, Long expectedVersion) {
+        Task existingTask = loadTask(id, username);
+        TaskSnapshot base = baseSnapshot(existingTask, expectedVersion);
+        TaskSnapshot previous = TaskSnapshot.of(existingTask);
+        Map<String, Object> changes = new LinkedHashMap<>();
+        List<String> conflicts = new ArrayList<>();
+        patch.values().forEach((field, value) -> {
+            Object baseValue = fieldValue(base, field);
+            Object currentValue = fieldValue(previous, field);
+            if (!Objects.equals(value, baseValue)) {
+                changes.put(field, value);
+                if (!Objects.equals(baseValue, currentValue) && !Objects.equals(value, currentValue)) {
+                    conflicts.add(field);
+                }
+            }
+        });
+        if (!conflicts.isEmpty()) {
+            throw new TaskConflictException("Task " + id + " was changed concurrently", conflicts, existingTask);
         }
-        if (task.getDueDate() != null) {
-            existingTask.setDueDate(task.getDueDate());
+        if (changes.isEmpty()) {
+            return existingTask;
         }
-        if (task.getStatus() != null) {
-            existingTask.setStatus(task.getStatus());
-            // Set completion date if task is completed
-            if (task.getStatus().toString().equals("COMPLETED")) {
-                existingTask.setCompletionDate(LocalDate.now());
-            }
+        
+        // UPDATE of just the patched columns, guarded by the version the checks above ran against
+        long changeSeq = taskChangeSequence.begin();
+        int updated;
+        try {
+            updated = taskStore.patch(List.of(id), changes, changeSeq, existingTask.getVersion());
+        } finally {
+            taskChangeSequence.endAfterCompletion(changeSeq);
         }
-        if (task.getCategory() != null) {
-            existingTask.setCategory(task.getCategory());
+        if (updated != 1) {
+            return null;
         }
-        if (task.getPriority() != null) {
-            existingTask.setPriority(task.getPriority());
+        existingTask = loadTask(id, username);
+        taskCache.put(existingTask);
+        taskEventDispatcher.publish(TaskChangeType.UPDATED, previous, TaskSnapshot.of(existingTask), username);
+        return existingTask;
+    }
+
+    @Override
+    @Transactional
+    public List<Task> patchTasks(Map<Long, TaskPatch> patches, String username) {
+        // Check access to every task before writing any of them
+        Map<Long, Task> tasks = new LinkedHashMap<>();
+        for (Task task : taskStore.findAllById(patches.keySet())) {
+            tasks.put(task.getId(), task);
+        }
+        Map<Long, TaskSnapshot> previous = new LinkedHashMap<>();
+        for (Long id : patches.keySet()) {
+            Task task = tasks.get(id);
+            if (task == null || Boolean.TRUE.equals(task.getDeleted()) || !TaskSnapshot.of(task).isVisibleTo(username)) {
+                throw new RuntimeException("Task not found or access denied");
+            }
+            previous.put(id, TaskSnapshot.of(task));
         }
         
-        // Update collaborators if provided
-        if (task.getCollaborators() != null) {
-            // Create a Set to automatically handle duplicates based on User entity equals/hashCode
-            // Note: If User entity doesn't override equals/hashCode properly, we'll use a LinkedHashSet
-            // and filter by ID to ensure no duplicate user IDs
-            Set<User> uniqueCollaborators = new LinkedHashSet<>();
-            Set<Long> addedUserIds = new HashSet<>();
-            
-            for (User collaborator : task.getCollaborators()) {
-                if (collaborator != null && collaborator.getId() != null) {
-                    if (!addedUserIds.contains(collaborator.getId())) {
-                        uniqueCollaborators.add(collaborator);
-                        addedUserIds.add(collaborator.getId());
+        // Tasks receiving identical patches at the same version are updated together by one statement,
+        // guarded by that version so a write since the access check is never overwritten
+        Map<TaskPatch, Map<Long, List<Long>>> groups = new LinkedHashMap<>();
+        patches.forEach((id, patch) -> {
+            if (!patch.isEmpty()) {
+                groups.computeIfAbsent(patch, key -> new LinkedHashMap<>())
+                        .computeIfAbsent(tasks.get(id).getVersion(), key -> new ArrayList<>()).add(id);
+            }
+        });
+        Map<Long, Long> shortGroups = new LinkedHashMap<>(); // task id to change sequence, where rows were missed
+        for (Map.Entry<TaskPatch, Map<Long, List<Long>>> group : groups.entrySet()) {
+            for (Map.Entry<Long, List<Long>> atVersion : group.getValue().entrySet()) {
+                List<Long> ids = atVersion.getValue();
+                long changeSeq = taskChangeSequence.begin();
+                try {
+                    if (taskStore.patch(ids, group.getKey().values(), changeSeq, atVersion.getKey()) != ids.size()) {
+                        ids.forEach(id -> shortGroups.put(id, changeSeq));
                     }
+                } finally {
+                    taskChangeSequence.endAfterCompletion(changeSeq);
                 }
             }
-            
-            existingTask.setCollaborators(uniqueCollaborators);
         }
         
-        // Always update the timestamp
-        existingTask.setUpdateDate(LocalDate.now());
-        
-        return taskRepo.save(existingTask);
+        List<Task> patched = new ArrayList<>();
+        Map<Long, Task> reloaded = new LinkedHashMap<>();
+        for (Task task : taskStore.findAllById(patches.keySet())) {
+            reloaded.put(task.getId(), task);
+        }
+        // A patched row carries its statement's change sequence; the others were changed by someone else
+        List<Long> conflicts = new ArrayList<>();
+        shortGroups.forEach((id, changeSeq) -> {
+            Task task = reloaded.get(id);
+            if (task == null || !Objects.equals(task.getChangeSeq(), changeSeq)) {
+                conflicts.add(id);
+            }
+        });
+        if (!conflicts.isEmpty()) {
+            throw new TaskConflictException("Tasks " + conflicts + " were changed concurrently, reload them", conflicts);
+        }
+        for (Long id : patches.keySet()) {
+            Task task = reloaded.get(id);
+            patched.add(task);
+            if (!patches.get(id).isEmpty()) {
+                taskCache.put(task);
+                taskEventDispatcher.publish(TaskChangeType.UPDATED, previous.get(id), TaskSnapshot.of(task), username);
+            }
+        }
+        return withCollaborators(patched);
     }
 
     @Override
+    @Transactional
     public void deleteTask(Long id, String username) {
-        Task task = getTaskByIdAndUser(id, username);
+        Task task = loadTask(id, username);
+        TaskSnapshot previous = TaskSnapshot.of(task);
         
         // Soft delete - mark as deleted instead of removing
         task.setDeleted(true);
         task.setUpdateDate(LocalDate.now());
-        taskRepo.save(task);
+        Task savedTask = saveChange(task, null);
+        taskEventDispatcher.publish(TaskChangeType.DELETED, previous, TaskSnapshot.of(savedTask), username);
     }
     
     // New method to add collaborator
+    @Transactional
     public Task addCollaborator(Long taskId, String taskOwnerUsername, String collaboratorUsername) {
-        Task task = getTaskByIdAndUser(taskId, taskOwnerUsername);
+        Task task = loadTask(taskId, taskOwnerUsername);
         User collaborator = userRepo.findByUsername(collaboratorUsername)
                 .orElseThrow(() -> new RuntimeException("Collaborator user not found"));
         
-        // Check if collaborator is already added using database query
-        boolean isAlreadyCollaborator = taskRepo.existsCollaboratorByTaskIdAndUserId(taskId, collaborator.getId());
+        // Check if collaborator is already added against the cached membership
+        boolean isAlreadyCollaborator = isCollaborator(taskId, collaborator.getId());
         
         if (isAlreadyCollaborator) {
             throw new RuntimeException("User '" + collaboratorUsername + "' is already a collaborator on this task");
@@ -171,20 +334,24 @@ public class TaskServiceImpl implements TaskService {
             task.setCollaborators(new HashSet<>());
         }
         
+        TaskSnapshot previous = TaskSnapshot.of(task);
         task.getCollaborators().add(collaborator);
         task.setUpdateDate(LocalDate.now());
         
-        return taskRepo.save(task);
+        Task savedTask = saveChange(task, null);
+        taskEventDispatcher.publish(TaskChangeType.COLLABORATOR_ADDED, previous, TaskSnapshot.of(savedTask), taskOwnerUsername);
+        return savedTask;
     }
     
     // New method to add collaborator by user ID
+    @Transactional
     public Task addCollaboratorById(Long taskId, String taskOwnerUsername, Long collaboratorUserId) {
-        Task task = getTaskByIdAndUser(taskId, taskOwnerUsername);
+        Task task = loadTask(taskId, taskOwnerUsername);
         User collaborator = userRepo.findById(collaboratorUserId)
                 .orElseThrow(() -> new RuntimeException("Collaborator user with ID " + collaboratorUserId + " not found"));
         
-        // Check if collaborator is already added using database query
-        boolean isAlreadyCollaborator = taskRepo.existsCollaboratorByTaskIdAndUserId(taskId, collaboratorUserId);
+        // Check if collaborator is already added against the cached membership
+        boolean isAlreadyCollaborator = isCollaborator(taskId, collaboratorUserId);
         
         if (isAlreadyCollaborator) {
             throw new RuntimeException("User with ID " + collaboratorUserId + " ('" + collaborator.getUsername() + "') is already a collaborator on this task");
@@ -194,159 +361,153 @@ public class TaskServiceImpl implements TaskService {
             task.setCollaborators(new HashSet<>());
         }
         
+        TaskSnapshot previous = TaskSnapshot.of(task);
         task.getCollaborators().add(collaborator);
         task.setUpdateDate(LocalDate.now());
         
-        return taskRepo.save(task);
+        Task savedTask = saveChange(task, null);
+        taskEventDispatcher.publish(TaskChangeType.COLLABORATOR_ADDED, previous, TaskSnapshot.of(savedTask), taskOwnerUsername);
+        return savedTask;
     }
     
     // New method to remove collaborator
+    @Transactional
     public Task removeCollaborator(Long taskId, String taskOwnerUsername, String collaboratorUsername) {
-        Task task = getTaskByIdAndUser(taskId, taskOwnerUsername);
+        Task task = loadTask(taskId, taskOwnerUsername);
         User collaborator = userRepo.findByUsername(collaboratorUsername)
                 .orElseThrow(() -> new RuntimeException("Collaborator user not found"));
         
+        TaskSnapshot previous = TaskSnapshot.of(task);
+        Set<Long> previousMembers = memberIds(task);
         if (task.getCollaborators() != null) {
             task.getCollaborators().remove(collaborator);
             task.setUpdateDate(LocalDate.now());
         }
         
-        return taskRepo.save(task);
+        Task savedTask = saveChange(task, previousMembers);
+        taskEventDispatcher.publish(TaskChangeType.COLLABORATOR_REMOVED, previous, TaskSnapshot.of(savedTask), taskOwnerUsername);
+        return savedTask;
     }
     
     // Enhanced method to get tasks by status including collaborator access
     public List<Task> getTasksByUserAndStatus(String username, String status) {
+        Long userId = userId(username);
         // Get owned tasks with specific status
-        List<Task> ownedTasks = taskRepo.findByUserUsernameAndDeletedFalse(username).stream()
+        List<Task> ownedTasks = taskStore.findOwned(userId).stream()
             .filter(task -> task.getStatus().toString().equals(status))
             .collect(java.util.stream.Collectors.toList());
         
-        // Get all tasks with status to check for collaborations
-        List<Task> allTasks = taskRepo.findAllByDeletedFalse();
+        // Tasks shared with the user by their owners, found through the collaborator index
+        List<Task> sharedTasks = taskStore.findSharedWith(userId);
         
         // Find tasks where user is a collaborator with specific status
-        List<Task> collaborativeTasks = allTasks.stream()
-            .filter(task -> !task.getUser().getUsername().equals(username)) // Not owned by user
+        List<Task> collaborativeTasks = sharedTasks.stream()
             .filter(task -> task.getStatus().toString().equals(status)) // Has the required status
-            .filter(task -> task.getCollaborators() != null && 
-                          task.getCollaborators().stream()
-                              .anyMatch(collaborator -> collaborator.getUsername().equals(username)))
             .collect(java.util.stream.Collectors.toList());
         
         // Combine owned and collaborative tasks
         ownedTasks.addAll(collaborativeTasks);
-        return ownedTasks;
+        return withCollaborators(ownedTasks);
     }
     
     // Enhanced method to get tasks by category including collaborator access
     public List<Task> getTasksByUserAndCategory(String username, String category) {
+        Long userId = userId(username);
         // Get owned tasks with specific category
-        List<Task> ownedTasks = taskRepo.findByUserUsernameAndDeletedFalse(username).stream()
+        List<Task> ownedTasks = taskStore.findOwned(userId).stream()
             .filter(task -> category.equals(task.getCategory()))
             .collect(java.util.stream.Collectors.toList());
         
-        // Get all tasks with category to check for collaborations
-        List<Task> allTasks = taskRepo.findAllByDeletedFalse();
+        // Tasks shared with the user by their owners, found through the collaborator index
+        List<Task> sharedTasks = taskStore.findSharedWith(userId);
         
         // Find tasks where user is a collaborator with specific category
-        List<Task> collaborativeTasks = allTasks.stream()
-            .filter(task -> !task.getUser().getUsername().equals(username)) // Not owned by user
+        List<Task> collaborativeTasks = sharedTasks.stream()
             .filter(task -> category.equals(task.getCategory())) // Has the required category
-            .filter(task -> task.getCollaborators() != null && 
-                          task.getCollaborators().stream()
-                              .anyMatch(collaborator -> collaborator.getUsername().equals(username)))
             .collect(java.util.stream.Collectors.toList());
         
         // Combine owned and collaborative tasks
         ownedTasks.addAll(collaborativeTasks);
-        return ownedTasks;
+        return withCollaborators(ownedTasks);
     }
     
     // Enhanced method to get tasks by priority including collaborator access
     public List<Task> getTasksByUserAndPriority(String username, com.example.demo.constants.Priority priority) {
-        // Get owned tasks with specific priority
-        List<Task> ownedTasks = taskRepo.findByUserUsernameAndDeletedFalse(username).stream()
-            .filter(task -> priority.equals(task.getPriority()))
-            .collect(java.util.stream.Collectors.toList());
+        Long userId = userId(username);
+        // Get owned tasks with specific priority, from the owner's priority index
+        List<Task> ownedTasks = taskStore.findOwnedByPriority(userId, priority);
         
-        // Get all tasks to check for collaborations
-        List<Task> allTasks = taskRepo.findAllByDeletedFalse();
+        // Tasks shared with the user by their owners, found through the collaborator index
+        List<Task> sharedTasks = taskStore.findSharedWith(userId);
         
         // Find tasks where user is a collaborator with specific priority
-        List<Task> collaborativeTasks = allTasks.stream()
-            .filter(task -> !task.getUser().getUsername().equals(username)) // Not owned by user
+        List<Task> collaborativeTasks = sharedTasks.stream()
             .filter(task -> priority.equals(task.getPriority())) // Has the required priority
-            .filter(task -> task.getCollaborators() != null && 
-                          task.getCollaborators().stream()
-                              .anyMatch(collaborator -> collaborator.getUsername().equals(username)))
             .collect(java.util.stream.Collectors.toList());
         
         // Combine owned and collaborative tasks
         ownedTasks.addAll(collaborativeTasks);
-        return ownedTasks;
+        return withCollaborators(ownedTasks);
     }
     
     // **NEW: Pagination and Sorting methods**
     @Override
     public org.springframework.data.domain.Page<Task> getTasksByUserWithPagination(String username, org.springframework.data.domain.Pageable pageable) {
         // For now, return paginated owned tasks only (can be enhanced to include collaborators)
-        return taskRepo.findByUserUsernameAndDeletedFalse(username, pageable);
+        return withCollaborators(taskStore.findOwned(userId(username), pageable));
     }
     
     // **NEW: Search functionality**
     @Override
     public List<Task> searchTasksByKeyword(String username, String keyword) {
         // Get owned tasks matching keyword
-        List<Task> ownedTasks = taskRepo.findByUserUsernameAndKeywordInTitleOrDescription(username, keyword);
+        List<Task> ownedTasks = taskStore.search(userId(username), keyword);
         
         // TODO: Add collaborator search logic if needed
-        return ownedTasks;
+        return withCollaborators(ownedTasks);
     }
     
     @Override
     public org.springframework.data.domain.Page<Task> searchTasksByKeywordWithPagination(String username, String keyword, org.springframework.data.domain.Pageable pageable) {
-        return taskRepo.findByUserUsernameAndKeywordInTitleOrDescription(username, keyword, pageable);
+        return withCollaborators(taskStore.search(userId(username), keyword, pageable));
     }
     
     // **NEW: Due date filtering**
     @Override
     public List<Task> getTasksByUserAndDueDate(String username, java.time.LocalDate dueDate) {
+        Long userId = userId(username);
         // Get owned tasks with specific due date
-        List<Task> ownedTasks = taskRepo.findByUserUsernameAndDueDateAndDeletedFalse(username, dueDate);
+        List<Task> ownedTasks = taskStore.findOwnedDueOn(userId, dueDate);
         
-        // Get all tasks with due date to check for collaborations
-        List<Task> allTasks = taskRepo.findAllByDeletedFalse();
+        // Tasks shared with the user by their owners, found through the collaborator index
+        List<Task> sharedTasks = taskStore.findSharedWith(userId);
         
         // Find tasks where user is a collaborator with specific due date
-        List<Task> collaborativeTasks = allTasks.stream()
-            .filter(task -> !task.getUser().getUsername().equals(username)) // Not owned by user
+        List<Task> collaborativeTasks = sharedTasks.stream()
             .filter(task -> dueDate.equals(task.getDueDate())) // Has the required due date
-            .filter(task -> task.getCollaborators() != null && 
-                          task.getCollaborators().stream()
-                              .anyMatch(collaborator -> collaborator.getUsername().equals(username)))
             .collect(java.util.stream.Collectors.toList());
         
         // Combine owned and collaborative tasks
         ownedTasks.addAll(collaborativeTasks);
-        return ownedTasks;
+        return withCollaborators(ownedTasks);
     }
     
     @Override
     public List<Task> getTasksByUserAndDueDateRange(String username, java.time.LocalDate startDate, java.time.LocalDate endDate) {
-        List<Task> ownedTasks = taskRepo.findByUserUsernameAndDueDateBetweenAndDeletedFalse(username, startDate, endDate);
+        List<Task> ownedTasks = taskStore.findOwnedDueBetween(userId(username), startDate, endDate);
         
         // TODO: Add collaborator logic for date range if needed
-        return ownedTasks;
+        return withCollaborators(ownedTasks);
     }
     
     @Override
     public List<Task> getTasksDueBefore(String username, java.time.LocalDate date) {
-        return taskRepo.findByUserUsernameAndDueDateBeforeAndDeletedFalse(username, date);
+        return withCollaborators(taskStore.findOwnedDueBefore(userId(username), date));
     }
     
     @Override
     public List<Task> getTasksDueAfter(String username, java.time.LocalDate date) {
-        return taskRepo.findByUserUsernameAndDueDateAfterAndDeletedFalse(username, date);
+        return withCollaborators(taskStore.findOwnedDueAfter(userId(username), date));
     }
     
     // **NEW: Advanced filtering with pagination**
@@ -361,6 +522,243 @@ public class TaskServiceImpl implements TaskService {
             }
         }
         
-        return taskRepo.findTasksWithFilters(username, statusEnum, category, dueDate, pageable);
+        return withCollaborators(taskStore.findFiltered(userId(username), statusEnum, category, dueDate, pageable));
+    }
+
+    // **NEW: Delta sync**
+    @Override
+    public TaskChangesResponse getTaskChanges(String username, Long since, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, maxChangesLimit));
+        // Read the cursor first: anything committed while the rows are loaded is simply sent again next time
+        long until = taskChangeSequence.stableCursor();
+        if (since == null || since < 0 || since > until) {
+            // No cursor, or one from another database: send everything the user can see
+            return new TaskChangesResponse(until, false, since != null, getTasksByUser(username), new ArrayList<>());
+        }
+
+        boolean hasMore = false;
+        Long userId = userId(username);
+        List<Task> changedTasks = taskStore.findChangedForUser(userId, since, until, PageRequest.of(0, pageSize + 1));
+        if (changedTasks.size() > pageSize) {
+            long lastSeq = changedTasks.get(pageSize - 1).getChangeSeq();
+            boolean split = changedTasks.get(pageSize).getChangeSeq() == lastSeq;
+            changedTasks = new ArrayList<>(changedTasks.subList(0, pageSize));
+            if (split) {
+                // Bulk patches share one sequence across rows; keep them on one page so none are skipped
+                changedTasks.removeIf(task -> task.getChangeSeq() == lastSeq);
+                changedTasks.addAll(taskStore.findChangedForUser(userId, lastSeq - 1, lastSeq, Pageable.unpaged()));
+            }
+            until = lastSeq;
+            hasMore = true;
+        }
+
+        List<TaskRevocation> revocations = taskRevocationRepo.findChanges(userId, since, until, PageRequest.of(0, pageSize + 1));
+        if (revocations.size() > pageSize) {
+            revocations = revocations.subList(0, pageSize);
+            long revocationsUntil = revocations.get(pageSize - 1).getChangeSeq();
+            changedTasks = changedTasks.stream().filter(task -> task.getChangeSeq() <= revocationsUntil).toList();
+            until = revocationsUntil;
+            hasMore = true;
+        }
+
+        // A task still visible now was re-shared after any revocation in the window, so it wins
+        List<Task> changed = new ArrayList<>();
+        Set<Long> visibleIds = new HashSet<>();
+        Set<Long> removed = new LinkedHashSet<>();
+        for (Task task : changedTasks) {
+            if (Boolean.TRUE.equals(task.getDeleted())) {
+                removed.add(task.getId());
+            } else {
+                changed.add(task);
+                visibleIds.add(task.getId());
+            }
+        }
+        for (TaskRevocation revocation : revocations) {
+            if (!visibleIds.contains(revocation.getTaskId())) {
+                removed.add(revocation.getTaskId());
+            }
+        }
+        return new TaskChangesResponse(until, hasMore, false, withCollaborators(changed), new ArrayList<>(removed));
+    }
+
+    /**
+     * Save a task under a fresh change sequence. When previousMembers is given, users among them who can
+     * no longer see the task get a revocation record under the same sequence.
+     */
+    private Task saveChange(Task task, Set<Long> previousMembers) {
+        long changeSeq = taskChangeSequence.begin();
+        try {
+            task.setChangeSeq(changeSeq);
+            // Flushed now so a lost optimistic race fails here and the cached copy carries the new version
+            Task savedTask = taskStore.save(task);
+            if (previousMembers != null) {
+                Set<Long> currentMembers = memberIds(savedTask);
+                for (Long userId : previousMembers) {
+                    if (!currentMembers.contains(userId)) {
+                        taskRevocationRepo.save(new TaskRevocation(null, savedTask.getId(), userId, changeSeq));
+                    }
+                }
+            }
+            taskCache.put(savedTask);
+            return savedTask;
+        } finally {
+            taskChangeSequence.endAfterCompletion(changeSeq);
+        }
+    }
+
+    /**
+     * Load the collaborators of tasks that are returned to the caller while the read transaction is still
+     * open; they are serialized after it has ended. Batch fetching loads them a batch of tasks at a time.
+     */
+    private <T extends Iterable<Task>> T withCollaborators(T tasks) {
+        for (Task task : tasks) {
+            Hibernate.initialize(task.getCollaborators());
+        }
+        return tasks;
+    }
+
+    // The authenticated user's id from the principal, other users' ids from the cache
+    private Long userId(String username) {
+        return userIdCache.idOf(username);
+    }
+
+    // Owner or collaborator check against the task cache, by user id
+    private TaskCacheEntry visibleEntry(Long id, String username) {
+        long userId = userId(username);
+        return taskCache.get(id)
+                .filter(entry -> entry.isMember(userId))
+                .orElseThrow(() -> new RuntimeException("Task not found or access denied"));
+    }
+
+    // The managed entity for a write, after a cached access decision
+    private Task loadTask(Long id, String username) {
+        if (!taskCache.canAccess(id, userId(username))) {
+            throw new RuntimeException("Task not found or access denied");
+        }
+        return taskStore.findById(id)
+                .filter(task -> !Boolean.TRUE.equals(task.getDeleted()))
+                .orElseThrow(() -> new RuntimeException("Task not found or access denied"));
+    }
+
+    private boolean isCollaborator(Long taskId, Long userId) {
+        return taskCache.get(taskId).map(entry -> entry.hasCollaborator(userId)).orElse(false);
+    }
+
+    // The version the client edited: the one named by If-Match, otherwise the one just loaded
+    private TaskSnapshot baseSnapshot(Task existingTask, Long expectedVersion) {
+        Long id = existingTask.getId();
+        if (expectedVersion == null || expectedVersion.equals(existingTask.getVersion())) {
+            return TaskSnapshot.of(existingTask);
+        }
+        if (expectedVersion > existingTask.getVersion()) {
+            throw new PreconditionFailedException("Task " + id + " has no version " + expectedVersion);
+        }
+        return taskVersionHistory.find(id, expectedVersion).orElseThrow(() -> new TaskConflictException(
+                "Version " + expectedVersion + " of task " + id + " is too old to merge, reload the task",
+                List.of(), existingTask));
+    }
+
+    private static Object fieldValue(TaskSnapshot snapshot, String field) {
+        return switch (field) {
+            case "title" -> snapshot.title();
+            case "description" -> snapshot.description();
+            case "dueDate" -> snapshot.dueDate();
+            case "status" -> snapshot.status();
+            case "category" -> snapshot.category();
+            case "priority" -> snapshot.priority();
+            default -> throw new IllegalArgumentException("Unknown task field: " + field);
+        };
+    }
+
+    // Short random pause so writers racing for the same row stop colliding in lockstep
+    private static void backOff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(1, 4L * attempt + 2));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Only fields the client actually changed relative to the version it edited are written
+    private void applyEdits(Task existingTask, TaskSnapshot base, Task task, Set<Long> requestedCollaborators) {
+        if (edited(task.getTitle(), base.title())) {
+            existingTask.setTitle(task.getTitle());
+        }
+        if (edited(task.getDescription(), base.description())) {
+            existingTask.setDescription(task.getDescription());
+        }
+        if (edited(task.getDueDate(), base.dueDate())) {
+            existingTask.setDueDate(task.getDueDate());
+        }
+        if (edited(task.getStatus(), base.status())) {
+            existingTask.setStatus(task.getStatus());
+            // Set completion date if task is completed
+            if (task.getStatus() == Status.COMPLETED) {
+                existingTask.setCompletionDate(LocalDate.now());
+            }
+        }
+        if (edited(task.getCategory(), base.category())) {
+            existingTask.setCategory(task.getCategory());
+        }
+        if (edited(task.getPriority(), base.priority())) {
+            existingTask.setPriority(task.getPriority());
+        }
+        if (edited(requestedCollaborators, base.collaboratorIds())) {
+            existingTask.setCollaborators(new LinkedHashSet<>(userRepo.findAllById(requestedCollaborators)));
+        }
+    }
+
+    private static List<String> conflictingFields(TaskSnapshot base, TaskSnapshot current, Task task,
+                                                  Set<Long> requestedCollaborators) {
+        List<String> conflicts = new ArrayList<>();
+        addConflict(conflicts, "title", task.getTitle(), base.title(), current.title());
+        addConflict(conflicts, "description", task.getDescription(), base.description(), current.description());
+        addConflict(conflicts, "dueDate", task.getDueDate(), base.dueDate(), current.dueDate());
+        addConflict(conflicts, "status", task.getStatus(), base.status(), current.status());
+        addConflict(conflicts, "category", task.getCategory(), base.category(), current.category());
+        addConflict(conflicts, "priority", task.getPriority(), base.priority(), current.priority());
+        addConflict(conflicts, "collaborators", requestedCollaborators, base.collaboratorIds(), current.collaboratorIds());
+        return conflicts;
+    }
+
+    // Both sides changed the field since the base, to different values
+    private static void addConflict(List<String> conflicts, String field, Object requested, Object base, Object current) {
+        if (edited(requested, base) && !Objects.equals(base, current) && !Objects.equals(requested, current)) {
+            conflicts.add(field);
+        }
+    }
+
+    private static boolean edited(Object requested, Object base) {
+        return requested != null && !Objects.equals(requested, base);
+    }
+
+    // Requested collaborator ids without duplicates, or null when the request leaves collaborators alone
+    private static Set<Long> collaboratorIds(Task task) {
+        if (task.getCollaborators() == null) {
+            return null;
+        }
+        Set<Long> ids = new TreeSet<>();
+        for (User collaborator : task.getCollaborators()) {
+            if (collaborator != null && collaborator.getId() != null) {
+                ids.add(collaborator.getId());
+            }
+        }
+        return ids;
+    }
+
+    // Owner and collaborators: everyone who can see the task
+    private static Set<Long> memberIds(Task task) {
+        Set<Long> ids = new HashSet<>();
+        if (task.getUser() != null) {
+            ids.add(task.getUser().getId());
+        }
+        if (task.getCollaborators() != null) {
+            for (User collaborator : task.getCollaborators()) {
+                if (collaborator != null) {
+                    ids.add(collaborator.getId());
+                }
+            }
+        }
+        return ids;
     }
 }
@@ -0,0 +1,144 @@
+package com.example.demo.shard;
+
+import com.example.demo.replica.ReplicaState;
+import com.example.demo.replica.ReplicationFeed;
+import com.example.demo.repo.TaskRepo;
+import com.example.demo.repo.UserRepo;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sharded task storage ({@code datasource.shards.enabled=true}, see application-sharded.properties): the
+ * usual spring.datasource database is the {@value ShardDirectory#HOME} shard, holding the users, the
+ * revocations and the shard directory; further task databases come from datasource.shards.urls and from
+ * shards added while running. Tasks and their collaborators live on their owner's shard, reached through
+ * {@link ShardedTaskRepo}; the users table is copied to every shard by a {@link ReplicationFeed}, so tasks
+ * can refer to their owner and collaborators there.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.shards.enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardProperties.class)
+public class ShardConfig {
+
+    private static final String[] MIGRATIONS = {"classpath:db/migration"};
+
+    public ShardConfig(Environment environment) {
+        // Both replace the application's DataSource, and a snapshot only covers the home shard
+        if (environment.getProperty("datasource.replica.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("Sharded task storage cannot be combined with datasource.replica.enabled");
+        }
+        if (environment.getProperty("snapshot.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("Sharded task storage cannot be combined with snapshot.enabled");
+        }
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource homeDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    // Task writes on another shard wait for the users committed before them
+    @Bean
+    public ReplicaState shardUsersState(ShardProperties properties) {
+        return new ReplicaState(properties.getUsersMaxWait(), properties.getUsersPollInterval().multipliedBy(10));
+    }
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(@Qualifier("homeDataSource") DataSource home,
+                                                         ReplicaState shardUsersState, MeterRegistry meterRegistry) {
+        return new ShardRoutingDataSource(home, shardUsersState, meterRegistry);
+    }
+
+    // Connections are taken at the first statement, when the shard context is already set
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    @Bean
+    @DependsOnDatabaseInitialization
+    public ShardDirectory shardDirectory(@Qualifier("homeDataSource") DataSource home,
+                                         @Qualifier("dataSource") DataSource application, ShardProperties properties) {
+        List<String> shards = new ArrayList<>();
+        shards.add(ShardDirectory.HOME);
+        shards.addAll(properties.getUrls().keySet());
+        return new ShardDirectory(home, application, new ShardRing(shards, properties.getVirtualNodes()));
+    }
+
+    /**
+     * Connects the configured shards and those added while running, migrates them, copies the users and
+     * routes to them once their task id range is claimed
+     */
+    @Bean
+    @DependsOnDatabaseInitialization
+    public ReplicationFeed shardUsersFeed(@Qualifier("homeDataSource") DataSource home,
+                                          ShardRoutingDataSource shardRoutingDataSource, ShardDirectory shardDirectory,
+                                          ReplicaState shardUsersState, ShardProperties properties,
+                                          MeterRegistry meterRegistry) {
+        Map<String, String> urls = new LinkedHashMap<>(shardDirectory.registeredUrls());
+        urls.putAll(properties.getUrls());
+        Map<String, HikariDataSource> shards = new LinkedHashMap<>();
+        urls.forEach((name, url) -> shards.put(name, shardDataSource(name, url, properties, meterRegistry)));
+        ReplicationFeed feed = new ReplicationFeed(home, new ArrayList<>(shards.values()), Map.of("users", "id"),
+                shardUsersState, MIGRATIONS, properties.getUsersPollInterval(), properties.getUsersBatchSize(),
+                "shard.users", meterRegistry);
+        shards.forEach((name, dataSource) -> {
+            shardDirectory.claimIdRange(name, dataSource);
+            shardRoutingDataSource.addShard(name, dataSource);
+            shardDirectory.extendRing(name);
+        });
+        return feed;
+    }
+
+    // Replaces the Spring Data repository wherever a TaskRepo is injected; that one runs the queries per shard
+    @Bean
+    @Primary
+    @DependsOn("shardUsersFeed")
+    public ShardedTaskRepo shardedTaskRepo(@Qualifier("taskRepo") TaskRepo taskRepo, UserRepo userRepo,
+                                           ShardDirectory shardDirectory, ShardRoutingDataSource shardRoutingDataSource,
+                                           ReplicaState shardUsersState, PlatformTransactionManager transactionManager,
+                                           ShardProperties properties) {
+        return new ShardedTaskRepo(taskRepo, userRepo, shardDirectory, shardRoutingDataSource, shardUsersState,
+                transactionManager, properties.getScatterThreads());
+    }
+
+    @Bean
+    public ShardRebalancer shardRebalancer(ShardDirectory shardDirectory, ShardRoutingDataSource shardRoutingDataSource,
+                                           @Qualifier("shardUsersFeed") ReplicationFeed shardUsersFeed,
+                                           ShardProperties properties, MeterRegistry meterRegistry) {
+        return new ShardRebalancer(shardDirectory, shardRoutingDataSource, shardUsersFeed, properties, meterRegistry);
+    }
+
+    // A pool per shard, named after it, with its own hikaricp.* metrics
+    static HikariDataSource shardDataSource(String name, String url, ShardProperties properties, MeterRegistry meterRegistry) {
+        HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class)
+                .url(url).username(properties.getUsername()).password(properties.getPassword()).build();
+        dataSource.setPoolName(name);
+        dataSource.setMaximumPoolSize(properties.getPoolSize());
+        dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return dataSource;
+    }
+}
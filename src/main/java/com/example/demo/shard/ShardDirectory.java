@@ -0,0 +1,396 @@
+package com.example.demo.shard;
+
+import com.example.demo.entity.Task;
+import com.example.demo.entity.User;
+import com.example.demo.util.CustomLogger;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Where every user's tasks live, kept on the home shard next to the users (tables from the V5 migration):
+ * <ul>
+ * <li>{@code shard_registry}: the shards with a fixed ordinal each, and the URL of those added while running.
+ * A shard's task ids are generated in its own range ({@code ordinal << 40} upwards), so ids stay unique
+ * when tasks move between shards.</li>
+ * <li>{@code user_shards}: the shard holding a user's tasks. Users without a row are on the home shard,
+ * where data.sql and the dataset loader put them; a new user's first task places them by the hash ring.</li>
+ * <li>{@code task_memberships}: owner and collaborators of every task, the membership index that answers
+ * "who owns task n" and "whose tasks are shared with user n" without asking every shard. A write replaces
+ * the task's entries in the caller's transaction, so they commit with it; on startup it is rebuilt from the
+ * shards.</li>
+ * </ul>
+ * Index reads and writes, and a new user's placement, go through the application's DataSource, so inside a
+ * transaction they use its home connection instead of taking another one from the home pool.
+ * <p>
+ * Moving a user to another shard takes the user's fence exclusively for the final copy and the switch;
+ * reads of their tasks hold it shared, writes until their transaction has completed.
+ */
+public class ShardDirectory {
+
+    private static final CustomLogger logger = CustomLogger.getLogger(ShardDirectory.class);
+
+    public static final String HOME = "home";
+
+    private static final int ID_RANGE_BITS = 40;
+    private static final int IN_LIST_SIZE = 500;
+    private static final int FENCE_STRIPES = 256;
+    private static final int BATCH_SIZE = 5000;
+
+    private final JdbcTemplate home;
+    private final JdbcTemplate callerHome;
+    private final AtomicReference<ShardRing> ring;
+    private final Map<Long, String> placements = new ConcurrentHashMap<>();
+    // Users whose user_shards row is known to be committed
+    private final Set<Long> recorded = ConcurrentHashMap.newKeySet();
+    private final ReadWriteLock[] fences = new ReadWriteLock[FENCE_STRIPES];
+
+    // The home pool for the registry and startup work; the application's DataSource, which is the home shard
+    // outside a shard context, for whatever belongs in the caller's transaction
+    public ShardDirectory(DataSource home, DataSource application, ShardRing ring) {
+        this.home = new JdbcTemplate(home);
+        this.callerHome = new JdbcTemplate(application);
+        this.ring = new AtomicReference<>(ring);
+        for (int i = 0; i < FENCE_STRIPES; i++) {
+            fences[i] = new ReentrantReadWriteLock();
+        }
+        register(HOME, null);
+        this.home.query("SELECT user_id, shard FROM user_shards",
+                row -> { placements.put(row.getLong(1), row.getString(2)); });
+        recorded.addAll(placements.keySet());
+    }
+
+    public ShardRing ring() {
+        return ring.get();
+    }
+
+    public void extendRing(String shard) {
+        ring.updateAndGet(current -> current.with(shard));
+    }
+
+    /**
+     * The shard's ordinal, registering it with the next free one on first sight; a URL is stored for shards
+     * added while running, so they are connected again on the next start
+     */
+    public synchronized int register(String name, String url) {
+        List<Integer> ordinals = home.queryForList("SELECT ordinal FROM shard_registry WHERE name = ?", Integer.class, name);
+        if (!ordinals.isEmpty()) {
+            if (url != null) {
+                home.update("UPDATE shard_registry SET url = ? WHERE name = ?", url, name);
+            }
+            return ordinals.get(0);
+        }
+        int ordinal = HOME.equals(name) ? 0
+                : home.queryForObject("SELECT COALESCE(MAX(ordinal), 0) + 1 FROM shard_registry", Integer.class);
+        home.update("INSERT INTO shard_registry (name, ordinal, url) VALUES (?, ?, ?)", name, ordinal, url);
+        return ordinal;
+    }
+
+    // Shards added while running, by name
+    public Map<String, String> registeredUrls() {
+        Map<String, String> urls = new LinkedHashMap<>();
+        home.query("SELECT name, url FROM shard_registry WHERE url IS NOT NULL ORDER BY ordinal",
+                row -> { urls.put(row.getString(1), row.getString(2)); });
+        return urls;
+    }
+
+    /**
+     * Point the shard's task id generator into its own range, above any id it already generated there. The
+     * home shard keeps the ids below 2^40, as the dataset loader and snapshots expect.
+     */
+    public void claimIdRange(String name, DataSource shard) {
+        long ordinal = register(name, null);
+        if (ordinal == 0) {
+            return;
+        }
+        long first = ordinal << ID_RANGE_BITS;
+        JdbcTemplate jdbc = new JdbcTemplate(shard);
+        Long highest = jdbc.queryForObject("SELECT MAX(id) FROM tasks WHERE id >= ? AND id < ?", Long.class,
+                first, first + (1L << ID_RANGE_BITS));
+        jdbc.execute("ALTER TABLE tasks ALTER COLUMN id RESTART WITH " + (highest != null ? highest + 1 : first));
+    }
+
+    public String placement(long userId) {
+        return placements.getOrDefault(userId, HOME);
+    }
+
+    /**
+     * The shard for a write of the user's tasks. A user without a placement who already has tasks on the
+     * home shard stays there until rebalanced; anyone else is placed by the ring. The placement row is
+     * written in the caller's transaction, with the user's first tasks, and again by every write until one
+     * of those transactions has committed.
+     */
+    public String placeOwner(long userId) {
+        String placed = placements.get(userId);
+        if (placed == null) {
+            synchronized (this) {
+                placed = placements.get(userId);
+                if (placed == null) {
+                    Boolean onHome = callerHome.queryForObject("SELECT COUNT(*) > 0 FROM tasks WHERE user_id = ?",
+                            Boolean.class, userId);
+                    placed = Boolean.TRUE.equals(onHome) ? HOME : ring().shardFor(userId);
+                    placements.put(userId, placed);
+                }
+            }
+        }
+        if (!recorded.contains(userId)) {
+            callerHome.update("MERGE INTO user_shards (user_id, shard) KEY (user_id) VALUES (?, ?)", userId, placed);
+            afterCommit(() -> recorded.add(userId));
+        }
+        return placed;
+    }
+
+    public void move(long userId, String shard) {
+        home.update("MERGE INTO user_shards (user_id, shard) KEY (user_id) VALUES (?, ?)", userId, shard);
+        placements.put(userId, shard);
+        recorded.add(userId);
+    }
+
+    // Users with a placement row, by shard
+    public Map<String, Long> placedUsers() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        placements.values().forEach(shard -> counts.merge(shard, 1L, Long::sum));
+        return counts;
+    }
+
+    public Set<Long> placedUserIds() {
+        return new TreeSet<>(placements.keySet());
+    }
+
+    /**
+     * Run with the owners' fences held, shared for reads and writes of their tasks, exclusive while one
+     * of them is moved
+     */
+    public <T> T withOwners(Collection<Long> owners, boolean exclusive, Supplier<T> work) {
+        List<Lock> held = new ArrayList<>();
+        try {
+            lock(owners, exclusive, held);
+            return work.get();
+        } finally {
+            unlock(held);
+        }
+    }
+
+    /**
+     * Hold the owners' fences shared until the caller's transaction completes: its writes commit after the
+     * write calls have returned, and a move must not copy the owners' tasks before that
+     */
+    public void fenceUntilCompletion(Collection<Long> owners) {
+        List<Lock> held = new ArrayList<>();
+        try {
+            lock(owners, false, held);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    unlock(held);
+                }
+            });
+        } catch (RuntimeException e) {
+            unlock(held);
+            throw e;
+        }
+    }
+
+    public Long ownerOf(long taskId) {
+        List<Long> owners = callerHome.queryForList(
+                "SELECT owner_id FROM task_memberships WHERE task_id = ? FETCH FIRST ROW ONLY", Long.class, taskId);
+        return owners.isEmpty() ? null : owners.get(0);
+    }
+
+    // Owner by task id, for the ids in the index
+    public Map<Long, Long> ownersOf(Collection<Long> taskIds) {
+        Map<Long, Long> owners = new HashMap<>();
+        for (List<Long> chunk : chunks(taskIds)) {
+            callerHome.query("SELECT DISTINCT task_id, owner_id FROM task_memberships WHERE task_id IN (" + placeholders(chunk.size()) + ")",
+                    row -> { owners.put(row.getLong(1), row.getLong(2)); }, chunk.toArray());
+        }
+        return owners;
+    }
+
+    // Owners of the tasks the user collaborates on, other than the user
+    public Set<Long> ownersSharingWith(long userId) {
+        return new LinkedHashSet<>(callerHome.queryForList(
+                "SELECT DISTINCT owner_id FROM task_memberships WHERE user_id = ? AND owner_id <> ?", Long.class, userId, userId));
+    }
+
+    /**
+     * Replace the task's index entries by its owner and collaborators, in the caller's transaction: they
+     * commit with the write itself on the home shard, right after the shard's commit on any other
+     */
+    public void index(Task task) {
+        if (task.getId() == null || task.getUser() == null) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>();
+        for (Long member : members(task)) {
+            rows.add(new Object[]{task.getId(), member, task.getUser().getId()});
+        }
+        callerHome.update("DELETE FROM task_memberships WHERE task_id = ?", task.getId());
+        callerHome.batchUpdate("INSERT INTO task_memberships (task_id, user_id, owner_id) VALUES (?, ?, ?)", rows);
+    }
+
+    // Drop the index entries of deleted tasks, in the caller's transaction
+    public void unindex(Collection<Long> taskIds) {
+        for (List<Long> chunk : chunks(taskIds)) {
+            callerHome.update("DELETE FROM task_memberships WHERE task_id IN (" + placeholders(chunk.size()) + ")", chunk.toArray());
+        }
+    }
+
+    public void clearIndex() {
+        callerHome.update("DELETE FROM task_memberships");
+    }
+
+    /**
+     * Drop the leftovers of moves that were interrupted (rows on a shard other than their owner's placement,
+     * whichever side of the switch the move stopped), then rebuild the index from every shard
+     */
+    public void rebuild(Map<String, DataSource> shards) {
+        long start = System.nanoTime();
+        for (Map.Entry<String, DataSource> shard : shards.entrySet()) {
+            JdbcTemplate jdbc = new JdbcTemplate(shard.getValue());
+            for (Long owner : jdbc.queryForList("SELECT DISTINCT user_id FROM tasks", Long.class)) {
+                if (!placement(owner).equals(shard.getKey())) {
+                    logger.warn("Removing tasks of user {} left on shard {} by an interrupted move", owner, shard.getKey());
+                    deleteOwnerRows(jdbc, owner);
+                }
+            }
+        }
+        home.update("DELETE FROM task_memberships");
+        long[] rows = {0};
+        for (DataSource shard : shards.values()) {
+            forEachMemberships(new JdbcTemplate(shard), "", batch -> {
+                home.batchUpdate("INSERT INTO task_memberships (task_id, user_id, owner_id) VALUES (?, ?, ?)", batch);
+                rows[0] += batch.size();
+            });
+        }
+        logger.info("Membership index rebuilt from {} shard(s): {} rows in {} ms", shards.size(), rows[0],
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Forget users removed outside the application (the warm-up's scratch users)
+     */
+    public void forgetUsers(Collection<Long> userIds) {
+        for (List<Long> chunk : chunks(userIds)) {
+            String in = " IN (" + placeholders(chunk.size()) + ")";
+            home.update("DELETE FROM task_memberships WHERE owner_id" + in, chunk.toArray());
+            home.update("DELETE FROM task_memberships WHERE user_id" + in, chunk.toArray());
+            home.update("DELETE FROM user_shards WHERE user_id" + in, chunk.toArray());
+        }
+        userIds.forEach(placements::remove);
+        recorded.removeAll(userIds);
+    }
+
+    static void deleteOwnerRows(JdbcTemplate shard, long owner) {
+        shard.update("DELETE FROM task_collaborators WHERE task_id IN (SELECT id FROM tasks WHERE user_id = ?)", owner);
+        shard.update("DELETE FROM tasks WHERE user_id = ?", owner);
+        shard.update("DELETE FROM task_categories WHERE user_id = ?", owner);
+    }
+
+    private static void forEachMemberships(JdbcTemplate shard, String filter, Consumer<List<Object[]>> sink, Object... args) {
+        List<Object[]> batch = new ArrayList<>();
+        // The creator is also a collaborator by default; UNION leaves one row per member
+        shard.query("SELECT t.id, t.user_id, t.user_id FROM tasks t" + filter
+                        + " UNION SELECT t.id, c.user_id, t.user_id FROM tasks t JOIN task_collaborators c ON c.task_id = t.id" + filter,
+                row -> {
+                    batch.add(new Object[]{row.getLong(1), row.getLong(2), row.getLong(3)});
+                    if (batch.size() == BATCH_SIZE) {
+                        sink.accept(new ArrayList<>(batch));
+                        batch.clear();
+                    }
+                }, doubled(args));
+        if (!batch.isEmpty()) {
+            sink.accept(batch);
+        }
+    }
+
+    // The filter appears on both sides of the UNION
+    private static Object[] doubled(Object[] args) {
+        Object[] both = Arrays.copyOf(args, args.length * 2);
+        System.arraycopy(args, 0, both, args.length, args.length);
+        return both;
+    }
+
+    private static Set<Long> members(Task task) {
+        Set<Long> members = new LinkedHashSet<>();
+        members.add(task.getUser().getId());
+        if (task.getCollaborators() != null) {
+            for (User collaborator : task.getCollaborators()) {
+                if (collaborator != null && collaborator.getId() != null) {
+                    members.add(collaborator.getId());
+                }
+            }
+        }
+        return members;
+    }
+
+    private void lock(Collection<Long> owners, boolean exclusive, List<Lock> held) {
+        TreeSet<Integer> stripes = new TreeSet<>();
+        for (Long owner : owners) {
+            stripes.add(stripe(owner));
+        }
+        for (int stripe : stripes) {
+            Lock lock = exclusive ? fences[stripe].writeLock() : fences[stripe].readLock();
+            lock.lock();
+            held.add(lock);
+        }
+    }
+
+    private static void unlock(List<Lock> held) {
+        for (int i = held.size() - 1; i >= 0; i--) {
+            held.get(i).unlock();
+        }
+    }
+
+    // Once the caller's transaction has committed, or right away without one
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static int stripe(long id) {
+        return (int) ((id ^ (id >>> 32)) & (FENCE_STRIPES - 1));
+    }
+
+    static List<List<Long>> chunks(Collection<Long> values) {
+        List<Long> list = new ArrayList<>(values);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += IN_LIST_SIZE) {
+            chunks.add(list.subList(from, Math.min(list.size(), from + IN_LIST_SIZE)));
+        }
+        return chunks;
+    }
+
+    static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
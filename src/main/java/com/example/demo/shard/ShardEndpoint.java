@@ -0,0 +1,53 @@
+package com.example.demo.shard;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint for sharded task storage.
+ * GET /actuator/shards shows the shards, the users placed on each, their task counts and the rebalance
+ * progress; POST /actuator/shards with {"name": "s3", "url": "jdbc:h2:..."} adds a shard and moves the
+ * users it takes over, with an empty body it moves every user whose shard changed.
+ */
+@Component
+@Endpoint(id = "shards")
+@ConditionalOnProperty(name = "datasource.shards.enabled", havingValue = "true")
+public class ShardEndpoint {
+
+    @Autowired
+    private ShardDirectory shardDirectory;
+
+    @Autowired
+    private ShardedTaskRepo shardedTaskRepo;
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    @ReadOperation
+    public Map<String, Object> shards() {
+        Map<String, Object> shards = new LinkedHashMap<>();
+        shards.put("ring", shardDirectory.ring().shards());
+        shards.put("placedUsers", shardDirectory.placedUsers());
+        shards.put("tasks", shardedTaskRepo.countByShard());
+        shards.put("rebalance", shardRebalancer.status());
+        return shards;
+    }
+
+    @WriteOperation
+    public Map<String, Object> rebalance(@Nullable String name, @Nullable String url) {
+        if (name != null) {
+            shardRebalancer.addShard(name, url);
+        } else {
+            shardRebalancer.rebalance();
+        }
+        return shardRebalancer.status();
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.demo.shard;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sharded task storage configuration (prefix "datasource.shards"), used by the "sharded" Spring profile.
+ * The application's own database is always the shard named {@value ShardDirectory#HOME}.
+ */
+@ConfigurationProperties(prefix = "datasource.shards")
+public class ShardProperties {
+
+    private boolean enabled;
+    private Map<String, String> urls = new LinkedHashMap<>(); // Further task databases by shard name
+    private String username = "sa";
+    private String password = "";
+    private int poolSize = 10; // Per shard
+    private int virtualNodes = 64; // Points per shard on the hash ring
+    private int scatterThreads = 8; // Queries running on several shards at once, over all requests
+    private Duration usersMaxWait = Duration.ofSeconds(1); // A write waits this long for its users to reach the shard
+    private Duration usersPollInterval = Duration.ofMillis(500);
+    private int usersBatchSize = 1000;
+
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Map<String, String> getUrls() {
+        return urls;
+    }
+
+    public void setUrls(Map<String, String> urls) {
+        this.urls = urls;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    public void setVirtualNodes(int virtualNodes) {
+        this.virtualNodes = virtualNodes;
+    }
+
+    public int getScatterThreads() {
+        return scatterThreads;
+    }
+
+    public void setScatterThreads(int scatterThreads) {
+        this.scatterThreads = scatterThreads;
+    }
+
+    public Duration getUsersMaxWait() {
+        return usersMaxWait;
+    }
+
+    public void setUsersMaxWait(Duration usersMaxWait) {
+        this.usersMaxWait = usersMaxWait;
+    }
+
+    public Duration getUsersPollInterval() {
+        return usersPollInterval;
+    }
+
+    public void setUsersPollInterval(Duration usersPollInterval) {
+        this.usersPollInterval = usersPollInterval;
+    }
+
+    public int getUsersBatchSize() {
+        return usersBatchSize;
+    }
+
+    public void setUsersBatchSize(int usersBatchSize) {
+        this.usersBatchSize = usersBatchSize;
+    }
+}
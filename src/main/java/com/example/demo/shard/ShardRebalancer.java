@@ -0,0 +1,282 @@
+package com.example.demo.shard;
+
+import com.example.demo.replica.ReplicationFeed;
+import com.example.demo.util.CustomLogger;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * Adds shards while the application runs and moves users to the shard the ring assigns them. A move
+ * copies the user's tasks while they keep working, then, with the user's fence held exclusively, copies
+ * again whatever changed meanwhile (by row version), switches the placement and lets the user's reads and
+ * writes continue on the new shard; the old copy is removed afterwards. Only the users whose ring shard
+ * changed are moved: about 1/n of them for the n-th shard.
+ * <p>
+ * Moved users are counted as {@code shard.rebalance.users}, their tasks as {@code shard.rebalance.tasks}.
+ */
+public class ShardRebalancer {
+
+    private static final CustomLogger logger = CustomLogger.getLogger(ShardRebalancer.class);
+
+    private static final Pattern SHARD_NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final String OWNED_TASKS = " WHERE user_id = ?";
+    private static final String OWNED_COLLABORATORS = " WHERE task_id IN (SELECT id FROM tasks WHERE user_id = ?)";
+
+    private final ShardDirectory directory;
+    private final ShardRoutingDataSource routing;
+    private final ReplicationFeed usersFeed;
+    private final ShardProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Counter usersMoved;
+    private final Counter tasksMoved;
+    private final ExecutorService worker;
+
+    private volatile String state = "IDLE";
+    private volatile int pending;
+    private volatile int moved;
+    private volatile long tasks;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String lastError;
+
+    public ShardRebalancer(ShardDirectory directory, ShardRoutingDataSource routing, ReplicationFeed usersFeed,
+                           ShardProperties properties, MeterRegistry meterRegistry) {
+        this.directory = directory;
+        this.routing = routing;
+        this.usersFeed = usersFeed;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.usersMoved = Counter.builder("shard.rebalance.users").description("Users moved to another shard").register(meterRegistry);
+        this.tasksMoved = Counter.builder("shard.rebalance.tasks").description("Tasks moved to another shard").register(meterRegistry);
+        this.worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shard-rebalancer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    // Before anything else reads by task id: the index is rebuilt from what the shards hold now
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void rebuildIndex() {
+        directory.rebuild(routing.shards());
+    }
+
+    /**
+     * Connect another shard: it gets the migrations, the users and its own task id range, joins the ring
+     * and is remembered for the next start; the users it takes over are then moved in the background
+     */
+    public synchronized void addShard(String name, String url) {
+        if (name == null || !SHARD_NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Shard names are 1 to 64 letters, digits, '-' or '_'");
+        }
+        if (url == null || url.isBlank()) {
+            throw new IllegalArgumentException("A new shard needs a JDBC URL");
+        }
+        if (routing.shards().containsKey(name)) {
+            throw new IllegalArgumentException("Shard '" + name + "' already exists");
+        }
+        HikariDataSource dataSource = ShardConfig.shardDataSource(name, url, properties, meterRegistry);
+        try {
+            usersFeed.addReplica(dataSource);
+            directory.register(name, url);
+            directory.claimIdRange(name, dataSource);
+        } catch (RuntimeException e) {
+            dataSource.close();
+            throw e;
+        }
+        routing.addShard(name, dataSource);
+        directory.extendRing(name);
+        logger.info("Shard {} added, ring is now {}", name, directory.ring().shards());
+        rebalance();
+    }
+
+    // Start moving users to their ring shard, unless a rebalance is running already
+    public synchronized boolean rebalance() {
+        if ("RUNNING".equals(state)) {
+            return false;
+        }
+        state = "RUNNING";
+        pending = 0;
+        moved = 0;
+        tasks = 0;
+        lastError = null;
+        startedAt = Instant.now();
+        finishedAt = null;
+        worker.execute(this::run);
+        return true;
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", state);
+        status.put("usersToMove", pending);
+        status.put("usersMoved", moved);
+        status.put("tasksMoved", tasks);
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        status.put("lastError", lastError);
+        return status;
+    }
+
+    private void run() {
+        try {
+            ShardRing ring = directory.ring();
+            Set<Long> owners = directory.placedUserIds();
+            for (DataSource shard : routing.shards().values()) {
+                owners.addAll(new JdbcTemplate(shard).queryForList("SELECT DISTINCT user_id FROM tasks", Long.class));
+            }
+            Map<Long, String> moves = new LinkedHashMap<>();
+            for (Long owner : owners) {
+                String target = ring.shardFor(owner);
+                if (!target.equals(directory.placement(owner))) {
+                    moves.put(owner, target);
+                }
+            }
+            pending = moves.size();
+            logger.info("Rebalancing {} of {} users over {}", moves.size(), owners.size(), ring.shards());
+            for (Map.Entry<Long, String> move : moves.entrySet()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new IllegalStateException("Rebalance interrupted");
+                }
+                int count = move(move.getKey(), directory.placement(move.getKey()), move.getValue());
+                tasks += count;
+                moved++;
+                usersMoved.increment();
+                tasksMoved.increment(count);
+            }
+            state = "DONE";
+            logger.info("Rebalance done: {} users, {} tasks moved", moved, tasks);
+        } catch (RuntimeException e) {
+            state = "FAILED";
+            lastError = e.getMessage();
+            logger.error("Rebalance failed after {} users: {}", moved, e.getMessage(), e);
+        } finally {
+            finishedAt = Instant.now();
+        }
+    }
+
+    private int move(long owner, String from, String to) {
+        DataSource source = routing.shard(from);
+        DataSource target = routing.shard(to);
+        // Bulk copy while the user keeps working; rows left by an earlier attempt are replaced
+        transfer(source, target, (src, dst) -> {
+            ShardRows.delete(dst, "task_collaborators", OWNED_COLLABORATORS, owner);
+            ShardRows.delete(dst, "tasks", OWNED_TASKS, owner);
+            ShardRows.delete(dst, "task_categories", OWNED_TASKS, owner);
+            ShardRows.copy(src, dst, "task_categories", OWNED_TASKS, owner);
+            ShardRows.copy(src, dst, "tasks", OWNED_TASKS, owner);
+            ShardRows.copy(src, dst, "task_collaborators", OWNED_COLLABORATORS, owner);
+            return null;
+        });
+        int count = directory.withOwners(List.of(owner), true, () -> {
+            int copied = transfer(source, target, (src, dst) -> catchUp(src, dst, owner));
+            directory.move(owner, to);
+            return copied;
+        });
+        // Readers of the old copy held the fence, so nobody uses it any more
+        ShardDirectory.deleteOwnerRows(new JdbcTemplate(source), owner);
+        return count;
+    }
+
+    // Replace the tasks written since the bulk copy and drop those deleted since; returns the user's task count.
+    // Categories are only ever added, with rising numbers, so the new ones are those above the target's highest
+    private static int catchUp(Connection source, Connection target, long owner) throws SQLException {
+        ShardRows.copy(source, target, "task_categories", OWNED_TASKS + " AND id > ?", owner, highestCategory(target, owner));
+        Map<Long, Object> expected = versions(source, owner);
+        Map<Long, Object> copied = versions(target, owner);
+        List<Long> changed = new ArrayList<>();
+        expected.forEach((id, version) -> {
+            if (!copied.containsKey(id) || !Objects.equals(copied.get(id), version)) {
+                changed.add(id);
+            }
+        });
+        List<Long> replaced = new ArrayList<>(changed);
+        copied.keySet().stream().filter(id -> !expected.containsKey(id)).forEach(replaced::add);
+        for (List<Long> chunk : ShardDirectory.chunks(replaced)) {
+            String in = " IN (" + ShardDirectory.placeholders(chunk.size()) + ")";
+            ShardRows.delete(target, "task_collaborators", " WHERE task_id" + in, chunk.toArray());
+            ShardRows.delete(target, "tasks", " WHERE id" + in, chunk.toArray());
+        }
+        for (List<Long> chunk : ShardDirectory.chunks(changed)) {
+            String in = " IN (" + ShardDirectory.placeholders(chunk.size()) + ")";
+            ShardRows.copy(source, target, "tasks", " WHERE id" + in, chunk.toArray());
+            ShardRows.copy(source, target, "task_collaborators", " WHERE task_id" + in, chunk.toArray());
+        }
+        return expected.size();
+    }
+
+    private static int highestCategory(Connection connection, long owner) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT COALESCE(MAX(id), 0) FROM task_categories WHERE user_id = ?")) {
+            select.setLong(1, owner);
+            try (ResultSet result = select.executeQuery()) {
+                result.next();
+                return result.getInt(1);
+            }
+        }
+    }
+
+    private static Map<Long, Object> versions(Connection connection, long owner) throws SQLException {
+        Map<Long, Object> versions = new HashMap<>();
+        try (PreparedStatement select = connection.prepareStatement("SELECT id, version FROM tasks WHERE user_id = ?")) {
+            select.setLong(1, owner);
+            try (ResultSet result = select.executeQuery()) {
+                while (result.next()) {
+                    versions.put(result.getLong(1), result.getObject(2));
+                }
+            }
+        }
+        return versions;
+    }
+
+    private interface Transfer<T> {
+        T run(Connection source, Connection target) throws SQLException;
+    }
+
+    // Reads the source as it is, writes the target in one transaction
+    private static <T> T transfer(DataSource source, DataSource target, Transfer<T> work) {
+        try (Connection src = source.getConnection(); Connection dst = target.getConnection()) {
+            dst.setAutoCommit(false);
+            try {
+                T result = work.run(src, dst);
+                dst.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                dst.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Copying tasks between shards failed", e);
+        }
+    }
+}
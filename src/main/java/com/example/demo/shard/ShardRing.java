@@ -0,0 +1,71 @@
+package com.example.demo.shard;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring of shard names: every shard owns {@code virtualNodes} points on a 64-bit ring and a
+ * user id belongs to the shard of the first point at or after its hash. Adding a shard only takes over the
+ * users between its points and their predecessors, about 1/n of them, all from the existing shards.
+ * Immutable; {@link #with(String)} returns the ring with one more shard.
+ */
+public final class ShardRing {
+
+    private final List<String> shards;
+    private final int virtualNodes;
+    private final NavigableMap<Long, String> points = new TreeMap<>();
+
+    public ShardRing(Collection<String> shards, int virtualNodes) {
+        if (shards.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("A ring needs at least one shard and one point per shard");
+        }
+        this.shards = List.copyOf(shards);
+        this.virtualNodes = virtualNodes;
+        for (String shard : this.shards) {
+            for (int i = 0; i < virtualNodes; i++) {
+                // A collision (practically never) goes to the shard listed first, the same on every start
+                points.putIfAbsent(mix(fnv1a(shard + "#" + i)), shard);
+            }
+        }
+    }
+
+    public String shardFor(long userId) {
+        Map.Entry<Long, String> point = points.ceilingEntry(mix(userId));
+        return point != null ? point.getValue() : points.firstEntry().getValue();
+    }
+
+    public ShardRing with(String shard) {
+        if (shards.contains(shard)) {
+            return this;
+        }
+        List<String> extended = new ArrayList<>(shards);
+        extended.add(shard);
+        return new ShardRing(extended, virtualNodes);
+    }
+
+    public List<String> shards() {
+        return shards;
+    }
+
+    // SplitMix64 finalizer: spreads consecutive ids over the whole ring
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long fnv1a(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        return hash;
+    }
+}
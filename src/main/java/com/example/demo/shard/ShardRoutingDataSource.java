@@ -0,0 +1,109 @@
+package com.example.demo.shard;
+
+import com.example.demo.replica.ReplicaState;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out connections of the shard named by {@link ShardContext}, or of the home shard when none is set:
+ * users, revocations and everything outside the sharded task repository live there. Must sit behind a
+ * LazyConnectionDataSourceProxy so a transaction's connection is chosen at its first statement. Shards can
+ * be added while running; their pools are closed with this data source. Connections handed out are counted
+ * as {@code datasource.shard.routing{shard}}.
+ * <p>
+ * Transactions writing to the home shard outside any shard context are recorded in {@link ReplicaState}
+ * once committed, so the feed copying users to the other shards picks them up right away.
+ */
+public class ShardRoutingDataSource extends AbstractDataSource {
+
+    private final Map<String, DataSource> shards = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final Map<String, Counter> routed = new ConcurrentHashMap<>();
+    private final ReplicaState usersState;
+    private final MeterRegistry meterRegistry;
+
+    public ShardRoutingDataSource(DataSource home, ReplicaState usersState, MeterRegistry meterRegistry) {
+        this.usersState = usersState;
+        this.meterRegistry = meterRegistry;
+        addShard(ShardDirectory.HOME, home);
+    }
+
+    public void addShard(String name, DataSource dataSource) {
+        routed.computeIfAbsent(name, shard -> Counter.builder("datasource.shard.routing")
+                .description("Connections handed out by the shard routing")
+                .tag("shard", shard)
+                .register(meterRegistry));
+        shards.put(name, dataSource);
+    }
+
+    public DataSource shard(String name) {
+        DataSource dataSource = shards.get(name);
+        if (dataSource == null) {
+            throw new IllegalStateException("Unknown shard '" + name + "'");
+        }
+        return dataSource;
+    }
+
+    // In the order they were added, home first
+    public Map<String, DataSource> shards() {
+        synchronized (shards) {
+            return new LinkedHashMap<>(shards);
+        }
+    }
+
+    // The pools of the other shards; home's is a bean of its own
+    public void close() {
+        shards().forEach((name, dataSource) -> {
+            if (!ShardDirectory.HOME.equals(name) && dataSource instanceof Closeable closeable) {
+                try {
+                    closeable.close();
+                } catch (IOException e) {
+                    // Shutting down anyway
+                }
+            }
+        });
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return target().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return target().getConnection(username, password);
+    }
+
+    private DataSource target() {
+        String shard = ShardContext.current();
+        if (shard == null) {
+            shard = ShardDirectory.HOME;
+            if (TransactionSynchronizationManager.isActualTransactionActive()
+                    && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                    && TransactionSynchronizationManager.isSynchronizationActive()) {
+                // Possibly a user write: once committed, the other shards must receive it before tasks refer to it
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        usersState.recordWrite(null);
+                    }
+                });
+            }
+        }
+        DataSource dataSource = shard(shard);
+        routed.get(shard).increment();
+        return dataSource;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.shard;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Row copies between shards with plain JDBC, column for column
+ */
+final class ShardRows {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private ShardRows() {
+    }
+
+    // The rows of the table matching the filter, inserted into the target as they are; returns the row count
+    static int copy(Connection source, Connection target, String table, String filter, Object... args) throws SQLException {
+        try (PreparedStatement select = source.prepareStatement("SELECT * FROM " + table + filter)) {
+            bind(select, args);
+            try (ResultSet result = select.executeQuery()) {
+                ResultSetMetaData metaData = result.getMetaData();
+                int columns = metaData.getColumnCount();
+                List<String> names = new ArrayList<>();
+                for (int i = 1; i <= columns; i++) {
+                    names.add(metaData.getColumnName(i));
+                }
+                String sql = "INSERT INTO " + table + " (" + String.join(", ", names) + ") VALUES ("
+                        + ShardDirectory.placeholders(columns) + ")";
+                int copied = 0;
+                try (PreparedStatement insert = target.prepareStatement(sql)) {
+                    int pending = 0;
+                    while (result.next()) {
+                        for (int i = 1; i <= columns; i++) {
+                            insert.setObject(i, result.getObject(i));
+                        }
+                        insert.addBatch();
+                        if (++pending == BATCH_SIZE) {
+                            copied += insert.executeBatch().length;
+                            pending = 0;
+                        }
+                    }
+                    if (pending > 0) {
+                        copied += insert.executeBatch().length;
+                    }
+                }
+                return copied;
+            }
+        }
+    }
+
+    static int delete(Connection target, String table, String filter, Object... args) throws SQLException {
+        try (PreparedStatement delete = target.prepareStatement("DELETE FROM " + table + filter)) {
+            bind(delete, args);
+            return delete.executeUpdate();
+        }
+    }
+
+    private static void bind(PreparedStatement statement, Object[] args) throws SQLException {
+        for (int i = 0; i < args.length; i++) {
+            statement.setObject(i + 1, args[i]);
+        }
+    }
+}
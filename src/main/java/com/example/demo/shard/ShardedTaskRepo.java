@@ -0,0 +1,820 @@
+package com.example.demo.shard;
+
+import com.example.demo.constants.Priority;
+import com.example.demo.constants.Status;
+import com.example.demo.entity.Task;
+import com.example.demo.entity.User;
+import com.example.demo.replica.ReplicaState;
+import com.example.demo.repo.TaskRepo;
+import com.example.demo.repo.UserRepo;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The application's TaskRepo when tasks are sharded: every call runs the Spring Data repository on the
+ * shard(s) holding the tasks and returns tasks with their collaborators loaded.
+ * <ul>
+ * <li>Queries by owner (user id or username) go to the owner's shard only.</li>
+ * <li>Queries by task id find the owner in the membership index first.</li>
+ * <li>Tasks shared with a user are read from the shards of the owners the index names, in parallel.</li>
+ * <li>Admin-wide queries run on every shard in parallel and are merged.</li>
+ * </ul>
+ * Writes go to the owner's shard once the owner has reached it, and keep the membership index current.
+ * While a user is being moved their tasks exist on two shards; merged results keep the copy on the shard
+ * the directory names, so nothing is returned twice. Generic Example, Sort and Pageable queries over all
+ * tasks and lazy references are not supported.
+ * <p>
+ * Transactions: work on the home shard joins the caller's transaction, so a request holds one home
+ * connection however many calls it makes. Writes on another shard run in a shard transaction bound to the
+ * caller's (opened by the first write there, then also used by reads of that shard, on a thread of its own
+ * since a thread has one transaction at a time); it commits in the caller's beforeCommit, after the home
+ * changes were flushed, and rolls back with it. Writes outside a transaction get one on home. The index
+ * entries and a new user's placement are written in the home transaction, and the owners' fences are held
+ * until it completes. What stays non-atomic: the shard transactions and the home one commit one after the
+ * other, so if a later commit fails the shards committed before it keep the write while the rest roll back;
+ * a shard's tasks missing from the index that way are found again by the rebuild on the next start.
+ */
+public class ShardedTaskRepo implements TaskRepo {
+
+    private static final long UNKNOWN_USER = -1L;
+
+    private final TaskRepo shardRepo;
+    private final UserRepo userRepo;
+    private final ShardDirectory directory;
+    private final ShardRoutingDataSource routing;
+    private final ReplicaState usersState;
+    private final TransactionTemplate homeReads;
+    private final TransactionTemplate homeWrites;
+    private final TransactionTemplate reads;
+    private final TransactionTemplate writes;
+    private final ExecutorService scatter;
+    private final ExecutorService shardTransactions;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ShardedTaskRepo(TaskRepo shardRepo, UserRepo userRepo, ShardDirectory directory,
+                           ShardRoutingDataSource routing, ReplicaState usersState,
+                           PlatformTransactionManager transactionManager, int scatterThreads) {
+        this.shardRepo = shardRepo;
+        this.userRepo = userRepo;
+        this.directory = directory;
+        this.routing = routing;
+        this.usersState = usersState;
+        this.homeReads = new TransactionTemplate(transactionManager);
+        homeReads.setReadOnly(true);
+        this.homeWrites = new TransactionTemplate(transactionManager);
+        // The other shards: a transaction of their own even inside a service transaction, which is on home
+        this.reads = new TransactionTemplate(transactionManager);
+        reads.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        reads.setReadOnly(true);
+        this.writes = new TransactionTemplate(transactionManager);
+        writes.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.scatter = Executors.newFixedThreadPool(scatterThreads, threads("shard-scatter-"));
+        this.shardTransactions = Executors.newCachedThreadPool(threads("shard-transaction-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scatter.shutdownNow();
+        shardTransactions.shutdownNow();
+    }
+
+    // Tasks stored on each shard, deleted ones included
+    public Map<String, Long> countByShard() {
+        return scatter(routing.shards().keySet(), repo -> repo.count());
+    }
+
+    // ----- By owner: one shard -----
+
+    @Override
+    public List<Task> findByUserUsername(String username) {
+        return forOwner(ownerId(username), repo -> repo.findByUserUsername(username));
+    }
+
+    @Override
+    public Optional<Task> findByIdAndUserUsername(Long id, String username) {
+        return forOwner(ownerId(username), repo -> repo.findByIdAndUserUsername(id, username));
+    }
+
+    @Override
+    public List<Task> findByUserUsernameAndDeletedFalse(String username) {
+        return forOwner(ownerId(username), repo -> repo.findByUserUsernameAndDeletedFalse(username));
+    }
+
+    @Override
+    public Optional<Task> findByIdAndUserUsernameAndDeletedFalse(Long id, String username) {
+        return forOwner(ownerId(username), repo -> repo.findByIdAndUserUsernameAndDeletedFalse(id, username));
+    }
+
+    @Override
+    public List<Task> findByUserIdAndDeletedFalse(Long userId) {
+        return forOwner(userId, repo -> repo.findByUserIdAndDeletedFalse(userId));
+    }
+
+    @Override
+    public List<Task> findByUserUsernameAndStatusAndDeletedFalse(String username, Status status) {
+        return forOwner(ownerId(username), repo -> repo.findByUserUsernameAndStatusAndDeletedFalse(username, status));
+    }
+
+    @Override
+    public List<Task> findByUserUsernameAndCategoryAndDeletedFalse(String username, String category) {
+        return forOwner(ownerId(username), repo -> repo.findByUserUsernameAndCategoryAndDeletedFalse(username, category));
+    }
+
+    @Override
+    public List<Task> findByUserUsernameAndDeletedTrue(String username) {
+        return forOwner(ownerId(username), repo -> repo.findByUserUsernameAndDeletedTrue(username));
+    }
+
+    @Override
+    public Page<Task> findByUserIdAndDeletedFalse(Long userId, Pageable pageable) {
+        return forOwner(userId, repo -> repo.findByUserIdAndDeletedFalse(userId, pageable));
+    }
+
+    @Override
+    public List<Task> findByUserIdAndDueDateAndDeletedFalse(Long userId, LocalDate dueDate) {
+        return forOwner(userId, repo -> repo.findByUserIdAndDueDateAndDeletedFalse(userId, dueDate));
+    }
+
+    @Override
+    public List<Task> findByUserIdAndDueDateBetweenAndDeletedFalse(Long userId, LocalDate startDate, LocalDate endDate) {
+        return forOwner(userId, repo -> repo.findByUserIdAndDueDateBetweenAndDeletedFalse(userId, startDate, endDate));
+    }
+
+    @Override
+    public List<Task> findByUserIdAndDueDateBeforeAndDeletedFalse(Long userId, LocalDate date) {
+        return forOwner(userId, repo -> repo.findByUserIdAndDueDateBeforeAndDeletedFalse(userId, date));
+    }
+
+    @Override
+    public List<Task> findByUserIdAndDueDateAfterAndDeletedFalse(Long userId, LocalDate date) {
+        return forOwner(userId, repo -> repo.findByUserIdAndDueDateAfterAndDeletedFalse(userId, date));
+    }
+
+    @Override
+    public List<Task> findByUserIdAndPriorityAndDeletedFalse(Long userId, Priority priority) {
+        return forOwner(userId, repo -> repo.findByUserIdAndPriorityAndDeletedFalse(userId, priority));
+    }
+
+    @Override
+    public List<Task> findByUserIdAndKeywordInTitleOrDescription(Long userId, String keyword) {
+        return forOwner(userId, repo -> repo.findByUserIdAndKeywordInTitleOrDescription(userId, keyword));
+    }
+
+    @Override
+    public Page<Task> findByUserIdAndKeywordInTitleOrDescription(Long userId, String keyword, Pageable pageable) {
+        return forOwner(userId, repo -> repo.findByUserIdAndKeywordInTitleOrDescription(userId, keyword, pageable));
+    }
+
+    @Override
+    public Page<Task> findTasksWithFilters(Long userId, Status status, String category, LocalDate dueDate, Pageable pageable) {
+        return forOwner(userId, repo -> repo.findTasksWithFilters(userId, status, category, dueDate, pageable));
+    }
+
+    // ----- By task id: the owner's shard, found in the index -----
+
+    @Override
+    public Optional<Task> findById(Long id) {
+        return forTask(id, repo -> repo.findById(id), Optional.empty());
+    }
+
+    @Override
+    public Optional<Task> findByIdAndDeletedFalse(Long id) {
+        return forTask(id, repo -> repo.findByIdAndDeletedFalse(id), Optional.empty());
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return forTask(id, repo -> repo.existsById(id), false);
+    }
+
+    @Override
+    public boolean existsCollaboratorByTaskIdAndUserId(Long taskId, Long userId) {
+        return forTask(taskId, repo -> repo.existsCollaboratorByTaskIdAndUserId(taskId, userId), false);
+    }
+
+    @Override
+    public List<Task> findAllById(Iterable<Long> ids) {
+        Map<Long, Long> owners = directory.ownersOf(asList(ids));
+        return directory.withOwners(owners.values(), false, () -> {
+            Map<String, List<Long>> idsByShard = new LinkedHashMap<>();
+            owners.forEach((id, owner) -> idsByShard.computeIfAbsent(directory.placement(owner), shard -> new ArrayList<>()).add(id));
+            Map<String, List<Task>> found = new LinkedHashMap<>();
+            idsByShard.forEach((shard, shardIds) -> found.put(shard, onShard(shard, false, repo -> repo.findAllById(shardIds))));
+            return merged(found);
+        });
+    }
+
+    @Override
+    public int patch(Collection<Long> ids, Map<String, Object> values, long changeSeq, Long expectedVersion) {
+        Map<Long, Long> owners = directory.ownersOf(ids);
+        return writing(owners.values(), () -> {
+            Map<String, List<Long>> idsByShard = new LinkedHashMap<>();
+            owners.forEach((id, owner) -> idsByShard.computeIfAbsent(directory.placement(owner), shard -> new ArrayList<>()).add(id));
+            int updated = 0;
+            for (Map.Entry<String, List<Long>> shard : idsByShard.entrySet()) {
+                updated += onShard(shard.getKey(), true, repo -> repo.patch(shard.getValue(), values, changeSeq, expectedVersion));
+            }
+            return updated;
+        });
+    }
+
+    // ----- Shared with a user: the owners' shards named by the index -----
+
+    @Override
+    public List<Task> findSharedWithUser(Long userId) {
+        Set<Long> owners = directory.ownersSharingWith(userId);
+        if (owners.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Task> tasks = gather(owners, repo -> repo.findSharedWithUser(userId));
+        tasks.sort(Comparator.comparing(Task::getId));
+        return tasks;
+    }
+
+    @Override
+    public List<Task> findChangedForUser(Long userId, long since, long until, Pageable pageable) {
+        Set<Long> owners = new LinkedHashSet<>();
+        owners.add(userId);
+        owners.addAll(directory.ownersSharingWith(userId));
+        // Every shard returns the first rows up to the end of the page; the page is cut from their merge
+        Pageable leading = pageable.isPaged() ? PageRequest.of(0, (int) pageable.getOffset() + pageable.getPageSize()) : pageable;
+        List<Task> tasks = gather(owners, repo -> repo.findChangedForUser(userId, since, until, leading));
+        tasks.sort(Comparator.comparing(Task::getChangeSeq).thenComparing(Task::getId));
+        if (pageable.isPaged()) {
+            int from = (int) Math.min(pageable.getOffset(), tasks.size());
+            return new ArrayList<>(tasks.subList(from, Math.min(tasks.size(), from + pageable.getPageSize())));
+        }
+        return tasks;
+    }
+
+    // ----- Admin-wide: every shard -----
+
+    @Override
+    public List<Task> findAllByDeletedFalse() {
+        return everywhere(repo -> repo.findAllByDeletedFalse());
+    }
+
+    @Override
+    public List<Task> findByStatusAndDeletedFalse(Status status) {
+        return everywhere(repo -> repo.findByStatusAndDeletedFalse(status));
+    }
+
+    @Override
+    public List<Task> findByCategoryAndDeletedFalse(String category) {
+        return everywhere(repo -> repo.findByCategoryAndDeletedFalse(category));
+    }
+
+    @Override
+    public List<Task> findAll() {
+        return everywhere(repo -> repo.findAll());
+    }
+
+    // Tasks of a user being moved count twice until the move completes
+    @Override
+    public long count() {
+        return countByShard().values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    @Override
+    public long findMaxChangeSeq() {
+        return scatter(routing.shards().keySet(), repo -> repo.findMaxChangeSeq()).values().stream()
+                .mapToLong(Long::longValue).max().orElse(0L);
+    }
+
+    // ----- Writes: the owner's shard -----
+
+    @Override
+    public <S extends Task> S save(S entity) {
+        return write(entity, repo -> repo.save(entity));
+    }
+
+    @Override
+    public <S extends Task> S saveAndFlush(S entity) {
+        return write(entity, repo -> repo.saveAndFlush(entity));
+    }
+
+    @Override
+    public <S extends Task> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        entities.forEach(entity -> saved.add(save(entity)));
+        return saved;
+    }
+
+    @Override
+    public <S extends Task> List<S> saveAllAndFlush(Iterable<S> entities) {
+        return saveAll(entities);
+    }
+
+    // The dictionary entry must be on the shard the task is written to
+    @Override
+    public Integer categoryId(Long userId, String name) {
+        if (name == null) {
+            return null;
+        }
+        return writing(List.of(userId), () -> onShard(writableShard(userId, List.of(userId)), true,
+                repo -> repo.categoryId(userId, name)));
+    }
+
+    // Writes on the other shards are flushed when their transaction commits
+    @Override
+    public void flush() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            entityManager.flush();
+        }
+    }
+
+    @Override
+    public void delete(Task entity) {
+        Long owner = entity.getUser() != null ? entity.getUser().getId() : directory.ownerOf(entity.getId());
+        if (owner != null) {
+            removeOwned(owner, List.of(entity.getId()), repo -> repo.deleteById(entity.getId()));
+        }
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        Long owner = directory.ownerOf(id);
+        if (owner != null) {
+            removeOwned(owner, List.of(id), repo -> repo.deleteById(id));
+        }
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Long> ids) {
+        List<Long> list = new ArrayList<>();
+        ids.forEach(list::add);
+        Map<Long, List<Long>> idsByOwner = new HashMap<>();
+        directory.ownersOf(list).forEach((id, owner) -> idsByOwner.computeIfAbsent(owner, o -> new ArrayList<>()).add(id));
+        idsByOwner.forEach((owner, ownerIds) -> removeOwned(owner, ownerIds, repo -> repo.deleteAllByIdInBatch(ownerIds)));
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Task> entities) {
+        List<Long> ids = new ArrayList<>();
+        entities.forEach(task -> ids.add(task.getId()));
+        deleteAllById(ids);
+    }
+
+    @Override
+    public void deleteAllInBatch(Iterable<Task> entities) {
+        deleteAll(entities);
+    }
+
+    @Override
+    public void deleteAllByIdInBatch(Iterable<Long> ids) {
+        deleteAllById(ids);
+    }
+
+    @Override
+    public void deleteAll() {
+        writing(List.of(), () -> {
+            for (String shard : routing.shards().keySet()) {
+                onShard(shard, true, repo -> {
+                    repo.deleteAllInBatch();
+                    return null;
+                });
+            }
+            directory.clearIndex();
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        deleteAll();
+    }
+
+    // ----- Not supported across shards -----
+
+    @Override
+    public List<Task> findAll(Sort sort) {
+        throw unsupported("findAll(Sort)");
+    }
+
+    @Override
+    public Page<Task> findAll(Pageable pageable) {
+        throw unsupported("findAll(Pageable)");
+    }
+
+    @Override
+    public <S extends Task> Optional<S> findOne(Example<S> example) {
+        throw unsupported("findOne(Example)");
+    }
+
+    @Override
+    public <S extends Task> List<S> findAll(Example<S> example) {
+        throw unsupported("findAll(Example)");
+    }
+
+    @Override
+    public <S extends Task> List<S> findAll(Example<S> example, Sort sort) {
+        throw unsupported("findAll(Example, Sort)");
+    }
+
+    @Override
+    public <S extends Task> Page<S> findAll(Example<S> example, Pageable pageable) {
+        throw unsupported("findAll(Example, Pageable)");
+    }
+
+    @Override
+    public <S extends Task> long count(Example<S> example) {
+        throw unsupported("count(Example)");
+    }
+
+    @Override
+    public <S extends Task> boolean exists(Example<S> example) {
+        throw unsupported("exists(Example)");
+    }
+
+    @Override
+    public <S extends Task, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        throw unsupported("findBy(Example)");
+    }
+
+    @Override
+    @Deprecated
+    public Task getOne(Long id) {
+        throw unsupported("getOne");
+    }
+
+    @Override
+    @Deprecated
+    public Task getById(Long id) {
+        throw unsupported("getById");
+    }
+
+    @Override
+    public Task getReferenceById(Long id) {
+        throw unsupported("getReferenceById");
+    }
+
+    // ----- Routing -----
+
+    private <T> T forOwner(long ownerId, Function<TaskRepo, T> read) {
+        return directory.withOwners(List.of(ownerId), false, () -> onShard(directory.placement(ownerId), false, read));
+    }
+
+    private <T> T forTask(long taskId, Function<TaskRepo, T> read, T missing) {
+        Long owner = directory.ownerOf(taskId);
+        return owner != null ? forOwner(owner, read) : missing;
+    }
+
+    // The shards of the given owners, queried in parallel
+    private List<Task> gather(Collection<Long> owners, Function<TaskRepo, List<Task>> read) {
+        return directory.withOwners(owners, false, () -> {
+            Set<String> shards = new LinkedHashSet<>();
+            owners.forEach(owner -> shards.add(directory.placement(owner)));
+            return merged(scatter(shards, read));
+        });
+    }
+
+    private List<Task> everywhere(Function<TaskRepo, List<Task>> read) {
+        List<Task> tasks = merged(scatter(routing.shards().keySet(), read));
+        tasks.sort(Comparator.comparing(Task::getId));
+        return tasks;
+    }
+
+    // Home on this thread, in the caller's transaction; the other shards in parallel
+    private <T> Map<String, T> scatter(Collection<String> shards, Function<TaskRepo, T> read) {
+        Map<String, Future<T>> pending = new LinkedHashMap<>();
+        if (shards.size() > 1) {
+            for (String shard : shards) {
+                if (!ShardDirectory.HOME.equals(shard)) {
+                    Supplier<T> task = onShardTask(shard, false, read);
+                    pending.put(shard, scatter.submit(task::get));
+                }
+            }
+        }
+        Map<String, T> results = new LinkedHashMap<>();
+        for (String shard : shards) {
+            Future<T> result = pending.get(shard);
+            results.put(shard, result != null ? await(result) : onShard(shard, false, read));
+        }
+        return results;
+    }
+
+    // One row per task: the copy on the owner's shard, or the only copy there is
+    private List<Task> merged(Map<String, List<Task>> byShard) {
+        Map<Long, Task> tasks = new LinkedHashMap<>();
+        byShard.forEach((shard, found) -> found.forEach(task -> {
+            if (!tasks.containsKey(task.getId()) || shard.equals(directory.placement(task.getUser().getId()))) {
+                tasks.put(task.getId(), task);
+            }
+        }));
+        return new ArrayList<>(tasks.values());
+    }
+
+    private <T> T onShard(String shard, boolean write, Function<TaskRepo, T> operation) {
+        return onShardTask(shard, write, operation).get();
+    }
+
+    /**
+     * The operation as this thread's transaction runs it on the shard: on home in that transaction (or a new
+     * one without), on another shard in the shard transaction bound to it (opened by a write), or else in a
+     * transaction of its own. Only the latter two may run on another thread.
+     */
+    private <T> Supplier<T> onShardTask(String shard, boolean write, Function<TaskRepo, T> operation) {
+        Supplier<T> work = () -> loaded(operation.apply(shardRepo));
+        if (ShardDirectory.HOME.equals(shard)) {
+            TransactionTemplate transaction = write ? homeWrites : homeReads;
+            return () -> ShardContext.on(shard, () -> transaction.execute(status -> work.get()));
+        }
+        BoundShardTransactions bound = boundShardTransactions(write);
+        ShardTransaction transaction = bound != null ? bound.on(shard, write) : null;
+        if (transaction != null) {
+            return () -> transaction.run(work);
+        }
+        TransactionTemplate own = write ? writes : reads;
+        return () -> ShardContext.on(shard, () -> own.execute(status -> work.get()));
+    }
+
+    // This thread's, registered with its transaction by the first write; null outside a transaction
+    private BoundShardTransactions boundShardTransactions(boolean write) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof BoundShardTransactions bound) {
+                return bound;
+            }
+        }
+        if (!write) {
+            return null;
+        }
+        BoundShardTransactions bound = new BoundShardTransactions();
+        TransactionSynchronizationManager.registerSynchronization(bound);
+        return bound;
+    }
+
+    // In the caller's transaction, or one on home, holding the owners' fences until it completes
+    private <T> T writing(Collection<Long> owners, Supplier<T> work) {
+        return homeWrites.execute(status -> {
+            directory.fenceUntilCompletion(owners);
+            return work.get();
+        });
+    }
+
+    private <S extends Task> S write(S task, Function<TaskRepo, S> save) {
+        long owner = task.getUser().getId();
+        return writing(List.of(owner), () -> {
+            Set<Long> users = new LinkedHashSet<>(List.of(owner));
+            if (task.getCollaborators() != null) {
+                task.getCollaborators().forEach(collaborator -> users.add(collaborator.getId()));
+            }
+            S saved = onShard(writableShard(owner, users), true, save);
+            directory.index(saved);
+            return saved;
+        });
+    }
+
+    // The owner's shard, placing a new owner, once the task's users have reached it. Only a missing user
+    // waits for the feed: it needs a home connection to catch up, and the writer holds one
+    private String writableShard(long owner, Collection<Long> users) {
+        String shard = directory.placeOwner(owner);
+        if (!ShardDirectory.HOME.equals(shard)
+                && onShard(shard, false, repo -> userRepo.findAllById(users).size()) < users.size()
+                && !usersState.awaitCaughtUp()) {
+            throw new IllegalStateException("Users have not reached shard " + shard + " yet, try again");
+        }
+        return shard;
+    }
+
+    private void removeOwned(long owner, List<Long> ids, Consumer<TaskRepo> delete) {
+        writing(List.of(owner), () -> {
+            onShard(directory.placement(owner), true, repo -> {
+                delete.accept(repo);
+                return null;
+            });
+            directory.unindex(ids);
+            return null;
+        });
+    }
+
+    private long ownerId(String username) {
+        return userRepo.findByUsername(username).map(User::getId).orElse(UNKNOWN_USER);
+    }
+
+    // Collaborators are lazy and the tasks of another shard are detached once its transaction ends
+    private static <T> T loaded(T result) {
+        if (result instanceof Task task) {
+            Hibernate.initialize(task.getCollaborators());
+        } else if (result instanceof Optional<?> optional) {
+            optional.ifPresent(ShardedTaskRepo::loaded);
+        } else if (result instanceof Iterable<?> items) {
+            items.forEach(ShardedTaskRepo::loaded);
+        }
+        return result;
+    }
+
+    private static <T> T await(Future<T> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while querying the shards", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Shard query failed", e.getCause());
+        }
+    }
+
+    private static ThreadFactory threads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static List<Long> asList(Iterable<Long> ids) {
+        List<Long> list = new ArrayList<>();
+        ids.forEach(list::add);
+        return list;
+    }
+
+    private static UnsupportedOperationException unsupported(String operation) {
+        return new UnsupportedOperationException(operation + " is not supported on sharded task storage");
+    }
+
+    /**
+     * The shard transactions bound to the caller's transaction, committed in its beforeCommit once the home
+     * changes are flushed (so a failing home write stops them), rolled back if it does not commit
+     */
+    private final class BoundShardTransactions implements TransactionSynchronization {
+
+        private final Map<String, ShardTransaction> open = new LinkedHashMap<>();
+
+        ShardTransaction on(String shard, boolean write) {
+            ShardTransaction transaction = open.get(shard);
+            if (transaction == null && write) {
+                transaction = new ShardTransaction(shard, writes, shardTransactions);
+                open.put(shard, transaction);
+            }
+            return transaction;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (open.isEmpty()) {
+                return;
+            }
+            entityManager.flush();
+            for (Iterator<ShardTransaction> transactions = open.values().iterator(); transactions.hasNext(); ) {
+                ShardTransaction transaction = transactions.next();
+                transactions.remove();
+                transaction.commit();
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            open.values().forEach(ShardTransaction::rollback);
+            open.clear();
+        }
+    }
+
+    /**
+     * A transaction on one shard that stays open across calls: a thread of its own runs it and takes the
+     * operations one by one until told to commit or roll back
+     */
+    private static final class ShardTransaction {
+
+        private static final Runnable COMMIT = () -> { };
+        private static final Runnable ROLLBACK = () -> { };
+
+        private final String shard;
+        private final BlockingQueue<Runnable> operations = new LinkedBlockingQueue<>();
+        private final Future<?> completion;
+        private boolean closed;
+        private volatile RuntimeException failure;
+
+        ShardTransaction(String shard, TransactionTemplate transaction, ExecutorService threads) {
+            this.shard = shard;
+            this.completion = threads.submit(() -> {
+                try {
+                    ShardContext.on(shard, () -> transaction.execute(status -> {
+                        for (Runnable next = take(); next != COMMIT; next = take()) {
+                            if (next == ROLLBACK) {
+                                status.setRollbackOnly();
+                                break;
+                            }
+                            next.run();
+                        }
+                        return null;
+                    }));
+                } catch (RuntimeException e) {
+                    failure = e;
+                    throw e;
+                } finally {
+                    close();
+                }
+            });
+        }
+
+        <T> T run(Supplier<T> operation) {
+            FutureTask<T> task = new FutureTask<>(operation::get);
+            submit(task);
+            try {
+                return await(task);
+            } catch (CancellationException e) {
+                throw ended();
+            }
+        }
+
+        // Throws what the commit threw
+        void commit() {
+            submit(COMMIT);
+            await(completion);
+        }
+
+        void rollback() {
+            synchronized (this) {
+                if (!closed) {
+                    operations.add(ROLLBACK);
+                }
+            }
+            try {
+                await(completion);
+            } catch (RuntimeException e) {
+                // Rolled back anyway
+            }
+        }
+
+        private synchronized void submit(Runnable operation) {
+            if (closed) {
+                throw ended();
+            }
+            operations.add(operation);
+        }
+
+        // Operations queued after the end are never run
+        private void close() {
+            synchronized (this) {
+                closed = true;
+            }
+            for (Runnable operation : operations) {
+                if (operation instanceof Future<?> pending) {
+                    pending.cancel(false);
+                }
+            }
+        }
+
+        private Runnable take() {
+            try {
+                return operations.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return ROLLBACK;
+            }
+        }
+
+        private RuntimeException ended() {
+            return new IllegalStateException("The transaction on shard " + shard + " has ended", failure);
+        }
+    }
+}
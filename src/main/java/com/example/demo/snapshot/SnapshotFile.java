@@ -0,0 +1,164 @@
+package com.example.demo.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary snapshot of the application database and the token blacklist.
+ * <p>
+ * Layout (big-endian): header {@code magic, format version, created-at millis}; the blacklist as
+ * (token, expiry millis) pairs; then, up to the footer, the H2 database file as copied by {@code BACKUP};
+ * footer {@code body length, CRC32 of header and body}.
+ * Files are read through a read-only memory mapping: the checksum is computed over the mapping and the
+ * database file is copied from it in large blocks, so a restore costs a memory copy rather than an insert per
+ * row. A file that is truncated or fails the checksum is rejected as a whole.
+ */
+public final class SnapshotFile {
+
+    private static final long MAGIC = 0x544F444F534E4150L; // "TODOSNAP"
+    // Version 1 held the rows of each table; those files are rejected and the data rebuilt
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_BYTES = 8 + 4 + 8;
+    private static final int FOOTER_BYTES = 8 + 8;
+    private static final int COPY_CHUNK_BYTES = 1 << 20;
+
+    private final MappedByteBuffer buffer;
+    private final long createdAt;
+
+    private SnapshotFile(MappedByteBuffer buffer, long createdAt) {
+        this.buffer = buffer;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Write the blacklist and the database file to a temporary file next to the target, then move it into
+     * place so readers never see a partial snapshot. Returns the file size.
+     */
+    public static long write(Path path, Map<String, Long> blacklist, InputStream database) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            CRC32 crc = new CRC32();
+            try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16), crc))) {
+                out.writeLong(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(System.currentTimeMillis());
+                out.writeInt(blacklist.size());
+                for (Map.Entry<String, Long> entry : blacklist.entrySet()) {
+                    writeString(out, entry.getKey());
+                    out.writeLong(entry.getValue());
+                }
+                database.transferTo(out);
+                long bodyLength = out.size() - (long) HEADER_BYTES;
+                long checksum = crc.getValue();
+                out.writeLong(bodyLength);
+                out.writeLong(checksum);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return Files.size(path);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Map and verify a snapshot file. Throws if it is missing, truncated, of another format or corrupt.
+     */
+    public static SnapshotFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + FOOTER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot " + path + " has an unexpected size of " + size + " bytes");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getLong(0) != MAGIC || buffer.getInt(8) != FORMAT_VERSION) {
+                throw new IOException("Snapshot " + path + " is not a version " + FORMAT_VERSION + " snapshot");
+            }
+            int footer = (int) size - FOOTER_BYTES;
+            if (buffer.getLong(footer) != footer - HEADER_BYTES) {
+                throw new IOException("Snapshot " + path + " is truncated");
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, footer));
+            if (crc.getValue() != buffer.getLong(footer + 8)) {
+                throw new IOException("Snapshot " + path + " fails its checksum");
+            }
+            return new SnapshotFile(buffer, buffer.getLong(12));
+        }
+    }
+
+    public long createdAt() {
+        return createdAt;
+    }
+
+    /**
+     * Blacklisted tokens with their expiry (epoch millis)
+     */
+    public Map<String, Long> blacklist() throws IOException {
+        ByteBuffer in = body();
+        int count = in.getInt();
+        Map<String, Long> blacklist = new LinkedHashMap<>(Math.max(16, count * 2));
+        for (int i = 0; i < count; i++) {
+            blacklist.put(readString(in), in.getLong());
+        }
+        return blacklist;
+    }
+
+    /**
+     * Write the database file to the stream, returning its size
+     */
+    public long copyDatabaseTo(OutputStream out) throws IOException {
+        ByteBuffer in = body();
+        int tokens = in.getInt();
+        for (int i = 0; i < tokens; i++) {
+            readString(in);
+            in.getLong();
+        }
+        in.limit(buffer.capacity() - FOOTER_BYTES);
+        long size = in.remaining();
+        byte[] chunk = new byte[COPY_CHUNK_BYTES];
+        while (in.hasRemaining()) {
+            int length = Math.min(chunk.length, in.remaining());
+            in.get(chunk, 0, length);
+            out.write(chunk, 0, length);
+        }
+        return size;
+    }
+
+    private ByteBuffer body() {
+        return buffer.duplicate().position(HEADER_BYTES);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) throws IOException {
+        int length = in.getInt();
+        if (length < 0 || length > in.remaining()) {
+            throw new IOException("Corrupt string length " + length + " in snapshot");
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
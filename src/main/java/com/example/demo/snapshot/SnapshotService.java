@@ -0,0 +1,165 @@
+package com.example.demo.snapshot;
+
+import com.example.demo.service.TokenBlacklistService;
+import com.example.demo.util.CustomLogger;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.h2.store.fs.FileUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Keeps a binary {@link SnapshotFile} of the database and the token blacklist, rewritten every
+ * {@code snapshot.interval} and on shutdown. The database has to live in H2's in-memory file system
+ * ({@code jdbc:h2:memFS:}), so that its file can be copied out with {@code BACKUP} and, at startup, copied
+ * back in whole before the first connection opens it; Flyway then brings it up to date and the data
+ * initializers find it already filled. A missing or invalid snapshot leaves the full rebuild to run as before.
+ * <p>
+ * Restores are timed as {@code snapshot.restore{outcome=restored|missing|invalid|existing}} and writes as
+ * {@code snapshot.write}; the startup as a whole is Spring Boot's {@code application.ready.time}.
+ */
+@Component
+@ConditionalOnProperty(name = "snapshot.enabled", havingValue = "true")
+public class SnapshotService implements FlywayConfigurationCustomizer {
+
+    private static final CustomLogger logger = CustomLogger.getLogger(SnapshotService.class);
+
+    static final String URL_PREFIX = "jdbc:h2:memFS:";
+
+    private final DataSource dataSource;
+    private final TokenBlacklistService tokenBlacklistService;
+    private final String databaseFile;
+    private final Path path;
+    private final Timer writes;
+    private final ScheduledExecutorService writer;
+
+    public SnapshotService(DataSource dataSource,
+                           TokenBlacklistService tokenBlacklistService,
+                           @Value("${spring.datasource.url}") String url,
+                           @Value("${snapshot.path:./data/todo.snapshot}") Path path,
+                           @Value("${snapshot.interval:PT5M}") Duration interval,
+                           MeterRegistry meterRegistry) {
+        if (!url.startsWith(URL_PREFIX)) {
+            throw new IllegalStateException("snapshot.enabled needs a " + URL_PREFIX + " database, not " + url);
+        }
+        this.dataSource = dataSource;
+        this.tokenBlacklistService = tokenBlacklistService;
+        this.databaseFile = "memFS:" + url.substring(URL_PREFIX.length()).split(";", 2)[0] + ".mv.db";
+        this.path = path;
+        this.writes = Timer.builder("snapshot.write").description("Snapshot writes").register(meterRegistry);
+
+        long start = System.nanoTime();
+        String outcome = restore();
+        Timer.builder("snapshot.restore").tag("outcome", outcome).description("Startup restores from the snapshot")
+                .register(meterRegistry).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::writeQuietly, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Nothing to change: as a customizer this service is created before Flyway connects, which is the first
+     * connection to the database, so the restored file is in place by then.
+     */
+    @Override
+    public void customize(FluentConfiguration configuration) {
+    }
+
+    /**
+     * Write a snapshot now, from one consistent copy of the database file
+     */
+    public synchronized long write() throws SQLException, IOException {
+        long start = System.nanoTime();
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path backup = Files.createTempFile(directory, path.getFileName().toString(), ".zip");
+        long size;
+        try {
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("BACKUP TO '" + backup.toString().replace("'", "''") + "'");
+            }
+            try (ZipFile zip = new ZipFile(backup.toFile())) {
+                ZipEntry entry = zip.stream().filter(e -> e.getName().endsWith(".mv.db")).findFirst()
+                        .orElseThrow(() -> new IOException("BACKUP wrote no database file"));
+                try (InputStream database = zip.getInputStream(entry)) {
+                    size = SnapshotFile.write(path, tokenBlacklistService.getBlacklistedTokens(), database);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(backup);
+        }
+        writes.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        logger.info("Snapshot written to {} ({} bytes) in {} ms", path.toAbsolutePath(), size,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return size;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdownNow();
+        writeQuietly();
+    }
+
+    private String restore() {
+        if (FileUtils.exists(databaseFile)) {
+            logger.warn("Database {} is already open, snapshot {} not restored", databaseFile, path.toAbsolutePath());
+            return "existing";
+        }
+        try {
+            SnapshotFile snapshot = SnapshotFile.open(path);
+            Map<String, Long> blacklist = snapshot.blacklist();
+            long size;
+            try (OutputStream out = FileUtils.newOutputStream(databaseFile, false)) {
+                size = snapshot.copyDatabaseTo(out);
+            }
+            tokenBlacklistService.restoreBlacklistedTokens(blacklist);
+            logger.info("Restored database ({} bytes) from snapshot {} taken at {}", size, path.toAbsolutePath(),
+                    Instant.ofEpochMilli(snapshot.createdAt()));
+            return "restored";
+        } catch (NoSuchFileException e) {
+            logger.info("No snapshot at {}, starting from a full rebuild", path.toAbsolutePath());
+            return "missing";
+        } catch (IOException | RuntimeException e) {
+            // Leave no partial file behind for the database to open
+            FileUtils.tryDelete(databaseFile);
+            logger.warn("Ignoring invalid snapshot {}: {}", path.toAbsolutePath(), e.getMessage());
+            return "invalid";
+        }
+    }
+
+    private void writeQuietly() {
+        try {
+            write();
+        } catch (SQLException | IOException | RuntimeException e) {
+            logger.warn("Snapshot could not be written to {}: {}", path.toAbsolutePath(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,735 @@
+package com.example.demo.store;
+
+import com.example.demo.constants.Priority;
+import com.example.demo.constants.Status;
+import com.example.demo.dto.TaskPatch;
+import com.example.demo.entity.Task;
+import com.example.demo.entity.User;
+import com.example.demo.repo.TaskRepo;
+import com.example.demo.repo.UserRepo;
+import com.example.demo.util.CustomLogger;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.data.util.TypeInformation;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Tasks held in the heap ({@code tasks.store=memory}, see application-memstore.properties) for the lowest
+ * read latency: a primitive-keyed map of immutable {@link StoredTask}s by id and a {@link UserTaskIndex}
+ * per user (owned ids, due date and priority order, tasks shared with the user, change sequence order), so
+ * every query of TaskServiceImpl is a lookup or a range of one user's index. Reads take no lock; writes are
+ * serialized by one lock and logged to the {@link TaskWriteAheadLog} (group commit); once the log has made
+ * a write durable it replaces the task and the indexes of the users it concerns, before the call returns.
+ * Readers never see a write the log does not hold. When the log fails, the writes it had not made durable
+ * are dropped unseen and the store stays read-only.
+ * <p>
+ * At startup (before anything else runs on ApplicationReadyEvent) the log at {@code tasks.store.wal.path}
+ * is replayed; without one the store is filled from the tasks table (data.sql, a dataset load) once, and
+ * the database's task rows are not used after that. Users and revocations stay in the database; owners and
+ * collaborators are kept as copies, refreshed when their profile changes. Task ids are handed out here.
+ * <p>
+ * Writes are not part of the caller's transaction: what was written stays written if the transaction
+ * rolls back afterwards. The task count is published as {@code tasks.store.tasks}.
+ */
+@Component
+@ConditionalOnProperty(name = "tasks.store", havingValue = "memory")
+public class InMemoryTaskStore implements TaskStore {
+
+    private static final CustomLogger logger = CustomLogger.getLogger(InMemoryTaskStore.class);
+
+    private static final TypeInformation<Task> TASK_TYPE = TypeInformation.of(Task.class);
+
+    // Status and priority sort by code, as their columns do
+    private static final Map<String, Function<StoredTask, Comparable<?>>> SORT_PROPERTIES = Map.ofEntries(
+            Map.entry("id", StoredTask::id),
+            Map.entry("title", StoredTask::title),
+            Map.entry("description", StoredTask::description),
+            Map.entry("dueDate", StoredTask::dueDate),
+            Map.entry("status", task -> task.status() != null ? task.status().code() : null),
+            Map.entry("priority", task -> task.priority() != null ? task.priority().code() : null),
+            Map.entry("category", StoredTask::category),
+            Map.entry("createDate", StoredTask::createDate),
+            Map.entry("updateDate", StoredTask::updateDate),
+            Map.entry("completionDate", StoredTask::completionDate),
+            Map.entry("deleted", StoredTask::deleted),
+            Map.entry("changeSeq", StoredTask::changeSeq),
+            Map.entry("version", StoredTask::version));
+
+    private record Change(long ticket, StoredTask before, StoredTask after) {
+    }
+
+    private final TaskRepo taskRepo;
+    private final UserRepo userRepo;
+    private final TransactionTemplate readTransaction;
+    private final MeterRegistry meterRegistry;
+    private final Path walPath;
+    private final boolean fsync;
+    private final long checkpointBytes;
+
+    private final LongKeyMap<StoredTask> tasks;
+    private final LongKeyMap<UserTaskIndex> indexes;
+    private final LongKeyMap<User> users;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // Logged writes readers do not see yet: the latest image per id (null once purged), which is what
+    // writers check against, and the changes in log order. Both guarded by writeLock
+    private final Map<Long, StoredTask> unpublished = new HashMap<>();
+    private final Deque<Change> changes = new ArrayDeque<>();
+
+    private long nextId = 1; // guarded by writeLock
+    private volatile long maxChangeSeq;
+    private volatile TaskWriteAheadLog wal;
+    // How the log file is opened for appending; tests substitute channels that fail
+    TaskWriteAheadLog.Channels logChannels = TaskWriteAheadLog.Channels.APPEND;
+
+    public InMemoryTaskStore(TaskRepo taskRepo,
+                             UserRepo userRepo,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             Environment environment,
+                             @Value("${tasks.store.wal.path:./data/tasks.wal}") Path walPath,
+                             @Value("${tasks.store.wal.fsync:true}") boolean fsync,
+                             @Value("${tasks.store.wal.checkpoint-size-mb:64}") long checkpointSizeMb,
+                             @Value("${tasks.store.expected-tasks:100000}") int expectedTasks) {
+        // The store replaces the task tables, which sharding would spread over several databases
+        if (environment.getProperty("datasource.shards.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("tasks.store=memory cannot be combined with datasource.shards.enabled");
+        }
+        this.taskRepo = taskRepo;
+        this.userRepo = userRepo;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+        this.meterRegistry = meterRegistry;
+        this.walPath = walPath;
+        this.fsync = fsync;
+        this.checkpointBytes = checkpointSizeMb << 20;
+        this.tasks = new LongKeyMap<>(expectedTasks);
+        this.indexes = new LongKeyMap<>(1024);
+        this.users = new LongKeyMap<>(1024);
+        Gauge.builder("tasks.store.tasks", tasks, LongKeyMap::size).description("Tasks held in memory, deleted ones included")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Replay the log, or fill the store from the tasks table when there is none, and start a fresh log
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void load() {
+        if (wal != null) {
+            return;
+        }
+        long start = System.nanoTime();
+        writeLock.lock();
+        try {
+            long records = TaskWriteAheadLog.replay(walPath, new TaskWriteAheadLog.Replay() {
+                @Override
+                public void task(StoredTask task) {
+                    tasks.put(task.id(), task);
+                }
+
+                @Override
+                public void purge(long id) {
+                    tasks.remove(id);
+                }
+            });
+            String source = "task log " + walPath.toAbsolutePath();
+            if (records < 0) {
+                source = "tasks table";
+                readTransaction.executeWithoutResult(status -> {
+                    for (Task task : taskRepo.findAll()) {
+                        Hibernate.initialize(task.getCollaborators());
+                        rememberUsers(task);
+                        tasks.put(task.getId(), StoredTask.of(task, task.getId(), task.getVersion() != null ? task.getVersion() : 0L));
+                    }
+                });
+            }
+            List<StoredTask> loaded = allTasks();
+            loadUsers(loaded);
+            buildIndexes(loaded);
+            wal = new TaskWriteAheadLog(walPath, fsync, checkpointBytes, loaded, this::snapshot, logChannels,
+                    meterRegistry);
+            logger.info("Task store loaded {} tasks for {} users from the {} in {} ms", loaded.size(), indexes.size(),
+                    source, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not load the task log " + walPath.toAbsolutePath(), e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        TaskWriteAheadLog log = wal;
+        if (log != null) {
+            log.close();
+        }
+    }
+
+    // ----- Reads: no locks, the indexes say where to look and each task is checked again -----
+
+    @Override
+    public Optional<Task> findById(Long id) {
+        checkLoaded();
+        return Optional.ofNullable(tasks.get(id)).map(this::toTask);
+    }
+
+    @Override
+    public Optional<Task> findLive(Long id) {
+        checkLoaded();
+        return Optional.ofNullable(tasks.get(id)).filter(task -> !task.deleted()).map(this::toTask);
+    }
+
+    @Override
+    public List<Task> findAllById(Collection<Long> ids) {
+        checkLoaded();
+        List<Task> found = new ArrayList<>(ids.size());
+        for (Long id : new LinkedHashSet<>(ids)) {
+            StoredTask task = tasks.get(id);
+            if (task != null) {
+                found.add(toTask(task));
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public List<Task> findOwned(Long userId) {
+        return toTasks(owned(userId, task -> true));
+    }
+
+    @Override
+    public Page<Task> findOwned(Long userId, Pageable pageable) {
+        return page(owned(userId, task -> true), pageable);
+    }
+
+    @Override
+    public List<Task> findSharedWith(Long userId) {
+        long user = userId;
+        long[] ids = index(user).shared;
+        List<StoredTask> shared = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            StoredTask task = tasks.get(id);
+            if (task != null && !task.deleted() && task.ownerId() != user && task.hasCollaborator(user)) {
+                shared.add(task);
+            }
+        }
+        return toTasks(shared);
+    }
+
+    @Override
+    public List<Task> findOwnedDueOn(Long userId, LocalDate dueDate) {
+        if (dueDate == null) {
+            return new ArrayList<>();
+        }
+        return toTasks(dueBetween(userId, dueDate.toEpochDay(), dueDate.toEpochDay()));
+    }
+
+    @Override
+    public List<Task> findOwnedDueBetween(Long userId, LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null) {
+            return new ArrayList<>();
+        }
+        return toTasks(dueBetween(userId, startDate.toEpochDay(), endDate.toEpochDay()));
+    }
+
+    @Override
+    public List<Task> findOwnedDueBefore(Long userId, LocalDate date) {
+        if (date == null) {
+            return new ArrayList<>();
+        }
+        return toTasks(dueBetween(userId, Long.MIN_VALUE + 1, date.toEpochDay() - 1));
+    }
+
+    @Override
+    public List<Task> findOwnedDueAfter(Long userId, LocalDate date) {
+        if (date == null) {
+            return new ArrayList<>();
+        }
+        return toTasks(dueBetween(userId, date.toEpochDay() + 1, Long.MAX_VALUE));
+    }
+
+    @Override
+    public List<Task> findOwnedByPriority(Long userId, Priority priority) {
+        checkLoaded();
+        if (priority == null) {
+            return new ArrayList<>();
+        }
+        long user = userId;
+        UserTaskIndex.SortedPairs byPriority = index(user).byPriority;
+        List<StoredTask> found = new ArrayList<>();
+        for (int i = byPriority.lowerBound(priority.code()); i < byPriority.upperBound(priority.code()); i++) {
+            StoredTask task = tasks.get(byPriority.id(i));
+            if (task != null && task.isLiveOwnedBy(user) && task.priority() == priority) {
+                found.add(task);
+            }
+        }
+        return toTasks(found);
+    }
+
+    @Override
+    public List<Task> search(Long userId, String keyword) {
+        return toTasks(owned(userId, matches(keyword)));
+    }
+
+    @Override
+    public Page<Task> search(Long userId, String keyword, Pageable pageable) {
+        return page(owned(userId, matches(keyword)), pageable);
+    }
+
+    @Override
+    public Page<Task> findFiltered(Long userId, Status status, String category, LocalDate dueDate, Pageable pageable) {
+        Predicate<StoredTask> filter = task -> (status == null || status == task.status())
+                && (category == null || category.equals(task.category()));
+        List<StoredTask> found = dueDate != null
+                ? dueBetween(userId, dueDate.toEpochDay(), dueDate.toEpochDay()).stream().filter(filter).toList()
+                : owned(userId, filter);
+        return page(found, pageable);
+    }
+
+    @Override
+    public List<Task> findChangedForUser(Long userId, long since, long until, Pageable pageable) {
+        checkLoaded();
+        long user = userId;
+        UserTaskIndex.SortedPairs changes = index(user).changes;
+        long skip = pageable.isPaged() ? pageable.getOffset() : 0;
+        int limit = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+        List<StoredTask> found = new ArrayList<>();
+        for (int i = changes.upperBound(since); i < changes.upperBound(until) && found.size() < limit; i++) {
+            StoredTask task = tasks.get(changes.id(i));
+            if (task != null && task.isMember(user) && task.changeSeq() > since && task.changeSeq() <= until
+                    && skip-- <= 0) {
+                found.add(task);
+            }
+        }
+        return toTasks(found);
+    }
+
+    @Override
+    public long maxChangeSeq() {
+        checkLoaded();
+        return maxChangeSeq;
+    }
+
+    // ----- Writes: one at a time, then wait for the log -----
+
+    @Override
+    public Task save(Task task) {
+        checkLoaded();
+        StoredTask saved;
+        long ticket;
+        writeLock.lock();
+        try {
+            StoredTask before = task.getId() != null ? current(task.getId()) : null;
+            if (task.getId() != null && (before == null || !Objects.equals(task.getVersion(), before.version()))) {
+                throw new ObjectOptimisticLockingFailureException(Task.class, task.getId());
+            }
+            rememberUsers(task);
+            saved = StoredTask.of(task, before != null ? before.id() : nextId, before != null ? before.version() + 1 : 0L);
+            ticket = write(before, saved);
+            if (before == null) {
+                nextId++;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        publish(ticket);
+        return toTask(saved);
+    }
+
+    @Override
+    public int patch(Collection<Long> ids, Map<String, Object> values, long changeSeq, Long expectedVersion) {
+        checkLoaded();
+        for (String field : values.keySet()) {
+            if (!TaskPatch.FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Field '" + field + "' cannot be patched");
+            }
+        }
+        LocalDate today = LocalDate.now();
+        int updated = 0;
+        long ticket = 0;
+        writeLock.lock();
+        try {
+            for (Long id : new LinkedHashSet<>(ids)) {
+                StoredTask before = current(id);
+                if (before == null || (expectedVersion != null && before.version() != expectedVersion)) {
+                    continue;
+                }
+                ticket = write(before, before.patched(values, today, changeSeq));
+                updated++;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        if (updated > 0) {
+            publish(ticket);
+        }
+        return updated;
+    }
+
+    @Override
+    public void userChanged(User user) {
+        if (user.getId() != null && users.get(user.getId()) != null) {
+            writeLock.lock();
+            try {
+                users.put(user.getId(), copy(user));
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Remove every task of these owners for good, deleted ones included (users about to be deleted)
+     */
+    public void purgeOwners(Collection<Long> ownerIds) {
+        checkLoaded();
+        long ticket = 0;
+        writeLock.lock();
+        try {
+            for (Long ownerId : ownerIds) {
+                Set<Long> ids = new LinkedHashSet<>();
+                UserTaskIndex.SortedPairs memberOf = index(ownerId).changes;
+                for (int i = 0; i < memberOf.size(); i++) {
+                    ids.add(memberOf.id(i));
+                }
+                ids.addAll(unpublished.keySet());
+                for (Long id : ids) {
+                    StoredTask task = current(id);
+                    if (task != null && task.ownerId() == ownerId) {
+                        ticket = write(task, null);
+                    }
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        if (ticket > 0) {
+            publish(ticket);
+        }
+        writeLock.lock();
+        try {
+            for (Long ownerId : ownerIds) {
+                indexes.remove(ownerId);
+                users.remove(ownerId);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Logged, and kept from readers until publish: a failed log rejects the write before anyone can see it
+    private long write(StoredTask before, StoredTask after) {
+        long ticket = after != null ? wal.append(after) : wal.appendPurge(before.id());
+        unpublished.put(after != null ? after.id() : before.id(), after);
+        changes.addLast(new Change(ticket, before, after));
+        return ticket;
+    }
+
+    /**
+     * Wait until the log holds the ticket, then show readers every change up to it. Should the log fail,
+     * the changes it did not write are dropped unseen (it takes no further writes, so the store is read-only)
+     */
+    private void publish(long ticket) {
+        try {
+            wal.awaitDurable(ticket);
+        } catch (IllegalStateException e) {
+            writeLock.lock();
+            try {
+                applyDurable();
+                if (wal.failed()) {
+                    unpublished.clear();
+                    changes.clear();
+                }
+            } finally {
+                writeLock.unlock();
+            }
+            throw e;
+        }
+        writeLock.lock();
+        try {
+            applyDurable();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Every logged change the log has made durable, in log order; called holding writeLock
+    private void applyDurable() {
+        long durable = wal.durable();
+        while (!changes.isEmpty() && changes.peekFirst().ticket() <= durable) {
+            Change change = changes.pollFirst();
+            StoredTask before = change.before();
+            StoredTask after = change.after();
+            long id = after != null ? after.id() : before.id();
+            if (after != null) {
+                tasks.put(id, after);
+                if (after.changeSeq() > maxChangeSeq) {
+                    maxChangeSeq = after.changeSeq();
+                }
+            } else {
+                tasks.remove(id);
+            }
+            updateIndexes(before, after);
+            if (unpublished.get(id) == after) {
+                unpublished.remove(id);
+            }
+        }
+    }
+
+    // The task as writers see it: the latest logged write, published or not; called holding writeLock
+    private StoredTask current(long id) {
+        return unpublished.containsKey(id) ? unpublished.get(id) : tasks.get(id);
+    }
+
+    private void updateIndexes(StoredTask before, StoredTask after) {
+        Set<Long> members = new LinkedHashSet<>();
+        for (StoredTask task : new StoredTask[]{before, after}) {
+            if (task != null) {
+                members.add(task.ownerId());
+                for (long collaboratorId : task.collaboratorIds()) {
+                    members.add(collaboratorId);
+                }
+            }
+        }
+        for (long userId : members) {
+            UserTaskIndex current = index(userId);
+            UserTaskIndex updated = current.update(userId, before, after);
+            if (updated.isEmpty()) {
+                indexes.remove(userId);
+            } else if (updated != current) {
+                indexes.put(userId, updated);
+            }
+        }
+    }
+
+    private UserTaskIndex index(long userId) {
+        UserTaskIndex index = indexes.get(userId);
+        return index != null ? index : UserTaskIndex.EMPTY;
+    }
+
+    private List<StoredTask> owned(Long userId, Predicate<StoredTask> filter) {
+        checkLoaded();
+        long user = userId;
+        long[] ids = index(user).owned;
+        List<StoredTask> found = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            StoredTask task = tasks.get(id);
+            if (task != null && task.isLiveOwnedBy(user) && filter.test(task)) {
+                found.add(task);
+            }
+        }
+        return found;
+    }
+
+    // Live owned tasks due within the epoch days, both included, by due date
+    private List<StoredTask> dueBetween(Long userId, long firstDay, long lastDay) {
+        checkLoaded();
+        List<StoredTask> found = new ArrayList<>();
+        if (firstDay > lastDay) {
+            return found;
+        }
+        long user = userId;
+        UserTaskIndex.SortedPairs byDue = index(user).byDue;
+        for (int i = byDue.lowerBound(firstDay); i < byDue.upperBound(lastDay); i++) {
+            StoredTask task = tasks.get(byDue.id(i));
+            if (task != null && task.isLiveOwnedBy(user) && task.dueDate() != null
+                    && task.dueDate().toEpochDay() >= firstDay && task.dueDate().toEpochDay() <= lastDay) {
+                found.add(task);
+            }
+        }
+        return found;
+    }
+
+    // LOWER(title) LIKE %keyword% OR LOWER(description) LIKE %keyword%
+    private static Predicate<StoredTask> matches(String keyword) {
+        if (keyword == null) {
+            return task -> false;
+        }
+        String lower = keyword.toLowerCase(Locale.ROOT);
+        return task -> (task.title() != null && task.title().toLowerCase(Locale.ROOT).contains(lower))
+                || (task.description() != null && task.description().toLowerCase(Locale.ROOT).contains(lower));
+    }
+
+    private Page<Task> page(List<StoredTask> found, Pageable pageable) {
+        List<StoredTask> sorted = new ArrayList<>(found);
+        sorted.sort(comparator(pageable.getSort()));
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(toTasks(sorted), pageable, sorted.size());
+        }
+        int from = (int) Math.min(pageable.getOffset(), sorted.size());
+        int to = (int) Math.min((long) from + pageable.getPageSize(), sorted.size());
+        return new PageImpl<>(toTasks(sorted.subList(from, to)), pageable, sorted.size());
+    }
+
+    // The requested order, ties by id; nulls sort low, as in H2
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparator<StoredTask> comparator(Sort sort) {
+        Comparator<StoredTask> comparator = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            Function<StoredTask, Comparable<?>> property = SORT_PROPERTIES.get(order.getProperty());
+            if (property == null) {
+                throw new PropertyReferenceException(order.getProperty(), TASK_TYPE, List.of());
+            }
+            Comparator<Comparable> values = order.isIgnoreCase()
+                    ? (Comparator) String.CASE_INSENSITIVE_ORDER : Comparator.naturalOrder();
+            Comparator<StoredTask> byProperty = Comparator.comparing(task -> (Comparable) property.apply(task),
+                    order.getNullHandling() == Sort.NullHandling.NULLS_LAST ? Comparator.nullsLast(values) : Comparator.nullsFirst(values));
+            comparator = comparator.thenComparing(order.isAscending() ? byProperty : byProperty.reversed());
+        }
+        return comparator.thenComparingLong(StoredTask::id);
+    }
+
+    private List<Task> toTasks(List<StoredTask> found) {
+        List<Task> result = new ArrayList<>(found.size());
+        for (StoredTask task : found) {
+            result.add(toTask(task));
+        }
+        return result;
+    }
+
+    private Task toTask(StoredTask task) {
+        return task.toTask(this::user);
+    }
+
+    // A copy of the user for a task handed out; users not seen yet are read once from the database
+    private User user(long id) {
+        User user = users.get(id);
+        if (user == null) {
+            user = userRepo.findById(id).orElse(null);
+            if (user == null) {
+                return null;
+            }
+            writeLock.lock();
+            try {
+                users.put(id, copy(user));
+            } finally {
+                writeLock.unlock();
+            }
+        }
+        return copy(user);
+    }
+
+    private void rememberUsers(Task task) {
+        if (task.getUser() != null && task.getUser().getId() != null) {
+            users.put(task.getUser().getId(), copy(task.getUser()));
+        }
+        if (task.getCollaborators() != null) {
+            for (User collaborator : task.getCollaborators()) {
+                if (collaborator != null && collaborator.getId() != null) {
+                    users.put(collaborator.getId(), copy(collaborator));
+                }
+            }
+        }
+    }
+
+    // Owners and collaborators of the loaded tasks not already known from the tasks table
+    private void loadUsers(List<StoredTask> loaded) {
+        Set<Long> missing = new LinkedHashSet<>();
+        for (StoredTask task : loaded) {
+            missing.add(task.ownerId());
+            for (long collaboratorId : task.collaboratorIds()) {
+                missing.add(collaboratorId);
+            }
+        }
+        missing.removeIf(id -> users.get(id) != null);
+        for (User user : userRepo.findAllById(missing)) {
+            users.put(user.getId(), copy(user));
+        }
+    }
+
+    private void buildIndexes(List<StoredTask> loaded) {
+        Map<Long, UserTaskIndex.Builder> builders = new HashMap<>();
+        long highestId = 0;
+        long highestChangeSeq = 0;
+        for (StoredTask task : loaded) {
+            builders.computeIfAbsent(task.ownerId(), id -> new UserTaskIndex.Builder()).add(task.ownerId(), task);
+            for (long collaboratorId : task.collaboratorIds()) {
+                if (collaboratorId != task.ownerId()) {
+                    builders.computeIfAbsent(collaboratorId, id -> new UserTaskIndex.Builder()).add(collaboratorId, task);
+                }
+            }
+            highestId = Math.max(highestId, task.id());
+            highestChangeSeq = Math.max(highestChangeSeq, task.changeSeq());
+        }
+        builders.forEach((userId, builder) -> indexes.put(userId, builder.build()));
+        nextId = highestId + 1;
+        maxChangeSeq = highestChangeSeq;
+    }
+
+    private List<StoredTask> allTasks() {
+        List<StoredTask> all = new ArrayList<>(tasks.size());
+        tasks.forEachValue(all::add);
+        return all;
+    }
+
+    // Every task as of one moment, for a log checkpoint: writers pause while the durable changes are
+    // published and the references collected
+    private Collection<StoredTask> snapshot() {
+        writeLock.lock();
+        try {
+            applyDurable();
+            return allTasks();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void checkLoaded() {
+        if (wal == null) {
+            throw new IllegalStateException("The task store is still loading");
+        }
+    }
+
+    private static User copy(User user) {
+        return new User(user.getId(), user.getUsername(), user.getEmail(), user.getPassword(), user.getRole(),
+                copy(user.getCreatedAt()), copy(user.getUpdatedAt()), user.isActive());
+    }
+
+    // Nanoseconds included: collaborators are removed from a task by equality with the user read from the database
+    private static Timestamp copy(Timestamp timestamp) {
+        if (timestamp == null) {
+            return null;
+        }
+        Timestamp copy = new Timestamp(timestamp.getTime());
+        copy.setNanos(timestamp.getNanos());
+        return copy;
+    }
+}
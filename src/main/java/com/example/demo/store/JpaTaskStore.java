@@ -0,0 +1,124 @@
+package com.example.demo.store;
+
+import com.example.demo.constants.Priority;
+import com.example.demo.constants.Status;
+import com.example.demo.entity.Task;
+import com.example.demo.repo.TaskRepo;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Tasks in the database: every call is a TaskRepo query (the sharded one when tasks are sharded), run in
+ * the caller's transaction
+ */
+@Component
+@ConditionalOnProperty(name = "tasks.store", havingValue = "jpa", matchIfMissing = true)
+public class JpaTaskStore implements TaskStore {
+
+    private final TaskRepo taskRepo;
+
+    public JpaTaskStore(TaskRepo taskRepo) {
+        this.taskRepo = taskRepo;
+    }
+
+    @Override
+    public Optional<Task> findById(Long id) {
+        return taskRepo.findById(id);
+    }
+
+    @Override
+    public Optional<Task> findLive(Long id) {
+        return taskRepo.findByIdAndDeletedFalse(id);
+    }
+
+    @Override
+    public List<Task> findAllById(Collection<Long> ids) {
+        return taskRepo.findAllById(ids);
+    }
+
+    @Override
+    public List<Task> findOwned(Long userId) {
+        return taskRepo.findByUserIdAndDeletedFalse(userId);
+    }
+
+    @Override
+    public Page<Task> findOwned(Long userId, Pageable pageable) {
+        return taskRepo.findByUserIdAndDeletedFalse(userId, pageable);
+    }
+
+    @Override
+    public List<Task> findSharedWith(Long userId) {
+        return taskRepo.findSharedWithUser(userId);
+    }
+
+    @Override
+    public List<Task> findOwnedDueOn(Long userId, LocalDate dueDate) {
+        return taskRepo.findByUserIdAndDueDateAndDeletedFalse(userId, dueDate);
+    }
+
+    @Override
+    public List<Task> findOwnedDueBetween(Long userId, LocalDate startDate, LocalDate endDate) {
+        return taskRepo.findByUserIdAndDueDateBetweenAndDeletedFalse(userId, startDate, endDate);
+    }
+
+    @Override
+    public List<Task> findOwnedDueBefore(Long userId, LocalDate date) {
+        return taskRepo.findByUserIdAndDueDateBeforeAndDeletedFalse(userId, date);
+    }
+
+    @Override
+    public List<Task> findOwnedDueAfter(Long userId, LocalDate date) {
+        return taskRepo.findByUserIdAndDueDateAfterAndDeletedFalse(userId, date);
+    }
+
+    @Override
+    public List<Task> findOwnedByPriority(Long userId, Priority priority) {
+        return taskRepo.findByUserIdAndPriorityAndDeletedFalse(userId, priority);
+    }
+
+    @Override
+    public List<Task> search(Long userId, String keyword) {
+        return taskRepo.findByUserIdAndKeywordInTitleOrDescription(userId, keyword);
+    }
+
+    @Override
+    public Page<Task> search(Long userId, String keyword, Pageable pageable) {
+        return taskRepo.findByUserIdAndKeywordInTitleOrDescription(userId, keyword, pageable);
+    }
+
+    @Override
+    public Page<Task> findFiltered(Long userId, Status status, String category, LocalDate dueDate, Pageable pageable) {
+        return taskRepo.findTasksWithFilters(userId, status, category, dueDate, pageable);
+    }
+
+    @Override
+    public List<Task> findChangedForUser(Long userId, long since, long until, Pageable pageable) {
+        return taskRepo.findChangedForUser(userId, since, until, pageable);
+    }
+
+    @Override
+    public long maxChangeSeq() {
+        return taskRepo.findMaxChangeSeq();
+    }
+
+    // The category is stored as its number in the owner's dictionary; flushed right away, so a lost
+    // optimistic race fails here
+    @Override
+    public Task save(Task task) {
+        task.setCategoryId(taskRepo.categoryId(task.getUser().getId(), task.getCategory()));
+        return taskRepo.saveAndFlush(task);
+    }
+
+    @Override
+    public int patch(Collection<Long> ids, Map<String, Object> values, long changeSeq, Long expectedVersion) {
+        return taskRepo.patch(ids, values, changeSeq, expectedVersion);
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.demo.store;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Hash map from positive long keys (ids) to values, for one writer at a time and any number of lock-free
+ * readers. Open addressing with linear probing over a primitive key array, so lookups neither box keys nor
+ * allocate. A slot keeps its key once taken and removal only clears the value, so a reader that finds its
+ * key has found the right slot; a resize publishes a complete new table and drops the cleared slots.
+ * Writers must be serialized by the caller.
+ */
+final class LongKeyMap<V> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private static final class Table<V> {
+        final AtomicLongArray keys;
+        final AtomicReferenceArray<V> values;
+        final int mask;
+
+        Table(int capacity) {
+            keys = new AtomicLongArray(capacity);
+            values = new AtomicReferenceArray<>(capacity);
+            mask = capacity - 1;
+        }
+    }
+
+    private volatile Table<V> table;
+    private volatile int size;
+    private int used; // slots with a key, cleared ones included
+
+    LongKeyMap(int expectedSize) {
+        table = new Table<>(capacityFor(expectedSize));
+    }
+
+    V get(long key) {
+        Table<V> current = table;
+        for (int slot = slot(key, current.mask); ; slot = (slot + 1) & current.mask) {
+            long found = current.keys.get(slot);
+            if (found == key) {
+                return current.values.get(slot);
+            }
+            if (found == 0) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Returns the previous value
+     */
+    V put(long key, V value) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("Keys must be positive: " + key);
+        }
+        if (value == null) {
+            return remove(key);
+        }
+        Table<V> current = table;
+        int slot = find(current, key);
+        if (current.keys.get(slot) == 0) {
+            if ((used + 1) * 2 > current.keys.length()) {
+                current = resize(current);
+                slot = find(current, key);
+            }
+            current.keys.set(slot, key);
+            used++;
+        }
+        V previous = current.values.getAndSet(slot, value);
+        if (previous == null) {
+            size++;
+        }
+        return previous;
+    }
+
+    /**
+     * Returns the removed value
+     */
+    V remove(long key) {
+        Table<V> current = table;
+        int slot = find(current, key);
+        if (current.keys.get(slot) == 0) {
+            return null;
+        }
+        V previous = current.values.getAndSet(slot, null);
+        if (previous != null) {
+            size--;
+        }
+        return previous;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Every value present in the table as it is when the call starts
+     */
+    void forEachValue(Consumer<? super V> action) {
+        Table<V> current = table;
+        for (int slot = 0; slot < current.values.length(); slot++) {
+            V value = current.values.get(slot);
+            if (value != null) {
+                action.accept(value);
+            }
+        }
+    }
+
+    // The key's slot, or the empty slot ending its probe sequence
+    private static int find(Table<?> table, long key) {
+        for (int slot = slot(key, table.mask); ; slot = (slot + 1) & table.mask) {
+            long found = table.keys.get(slot);
+            if (found == key || found == 0) {
+                return slot;
+            }
+        }
+    }
+
+    private Table<V> resize(Table<V> current) {
+        Table<V> resized = new Table<>(capacityFor(size + 1));
+        int moved = 0;
+        for (int slot = 0; slot < current.keys.length(); slot++) {
+            V value = current.values.get(slot);
+            if (value != null) {
+                int target = find(resized, current.keys.get(slot));
+                resized.keys.set(target, current.keys.get(slot));
+                resized.values.set(target, value);
+                moved++;
+            }
+        }
+        used = moved;
+        table = resized;
+        return resized;
+    }
+
+    // At most half full, so probe sequences stay short
+    private static int capacityFor(int entries) {
+        int capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, entries) * 4 - 1);
+        return Math.max(MIN_CAPACITY, capacity);
+    }
+
+    // Ids are sequential: mix the bits so neighbours do not form long runs of taken slots
+    private static int slot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.demo.store;
+
+import com.example.demo.constants.Priority;
+import com.example.demo.constants.Status;
+import com.example.demo.dto.TaskPatch;
+import com.example.demo.entity.Task;
+import com.example.demo.entity.User;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable task as {@link InMemoryTaskStore} holds it: owner and collaborators by id (sorted, for binary
+ * search), the rest as on the entity. Also the unit of the write-ahead log, in a fixed big-endian encoding
+ * with enums by name, so reordering enum constants keeps old logs readable.
+ */
+record StoredTask(long id, long ownerId, long[] collaboratorIds, String title, String description, LocalDate dueDate,
+                  Status status, Priority priority, String category, LocalDate createDate, LocalDate updateDate,
+                  LocalDate completionDate, boolean deleted, long changeSeq, long version) {
+
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final long[] NO_IDS = new long[0];
+
+    static StoredTask of(Task task, long id, long version) {
+        long[] collaborators = NO_IDS;
+        if (task.getCollaborators() != null) {
+            collaborators = task.getCollaborators().stream()
+                    .filter(user -> user != null && user.getId() != null)
+                    .mapToLong(User::getId).distinct().sorted().toArray();
+        }
+        return new StoredTask(id, task.getUser().getId(), collaborators, task.getTitle(), task.getDescription(),
+                task.getDueDate(), task.getStatus(), task.getPriority(), task.getCategory(), task.getCreateDate(),
+                task.getUpdateDate(), task.getCompletionDate(), Boolean.TRUE.equals(task.getDeleted()),
+                task.getChangeSeq() != null ? task.getChangeSeq() : 0L, version);
+    }
+
+    boolean hasCollaborator(long userId) {
+        return Arrays.binarySearch(collaboratorIds, userId) >= 0;
+    }
+
+    boolean isMember(long userId) {
+        return ownerId == userId || hasCollaborator(userId);
+    }
+
+    boolean isLiveOwnedBy(long userId) {
+        return !deleted && ownerId == userId;
+    }
+
+    /**
+     * The same values a {@code TaskRepo.patch} UPDATE writes
+     */
+    StoredTask patched(Map<String, Object> values, LocalDate today, long newChangeSeq) {
+        String title = this.title;
+        String description = this.description;
+        LocalDate dueDate = this.dueDate;
+        Status status = this.status;
+        Priority priority = this.priority;
+        String category = this.category;
+        LocalDate completionDate = this.completionDate;
+        for (Map.Entry<String, Object> value : values.entrySet()) {
+            switch (value.getKey()) {
+                case "title" -> title = (String) value.getValue();
+                case "description" -> description = (String) value.getValue();
+                case "dueDate" -> dueDate = (LocalDate) value.getValue();
+                case "status" -> status = (Status) value.getValue();
+                case "category" -> category = (String) value.getValue();
+                case "priority" -> priority = (Priority) value.getValue();
+                default -> throw new IllegalArgumentException("Field '" + value.getKey() + "' cannot be patched; patchable fields are " + TaskPatch.FIELDS);
+            }
+        }
+        if (values.get("status") == Status.COMPLETED) {
+            completionDate = today;
+        }
+        return new StoredTask(id, ownerId, collaboratorIds, title, description, dueDate, status, priority, category,
+                createDate, today, completionDate, deleted, newChangeSeq, version + 1);
+    }
+
+    /**
+     * A new Task entity with these values; owner and collaborators come from the given users
+     */
+    Task toTask(UserLookup users) {
+        Task task = new Task();
+        task.setId(id);
+        task.setTitle(title);
+        task.setDescription(description);
+        task.setDueDate(dueDate);
+        task.setStatus(status);
+        task.setCreateDate(createDate);
+        task.setUpdateDate(updateDate);
+        task.setDeleted(deleted);
+        task.setCompletionDate(completionDate);
+        task.setCategory(category);
+        task.setPriority(priority);
+        task.setChangeSeq(changeSeq);
+        task.setVersion(version);
+        task.setUser(users.user(ownerId));
+        Set<User> collaborators = new HashSet<>();
+        for (long collaboratorId : collaboratorIds) {
+            User collaborator = users.user(collaboratorId);
+            if (collaborator != null) {
+                collaborators.add(collaborator);
+            }
+        }
+        task.setCollaborators(collaborators);
+        return task;
+    }
+
+    interface UserLookup {
+        User user(long id);
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeLong(id);
+        out.writeLong(ownerId);
+        out.writeLong(version);
+        out.writeLong(changeSeq);
+        out.writeBoolean(deleted);
+        writeString(out, title);
+        writeString(out, description);
+        writeDate(out, dueDate);
+        writeString(out, status != null ? status.name() : null);
+        writeString(out, priority != null ? priority.name() : null);
+        writeString(out, category);
+        writeDate(out, createDate);
+        writeDate(out, updateDate);
+        writeDate(out, completionDate);
+        out.writeInt(collaboratorIds.length);
+        for (long collaboratorId : collaboratorIds) {
+            out.writeLong(collaboratorId);
+        }
+    }
+
+    static StoredTask read(DataInput in) throws IOException {
+        long id = in.readLong();
+        long ownerId = in.readLong();
+        long version = in.readLong();
+        long changeSeq = in.readLong();
+        boolean deleted = in.readBoolean();
+        String title = readString(in);
+        String description = readString(in);
+        LocalDate dueDate = readDate(in);
+        String status = readString(in);
+        String priority = readString(in);
+        String category = readString(in);
+        LocalDate createDate = readDate(in);
+        LocalDate updateDate = readDate(in);
+        LocalDate completionDate = readDate(in);
+        long[] collaboratorIds = new long[in.readInt()];
+        for (int i = 0; i < collaboratorIds.length; i++) {
+            collaboratorIds[i] = in.readLong();
+        }
+        return new StoredTask(id, ownerId, collaboratorIds, title, description, dueDate,
+                status != null ? Status.valueOf(status) : null, priority != null ? Priority.valueOf(priority) : null,
+                category, createDate, updateDate, completionDate, deleted, changeSeq, version);
+    }
+
+    // Length-prefixed UTF-8, -1 for null
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDate(DataOutput out, LocalDate date) throws IOException {
+        out.writeLong(date != null ? date.toEpochDay() : NO_DATE);
+    }
+
+    private static LocalDate readDate(DataInput in) throws IOException {
+        long epochDay = in.readLong();
+        return epochDay != NO_DATE ? LocalDate.ofEpochDay(epochDay) : null;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.demo.store;
+
+import com.example.demo.constants.Priority;
+import com.example.demo.constants.Status;
+import com.example.demo.entity.Task;
+import com.example.demo.entity.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Task storage underneath TaskServiceImpl, the task cache and the change sequence, chosen with
+ * {@code tasks.store}: {@code jpa} ({@link JpaTaskStore}, the default) keeps tasks in the database through
+ * TaskRepo, {@code memory} ({@link InMemoryTaskStore}) in the heap behind a write-ahead log. Users and
+ * revocations stay in the database either way.
+ * <p>
+ * Queries by owner only return the owner's non-deleted tasks. Returned tasks carry their owner and
+ * collaborators and may be modified by the caller; changes reach the store through {@link #save} or
+ * {@link #patch} only.
+ */
+public interface TaskStore {
+
+    /**
+     * The task, deleted or not
+     */
+    Optional<Task> findById(Long id);
+
+    /**
+     * The non-deleted task with its collaborators, also outside a transaction (task cache loads)
+     */
+    Optional<Task> findLive(Long id);
+
+    /**
+     * The tasks found among the ids, deleted or not, in no particular order
+     */
+    List<Task> findAllById(Collection<Long> ids);
+
+    List<Task> findOwned(Long userId);
+
+    Page<Task> findOwned(Long userId, Pageable pageable);
+
+    /**
+     * Tasks of other owners the user collaborates on
+     */
+    List<Task> findSharedWith(Long userId);
+
+    List<Task> findOwnedDueOn(Long userId, LocalDate dueDate);
+
+    /**
+     * Due between the two dates, both included
+     */
+    List<Task> findOwnedDueBetween(Long userId, LocalDate startDate, LocalDate endDate);
+
+    List<Task> findOwnedDueBefore(Long userId, LocalDate date);
+
+    List<Task> findOwnedDueAfter(Long userId, LocalDate date);
+
+    List<Task> findOwnedByPriority(Long userId, Priority priority);
+
+    /**
+     * Case-insensitive keyword match in title or description
+     */
+    List<Task> search(Long userId, String keyword);
+
+    Page<Task> search(Long userId, String keyword, Pageable pageable);
+
+    /**
+     * Owned tasks matching every given filter; a null filter matches everything
+     */
+    Page<Task> findFiltered(Long userId, Status status, String category, LocalDate dueDate, Pageable pageable);
+
+    /**
+     * Tasks the user owns or collaborates on, deleted ones included, stamped after since and up to until,
+     * in change sequence order
+     */
+    List<Task> findChangedForUser(Long userId, long since, long until, Pageable pageable);
+
+    /**
+     * The highest change sequence stored, 0 without tasks
+     */
+    long maxChangeSeq();
+
+    /**
+     * Insert a task without id, or write a loaded one back. Fails with an optimistic locking failure when
+     * the task was written since it was loaded. Returns the stored task, with its id and new version.
+     */
+    Task save(Task task);
+
+    /**
+     * Apply the same field values to all given tasks (plus update date, completion date when completing,
+     * change sequence and version), only where the version still matches when one is expected. Returns the
+     * number of tasks updated.
+     */
+    int patch(Collection<Long> ids, Map<String, Object> values, long changeSeq, Long expectedVersion);
+
+    /**
+     * A user's profile changed; stores that keep their own copy of the user refresh it
+     */
+    default void userChanged(User user) {
+    }
+}
@@ -0,0 +1,370 @@
+package com.example.demo.store;
+
+import com.example.demo.util.CustomLogger;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead log of {@link InMemoryTaskStore} with group commit. Writers queue the tasks they changed
+ * (in the order they changed them, under the store's write lock) and wait; one flusher thread writes
+ * everything queued since its last write in one go and syncs the file once for all of it, so under load
+ * many writes share each fsync. When the log outgrows {@code checkpointBytes} the flusher rewrites it as one
+ * image per task, taken from the store, and carries on appending to the new file.
+ * <p>
+ * Layout (big-endian): header {@code magic, format version}; then frames of {@code payload length, CRC32
+ * of the payload, payload}, the payload being a record type byte and a {@link StoredTask} (task written)
+ * or an id (task purged). Records are whole images, so replaying them in order leaves the last state of
+ * every task, however often a checkpoint repeats them. Replay stops at the first frame that is cut short or
+ * fails its checksum, the tail a crash in mid-write leaves behind.
+ * <p>
+ * Batches are timed as {@code tasks.store.wal.sync} (write and fsync), their record counts recorded as
+ * {@code tasks.store.wal.batch}, checkpoints counted as {@code tasks.store.wal.checkpoints}.
+ */
+final class TaskWriteAheadLog implements AutoCloseable {
+
+    private static final CustomLogger logger = CustomLogger.getLogger(TaskWriteAheadLog.class);
+
+    private static final long MAGIC = 0x544F444F5741474CL; // "TODOWAGL"
+    private static final int FORMAT_VERSION = 1;
+    private static final int MAX_PAYLOAD_BYTES = 16 << 20;
+    private static final byte TASK = 1;
+    private static final byte PURGE = 2;
+
+    /**
+     * Receives the records of a log in order
+     */
+    interface Replay {
+        void task(StoredTask task);
+
+        void purge(long id);
+    }
+
+    /**
+     * Opens the log file to append to, after each checkpoint
+     */
+    interface Channels {
+        Channels APPEND = path -> FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+
+        FileChannel open(Path path) throws IOException;
+    }
+
+    private record Purge(long id) {
+    }
+
+    private final Path path;
+    private final boolean fsync;
+    private final long checkpointBytes;
+    private final Supplier<Collection<StoredTask>> currentTasks;
+    private final Channels channels;
+    private final Timer syncs;
+    private final DistributionSummary batches;
+    private final Counter checkpoints;
+    private final Thread flusher;
+
+    private final Object monitor = new Object();
+    private List<Object> pending = new ArrayList<>(); // StoredTask or Purge, guarded by monitor
+    private long appended;
+    private long written;
+    private Exception failure;
+    private boolean closed;
+
+    private FileChannel channel; // flusher thread only, once started
+
+    /**
+     * Start a new log at the path holding the given tasks (a checkpoint replacing whatever was there), then
+     * the flusher. currentTasks supplies a consistent copy of the store's tasks for later checkpoints.
+     */
+    TaskWriteAheadLog(Path path, boolean fsync, long checkpointBytes, Collection<StoredTask> initialTasks,
+                      Supplier<Collection<StoredTask>> currentTasks, Channels channels, MeterRegistry meterRegistry)
+            throws IOException {
+        this.path = path;
+        this.fsync = fsync;
+        this.checkpointBytes = checkpointBytes;
+        this.currentTasks = currentTasks;
+        this.channels = channels;
+        this.syncs = Timer.builder("tasks.store.wal.sync").description("Task log batch writes, fsync included")
+                .register(meterRegistry);
+        this.batches = DistributionSummary.builder("tasks.store.wal.batch").description("Task log records per batch")
+                .register(meterRegistry);
+        this.checkpoints = Counter.builder("tasks.store.wal.checkpoints").description("Task log rewrites")
+                .register(meterRegistry);
+        checkpoint(initialTasks);
+        this.flusher = new Thread(this::flush, "task-log-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Feed the records of the log at the path to replay, in order. Returns the number of records, -1 when
+     * there is no log (a missing or empty file); fails on a file that is not a task log.
+     */
+    static long replay(Path path, Replay replay) throws IOException {
+        InputStream file;
+        try {
+            file = Files.newInputStream(path);
+        } catch (NoSuchFileException e) {
+            return -1;
+        }
+        long records = 0;
+        long position = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(file, 1 << 16))) {
+            long magic;
+            try {
+                magic = in.readLong();
+            } catch (EOFException e) {
+                return -1;
+            }
+            if (magic != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException(path + " is not a version " + FORMAT_VERSION + " task log");
+            }
+            position = 12;
+            CRC32 crc = new CRC32();
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return records;
+                }
+                try {
+                    long checksum = in.readInt() & 0xFFFFFFFFL;
+                    if (length < 1 || length > MAX_PAYLOAD_BYTES) {
+                        throw new IOException("frame length " + length);
+                    }
+                    byte[] payload = new byte[length];
+                    in.readFully(payload);
+                    crc.reset();
+                    crc.update(payload);
+                    if (crc.getValue() != checksum) {
+                        throw new IOException("checksum mismatch");
+                    }
+                    apply(payload, replay);
+                } catch (EOFException e) {
+                    logger.warn("Task log {} ends in a partial record at byte {}, ignoring it", path, position);
+                    return records;
+                } catch (IOException e) {
+                    logger.warn("Task log {} has an unreadable record at byte {} ({}), ignoring the rest",
+                            path, position, e.getMessage());
+                    return records;
+                }
+                position += 8 + length;
+                records++;
+            }
+        }
+    }
+
+    /**
+     * Queue a changed task; returns the ticket to wait for. Called in the order the changes were made.
+     */
+    long append(StoredTask task) {
+        return enqueue(task);
+    }
+
+    long appendPurge(long id) {
+        return enqueue(new Purge(id));
+    }
+
+    /**
+     * Wait until the record with the ticket and all before it are written (and synced, with fsync)
+     */
+    void awaitDurable(long ticket) {
+        synchronized (monitor) {
+            while (written < ticket) {
+                checkUsable();
+                try {
+                    monitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the task log", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * The ticket up to which records are written (and synced, with fsync)
+     */
+    long durable() {
+        synchronized (monitor) {
+            return written;
+        }
+    }
+
+    /**
+     * Whether writing failed, so no record queued after the durable ones will ever be written
+     */
+    boolean failed() {
+        synchronized (monitor) {
+            return failure != null;
+        }
+    }
+
+    /**
+     * Stop accepting records, write out what is queued and close the file
+     */
+    @Override
+    public void close() throws InterruptedException {
+        synchronized (monitor) {
+            closed = true;
+            monitor.notifyAll();
+        }
+        flusher.join(10_000);
+    }
+
+    private long enqueue(Object record) {
+        synchronized (monitor) {
+            checkUsable();
+            pending.add(record);
+            appended++;
+            monitor.notifyAll();
+            return appended;
+        }
+    }
+
+    private void checkUsable() {
+        if (failure != null) {
+            throw new IllegalStateException("The task log failed, no further writes are possible", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("The task log is closed");
+        }
+    }
+
+    private void flush() {
+        List<Object> batch = new ArrayList<>();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+        try {
+            while (true) {
+                long upTo;
+                synchronized (monitor) {
+                    while (pending.isEmpty() && !closed) {
+                        monitor.wait();
+                    }
+                    if (pending.isEmpty()) {
+                        break;
+                    }
+                    List<Object> swapped = pending;
+                    pending = batch;
+                    batch = swapped;
+                    upTo = appended;
+                }
+                long start = System.nanoTime();
+                bytes.reset();
+                DataOutputStream out = new DataOutputStream(bytes);
+                for (Object record : batch) {
+                    writeFrame(out, record);
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                if (fsync) {
+                    channel.force(false);
+                }
+                syncs.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                batches.record(batch.size());
+                batch.clear();
+                synchronized (monitor) {
+                    written = upTo;
+                    monitor.notifyAll();
+                }
+                if (channel.size() > checkpointBytes) {
+                    checkpoint(currentTasks.get());
+                }
+            }
+            channel.close();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Task log {} failed, rejecting further task writes: {}", path, e.getMessage(), e);
+            synchronized (monitor) {
+                failure = e;
+                monitor.notifyAll();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // A new file with one record per task, moved over the log; appends continue on it
+    private void checkpoint(Collection<StoredTask> tasks) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileOutputStream file = new FileOutputStream(temporary.toFile());
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+                out.writeLong(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                for (StoredTask task : tasks) {
+                    writeFrame(out, task);
+                }
+                out.flush();
+                file.getChannel().force(true);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        if (channel != null) {
+            channel.close();
+        }
+        channel = channels.open(path);
+        checkpoints.increment();
+        logger.info("Task log {} rewritten with {} tasks", path, tasks.size());
+    }
+
+    private static void writeFrame(DataOutputStream out, Object record) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(256);
+        DataOutputStream data = new DataOutputStream(payload);
+        if (record instanceof StoredTask task) {
+            data.writeByte(TASK);
+            task.write(data);
+        } else {
+            data.writeByte(PURGE);
+            data.writeLong(((Purge) record).id());
+        }
+        byte[] bytes = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        out.writeInt(bytes.length);
+        out.writeInt((int) crc.getValue());
+        out.write(bytes);
+    }
+
+    private static void apply(byte[] payload, Replay replay) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        if (type == TASK) {
+            replay.task(StoredTask.read(in));
+        } else if (type == PURGE) {
+            replay.purge(in.readLong());
+        } else {
+            throw new IOException("record type " + type);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.example.demo.store;
+
+import java.util.Arrays;
+
+/**
+ * One user's indexes in {@link InMemoryTaskStore}, immutable: a write builds a new one (copying the arrays
+ * it changes) and publishes it, so readers never lock. A user's tasks number in the hundreds, so copying
+ * an array on a write costs less than a tree would on every read.
+ * <ul>
+ * <li>{@code owned}, {@code shared}: ids of the live tasks the user owns, or collaborates on for another owner</li>
+ * <li>{@code byDue}, {@code byPriority}: the live owned tasks by (due date epoch day, id) and (priority, id);
+ * tasks without one are left out</li>
+ * <li>{@code changes}: every task the user owns or collaborates on, deleted ones included, by (change sequence, id)</li>
+ * </ul>
+ * Entries only say where to look: readers check the task itself, which may have been written since.
+ */
+final class UserTaskIndex {
+
+    static final long NONE = Long.MIN_VALUE;
+    static final UserTaskIndex EMPTY = new UserTaskIndex(new long[0], new long[0], SortedPairs.EMPTY,
+            SortedPairs.EMPTY, SortedPairs.EMPTY);
+
+    final long[] owned;
+    final long[] shared;
+    final SortedPairs byDue;
+    final SortedPairs byPriority;
+    final SortedPairs changes;
+
+    private UserTaskIndex(long[] owned, long[] shared, SortedPairs byDue, SortedPairs byPriority, SortedPairs changes) {
+        this.owned = owned;
+        this.shared = shared;
+        this.byDue = byDue;
+        this.byPriority = byPriority;
+        this.changes = changes;
+    }
+
+    /**
+     * The index after a task of this user changed from before to after; either may be null (inserted,
+     * purged). Returns this index when nothing the user's entries depend on changed.
+     */
+    UserTaskIndex update(long userId, StoredTask before, StoredTask after) {
+        long id = before != null ? before.id() : after.id();
+        long[] newOwned = updateIds(owned, id, owns(before, userId), owns(after, userId));
+        long[] newShared = updateIds(shared, id, shares(before, userId), shares(after, userId));
+        SortedPairs newByDue = byDue.update(id, dueKey(before, userId), dueKey(after, userId));
+        SortedPairs newByPriority = byPriority.update(id, priorityKey(before, userId), priorityKey(after, userId));
+        SortedPairs newChanges = changes.update(id, changeKey(before, userId), changeKey(after, userId));
+        if (newOwned == owned && newShared == shared && newByDue == byDue && newByPriority == byPriority
+                && newChanges == changes) {
+            return this;
+        }
+        return new UserTaskIndex(newOwned, newShared, newByDue, newByPriority, newChanges);
+    }
+
+    boolean isEmpty() {
+        return changes.size() == 0;
+    }
+
+    private static boolean owns(StoredTask task, long userId) {
+        return task != null && task.isLiveOwnedBy(userId);
+    }
+
+    private static boolean shares(StoredTask task, long userId) {
+        return task != null && !task.deleted() && task.ownerId() != userId && task.hasCollaborator(userId);
+    }
+
+    private static long dueKey(StoredTask task, long userId) {
+        return owns(task, userId) && task.dueDate() != null ? task.dueDate().toEpochDay() : NONE;
+    }
+
+    private static long priorityKey(StoredTask task, long userId) {
+        return owns(task, userId) && task.priority() != null ? task.priority().code() : NONE;
+    }
+
+    private static long changeKey(StoredTask task, long userId) {
+        return task != null && task.isMember(userId) ? task.changeSeq() : NONE;
+    }
+
+    private static long[] updateIds(long[] ids, long id, boolean was, boolean is) {
+        if (was == is) {
+            return ids;
+        }
+        int position = Arrays.binarySearch(ids, id);
+        if (is) {
+            if (position >= 0) {
+                return ids;
+            }
+            int insert = -position - 1;
+            long[] updated = new long[ids.length + 1];
+            System.arraycopy(ids, 0, updated, 0, insert);
+            updated[insert] = id;
+            System.arraycopy(ids, insert, updated, insert + 1, ids.length - insert);
+            return updated;
+        }
+        if (position < 0) {
+            return ids;
+        }
+        long[] updated = new long[ids.length - 1];
+        System.arraycopy(ids, 0, updated, 0, position);
+        System.arraycopy(ids, position + 1, updated, position, ids.length - position - 1);
+        return updated;
+    }
+
+    /**
+     * Bulk construction at load time: entries are collected unsorted and sorted once
+     */
+    static final class Builder {
+
+        private final LongList owned = new LongList();
+        private final LongList shared = new LongList();
+        private final LongList dueKeys = new LongList();
+        private final LongList dueIds = new LongList();
+        private final LongList priorityKeys = new LongList();
+        private final LongList priorityIds = new LongList();
+        private final LongList changeKeys = new LongList();
+        private final LongList changeIds = new LongList();
+
+        void add(long userId, StoredTask task) {
+            if (owns(task, userId)) {
+                owned.add(task.id());
+            }
+            if (shares(task, userId)) {
+                shared.add(task.id());
+            }
+            add(dueKeys, dueIds, dueKey(task, userId), task.id());
+            add(priorityKeys, priorityIds, priorityKey(task, userId), task.id());
+            add(changeKeys, changeIds, changeKey(task, userId), task.id());
+        }
+
+        UserTaskIndex build() {
+            long[] ownedIds = owned.toArray();
+            Arrays.sort(ownedIds);
+            long[] sharedIds = shared.toArray();
+            Arrays.sort(sharedIds);
+            return new UserTaskIndex(ownedIds, sharedIds, SortedPairs.sorted(dueKeys.toArray(), dueIds.toArray()),
+                    SortedPairs.sorted(priorityKeys.toArray(), priorityIds.toArray()),
+                    SortedPairs.sorted(changeKeys.toArray(), changeIds.toArray()));
+        }
+
+        private static void add(LongList keys, LongList ids, long key, long id) {
+            if (key != NONE) {
+                keys.add(key);
+                ids.add(id);
+            }
+        }
+    }
+
+    /**
+     * (key, id) pairs sorted by key, then id, in two parallel arrays
+     */
+    static final class SortedPairs {
+
+        static final SortedPairs EMPTY = new SortedPairs(new long[0], new long[0]);
+
+        private final long[] keys;
+        private final long[] ids;
+
+        private SortedPairs(long[] keys, long[] ids) {
+            this.keys = keys;
+            this.ids = ids;
+        }
+
+        static SortedPairs sorted(long[] keys, long[] ids) {
+            Integer[] order = new Integer[keys.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> keys[a] != keys[b] ? Long.compare(keys[a], keys[b]) : Long.compare(ids[a], ids[b]));
+            long[] sortedKeys = new long[keys.length];
+            long[] sortedIds = new long[ids.length];
+            for (int i = 0; i < order.length; i++) {
+                sortedKeys[i] = keys[order[i]];
+                sortedIds[i] = ids[order[i]];
+            }
+            return new SortedPairs(sortedKeys, sortedIds);
+        }
+
+        int size() {
+            return keys.length;
+        }
+
+        long id(int position) {
+            return ids[position];
+        }
+
+        /**
+         * The first position whose key is at least the given one
+         */
+        int lowerBound(long key) {
+            return search(key, Long.MIN_VALUE);
+        }
+
+        /**
+         * The first position whose key is above the given one
+         */
+        int upperBound(long key) {
+            return key == Long.MAX_VALUE ? keys.length : search(key + 1, Long.MIN_VALUE);
+        }
+
+        SortedPairs update(long id, long oldKey, long newKey) {
+            if (oldKey == newKey) {
+                return this;
+            }
+            SortedPairs updated = this;
+            if (oldKey != NONE) {
+                updated = updated.remove(oldKey, id);
+            }
+            if (newKey != NONE) {
+                updated = updated.insert(newKey, id);
+            }
+            return updated;
+        }
+
+        private SortedPairs insert(long key, long id) {
+            int position = search(key, id);
+            if (position < keys.length && keys[position] == key && ids[position] == id) {
+                return this;
+            }
+            long[] newKeys = new long[keys.length + 1];
+            long[] newIds = new long[ids.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, position);
+            System.arraycopy(ids, 0, newIds, 0, position);
+            newKeys[position] = key;
+            newIds[position] = id;
+            System.arraycopy(keys, position, newKeys, position + 1, keys.length - position);
+            System.arraycopy(ids, position, newIds, position + 1, ids.length - position);
+            return new SortedPairs(newKeys, newIds);
+        }
+
+        private SortedPairs remove(long key, long id) {
+            int position = search(key, id);
+            if (position == keys.length || keys[position] != key || ids[position] != id) {
+                return this;
+            }
+            long[] newKeys = new long[keys.length - 1];
+            long[] newIds = new long[ids.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, position);
+            System.arraycopy(ids, 0, newIds, 0, position);
+            System.arraycopy(keys, position + 1, newKeys, position, keys.length - position - 1);
+            System.arraycopy(ids, position + 1, newIds, position, ids.length - position - 1);
+            return new SortedPairs(newKeys, newIds);
+        }
+
+        // The first position not below (key, id)
+        private int search(long key, long id) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (keys[middle] < key || (keys[middle] == key && ids[middle] < id)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    private static final class LongList {
+
+        private long[] values = new long[8];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
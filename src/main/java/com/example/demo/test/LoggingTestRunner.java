@@ -2,13 +2,16 @@ package com.example.demo.test;
 
 import com.example.demo.util.CustomLogger;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 /**
  * Test component to demonstrate logging functionality.
  * This will run on application startup to show various logging features.
+ * Disabled with startup.diagnostics.enabled=false (as in the fast-start profile).
  */
 @Component
+@ConditionalOnProperty(name = "startup.diagnostics.enabled", havingValue = "true", matchIfMissing = true)
 public class LoggingTestRunner implements CommandLineRunner {
 
     private static final CustomLogger logger = CustomLogger.getLogger(LoggingTestRunner.class);
@@ -1,6 +1,8 @@
 package com.example.demo.util;
 
 import com.example.demo.config.JwtProperties;
+import com.example.demo.profiling.JwtVerificationEvent;
+import com.example.demo.service.AuthenticatedUser;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,6 +22,9 @@ public class JwtUtil {
 
     private static final CustomLogger logger = CustomLogger.getLogger(JwtUtil.class);
 
+    // Numeric user id of the subject, so requests can be served without resolving the username
+    public static final String USER_ID_CLAIM = "uid";
+
     @Autowired
     private JwtProperties jwtProperties;
 
@@ -57,6 +62,7 @@ public class JwtUtil {
         Map<String, Object> claims = new HashMap<>();
         claims.put("roles", roles);
         claims.put("tokenType", "ACCESS");
+        putUserId(claims, authentication);
 
         String token = Jwts.builder()
                 .subject(username)
@@ -86,6 +92,7 @@ public class JwtUtil {
 
         Map<String, Object> claims = new HashMap<>();
         claims.put("tokenType", "REFRESH");
+        putUserId(claims, authentication);
 
         String refreshToken = Jwts.builder()
                 .subject(username)
@@ -126,6 +133,9 @@ public class JwtUtil {
 
             Map<String, Object> newClaims = new HashMap<>();
             newClaims.put("tokenType", "ACCESS");
+            if (claims.get(USER_ID_CLAIM) != null) {
+                newClaims.put(USER_ID_CLAIM, claims.get(USER_ID_CLAIM));
+            }
 
             String newToken = Jwts.builder()
                     .subject(username)
@@ -209,6 +219,9 @@ public class JwtUtil {
      * Validate JWT token
      */
     public boolean validateToken(String token) {
+        JwtVerificationEvent event = new JwtVerificationEvent();
+        event.tokenType = "ACCESS";
+        event.begin();
         try {
             Claims claims = Jwts.parser()
                     .verifyWith(getSigningKey())
@@ -220,28 +233,39 @@ public class JwtUtil {
             if (!"ACCESS".equals(tokenType)) {
                 logger.logSecurityEvent("JWT_INVALID_TOKEN_TYPE", claims.getSubject(), 
                         "Invalid token type for access: " + tokenType, "MEDIUM");
+                event.outcome = "WRONG_TOKEN_TYPE";
                 return false;
             }
 
+            event.valid = true;
+            event.outcome = "VALID";
             return true;
         } catch (SecurityException e) {
+            event.outcome = "BAD_SIGNATURE";
             logger.logSecurityEvent("JWT_SECURITY_EXCEPTION", "unknown", 
                     "JWT signature does not match locally computed signature", "HIGH");
         } catch (MalformedJwtException e) {
+            event.outcome = "MALFORMED";
             logger.logSecurityEvent("JWT_MALFORMED", "unknown", 
                     "Invalid JWT token format", "MEDIUM");
         } catch (ExpiredJwtException e) {
+            event.outcome = "EXPIRED";
             logger.logSecurityEvent("JWT_EXPIRED", e.getClaims().getSubject(), 
                     "JWT token has expired", "LOW");
         } catch (UnsupportedJwtException e) {
+            event.outcome = "UNSUPPORTED";
             logger.logSecurityEvent("JWT_UNSUPPORTED", "unknown", 
                     "JWT token is unsupported", "MEDIUM");
         } catch (IllegalArgumentException e) {
+            event.outcome = "EMPTY";
             logger.logSecurityEvent("JWT_ILLEGAL_ARGUMENT", "unknown", 
                     "JWT claims string is empty", "MEDIUM");
         } catch (JwtException e) {
+            event.outcome = "INVALID";
             logger.logSecurityEvent("JWT_GENERAL_ERROR", "unknown", 
                     "JWT validation error: " + e.getMessage(), "MEDIUM");
+        } finally {
+            event.commit();
         }
         return false;
     }
@@ -252,6 +276,9 @@ public class JwtUtil {
      * @return true if valid refresh token, false otherwise
      */
     public boolean validateRefreshToken(String token) {
+        JwtVerificationEvent event = new JwtVerificationEvent();
+        event.tokenType = "REFRESH";
+        event.begin();
         try {
             Claims claims = Jwts.parser()
                     .verifyWith(getSigningKey())
@@ -263,28 +290,39 @@ public class JwtUtil {
             if (!"REFRESH".equals(tokenType)) {
                 logger.logSecurityEvent("JWT_INVALID_REFRESH_TOKEN_TYPE", claims.getSubject(), 
                         "Invalid token type for refresh: " + tokenType, "MEDIUM");
+                event.outcome = "WRONG_TOKEN_TYPE";
                 return false;
             }
 
+            event.valid = true;
+            event.outcome = "VALID";
             return true;
         } catch (SecurityException e) {
+            event.outcome = "BAD_SIGNATURE";
             logger.logSecurityEvent("JWT_REFRESH_SECURITY_EXCEPTION", "unknown", 
                     "JWT refresh token signature does not match", "HIGH");
         } catch (MalformedJwtException e) {
+            event.outcome = "MALFORMED";
             logger.logSecurityEvent("JWT_REFRESH_MALFORMED", "unknown", 
                     "Invalid JWT refresh token format", "MEDIUM");
         } catch (ExpiredJwtException e) {
+            event.outcome = "EXPIRED";
             logger.logSecurityEvent("JWT_REFRESH_EXPIRED", e.getClaims().getSubject(), 
                     "JWT refresh token has expired", "LOW");
         } catch (UnsupportedJwtException e) {
+            event.outcome = "UNSUPPORTED";
             logger.logSecurityEvent("JWT_REFRESH_UNSUPPORTED", "unknown", 
                     "JWT refresh token is unsupported", "MEDIUM");
         } catch (IllegalArgumentException e) {
+            event.outcome = "EMPTY";
             logger.logSecurityEvent("JWT_REFRESH_ILLEGAL_ARGUMENT", "unknown", 
                     "JWT refresh token claims string is empty", "MEDIUM");
         } catch (JwtException e) {
+            event.outcome = "INVALID";
             logger.logSecurityEvent("JWT_REFRESH_GENERAL_ERROR", "unknown", 
                     "JWT refresh token validation error: " + e.getMessage(), "MEDIUM");
+        } finally {
+            event.commit();
         }
         return false;
     }
@@ -313,6 +351,20 @@ public class JwtUtil {
         }
     }
 
+    /**
+     * User id carried in the uid claim, or null for tokens issued without one
+     */
+    public static Long getUserId(Claims claims) {
+        Object userId = claims.get(USER_ID_CLAIM);
+        return userId instanceof Number number ? number.longValue() : null;
+    }
+
+    private static void putUserId(Map<String, Object> claims, Authentication authentication) {
+        if (authentication.getPrincipal() instanceof AuthenticatedUser user && user.getId() != null) {
+            claims.put(USER_ID_CLAIM, user.getId());
+        }
+    }
+
     /**
      * Extract all claims from token
      */
@@ -345,6 +397,7 @@ public class JwtUtil {
         Map<String, Object> claims = new HashMap<>();
         claims.put("roles", roles);
         claims.put("tokenType", "ACCESS");
+        putUserId(claims, authentication);
 
         String token = Jwts.builder()
                 .subject(username)
@@ -0,0 +1,37 @@
+package com.example.demo.warmup;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * "warmup" health contributor, part of the readiness group: OUT_OF_SERVICE until the warm-up has
+ * finished, then UP with how it ended. A failed warm-up is UP as well; it must not keep the node out.
+ * Always present (UP, "DISABLED") so the readiness group stays valid with warmup.enabled=false.
+ */
+@Component
+public class WarmupHealthIndicator implements HealthIndicator {
+
+    private final ObjectProvider<WarmupRunner> warmupRunner;
+
+    public WarmupHealthIndicator(ObjectProvider<WarmupRunner> warmupRunner) {
+        this.warmupRunner = warmupRunner;
+    }
+
+    @Override
+    public Health health() {
+        WarmupRunner runner = warmupRunner.getIfAvailable();
+        if (runner == null) {
+            return Health.up().withDetail("state", "DISABLED").build();
+        }
+        WarmupRunner.State state = runner.getState();
+        Health.Builder health = state == WarmupRunner.State.PENDING || state == WarmupRunner.State.RUNNING
+                ? Health.outOfService() : Health.up();
+        return health.withDetail("state", state)
+                .withDetail("iterations", runner.getIterations())
+                .withDetail("medianIterationMs", Math.round(runner.getWindowMedianMs() * 10) / 10.0)
+                .withDetail("elapsedMs", runner.getElapsedMs())
+                .build();
+    }
+}
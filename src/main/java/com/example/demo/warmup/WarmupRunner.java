@@ -0,0 +1,316 @@
+package com.example.demo.warmup;
+
+import com.example.demo.config.JwtProperties;
+import com.example.demo.entity.User;
+import com.example.demo.repo.UserRepo;
+import com.example.demo.shard.ShardDirectory;
+import com.example.demo.shard.ShardRoutingDataSource;
+import com.example.demo.store.InMemoryTaskStore;
+import com.example.demo.util.CustomLogger;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Runs synthetic requests through the real HTTP stack (security filters, JWT, controllers, services,
+ * Hibernate, Jackson) as a scratch user before the application reports itself ready, so the JIT has
+ * compiled those paths before the load balancer routes traffic here. Readiness is held back because
+ * Spring Boot only publishes ACCEPTING_TRAFFIC once the ApplicationReadyEvent listeners have returned;
+ * {@link WarmupHealthIndicator} adds the progress to the readiness health group.
+ * <p>
+ * Stops after {@code warmup.max-iterations}, after {@code warmup.max-duration}, or once the median
+ * iteration time of the last window is within {@code warmup.convergence-threshold} of the window before
+ * (but not before {@code warmup.min-iterations}). The scratch user and its rows are removed afterwards.
+ */
+@Component
+@ConditionalOnProperty(name = "warmup.enabled", havingValue = "true")
+public class WarmupRunner {
+
+    private static final CustomLogger logger = CustomLogger.getLogger(WarmupRunner.class);
+
+    // Registration only accepts letters, digits and underscores, so no real user can match this prefix
+    static final String SCRATCH_USER_PREFIX = "warmup-scratch-";
+
+    private static final String MERGE_PATCH_JSON = "application/merge-patch+json";
+
+    public enum State { PENDING, RUNNING, CONVERGED, MAX_ITERATIONS, MAX_DURATION, SKIPPED, FAILED }
+
+    private final UserRepo userRepo;
+    private final PasswordEncoder passwordEncoder;
+    private final JwtProperties jwtProperties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<ShardDirectory> shardDirectory;
+    private final ObjectProvider<ShardRoutingDataSource> shardRouting;
+    private final ObjectProvider<InMemoryTaskStore> inMemoryTaskStore;
+    private final int minIterations;
+    private final int maxIterations;
+    private final int window;
+    private final double convergenceThreshold;
+    private final Duration maxDuration;
+
+    private volatile State state = State.PENDING;
+    private volatile int iterations;
+    private volatile double windowMedianMs;
+    private volatile long elapsedMs;
+
+    public WarmupRunner(UserRepo userRepo,
+                        PasswordEncoder passwordEncoder,
+                        JwtProperties jwtProperties,
+                        JdbcTemplate jdbcTemplate,
+                        TransactionTemplate transactionTemplate,
+                        ObjectMapper objectMapper,
+                        ObjectProvider<ShardDirectory> shardDirectory,
+                        ObjectProvider<ShardRoutingDataSource> shardRouting,
+                        ObjectProvider<InMemoryTaskStore> inMemoryTaskStore,
+                        @Value("${warmup.min-iterations:30}") int minIterations,
+                        @Value("${warmup.max-iterations:300}") int maxIterations,
+                        @Value("${warmup.window:10}") int window,
+                        @Value("${warmup.convergence-threshold:0.1}") double convergenceThreshold,
+                        @Value("${warmup.max-duration:PT60S}") Duration maxDuration) {
+        this.userRepo = userRepo;
+        this.passwordEncoder = passwordEncoder;
+        this.jwtProperties = jwtProperties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.shardDirectory = shardDirectory;
+        this.shardRouting = shardRouting;
+        this.inMemoryTaskStore = inMemoryTaskStore;
+        this.minIterations = minIterations;
+        this.maxIterations = maxIterations;
+        this.window = Math.max(1, window);
+        this.convergenceThreshold = convergenceThreshold;
+        this.maxDuration = maxDuration;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp(ApplicationReadyEvent event) {
+        if (!(event.getApplicationContext() instanceof WebServerApplicationContext context)) {
+            // Mock servlet environment (tests): there is no server to send requests to
+            state = State.SKIPPED;
+            return;
+        }
+        state = State.RUNNING;
+        long start = System.nanoTime();
+        try {
+            removeScratchUsers();
+            String password = UUID.randomUUID().toString();
+            String username = createScratchUser(password);
+            Client client = new Client("http://localhost:" + context.getWebServer().getPort());
+            state = run(client, username, password, start);
+            logger.info("Warm-up finished ({}) after {} iterations in {} ms, median iteration {} ms",
+                    state, iterations, elapsedMs, String.format("%.1f", windowMedianMs));
+        } catch (IOException | RuntimeException e) {
+            state = State.FAILED;
+            logger.warn("Warm-up failed after {} iterations, reporting ready anyway: {}", iterations, e.getMessage());
+        } catch (InterruptedException e) {
+            state = State.FAILED;
+            Thread.currentThread().interrupt();
+        } finally {
+            elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            try {
+                removeScratchUsers();
+            } catch (RuntimeException e) {
+                logger.warn("Could not remove the warm-up scratch user: {}", e.getMessage());
+            }
+        }
+    }
+
+    private State run(Client client, String username, String password, long start)
+            throws IOException, InterruptedException {
+        long deadline = start + maxDuration.toNanos();
+        long[] times = new long[window];
+        double previousMedian = Double.NaN;
+        for (int i = 1; i <= maxIterations; i++) {
+            long iterationStart = System.nanoTime();
+            iteration(client, username, password, i);
+            long now = System.nanoTime();
+            times[(i - 1) % window] = now - iterationStart;
+            iterations = i;
+            elapsedMs = (now - start) / 1_000_000;
+
+            if (i % window == 0) {
+                double median = median(times) / 1_000_000.0;
+                windowMedianMs = median;
+                if (i >= minIterations && Math.abs(median - previousMedian) <= previousMedian * convergenceThreshold) {
+                    return State.CONVERGED;
+                }
+                previousMedian = median;
+            }
+            if (now >= deadline) {
+                return State.MAX_DURATION;
+            }
+        }
+        return State.MAX_ITERATIONS;
+    }
+
+    // One pass over the hot request paths: login, create, list, read, patch, update, page, delete
+    private void iteration(Client client, String username, String password, int i)
+            throws IOException, InterruptedException {
+        String authorization;
+        if (jwtProperties.isEnabled()) {
+            JsonNode login = client.send("POST", "/auth/login", null, "application/json",
+                    objectMapper.writeValueAsString(Map.of("username", username, "password", password)));
+            authorization = "Bearer " + login.path("accessToken").asText();
+        } else {
+            authorization = "Basic " + Base64.getEncoder()
+                    .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+        }
+
+        String task = objectMapper.writeValueAsString(Map.of(
+                "title", "Warm-up task " + i,
+                "description", "Synthetic request issued before the application reports ready",
+                "status", "PENDING",
+                "priority", "MEDIUM",
+                "category", "warmup",
+                "dueDate", LocalDate.now().plusDays(i % 30).toString()));
+        long id = client.send("POST", "/tasks", authorization, "application/json", task).path("id").asLong();
+
+        client.send("GET", "/tasks", authorization, null, null);
+        client.send("GET", "/tasks/" + id, authorization, null, null);
+        client.send("PATCH", "/tasks/" + id, authorization, MERGE_PATCH_JSON, "{\"status\":\"IN_PROGRESS\"}");
+        client.send("PUT", "/tasks/" + id, authorization, "application/json", task.replace("PENDING", "COMPLETED"));
+        client.send("GET", "/tasks/paginated?page=0&size=20", authorization, null, null);
+        client.send("DELETE", "/tasks/" + id, authorization, null, null);
+    }
+
+    private String createScratchUser(String password) {
+        User user = new User();
+        user.setUsername(SCRATCH_USER_PREFIX + UUID.randomUUID().toString().substring(0, 8));
+        user.setEmail(user.getUsername() + "@localhost");
+        user.setPassword(passwordEncoder.encode(password));
+        user.setRole("USER");
+        user.setActive(true);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        user.setCreatedAt(now);
+        user.setUpdatedAt(now);
+        return userRepo.save(user).getUsername();
+    }
+
+    // Also removes scratch users left behind by a warm-up that was killed
+    private void removeScratchUsers() {
+        String pattern = SCRATCH_USER_PREFIX + "%";
+        String users = "SELECT id FROM users WHERE username LIKE ?";
+        String tasks = "SELECT id FROM tasks WHERE user_id IN (" + users + ")";
+        ShardDirectory directory = shardDirectory.getIfAvailable();
+        if (directory != null) {
+            removeShardedTasks(directory, jdbcTemplate.queryForList(users, Long.class, pattern));
+        }
+        InMemoryTaskStore store = inMemoryTaskStore.getIfAvailable();
+        if (store != null) {
+            // In-memory task storage: the scratch tasks are only in the store and its log
+            store.purgeOwners(jdbcTemplate.queryForList(users, Long.class, pattern));
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM task_collaborators WHERE task_id IN (" + tasks + ")", pattern);
+            jdbcTemplate.update("DELETE FROM task_collaborators WHERE user_id IN (" + users + ")", pattern);
+            jdbcTemplate.update("DELETE FROM task_revocations WHERE task_id IN (" + tasks + ")", pattern);
+            jdbcTemplate.update("DELETE FROM task_revocations WHERE user_id IN (" + users + ")", pattern);
+            jdbcTemplate.update("DELETE FROM tasks WHERE user_id IN (" + users + ")", pattern);
+            // The "warmup" category of the scratch tasks
+            jdbcTemplate.update("DELETE FROM task_categories WHERE user_id IN (" + users + ")", pattern);
+            jdbcTemplate.update("DELETE FROM users WHERE username LIKE ?", pattern);
+        });
+    }
+
+    // Sharded task storage: the scratch tasks may be on any shard, their revocations are on the home one
+    private void removeShardedTasks(ShardDirectory directory, List<Long> userIds) {
+        shardRouting.getObject().shards().forEach((name, dataSource) -> {
+            if (ShardDirectory.HOME.equals(name)) {
+                return;
+            }
+            JdbcTemplate shard = new JdbcTemplate(dataSource);
+            for (Long userId : userIds) {
+                for (Long taskId : shard.queryForList("SELECT id FROM tasks WHERE user_id = ?", Long.class, userId)) {
+                    jdbcTemplate.update("DELETE FROM task_revocations WHERE task_id = ?", taskId);
+                }
+                shard.update("DELETE FROM task_collaborators WHERE task_id IN (SELECT id FROM tasks WHERE user_id = ?)", userId);
+                shard.update("DELETE FROM task_collaborators WHERE user_id = ?", userId);
+                shard.update("DELETE FROM tasks WHERE user_id = ?", userId);
+                shard.update("DELETE FROM task_categories WHERE user_id = ?", userId);
+            }
+        });
+        directory.forgetUsers(userIds);
+    }
+
+    private static double median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2.0;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public double getWindowMedianMs() {
+        return windowMedianMs;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    private final class Client {
+
+        private final HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        private final String baseUrl;
+
+        private Client(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        JsonNode send(String method, String path, String authorization, String contentType, String body)
+                throws IOException, InterruptedException {
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(30))
+                    .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                            : HttpRequest.BodyPublishers.ofString(body));
+            if (authorization != null) {
+                request.header("Authorization", authorization);
+            }
+            if (contentType != null) {
+                request.header("Content-Type", contentType);
+            }
+            HttpResponse<byte[]> response = http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() / 100 != 2) {
+                throw new IOException(method + " " + path + " returned " + response.statusCode());
+            }
+            return response.body().length == 0 ? objectMapper.nullNode() : objectMapper.readTree(response.body());
+        }
+    }
+}
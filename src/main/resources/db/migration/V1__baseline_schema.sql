@@ -0,0 +1,58 @@
+-- Baseline: the schema Hibernate generated from the entities (ddl-auto=create-drop) plus the indexes
+-- the former schema.sql added on top of it. Later changes go in new V<n>__*.sql files; never edit this one.
+
+CREATE TABLE users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username VARCHAR(255),
+    email VARCHAR(255),
+    password VARCHAR(255),
+    role VARCHAR(255),
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6),
+    is_active BOOLEAN NOT NULL
+);
+
+CREATE TABLE tasks (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    title VARCHAR(255),
+    description VARCHAR(255),
+    due_date DATE,
+    status VARCHAR(255) CHECK (status IN ('PENDING', 'IN_PROGRESS', 'COMPLETED')),
+    create_date DATE,
+    update_date DATE,
+    deleted BOOLEAN,
+    completion_date DATE,
+    category VARCHAR(255),
+    priority VARCHAR(255) CHECK (priority IN ('LOW', 'MEDIUM', 'HIGH')),
+    change_seq BIGINT DEFAULT 0 NOT NULL,
+    version BIGINT DEFAULT 0 NOT NULL,
+    user_id BIGINT NOT NULL,
+    CONSTRAINT fk_tasks_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE task_collaborators (
+    task_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    PRIMARY KEY (task_id, user_id),
+    CONSTRAINT fk_task_collaborators_task FOREIGN KEY (task_id) REFERENCES tasks (id),
+    CONSTRAINT fk_task_collaborators_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE task_revocations (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    task_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    change_seq BIGINT NOT NULL
+);
+
+CREATE INDEX idx_tasks_change_seq ON tasks (change_seq);
+CREATE INDEX idx_task_revocations_user_seq ON task_revocations (user_id, change_seq);
+
+CREATE INDEX idx_tasks_user_id ON tasks (user_id);
+CREATE INDEX idx_tasks_status ON tasks (status);
+CREATE INDEX idx_tasks_category ON tasks (category);
+CREATE INDEX idx_tasks_priority ON tasks (priority);
+CREATE INDEX idx_tasks_due_date ON tasks (due_date);
+CREATE INDEX idx_tasks_deleted ON tasks (deleted);
+CREATE INDEX idx_users_username ON users (username);
+CREATE INDEX idx_users_email ON users (email);
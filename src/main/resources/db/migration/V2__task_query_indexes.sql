@@ -0,0 +1,30 @@
+-- Indexes designed from the repository queries (TaskRepo, TaskRevocationRepo, UserRepo).
+-- TaskRepoQueryPlanTests runs EXPLAIN on each query and fails if one falls back to a table scan.
+
+-- Owner-scoped reads all filter on user_id = ? AND deleted = false, optionally narrowed by status or
+-- due date (lists, pagination, keyword search, advanced filters, due-date filters)
+CREATE INDEX idx_tasks_user_deleted_status ON tasks (user_id, deleted, status);
+CREATE INDEX idx_tasks_user_deleted_due_date ON tasks (user_id, deleted, due_date);
+DROP INDEX idx_tasks_user_id;
+
+-- Cross-user status and category lookups always exclude deleted rows
+CREATE INDEX idx_tasks_status_deleted ON tasks (status, deleted);
+CREATE INDEX idx_tasks_category_deleted ON tasks (category, deleted);
+DROP INDEX idx_tasks_status;
+DROP INDEX idx_tasks_category;
+
+-- Never used on their own: priority and due date are only filtered per owner, deleted is not selective
+DROP INDEX idx_tasks_priority;
+DROP INDEX idx_tasks_due_date;
+DROP INDEX idx_tasks_deleted;
+
+-- Tasks shared with a user; the primary key (task_id, user_id) only serves lookups by task
+CREATE INDEX idx_task_collaborators_user ON task_collaborators (user_id, task_id);
+
+-- Delta sync revocations: covering, so the page is read from the index alone
+CREATE INDEX idx_task_revocations_user_seq_task ON task_revocations (user_id, change_seq, task_id);
+DROP INDEX idx_task_revocations_user_seq;
+
+-- Login and every authenticated request look users up by username, which the application keeps unique
+CREATE UNIQUE INDEX ux_users_username ON users (username);
+DROP INDEX idx_users_username;
@@ -0,0 +1,51 @@
+-- Compact task columns: status and priority as SMALLINT codes (Status.code(), Priority.code(), mapped by
+-- StatusConverter and PriorityConverter) instead of names, and the category as a number into a per-user
+-- dictionary instead of the name on every row. Existing rows are converted in place.
+
+-- A user's categories, numbered 1, 2, ... per user; the name is unique within the user
+CREATE TABLE task_categories (
+    user_id BIGINT NOT NULL,
+    id INTEGER NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    PRIMARY KEY (user_id, id),
+    CONSTRAINT fk_task_categories_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+-- Resolving a name when writing or filtering, per user; across users for the admin-wide lookup
+CREATE UNIQUE INDEX ux_task_categories_user_name ON task_categories (user_id, name);
+CREATE INDEX idx_task_categories_name ON task_categories (name);
+
+INSERT INTO task_categories (user_id, id, name)
+SELECT user_id, ROW_NUMBER() OVER (PARTITION BY user_id ORDER BY category), category
+FROM (SELECT DISTINCT user_id, category FROM tasks WHERE category IS NOT NULL) used;
+
+ALTER TABLE tasks ADD COLUMN status_code SMALLINT;
+ALTER TABLE tasks ADD COLUMN priority_code SMALLINT;
+ALTER TABLE tasks ADD COLUMN category_id INTEGER;
+
+UPDATE tasks t SET
+    status_code = CASE t.status WHEN 'PENDING' THEN 1 WHEN 'IN_PROGRESS' THEN 2 WHEN 'COMPLETED' THEN 3 END,
+    priority_code = CASE t.priority WHEN 'LOW' THEN 1 WHEN 'MEDIUM' THEN 2 WHEN 'HIGH' THEN 3 END,
+    category_id = (SELECT c.id FROM task_categories c WHERE c.user_id = t.user_id AND c.name = t.category);
+
+DROP INDEX idx_tasks_user_deleted_status;
+DROP INDEX idx_tasks_status_deleted;
+DROP INDEX idx_tasks_category_deleted;
+ALTER TABLE tasks DROP COLUMN status;
+ALTER TABLE tasks DROP COLUMN priority;
+ALTER TABLE tasks DROP COLUMN category;
+ALTER TABLE tasks ALTER COLUMN status_code RENAME TO status;
+ALTER TABLE tasks ALTER COLUMN priority_code RENAME TO priority;
+ALTER TABLE tasks ADD CONSTRAINT ck_tasks_status CHECK (status IN (1, 2, 3));
+ALTER TABLE tasks ADD CONSTRAINT ck_tasks_priority CHECK (priority IN (1, 2, 3));
+
+-- The same owner-scoped and cross-user indexes as before, now over two bytes instead of a name
+CREATE INDEX idx_tasks_user_deleted_status ON tasks (user_id, deleted, status);
+CREATE INDEX idx_tasks_status_deleted ON tasks (status, deleted);
+
+-- Codes rise with rank, so an owner's tasks by priority (the priority view, pages sorted by priority)
+-- are read from this index in order
+CREATE INDEX idx_tasks_user_deleted_priority ON tasks (user_id, deleted, priority);
+
+-- Tasks of a category, reached from its dictionary entry; also backs the foreign key
+CREATE INDEX idx_tasks_user_category ON tasks (user_id, category_id);
+ALTER TABLE tasks ADD CONSTRAINT fk_tasks_category FOREIGN KEY (user_id, category_id) REFERENCES task_categories (user_id, id);
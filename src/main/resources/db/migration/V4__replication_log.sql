@@ -0,0 +1,8 @@
+-- Keys of the rows changed since the replication feed's last pass (see ReplicationFeed). The replicate_* row
+-- triggers that fill it are installed by ReplicationTriggers after every migrate, only while a feed is
+-- configured (datasource.replica.enabled or datasource.shards.enabled), and dropped again once none is.
+CREATE TABLE replication_log (
+    seq BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    table_name VARCHAR(64) NOT NULL,
+    row_key BIGINT NOT NULL
+);
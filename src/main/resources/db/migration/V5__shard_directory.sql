@@ -0,0 +1,25 @@
+-- Shard directory of sharded task storage (see ShardDirectory), read and written on the home shard only; on
+-- every other database the tables stay empty.
+
+-- Every shard with its fixed ordinal (its task id range), and the URL of shards added while running
+CREATE TABLE shard_registry (
+    name VARCHAR(64) PRIMARY KEY,
+    ordinal INT NOT NULL UNIQUE,
+    url VARCHAR(1024)
+);
+
+-- The shard holding a user's tasks; users without a row are on the home shard
+CREATE TABLE user_shards (
+    user_id BIGINT PRIMARY KEY,
+    shard VARCHAR(64) NOT NULL
+);
+
+-- Owner and collaborators of every task, whichever shard it is on
+CREATE TABLE task_memberships (
+    task_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    owner_id BIGINT NOT NULL,
+    PRIMARY KEY (task_id, user_id)
+);
+-- Tasks shared with a user, by owner
+CREATE INDEX idx_task_memberships_user_owner ON task_memberships (user_id, owner_id);
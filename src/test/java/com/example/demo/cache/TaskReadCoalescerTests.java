@@ -0,0 +1,96 @@
+package com.example.demo.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.event.TaskVersionTracker;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Single-flight of identical task list reads: one read for concurrent callers, shared body and item count,
+ * and no sharing across a change the user can see.
+ */
+class TaskReadCoalescerTests {
+
+    private static final int CALLERS = 8;
+
+    private final TaskVersionTracker taskVersionTracker = new TaskVersionTracker(16);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TaskReadCoalescer coalescer = new TaskReadCoalescer(taskVersionTracker, new ObjectMapper(), true,
+            Duration.ofMillis(50), meterRegistry);
+
+    @Test
+    void concurrentIdenticalReadsRunOnceAndShareTheResult() throws Exception {
+        AtomicInteger reads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<TaskReadCoalescer.SharedRead>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(callers.submit(() -> coalescer.read("john", "all", () -> {
+                    reads.incrementAndGet();
+                    await(release);
+                    return List.of("a", "b", "c");
+                })));
+            }
+            // Hold the read until every other caller has joined it
+            while (count("coalesced") < CALLERS - 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            TaskReadCoalescer.SharedRead first = results.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<TaskReadCoalescer.SharedRead> result : results) {
+                assertSame(first, result.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(1, reads.get());
+            assertEquals(1, count("executed"));
+            assertEquals("[\"a\",\"b\",\"c\"]", new String(first.body()));
+            assertEquals(3, first.items());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void readsAfterAChangeOrAFailureRunAgain() {
+        AtomicInteger reads = new AtomicInteger();
+        coalescer.read("john", "all", () -> List.of(reads.incrementAndGet()));
+        taskVersionTracker.invalidateAll();
+        TaskReadCoalescer.SharedRead afterChange = coalescer.read("john", "all", () -> List.of(reads.incrementAndGet()));
+        assertEquals("[2]", new String(afterChange.body()));
+
+        assertThrows(IllegalStateException.class, () -> coalescer.read("jane", "all", () -> {
+            throw new IllegalStateException("database down");
+        }));
+        assertEquals(0, coalescer.read("jane", "all", List::of).items());
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.get("tasks.read.requests").tag("outcome", outcome).counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.example.demo.replica.ReplicationFeed;
+import com.example.demo.replica.ReplicationTriggers;
+import com.example.demo.shard.ShardRebalancer;
+import com.example.demo.shard.ShardRoutingDataSource;
+
+/**
+ * The fast-start profile with sharded task storage: the shards are connected and the users feed runs
+ * before the application is ready, not at the first request that needs them.
+ */
+@SpringBootTest(properties = {
+        "spring.profiles.active=" + FastStartConfig.PROFILE,
+        "spring.datasource.url=jdbc:h2:mem:faststart-home",
+        "datasource.shards.enabled=true",
+        "datasource.shards.urls.s1=jdbc:h2:mem:faststart-s1;DB_CLOSE_DELAY=-1"})
+class FastStartShardedTests {
+
+    @Autowired
+    private ConfigurableListableBeanFactory beanFactory;
+
+    @Autowired
+    private ShardRoutingDataSource shardRoutingDataSource;
+
+    @Test
+    void shardsAreConnectedBeforeReady() {
+        FastStartTests.assertCreatedAtStartup(beanFactory, ReplicationFeed.class, ReplicationTriggers.class,
+                ShardRebalancer.class);
+        assertEquals(Set.of("home", "s1"), shardRoutingDataSource.shards().keySet());
+    }
+}
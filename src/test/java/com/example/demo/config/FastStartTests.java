@@ -0,0 +1,93 @@
+package com.example.demo.config;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.example.demo.replica.ReplicaState;
+import com.example.demo.replica.ReplicationFeed;
+import com.example.demo.replica.ReplicationTriggers;
+import com.example.demo.snapshot.SnapshotService;
+import com.example.demo.store.InMemoryTaskStore;
+import com.example.demo.warmup.WarmupRunner;
+
+/**
+ * The fast-start profile creates beans lazily, but the ones with startup work still do it before the
+ * application is ready: here the replica feed and its triggers, the in-memory task store and the warm-up.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.profiles.active=" + FastStartConfig.PROFILE,
+        "spring.datasource.url=jdbc:h2:memFS:faststart",
+        "datasource.replica.enabled=true",
+        "datasource.replica.url=jdbc:h2:mem:faststart-replica;DB_CLOSE_DELAY=-1",
+        "tasks.store=memory",
+        "snapshot.enabled=true",
+        "warmup.enabled=true",
+        "warmup.min-iterations=1",
+        "warmup.max-iterations=1",
+        "warmup.window=1"})
+class FastStartTests {
+
+    @TempDir
+    static Path directory;
+
+    @DynamicPropertySource
+    static void files(DynamicPropertyRegistry registry) {
+        registry.add("tasks.store.wal.path", () -> directory.resolve("tasks.wal").toString());
+        registry.add("snapshot.path", () -> directory.resolve("todo.snapshot").toString());
+    }
+
+    @Autowired
+    private ConfigurableListableBeanFactory beanFactory;
+
+    @Autowired
+    private ReplicaState replicaState;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primary;
+
+    @Autowired
+    private InMemoryTaskStore taskStore;
+
+    @Autowired
+    private WarmupRunner warmupRunner;
+
+    @Test
+    void startupWorkRunsBeforeReady() {
+        assertCreatedAtStartup(beanFactory, SnapshotService.class, ReplicationFeed.class, ReplicationTriggers.class,
+                InMemoryTaskStore.class, WarmupRunner.class);
+
+        assertFalse(Double.isNaN(replicaState.secondsSinceSync()));
+        assertTrue(new JdbcTemplate(primary).queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TRIGGERS WHERE TRIGGER_NAME LIKE 'REPLICATE_%'", Long.class) > 0);
+        assertDoesNotThrow(taskStore::maxChangeSeq);
+        assertEquals(WarmupRunner.State.MAX_ITERATIONS, warmupRunner.getState());
+    }
+
+    // Not lazy: created while the context starts, whatever spring.main.lazy-initialization says
+    static void assertCreatedAtStartup(ConfigurableListableBeanFactory beanFactory, Class<?>... types) {
+        for (Class<?> type : types) {
+            String[] names = beanFactory.getBeanNamesForType(type, true, false);
+            assertTrue(names.length > 0, type.getSimpleName());
+            for (String name : names) {
+                assertFalse(beanFactory.getBeanDefinition(name).isLazyInit(), name);
+            }
+        }
+    }
+}
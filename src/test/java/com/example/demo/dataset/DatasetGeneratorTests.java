@@ -0,0 +1,103 @@
+package com.example.demo.dataset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * A load that fails after some of its batches were committed leaves nothing behind, so it can be run again.
+ */
+class DatasetGeneratorTests {
+
+    @Test
+    void failedLoadRemovesTheRowsOfItsCommittedBatches() throws SQLException {
+        DataSource dataSource = migrated("dataset-failing");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        Map<String, Object> before = counts(jdbc);
+        DatasetProperties properties = properties();
+
+        // Every batch is committed by the time the id generators are moved, which fails
+        DatasetGenerator failing = new DatasetGenerator(withFailingAlterTable(dataSource), properties, "encoded");
+        assertThrows(SQLException.class, failing::generate);
+
+        assertEquals(before, counts(jdbc));
+        DatasetGenerator generator = new DatasetGenerator(dataSource, properties, "encoded");
+        assertFalse(generator.isLoaded());
+        Map<String, Object> result = generator.generate();
+        assertTrue(generator.isLoaded());
+        assertEquals(properties.getUsers(), result.get("users"));
+    }
+
+    private static DatasetProperties properties() {
+        DatasetProperties properties = new DatasetProperties();
+        properties.setUsers(50);
+        properties.setTasksPerUser(4);
+        properties.setBatchSize(20);
+        properties.setBaseDate(LocalDate.of(2030, 1, 1));
+        return properties;
+    }
+
+    private static Map<String, Object> counts(JdbcTemplate jdbc) {
+        return jdbc.queryForMap("SELECT (SELECT COUNT(*) FROM users) users, (SELECT COUNT(*) FROM tasks) tasks, "
+                + "(SELECT COUNT(*) FROM task_categories) categories, "
+                + "(SELECT COUNT(*) FROM task_collaborators) collaborators");
+    }
+
+    private static DataSource migrated(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        return dataSource;
+    }
+
+    // Every ALTER TABLE fails, as the restart of the id generators would on a locked table
+    private static DataSource withFailingAlterTable(DataSource dataSource) {
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                Connection connection = super.getConnection();
+                return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                        (proxy, method, args) -> {
+                            Object result = invoke(connection, method, args);
+                            return method.getName().equals("createStatement") ? failingAlterTable((Statement) result) : result;
+                        });
+            }
+        };
+    }
+
+    private static Statement failingAlterTable(Statement statement) {
+        return (Statement) Proxy.newProxyInstance(DatasetGeneratorTests.class.getClassLoader(), new Class<?>[]{Statement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("execute") && args != null && args[0] instanceof String sql
+                            && sql.startsWith("ALTER TABLE")) {
+                        throw new SQLException("ALTER TABLE refused");
+                    }
+                    return invoke(statement, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.demo.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.example.demo.constants.Priority;
+import com.example.demo.constants.Status;
+import com.example.demo.controller.TaskController;
+import com.example.demo.dto.TaskPatch;
+import com.example.demo.entity.Task;
+import com.example.demo.service.TaskService;
+
+import jakarta.validation.Validator;
+
+/**
+ * Conditional GET /tasks/{id}: the owner's revalidation is answered with 304, anyone who may not read the
+ * task falls through to the handler whatever If-None-Match says.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:etagtest")
+class TaskETagInterceptorTests {
+
+    @Autowired
+    private TaskETagInterceptor interceptor;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskController taskController;
+
+    @Autowired
+    private Validator validator;
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void ownerRevalidatingAnUnchangedTaskGets304() throws Exception {
+        Long id = createTask("john");
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        MockHttpServletRequest request = get(id, "john", null);
+        assertTrue(interceptor.preHandle(request, first, handler()));
+        String tag = (String) request.getAttribute(TaskETagInterceptor.ETAG_ATTRIBUTE);
+        assertNotNull(tag);
+
+        MockHttpServletResponse revalidated = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(get(id, "john", tag), revalidated, handler()));
+        assertEquals(304, revalidated.getStatus());
+        assertEquals(tag, revalidated.getHeader(HttpHeaders.ETAG));
+
+        taskService.patchTask(id, TaskPatch.parse(Map.of("title", "changed"), validator), "john", null);
+        MockHttpServletResponse changed = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(get(id, "john", tag), changed, handler()));
+        assertEquals(200, changed.getStatus());
+    }
+
+    @Test
+    void callerWithoutAccessNeverGets304() throws Exception {
+        Long id = createTask("john");
+        String ownersTag = tagFor(id, "john");
+
+        for (String ifNoneMatch : List.of("*", ownersTag)) {
+            MockHttpServletRequest request = get(id, "jane", ifNoneMatch);
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            assertTrue(interceptor.preHandle(request, response, handler()), ifNoneMatch);
+            assertEquals(200, response.getStatus());
+            assertNull(response.getHeader(HttpHeaders.ETAG));
+            assertNull(request.getAttribute(TaskETagInterceptor.ETAG_ATTRIBUTE));
+        }
+    }
+
+    @Test
+    void missingTaskNeverGets304() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(get(999_999L, "john", "*"), response, handler()));
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader(HttpHeaders.ETAG));
+    }
+
+    private Long createTask(String username) {
+        Task task = new Task();
+        task.setTitle("tagged");
+        task.setStatus(Status.PENDING);
+        task.setPriority(Priority.MEDIUM);
+        return taskService.createTask(task, username).getId();
+    }
+
+    private String tagFor(Long id, String username) throws Exception {
+        MockHttpServletRequest request = get(id, username, null);
+        interceptor.preHandle(request, new MockHttpServletResponse(), handler());
+        return (String) request.getAttribute(TaskETagInterceptor.ETAG_ATTRIBUTE);
+    }
+
+    // GET /tasks/{id} as the user, after handler mapping resolved the path variables
+    private static MockHttpServletRequest get(Long id, String username, String ifNoneMatch) {
+        Authentication authentication = new UsernamePasswordAuthenticationToken(username, null, List.of());
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/tasks/" + id);
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("id", id.toString()));
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return request;
+    }
+
+    private HandlerMethod handler() throws NoSuchMethodException {
+        return new HandlerMethod(taskController,
+                TaskController.class.getMethod("getTaskByIdPath", Long.class, Authentication.class));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.demo.replica;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Routing between a primary and a replica that each answer with their own name: read-only transactions go to
+ * the replica once it has caught up, and a writer reads from the primary until its write is applied.
+ */
+class ReadWriteRoutingDataSourceTests {
+
+    private static final Duration MAX_WAIT = Duration.ofSeconds(5);
+
+    private final ReplicaState state = new ReplicaState(MAX_WAIT, Duration.ofMinutes(1));
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate reads;
+    private final TransactionTemplate writes;
+
+    ReadWriteRoutingDataSourceTests() {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(
+                database("primary"), database("replica"), state, new SimpleMeterRegistry()));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbc = new JdbcTemplate(dataSource);
+        reads = new TransactionTemplate(transactionManager);
+        reads.setReadOnly(true);
+        writes = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplicaOnceItHasCaughtUp() {
+        assertEquals("primary", read("jane"));
+        state.synced(state.currentGeneration());
+        assertEquals("replica", read("jane"));
+        assertEquals("primary", write("jane"));
+        assertEquals("primary", jdbc.queryForObject("SELECT name FROM source", String.class));
+    }
+
+    @Test
+    void writerReadsItsOwnWriteFromThePrimaryUntilItIsApplied() {
+        state.synced(state.currentGeneration());
+        write("john");
+
+        long start = System.nanoTime();
+        assertEquals("primary", read("john"));
+        // Pinned to the primary straight away instead of waiting for the replica
+        assertTrue(System.nanoTime() - start < MAX_WAIT.toNanos() / 2);
+
+        // Anyone else waits for the replica to apply the write, then reads there
+        CompletableFuture.runAsync(() -> state.synced(state.currentGeneration()),
+                CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS));
+        assertEquals("replica", read("jane"));
+        assertEquals("replica", read("john"));
+    }
+
+    private String read(String username) {
+        authenticate(username);
+        return reads.execute(status -> jdbc.queryForObject("SELECT name FROM source", String.class));
+    }
+
+    private String write(String username) {
+        authenticate(username);
+        return writes.execute(status -> {
+            jdbc.update("UPDATE source SET writes = writes + 1");
+            return jdbc.queryForObject("SELECT name FROM source", String.class);
+        });
+    }
+
+    private static void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+
+    // A database with one row naming it
+    private static DriverManagerDataSource database(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE IF NOT EXISTS source (name VARCHAR(16), writes INT)");
+        jdbc.update("DELETE FROM source");
+        jdbc.update("INSERT INTO source VALUES (?, 0)", name);
+        return dataSource;
+    }
+}
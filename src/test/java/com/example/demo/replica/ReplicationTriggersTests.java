@@ -0,0 +1,57 @@
+package com.example.demo.replica;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Set;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * The replicate_* triggers follow the configured feeds on every migrate of a database that outlives the
+ * application: installed for the replicated tables, reduced to the users for the shards, and gone, with the
+ * log emptied, once no feed is configured.
+ */
+class ReplicationTriggersTests {
+
+    private final DriverManagerDataSource dataSource =
+            new DriverManagerDataSource("jdbc:h2:mem:replication-triggers;DB_CLOSE_DELAY=-1", "sa", "");
+    private final JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+    @Test
+    void triggersFollowTheConfiguredFeeds() {
+        migrate(ReplicationFeed.ALL_TABLES.keySet());
+        assertEquals(List.copyOf(ReplicationFeed.ALL_TABLES.keySet()), triggeredTables());
+        jdbc.update("INSERT INTO users (username, is_active) VALUES ('ann', TRUE)");
+        assertEquals(1, logged());
+
+        migrate(Set.of("users"));
+        assertEquals(List.of("users"), triggeredTables());
+        assertEquals(1, logged());
+
+        migrate(Set.of());
+        assertEquals(List.of(), triggeredTables());
+        assertEquals(0, logged());
+        jdbc.update("INSERT INTO users (username, is_active) VALUES ('bob', TRUE)");
+        assertEquals(0, logged());
+        jdbc.execute("SHUTDOWN");
+    }
+
+    private void migrate(Set<String> tables) {
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration")
+                .callbacks(new ReplicationTriggers(tables)).load().migrate();
+    }
+
+    private List<String> triggeredTables() {
+        List<String> tables = jdbc.queryForList("SELECT LOWER(EVENT_OBJECT_TABLE) FROM INFORMATION_SCHEMA.TRIGGERS "
+                + "WHERE LOWER(TRIGGER_NAME) LIKE 'replicate_%'", String.class);
+        return ReplicationFeed.ALL_TABLES.keySet().stream().filter(tables::contains).toList();
+    }
+
+    private int logged() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM replication_log", Integer.class);
+    }
+}
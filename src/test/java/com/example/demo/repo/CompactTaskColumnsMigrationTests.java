@@ -0,0 +1,49 @@
+package com.example.demo.repo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * V3 on a database holding rows in the V2 layout: names become codes and dictionary numbers, and every
+ * task reads back the values it had.
+ */
+class CompactTaskColumnsMigrationTests {
+
+    @Test
+    void existingTasksKeepTheirValues() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:migration-v3;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").target("2").load().migrate();
+        jdbc.update("INSERT INTO users (id, username, is_active) VALUES (1, 'ann', TRUE), (2, 'bob', TRUE)");
+        jdbc.update("INSERT INTO tasks (id, title, status, priority, category, deleted, user_id) VALUES "
+                + "(1, 'a', 'PENDING', 'HIGH', 'Work', FALSE, 1), "
+                + "(2, 'b', 'COMPLETED', 'LOW', 'Home', FALSE, 1), "
+                + "(3, 'c', 'IN_PROGRESS', 'MEDIUM', 'Work', TRUE, 1), "
+                + "(4, 'd', 'PENDING', NULL, NULL, FALSE, 1), "
+                + "(5, 'e', 'PENDING', 'MEDIUM', 'Work', FALSE, 2)");
+
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+
+        List<Map<String, Object>> tasks = jdbc.queryForList("SELECT t.id, t.status, t.priority, c.name FROM tasks t "
+                + "LEFT JOIN task_categories c ON c.user_id = t.user_id AND c.id = t.category_id ORDER BY t.id");
+        assertEquals(List.of(1, 3, 2, 1, 1), tasks.stream().map(row -> ((Number) row.get("STATUS")).intValue()).toList());
+        assertEquals(3, ((Number) tasks.get(0).get("PRIORITY")).intValue());
+        assertEquals(1, ((Number) tasks.get(1).get("PRIORITY")).intValue());
+        assertNull(tasks.get(3).get("PRIORITY"));
+        assertEquals(Arrays.asList("Work", "Home", "Work", null, "Work"),
+                tasks.stream().map(row -> row.get("NAME")).toList());
+        assertEquals(List.of("Home", "Work"), jdbc.queryForList(
+                "SELECT name FROM task_categories WHERE user_id = 1 ORDER BY id", String.class));
+        assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM task_categories WHERE user_id = 2", Integer.class));
+        jdbc.execute("SHUTDOWN");
+    }
+}
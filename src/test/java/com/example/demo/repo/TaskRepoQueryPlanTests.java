@@ -0,0 +1,191 @@
+package com.example.demo.repo;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.constants.Priority;
+import com.example.demo.constants.Status;
+
+/**
+ * Query-plan regression tests: every query method of the repositories is run once, the SQL Hibernate
+ * generates for it is captured and H2's EXPLAIN of that SQL must not contain a table scan. A failure
+ * means a query changed shape or an index from db/migration went missing; add a migration rather than
+ * an exclusion unless the scan is intended.
+ */
+@SpringBootTest(properties = {
+        // own database: the migrations and sample data must not run twice against the shared one
+        "spring.datasource.url=jdbc:h2:mem:queryplans",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.example.demo.repo.TaskRepoQueryPlanTests$CapturedSql"})
+class TaskRepoQueryPlanTests {
+
+    /**
+     * Queries that read a whole table on purpose
+     */
+    private static final Set<String> FULL_SCANS = Set.of(
+            "TaskRepo.findAllByDeletedFalse",   // every live task, for admin-wide views
+            "UserRepo.findByIsActiveTrue");     // every active user
+
+    @Autowired
+    private TaskRepo taskRepo;
+
+    @Autowired
+    private TaskRevocationRepo taskRevocationRepo;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Collects the SQL of the current thread while a repository method runs
+     */
+    public static class CapturedSql implements StatementInspector {
+
+        private static final ThreadLocal<List<String>> STATEMENTS = new ThreadLocal<>();
+
+        @Override
+        public String inspect(String sql) {
+            List<String> statements = STATEMENTS.get();
+            if (statements != null) {
+                statements.add(sql);
+            }
+            return sql;
+        }
+    }
+
+    @TestFactory
+    Stream<DynamicTest> repositoryQueriesUseIndexes() {
+        Map<Class<?>, Object> repositories = Map.of(
+                TaskRepo.class, taskRepo,
+                TaskRevocationRepo.class, taskRevocationRepo,
+                UserRepo.class, userRepo);
+        return repositories.keySet().stream()
+                .sorted(Comparator.comparing(Class::getSimpleName))
+                .flatMap(type -> Arrays.stream(type.getDeclaredMethods())
+                        .filter(method -> !method.isDefault() && !method.isSynthetic())
+                        .sorted(Comparator.comparing(Method::toGenericString))
+                        .map(method -> {
+                            String name = type.getSimpleName() + "." + method.getName();
+                            return DynamicTest.dynamicTest(name + Arrays.toString(method.getParameterTypes()),
+                                    () -> assertNoTableScan(name, capture(repositories.get(type), method)));
+                        }));
+    }
+
+    @TestFactory
+    Stream<DynamicTest> customQueriesUseIndexes() {
+        // Categories the sample owner already has, so no dictionary entry is added outside the rollback
+        return Stream.of(
+                DynamicTest.dynamicTest("TaskRepoCustom.patch", () -> assertNoTableScan("TaskRepoCustom.patch",
+                        captureRolledBack(() -> taskRepo.patch(List.of(1L, 2L), Map.of("title", "plan"), 0L, 0L)))),
+                DynamicTest.dynamicTest("TaskRepoCustom.patch[category]", () -> assertNoTableScan("TaskRepoCustom.patch",
+                        captureRolledBack(() -> taskRepo.patch(List.of(1L, 2L), Map.of("category", "Work"), 0L, 0L)))),
+                DynamicTest.dynamicTest("TaskRepoCustom.categoryId", () -> assertNoTableScan("TaskRepoCustom.categoryId",
+                        captureRolledBack(() -> taskRepo.categoryId(1L, "Work")))));
+    }
+
+    private void assertNoTableScan(String name, List<String> statements) {
+        assertFalse(statements.isEmpty(), name + " ran no SQL");
+        for (String sql : statements) {
+            if (FULL_SCANS.contains(name)) {
+                continue;
+            }
+            String plan = explain(sql);
+            assertFalse(plan.contains(".tableScan"), () -> name + " scans a whole table:\n" + plan);
+        }
+    }
+
+    private List<String> capture(Object repository, Method method) {
+        Object[] args = Arrays.stream(method.getParameterTypes()).map(TaskRepoQueryPlanTests::sampleArgument).toArray();
+        return captureRolledBack(() -> {
+            try {
+                return method.invoke(repository, args);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            } catch (InvocationTargetException e) {
+                throw new IllegalStateException(method + " failed", e.getCause());
+            }
+        });
+    }
+
+    private List<String> captureRolledBack(Supplier<?> call) {
+        List<String> statements = new ArrayList<>();
+        CapturedSql.STATEMENTS.set(statements);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                call.get();
+                status.setRollbackOnly();
+            });
+        } finally {
+            CapturedSql.STATEMENTS.remove();
+        }
+        return statements;
+    }
+
+    // EXPLAIN of the statement as prepared, with every parameter bound to NULL
+    private String explain(String sql) {
+        return jdbcTemplate.execute((Connection connection) -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                int parameters = statement.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= parameters; i++) {
+                    statement.setObject(i, null);
+                }
+                try (ResultSet result = statement.executeQuery()) {
+                    assertTrue(result.next(), "no plan for " + sql);
+                    return result.getString(1);
+                }
+            }
+        });
+    }
+
+    private static Object sampleArgument(Class<?> type) {
+        if (type == Long.class || type == long.class) {
+            return 1L;
+        }
+        if (type == String.class) {
+            return "john";
+        }
+        if (type == LocalDate.class) {
+            return LocalDate.now();
+        }
+        if (type == Status.class) {
+            return Status.PENDING;
+        }
+        if (type == Priority.class) {
+            return Priority.MEDIUM;
+        }
+        if (type == Pageable.class) {
+            return PageRequest.of(0, 10);
+        }
+        throw new IllegalArgumentException("No sample value for " + type.getName());
+    }
+}
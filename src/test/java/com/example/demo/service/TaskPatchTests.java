@@ -0,0 +1,114 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import com.example.demo.constants.Priority;
+import com.example.demo.constants.Status;
+import com.example.demo.dto.TaskPatch;
+import com.example.demo.entity.Task;
+import com.example.demo.exception.TaskConflictException;
+import com.example.demo.store.TaskStore;
+
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+
+/**
+ * Merge patch parsing, and the bulk patch against a write that lands between its access check and its
+ * UPDATE: the changed task is reported and nothing in the batch is applied.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:patchtest")
+class TaskPatchTests {
+
+    @Autowired
+    private TaskService taskService;
+
+    @MockitoSpyBean
+    private TaskStore taskStore;
+
+    @Autowired
+    private Validator validator;
+
+    @Test
+    void patchKeepsOnlyThePresentMembersConverted() {
+        Map<String, Object> body = new HashMap<>();
+        body.put("status", "COMPLETED");
+        body.put("dueDate", "2030-01-31");
+        body.put("description", null);
+        TaskPatch patch = TaskPatch.parse(body, validator);
+
+        assertEquals(Status.COMPLETED, patch.values().get("status"));
+        assertEquals(LocalDate.of(2030, 1, 31), patch.values().get("dueDate"));
+        assertTrue(patch.values().containsKey("description"));
+        assertNull(patch.values().get("description"));
+        assertEquals(3, patch.values().size());
+        assertEquals(patch, TaskPatch.parse(new LinkedHashMap<>(body), validator));
+    }
+
+    @Test
+    void patchRejectsUnknownFieldsWrongTypesAndInvalidValues() {
+        assertThrows(IllegalArgumentException.class, () -> patch(Map.of("owner", "jane")));
+        assertThrows(IllegalArgumentException.class, () -> patch(Map.of("title", 42)));
+        assertThrows(IllegalArgumentException.class, () -> patch(Map.of("dueDate", "31/01/2030")));
+        assertThrows(ConstraintViolationException.class, () -> patch(Map.of("status", "DONE")));
+        assertThrows(ConstraintViolationException.class, () -> patch(Map.of("title", "")));
+    }
+
+    @Test
+    void bulkPatchReportsTasksChangedSinceTheAccessCheck() {
+        Long untouched = create("untouched");
+        Long raced = create("raced");
+        AtomicReference<Runnable> concurrentWrite = new AtomicReference<>(() ->
+                CompletableFuture.runAsync(() -> taskService.patchTask(raced, patch(Map.of("title", "theirs")), "john", null))
+                        .join());
+        doAnswer(invocation -> {
+            Object found = invocation.callRealMethod();
+            Runnable write = concurrentWrite.getAndSet(null);
+            if (write != null) {
+                write.run();
+            }
+            return found;
+        }).when(taskStore).findAllById(any(Collection.class));
+
+        Map<Long, TaskPatch> patches = new LinkedHashMap<>();
+        patches.put(untouched, patch(Map.of("priority", "HIGH")));
+        patches.put(raced, patch(Map.of("priority", "HIGH")));
+        TaskConflictException conflict = assertThrows(TaskConflictException.class,
+                () -> taskService.patchTasks(patches, "john"));
+
+        assertEquals(List.of(raced), conflict.getTaskIds());
+        assertEquals("theirs", taskService.getTaskByIdAndUser(raced, "john").getTitle());
+        assertEquals(Priority.LOW, taskService.getTaskByIdAndUser(raced, "john").getPriority());
+        assertEquals(Priority.LOW, taskService.getTaskByIdAndUser(untouched, "john").getPriority());
+    }
+
+    private Long create(String title) {
+        Task task = new Task();
+        task.setTitle(title);
+        task.setStatus(Status.PENDING);
+        task.setPriority(Priority.LOW);
+        return taskService.createTask(task, "john").getId();
+    }
+
+    private TaskPatch patch(Map<String, Object> body) {
+        return TaskPatch.parse(body, validator);
+    }
+}
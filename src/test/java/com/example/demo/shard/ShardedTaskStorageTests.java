@@ -0,0 +1,281 @@
+package com.example.demo.shard;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.constants.Priority;
+import com.example.demo.constants.Status;
+import com.example.demo.entity.Task;
+import com.example.demo.entity.User;
+import com.example.demo.repo.TaskRepo;
+import com.example.demo.repo.UserRepo;
+import com.example.demo.service.TaskService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Sharded task storage end to end: where queries go, visibility of tasks shared across shards, admin-wide
+ * queries, writes bound to the service transaction, many more writers than pooled connections, and adding
+ * a shard while tasks exist. Users are created until the ring places one on the shard a test needs, so the
+ * tests hold whatever the ring looks like.
+ */
+@SpringBootTest(properties = {
+        // own databases: the shards must not be shared with other test contexts
+        "spring.datasource.url=jdbc:h2:mem:shardtest-home",
+        "datasource.shards.enabled=true",
+        "datasource.shards.urls.s1=jdbc:h2:mem:shardtest-s1;DB_CLOSE_DELAY=-1",
+        "datasource.shards.urls.s2=jdbc:h2:mem:shardtest-s2;DB_CLOSE_DELAY=-1",
+        // small pools, and a write that cannot get a connection fails instead of waiting half a minute
+        "spring.datasource.hikari.maximum-pool-size=" + ShardedTaskStorageTests.POOL_SIZE,
+        "spring.datasource.hikari.connection-timeout=5000",
+        "datasource.shards.pool-size=" + ShardedTaskStorageTests.POOL_SIZE})
+class ShardedTaskStorageTests {
+
+    static final int POOL_SIZE = 4;
+
+    private static final AtomicInteger USERS = new AtomicInteger();
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskRepo taskRepo;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private ShardDirectory shardDirectory;
+
+    @Autowired
+    private ShardRoutingDataSource shardRoutingDataSource;
+
+    @Autowired
+    private ShardedTaskRepo shardedTaskRepo;
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void ownerQueriesOnlyTouchTheOwnersShard() {
+        User owner = userOn("s1");
+        taskService.createTask(task("solo"), owner.getUsername());
+
+        Map<String, Double> before = routed();
+        List<Task> tasks = taskRepo.findByUserIdAndDeletedFalse(owner.getId());
+        Map<String, Double> after = routed();
+
+        assertEquals(1, tasks.size());
+        assertTrue(after.get("s1") > before.get("s1"));
+        assertEquals(before.get(ShardDirectory.HOME), after.get(ShardDirectory.HOME));
+        assertEquals(before.get("s2"), after.get("s2"));
+    }
+
+    @Test
+    void tasksSharedAcrossShardsAreVisibleUntilUnshared() {
+        User owner = userOn("s1");
+        User collaborator = userOn("s2");
+        Task shared = taskService.createTask(task("shared"), owner.getUsername());
+        taskService.addCollaborator(shared.getId(), owner.getUsername(), collaborator.getUsername());
+
+        assertTrue(ids(taskService.getTasksByUser(collaborator.getUsername())).contains(shared.getId()));
+        assertEquals("shared", taskService.getTaskByIdAndUser(shared.getId(), collaborator.getUsername()).getTitle());
+        long cursor = taskService.getTaskChanges(collaborator.getUsername(), null, 100).getCursor();
+
+        taskService.removeCollaborator(shared.getId(), owner.getUsername(), collaborator.getUsername());
+
+        assertFalse(ids(taskService.getTasksByUser(collaborator.getUsername())).contains(shared.getId()));
+        assertTrue(taskService.getTaskChanges(collaborator.getUsername(), cursor, 100).getRemoved().contains(shared.getId()));
+    }
+
+    @Test
+    void writesRollBackWithTheServiceTransaction() {
+        User collaborator = userOn("s2");
+        for (String shard : List.of(ShardDirectory.HOME, "s1")) {
+            User owner = userOn(shard);
+            Task task = taskService.createTask(task("kept"), owner.getUsername());
+
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                taskService.addCollaborator(task.getId(), owner.getUsername(), collaborator.getUsername());
+                status.setRollbackOnly();
+            });
+
+            assertEquals(Set.of(owner.getId()), taskRepo.findById(task.getId()).orElseThrow().getCollaborators().stream()
+                    .map(User::getId).collect(Collectors.toSet()), shard);
+            assertFalse(shardDirectory.ownersSharingWith(collaborator.getId()).contains(owner.getId()), shard);
+        }
+    }
+
+    @Test
+    void writersOutnumberingThePooledConnectionsAllComplete() throws Exception {
+        List<User> owners = List.of(userOn(ShardDirectory.HOME), userOn("s1"), userOn("s2"));
+        User collaborator = userOn("s1");
+        int writers = 3 * POOL_SIZE * owners.size();
+        ExecutorService threads = Executors.newFixedThreadPool(writers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Long>> created = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                User owner = owners.get(i % owners.size());
+                String title = "crowded " + i;
+                created.add(threads.submit(() -> {
+                    start.await();
+                    Long id = taskService.createTask(task(title), owner.getUsername()).getId();
+                    taskService.addCollaborator(id, owner.getUsername(), collaborator.getUsername());
+                    return id;
+                }));
+            }
+            start.countDown();
+            Set<Long> ids = new HashSet<>();
+            for (Future<Long> id : created) {
+                ids.add(id.get(60, TimeUnit.SECONDS));
+            }
+
+            assertEquals(writers, ids.size());
+            assertTrue(ids(taskService.getTasksByUser(collaborator.getUsername())).containsAll(ids));
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    void adminQueriesGatherEveryShard() {
+        List<Long> created = new ArrayList<>();
+        for (String shard : List.of(ShardDirectory.HOME, "s1", "s2")) {
+            created.add(taskService.createTask(task("everywhere"), userOn(shard).getUsername()).getId());
+        }
+
+        assertTrue(ids(taskRepo.findAllByDeletedFalse()).containsAll(created));
+        assertTrue(ids(taskRepo.findByStatusAndDeletedFalse(Status.PENDING)).containsAll(created));
+    }
+
+    @Test
+    void addingAShardMovesOnlyTheUsersItTakesOver() throws InterruptedException {
+        Map<Long, String> placedBefore = new LinkedHashMap<>();
+        Map<Long, Map<Long, String>> tasksBefore = new HashMap<>();
+        for (int i = 0; i < 30; i++) {
+            User owner = newUser();
+            Task categorized = task("moving " + i);
+            categorized.setCategory("errands " + i % 3);
+            taskService.createTask(categorized, owner.getUsername());
+            taskService.createTask(task("staying " + i), owner.getUsername());
+            placedBefore.put(owner.getId(), shardDirectory.placement(owner.getId()));
+            tasksBefore.put(owner.getId(), contents(taskRepo.findByUserIdAndDeletedFalse(owner.getId())));
+        }
+
+        shardRebalancer.addShard("s3", "jdbc:h2:mem:shardtest-s3;DB_CLOSE_DELAY=-1");
+        for (int i = 0; i < 600 && "RUNNING".equals(shardRebalancer.status().get("state")); i++) {
+            Thread.sleep(100);
+        }
+
+        assertEquals("DONE", shardRebalancer.status().get("state"));
+        int moved = 0;
+        for (Map.Entry<Long, String> placed : placedBefore.entrySet()) {
+            String now = shardDirectory.placement(placed.getKey());
+            assertEquals(shardDirectory.ring().shardFor(placed.getKey()), now);
+            if (!now.equals(placed.getValue())) {
+                assertEquals("s3", now);
+                moved++;
+            }
+            assertEquals(tasksBefore.get(placed.getKey()), contents(taskRepo.findByUserIdAndDeletedFalse(placed.getKey())));
+        }
+        assertTrue(moved < placedBefore.size() / 2);
+        long stored = shardedTaskRepo.countByShard().values().stream().mapToLong(Long::longValue).sum();
+        assertEquals(taskRepo.findAll().size(), stored);
+    }
+
+    @Test
+    void ringMovesAboutOneInNUsersToANewShard() {
+        ShardRing ring = new ShardRing(List.of(ShardDirectory.HOME, "s1", "s2"), 64);
+        ShardRing extended = ring.with("s3");
+        int users = 100_000;
+        int moved = 0;
+        for (long id = 1; id <= users; id++) {
+            String before = ring.shardFor(id);
+            String after = extended.shardFor(id);
+            if (!before.equals(after)) {
+                assertEquals("s3", after);
+                moved++;
+            }
+        }
+        assertTrue(moved > users * 0.15 && moved < users * 0.35, "moved " + moved);
+    }
+
+    private User userOn(String shard) {
+        for (int i = 0; i < 200; i++) {
+            User user = newUser();
+            if (shardDirectory.ring().shardFor(user.getId()).equals(shard)) {
+                return user;
+            }
+        }
+        throw new IllegalStateException("The ring placed no new user on " + shard);
+    }
+
+    private User newUser() {
+        User user = new User();
+        user.setUsername("shard_user_" + USERS.incrementAndGet());
+        user.setEmail(user.getUsername() + "@example.com");
+        user.setPassword("unused");
+        user.setRole("USER");
+        user.setActive(true);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        user.setCreatedAt(now);
+        user.setUpdatedAt(now);
+        return userRepo.save(user);
+    }
+
+    private static Task task(String title) {
+        Task task = new Task();
+        task.setTitle(title);
+        task.setStatus(Status.PENDING);
+        task.setPriority(Priority.MEDIUM);
+        return task;
+    }
+
+    private Map<String, Double> routed() {
+        Map<String, Double> counts = new HashMap<>();
+        for (String shard : shardRoutingDataSource.shards().keySet()) {
+            counts.put(shard, meterRegistry.get("datasource.shard.routing").tag("shard", shard).counter().count());
+        }
+        return counts;
+    }
+
+    private static List<Long> ids(List<Task> tasks) {
+        return tasks.stream().map(Task::getId).collect(Collectors.toList());
+    }
+
+    private static Map<Long, String> contents(List<Task> tasks) {
+        return tasks.stream().collect(Collectors.toMap(Task::getId, task -> task.getTitle() + " / " + task.getCategory(),
+                (a, b) -> a, TreeMap::new));
+    }
+}
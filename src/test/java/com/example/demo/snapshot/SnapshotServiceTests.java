@@ -0,0 +1,126 @@
+package com.example.demo.snapshot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import com.example.demo.service.TokenBlacklistService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * A snapshot of the sample data written from one database and restored before another is first opened:
+ * every row and blacklisted token comes back and new rows get ids past the restored ones. A corrupt
+ * snapshot is not restored, and neither is any snapshot into a database that is already open.
+ */
+class SnapshotServiceTests {
+
+    private static final List<String> TABLES = List.of("users", "task_categories", "tasks", "task_collaborators",
+            "task_revocations");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writtenSnapshotRestoresEveryRow() throws Exception {
+        DataSource source = written("snapshot-source");
+        TokenBlacklistService sourceBlacklist = new TokenBlacklistService();
+        Map<String, Long> tokens = Map.of("revoked-token", System.currentTimeMillis() + 60_000);
+        sourceBlacklist.restoreBlacklistedTokens(tokens);
+        Path path = directory.resolve("todo.snapshot");
+        service(source, "snapshot-source", sourceBlacklist, path, new SimpleMeterRegistry()).write();
+
+        TokenBlacklistService blacklist = new TokenBlacklistService();
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        service(dataSource("snapshot-target"), "snapshot-target", blacklist, path, meterRegistry);
+        DataSource target = migrated("snapshot-target");
+
+        assertEquals(1, restores(meterRegistry, "restored"));
+        for (String table : TABLES) {
+            assertEquals(rows(source, table), rows(target, table), table);
+        }
+        assertEquals(tokens, blacklist.getBlacklistedTokens());
+        JdbcTemplate jdbc = new JdbcTemplate(target);
+        Long highest = jdbc.queryForObject("SELECT MAX(id) FROM users", Long.class);
+        jdbc.update("INSERT INTO users (username, email, password, role, is_active) VALUES ('new', 'n@x', 'p', 'USER', TRUE)");
+        assertTrue(jdbc.queryForObject("SELECT id FROM users WHERE username = 'new'", Long.class) > highest);
+    }
+
+    @Test
+    void corruptSnapshotIsNotRestored() throws Exception {
+        DataSource source = written("snapshot-source-2");
+        Path path = directory.resolve("todo.snapshot");
+        service(source, "snapshot-source-2", new TokenBlacklistService(), path, new SimpleMeterRegistry()).write();
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(path, bytes);
+
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        service(dataSource("snapshot-target-2"), "snapshot-target-2", new TokenBlacklistService(), path, meterRegistry);
+        DataSource target = migrated("snapshot-target-2");
+
+        assertEquals(1, restores(meterRegistry, "invalid"));
+        assertEquals(0, new JdbcTemplate(target).queryForObject("SELECT COUNT(*) FROM users", Long.class));
+    }
+
+    @Test
+    void openDatabaseIsNotOverwritten() throws Exception {
+        DataSource source = written("snapshot-source-3");
+        Path path = directory.resolve("todo.snapshot");
+        service(source, "snapshot-source-3", new TokenBlacklistService(), path, new SimpleMeterRegistry()).write();
+        DataSource target = migrated("snapshot-target-3");
+
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        service(target, "snapshot-target-3", new TokenBlacklistService(), path, meterRegistry);
+
+        assertEquals(1, restores(meterRegistry, "existing"));
+        assertEquals(0, new JdbcTemplate(target).queryForObject("SELECT COUNT(*) FROM users", Long.class));
+    }
+
+    private SnapshotService service(DataSource dataSource, String name, TokenBlacklistService blacklist, Path path,
+                                    MeterRegistry meterRegistry) {
+        return new SnapshotService(dataSource, blacklist, SnapshotService.URL_PREFIX + name, path,
+                Duration.ofHours(1), meterRegistry);
+    }
+
+    private static long restores(MeterRegistry meterRegistry, String outcome) {
+        return meterRegistry.get("snapshot.restore").tag("outcome", outcome).timer().count();
+    }
+
+    // The sample data in a migrated database
+    private static DataSource written(String name) {
+        DataSource dataSource = migrated(name);
+        new ResourceDatabasePopulator(new ClassPathResource("data.sql")).execute(dataSource);
+        return dataSource;
+    }
+
+    private static DataSource migrated(String name) {
+        DataSource dataSource = dataSource(name);
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        return dataSource;
+    }
+
+    private static DataSource dataSource(String name) {
+        return new DriverManagerDataSource(SnapshotService.URL_PREFIX + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    private static List<Map<String, Object>> rows(DataSource dataSource, String table) {
+        return new JdbcTemplate(dataSource).queryForList("SELECT * FROM " + table + " ORDER BY 1, 2");
+    }
+}
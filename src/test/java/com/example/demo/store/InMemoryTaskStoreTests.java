@@ -0,0 +1,131 @@
+package com.example.demo.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.env.Environment;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.demo.constants.Priority;
+import com.example.demo.entity.Task;
+import com.example.demo.entity.User;
+import com.example.demo.repo.TaskRepo;
+import com.example.demo.repo.UserRepo;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * The task store contract on the in-memory engine, and recovery from its write-ahead log: a second store
+ * started on a copy of the log must hold exactly what the first one does, and a write the log fails on is
+ * never seen.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:storetest-memory",
+        "tasks.store=memory"})
+class InMemoryTaskStoreTests extends TaskStoreContractTests {
+
+    @TempDir
+    static Path logDirectory;
+
+    @DynamicPropertySource
+    static void logPath(DynamicPropertyRegistry registry) {
+        registry.add("tasks.store.wal.path", () -> logDirectory.resolve("tasks.wal").toString());
+    }
+
+    @Autowired
+    private TaskRepo taskRepo;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private Environment environment;
+
+    @Test
+    void replayingTheLogRestoresEveryTask() throws IOException, InterruptedException {
+        User owner = newUser();
+        User collaborator = newUser();
+        Long shared = create(owner, task("shared", LocalDate.now(), Priority.HIGH));
+        Long deleted = create(owner, task("deleted", null, Priority.LOW));
+        taskService.addCollaborator(shared, owner.getUsername(), collaborator.getUsername());
+        taskService.patchTask(shared, patch(Map.of("description", "patched")), owner.getUsername(), null);
+        taskService.deleteTask(deleted, owner.getUsername());
+
+        // A crash in mid-write leaves part of a frame behind, which replay must skip
+        Path copy = logDirectory.resolve("replayed.wal");
+        Files.copy(logDirectory.resolve("tasks.wal"), copy);
+        Files.write(copy, new byte[] {0, 0, 1, 0, 7}, StandardOpenOption.APPEND);
+
+        InMemoryTaskStore replayed = new InMemoryTaskStore(taskRepo, userRepo, transactionManager,
+                new SimpleMeterRegistry(), environment, copy, false, 64, 1024);
+        try {
+            replayed.load();
+
+            for (Long id : List.of(shared, deleted)) {
+                assertEquals(taskStore.findById(id), replayed.findById(id));
+            }
+            assertEquals(ids(taskStore.findSharedWith(collaborator.getId())), ids(replayed.findSharedWith(collaborator.getId())));
+            assertEquals(ids(taskStore.findOwnedByPriority(owner.getId(), Priority.HIGH)),
+                    ids(replayed.findOwnedByPriority(owner.getId(), Priority.HIGH)));
+            assertEquals(taskStore.maxChangeSeq(), replayed.maxChangeSeq());
+            Task restored = replayed.findById(shared).orElseThrow();
+            assertEquals("patched", restored.getDescription());
+            assertTrue(replayed.findLive(deleted).isEmpty());
+        } finally {
+            replayed.close();
+        }
+    }
+
+    @Test
+    void writesTheLogFailsOnAreNeverSeenAndTheStoreTurnsReadOnly() throws IOException, InterruptedException {
+        User owner = newUser();
+        Long kept = create(owner, task("kept", null, Priority.LOW));
+        Path copy = logDirectory.resolve("failing.wal");
+        Files.copy(logDirectory.resolve("tasks.wal"), copy);
+
+        InMemoryTaskStore failing = new InMemoryTaskStore(taskRepo, userRepo, transactionManager,
+                new SimpleMeterRegistry(), environment, copy, false, 64, 1024);
+        AtomicReference<FileChannel> channel = new AtomicReference<>();
+        failing.logChannels = path -> {
+            channel.set(TaskWriteAheadLog.Channels.APPEND.open(path));
+            return channel.get();
+        };
+        try {
+            failing.load();
+            // The file goes away under the log, so the next batch cannot be written
+            channel.get().close();
+            Task renamed = failing.findById(kept).orElseThrow();
+            renamed.setTitle("lost");
+            assertThrows(IllegalStateException.class, () -> failing.save(renamed));
+
+            assertEquals("kept", failing.findById(kept).orElseThrow().getTitle());
+            assertEquals(List.of(kept), ids(failing.findOwned(owner.getId())));
+            Task added = task("rejected", null, Priority.HIGH);
+            added.setUser(owner);
+            assertThrows(IllegalStateException.class, () -> failing.save(added));
+            assertTrue(failing.findOwnedByPriority(owner.getId(), Priority.HIGH).isEmpty());
+        } finally {
+            failing.close();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.demo.store;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * The task store contract on the JPA engine, the default
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:storetest-jpa",
+        "tasks.store=jpa"})
+class JpaTaskStoreTests extends TaskStoreContractTests {
+}
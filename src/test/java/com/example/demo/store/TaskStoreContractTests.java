@@ -0,0 +1,248 @@
+package com.example.demo.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import com.example.demo.constants.Priority;
+import com.example.demo.constants.Status;
+import com.example.demo.dto.TaskChangesResponse;
+import com.example.demo.dto.TaskPatch;
+import com.example.demo.entity.Task;
+import com.example.demo.entity.User;
+import com.example.demo.exception.TaskConflictException;
+import com.example.demo.repo.UserRepo;
+import com.example.demo.service.TaskService;
+
+import jakarta.validation.Validator;
+
+/**
+ * The service-level behaviour every {@link TaskStore} must give TaskServiceImpl, run once per engine by
+ * the subclasses. Each test works on users of its own, so the tests hold whatever else the store holds.
+ */
+abstract class TaskStoreContractTests {
+
+    private static final AtomicInteger USERS = new AtomicInteger();
+
+    @Autowired
+    protected TaskService taskService;
+
+    @Autowired
+    protected TaskStore taskStore;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private Validator validator;
+
+    @Test
+    void tasksAreVisibleToTheirOwnerOnly() {
+        User owner = newUser();
+        User stranger = newUser();
+        Task created = taskService.createTask(task("mine", LocalDate.now(), Priority.HIGH), owner.getUsername());
+
+        Task read = taskService.getTaskByIdAndUser(created.getId(), owner.getUsername());
+        assertEquals("mine", read.getTitle());
+        assertEquals(Priority.HIGH, read.getPriority());
+        assertEquals(owner.getId(), read.getUser().getId());
+        assertEquals(List.of(created.getId()), ids(taskService.getTasksByUser(owner.getUsername())));
+        assertTrue(taskService.getTasksByUser(stranger.getUsername()).isEmpty());
+        assertThrows(RuntimeException.class, () -> taskService.getTaskByIdAndUser(created.getId(), stranger.getUsername()));
+    }
+
+    @Test
+    void dueDateAndPriorityViewsSelectTheOwnersTasks() {
+        User owner = newUser();
+        LocalDate today = LocalDate.now();
+        Long yesterday = create(owner, task("yesterday", today.minusDays(1), Priority.LOW));
+        Long dueToday = create(owner, task("today", today, Priority.HIGH));
+        Long tomorrow = create(owner, task("tomorrow", today.plusDays(1), Priority.HIGH));
+        Long undated = create(owner, task("undated", null, Priority.MEDIUM));
+        create(newUser(), task("someone else's", today, Priority.HIGH));
+
+        String username = owner.getUsername();
+        assertEquals(List.of(dueToday), ids(taskService.getTasksByUserAndDueDate(username, today)));
+        assertEquals(List.of(yesterday, dueToday),
+                ids(taskService.getTasksByUserAndDueDateRange(username, today.minusDays(1), today)));
+        assertEquals(List.of(yesterday), ids(taskService.getTasksDueBefore(username, today)));
+        assertEquals(List.of(tomorrow), ids(taskService.getTasksDueAfter(username, today)));
+        assertEquals(List.of(dueToday, tomorrow), ids(taskService.getTasksByUserAndPriority(username, Priority.HIGH)));
+        assertEquals(List.of(undated), ids(taskService.getTasksByUserAndPriority(username, Priority.MEDIUM)));
+        assertEquals(4, taskService.getTasksByUserAndStatus(username, "PENDING").size());
+    }
+
+    @Test
+    void sharedTasksAreVisibleUntilUnshared() {
+        User owner = newUser();
+        User collaborator = newUser();
+        Long shared = create(owner, task("shared", null, Priority.MEDIUM));
+        taskService.addCollaborator(shared, owner.getUsername(), collaborator.getUsername());
+
+        assertEquals(List.of(shared), ids(taskService.getTasksByUser(collaborator.getUsername())));
+        assertEquals("shared", taskService.getTaskByIdAndUser(shared, collaborator.getUsername()).getTitle());
+        long cursor = taskService.getTaskChanges(collaborator.getUsername(), null, 100).getCursor();
+
+        taskService.removeCollaborator(shared, owner.getUsername(), collaborator.getUsername());
+
+        assertTrue(taskService.getTasksByUser(collaborator.getUsername()).isEmpty());
+        assertEquals(List.of(shared), taskService.getTaskChanges(collaborator.getUsername(), cursor, 100).getRemoved());
+        assertEquals(List.of(shared), ids(taskService.getTasksByUser(owner.getUsername())));
+    }
+
+    @Test
+    void editsOfDifferentFieldsMergeAndEditsOfTheSameFieldConflict() {
+        User owner = newUser();
+        Task created = taskService.createTask(task("draft", null, Priority.LOW), owner.getUsername());
+        Long base = created.getVersion();
+
+        Task renamed = task("final", null, Priority.LOW);
+        taskService.updateTask(created.getId(), renamed, owner.getUsername(), base);
+        Task merged = taskService.patchTask(created.getId(), patch(Map.of("priority", "HIGH")), owner.getUsername(), base);
+
+        assertEquals("final", merged.getTitle());
+        assertEquals(Priority.HIGH, merged.getPriority());
+        TaskConflictException conflict = assertThrows(TaskConflictException.class, () ->
+                taskService.patchTask(created.getId(), patch(Map.of("title", "other")), owner.getUsername(), base));
+        assertEquals(List.of("title"), conflict.getFields());
+    }
+
+    @Test
+    void savingAStaleCopyFails() {
+        User owner = newUser();
+        Long id = create(owner, task("stale", null, Priority.LOW));
+        Task copy = taskStore.findById(id).orElseThrow();
+
+        copy.setTitle("first");
+        taskStore.save(copy);
+        copy.setTitle("second");
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> taskStore.save(copy));
+        assertEquals("first", taskStore.findById(id).orElseThrow().getTitle());
+    }
+
+    @Test
+    void searchAndFiltersPageInTheRequestedOrder() {
+        User owner = newUser();
+        for (int i = 1; i <= 5; i++) {
+            Task task = task("Report " + i, null, Priority.MEDIUM);
+            task.setCategory(i % 2 == 0 ? "work" : "home");
+            create(owner, task);
+        }
+        create(owner, task("unrelated", null, Priority.MEDIUM));
+
+        Page<Task> page = taskService.searchTasksByKeywordWithPagination(owner.getUsername(), "report",
+                PageRequest.of(0, 2, Sort.by("title").descending()));
+        assertEquals(5, page.getTotalElements());
+        assertEquals(List.of("Report 5", "Report 4"), titles(page.getContent()));
+
+        Page<Task> work = taskService.getTasksWithFilters(owner.getUsername(), "PENDING", "work", null,
+                PageRequest.of(0, 10, Sort.by("title")));
+        assertEquals(List.of("Report 2", "Report 4"), titles(work.getContent()));
+
+        Page<Task> second = taskService.getTasksByUserWithPagination(owner.getUsername(),
+                PageRequest.of(1, 4, Sort.by("title")));
+        assertEquals(6, second.getTotalElements());
+        assertEquals(List.of("Report 5", "unrelated"), titles(second.getContent()));
+    }
+
+    @Test
+    void prioritySortsByRankAndPatchedCategoriesAreFound() {
+        User owner = newUser();
+        Long high = create(owner, task("high", null, Priority.HIGH));
+        Long low = create(owner, task("low", null, Priority.LOW));
+        Long medium = create(owner, task("medium", null, Priority.MEDIUM));
+        taskService.patchTask(low, patch(Map.of("category", "errands")), owner.getUsername(), null);
+
+        Page<Task> page = taskService.getTasksByUserWithPagination(owner.getUsername(),
+                PageRequest.of(0, 10, Sort.by("priority").descending()));
+        assertEquals(List.of(high, medium, low), page.getContent().stream().map(Task::getId).toList());
+        assertEquals("errands", taskService.getTaskByIdAndUser(low, owner.getUsername()).getCategory());
+        assertEquals(List.of("low"), titles(taskService.getTasksWithFilters(owner.getUsername(), null, "errands", null,
+                PageRequest.of(0, 10)).getContent()));
+    }
+
+    @Test
+    void deltaSyncReportsBulkPatchesAndDeletions() {
+        User owner = newUser();
+        Long kept = create(owner, task("kept", null, Priority.LOW));
+        Long dropped = create(owner, task("dropped", null, Priority.LOW));
+        long cursor = taskService.getTaskChanges(owner.getUsername(), null, 100).getCursor();
+
+        Map<Long, TaskPatch> patches = new HashMap<>();
+        patches.put(kept, patch(Map.of("status", "COMPLETED")));
+        patches.put(dropped, patch(Map.of("status", "COMPLETED")));
+        taskService.patchTasks(patches, owner.getUsername());
+        taskService.deleteTask(dropped, owner.getUsername());
+
+        TaskChangesResponse changes = taskService.getTaskChanges(owner.getUsername(), cursor, 100);
+        assertEquals(List.of(kept), ids(changes.getChanged()));
+        assertEquals(List.of(dropped), changes.getRemoved());
+        Task completed = changes.getChanged().get(0);
+        assertEquals(Status.COMPLETED, completed.getStatus());
+        assertEquals(LocalDate.now(), completed.getCompletionDate());
+        assertEquals(List.of(kept), ids(taskService.getTasksByUser(owner.getUsername())));
+        assertFalse(taskService.getTaskChanges(owner.getUsername(), changes.getCursor(), 100).isReset());
+        assertTrue(taskService.getTaskChanges(owner.getUsername(), changes.getCursor(), 100).getChanged().isEmpty());
+    }
+
+    protected Long create(User owner, Task task) {
+        return taskService.createTask(task, owner.getUsername()).getId();
+    }
+
+    protected User newUser() {
+        User user = new User();
+        user.setUsername("store_user_" + USERS.incrementAndGet());
+        user.setEmail(user.getUsername() + "@example.com");
+        user.setPassword("unused");
+        user.setRole("USER");
+        user.setActive(true);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        user.setCreatedAt(now);
+        user.setUpdatedAt(now);
+        return userRepo.save(user);
+    }
+
+    protected static Task task(String title, LocalDate dueDate, Priority priority) {
+        Task task = new Task();
+        task.setTitle(title);
+        task.setDueDate(dueDate);
+        task.setStatus(Status.PENDING);
+        task.setPriority(priority);
+        return task;
+    }
+
+    protected TaskPatch patch(Map<String, Object> body) {
+        return TaskPatch.parse(body, validator);
+    }
+
+    protected static List<Long> ids(List<Task> tasks) {
+        List<Long> ids = new ArrayList<>();
+        for (Task task : tasks) {
+            ids.add(task.getId());
+        }
+        ids.sort(null);
+        return ids;
+    }
+
+    private static List<String> titles(List<Task> tasks) {
+        return tasks.stream().map(Task::getTitle).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.demo.warmup;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Warm-up against a running server: it completes its iterations and leaves no scratch user behind, nor
+ * the category its tasks created.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:warmuptest",
+        "warmup.enabled=true",
+        "warmup.min-iterations=2",
+        "warmup.max-iterations=2",
+        "warmup.window=1"})
+class WarmupRunnerTests {
+
+    @Autowired
+    private WarmupRunner warmupRunner;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void warmUpRemovesTheScratchUserAndItsCategories() {
+        assertEquals(WarmupRunner.State.MAX_ITERATIONS, warmupRunner.getState());
+        assertEquals(2, warmupRunner.getIterations());
+
+        String pattern = WarmupRunner.SCRATCH_USER_PREFIX + "%";
+        assertEquals(0, count("SELECT COUNT(*) FROM users WHERE username LIKE ?", pattern));
+        assertEquals(0, count("SELECT COUNT(*) FROM task_categories WHERE name = ?", "warmup"));
+        assertEquals(0, count("SELECT COUNT(*) FROM tasks WHERE title LIKE ?", "Warm-up task %"));
+    }
+
+    private long count(String sql, String argument) {
+        return jdbcTemplate.queryForObject(sql, Long.class, argument);
+    }
+}